@@ -0,0 +1,165 @@
+/*
+ * 筷字输入法 - 高效编辑需要又好又快的输入法
+ * Copyright (C) 2025 Crazydan Studio <https://studio.crazydan.org>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.
+ * If not, see <https://www.gnu.org/licenses/lgpl-3.0.en.html#license-text>.
+ */
+
+package org.crazydan.studio.app.ime.kuaizi;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.content.res.AssetManager;
+import android.os.Bundle;
+import android.os.Debug;
+import android.util.Log;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import org.crazydan.studio.app.ime.kuaizi.common.widget.ViewGestureTrace;
+import org.crazydan.studio.app.ime.kuaizi.core.Keyboard;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * 回放 {@link ViewGestureTrace 录制的手势}，以测量 {@link IMEditor} 的端到端输入耗时和内存分配
+ * <p/>
+ * 手势记录文件（<code>*.trace</code>）可放在 androidTest 的 <code>assets/gesture-traces</code> 目录中，
+ * 也可通过 instrumentation 参数 <code>gestureTraceDir</code> 指定设备上的目录，
+ * 如：<code>-e gestureTraceDir /sdcard/Download/traces</code>。
+ * 在未提供手势记录时，将跳过该测试
+ * <p/>
+ * 注：键盘状态机的正确性由 JVM 单元测试 <code>IMEditorKeyboardReplayTest</code> 校验，
+ * 该测试仅测量真实字典下的输入耗时和内存分配
+ *
+ * @author <a href="mailto:flytreeleft@crazydan.org">flytreeleft</a>
+ * @date 2025-06-10
+ */
+@RunWith(AndroidJUnit4.class)
+public class IMEditorGestureReplayTest extends IMEditorDictBaseTest {
+    private static final String LOG_TAG = IMEditorGestureReplayTest.class.getSimpleName();
+
+    private static final String TRACE_ASSET_DIR = "gesture-traces";
+    private static final String TRACE_DIR_ARG = "gestureTraceDir";
+
+    @Test
+    public void test_replay_gesture_traces() throws Exception {
+        Map<String, ViewGestureTrace> traces = loadTraces();
+        Assume.assumeFalse("No gesture trace to replay", traces.isEmpty());
+
+        for (Map.Entry<String, ViewGestureTrace> entry : traces.entrySet()) {
+            replay(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void replay(String name, ViewGestureTrace trace) {
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        Context context = instrumentation.getTargetContext();
+
+        IMEConfig config = IMEConfig.create(context);
+        IMEditor editor = IMEditor.create(config.mutable());
+
+        IMEditorGestureReplayer replayer = new IMEditorGestureReplayer(editor);
+
+        long[] costs = new long[trace.getEntries().size()];
+        long[] allocated = new long[1];
+
+        // Note: IMEditor 的消息处理需在主线程中进行
+        instrumentation.runOnMainSync(() -> {
+            editor.start(context, Keyboard.Type.Pinyin, true);
+
+            long allocStart = getAllocatedBytes();
+            replayer.replay(trace, costs);
+            allocated[0] = getAllocatedBytes() - allocStart;
+
+            editor.destroy();
+        });
+        config.destroy();
+
+        long[] sorted = Arrays.copyOf(costs, replayer.getReplayed());
+        Arrays.sort(sorted);
+
+        Log.i(LOG_TAG,
+              String.format("Replay %s: gestures=%d, replayed=%d, missed=%d, "
+                            + "p50=%.3fms, p90=%.3fms, p99=%.3fms, max=%.3fms, allocated=%dKB",
+                            name,
+                            trace.getEntries().size(),
+                            replayer.getReplayed(),
+                            replayer.getMissed(),
+                            percentile(sorted, 0.5),
+                            percentile(sorted, 0.9),
+                            percentile(sorted, 0.99),
+                            percentile(sorted, 1),
+                            allocated[0] / 1024));
+        Log.i(LOG_TAG, String.format("Replay %s: committed text is '%s'", name, replayer.getCommitted()));
+    }
+
+    private Map<String, ViewGestureTrace> loadTraces() throws IOException {
+        Map<String, ViewGestureTrace> traces = new LinkedHashMap<>();
+
+        Bundle args = InstrumentationRegistry.getArguments();
+        String dir = args.getString(TRACE_DIR_ARG);
+        if (dir != null) {
+            File[] files = new File(dir).listFiles((f) -> f.getName().endsWith(".trace"));
+
+            for (File file : files != null ? files : new File[0]) {
+                try (Reader reader = new FileReader(file)) {
+                    traces.put(file.getName(), ViewGestureTrace.read(reader));
+                }
+            }
+        }
+
+        // Note: 测试资源需通过测试应用自身的上下文获取
+        AssetManager assets = InstrumentationRegistry.getInstrumentation().getContext().getAssets();
+        String[] names = assets.list(TRACE_ASSET_DIR);
+        for (String name : names != null ? names : new String[0]) {
+            if (!name.endsWith(".trace")) {
+                continue;
+            }
+
+            try (Reader reader = new InputStreamReader(assets.open(TRACE_ASSET_DIR + "/" + name),
+                                                       StandardCharsets.UTF_8)) {
+                traces.put(name, ViewGestureTrace.read(reader));
+            }
+        }
+        return traces;
+    }
+
+    private static long getAllocatedBytes() {
+        String value = Debug.getRuntimeStat("art.gc.bytes-allocated");
+        return value != null ? Long.parseLong(value) : 0;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        index = Math.max(0, Math.min(sorted.length - 1, index));
+
+        return sorted[index] / 1000_000.0;
+    }
+}
@@ -28,6 +28,7 @@ import org.crazydan.studio.app.ime.kuaizi.IMEditorDict;
 import org.crazydan.studio.app.ime.kuaizi.IMEditorDictBaseTest;
 import org.crazydan.studio.app.ime.kuaizi.common.utils.CollectionUtils;
 import org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -55,6 +56,38 @@ public class DictDBUpgradeTest extends IMEditorDictBaseTest {
         Log.i(LOG_TAG, "SQLite version: " + CollectionUtils.first(dbVersion));
     }
 
+    @Test
+    public void test_covering_indexes_created_by_upgrade() {
+        IMEditorDict dict = IMEditorDict.instance();
+        SQLiteDatabase db = dict.getDB();
+
+        List<String> indexes = rawQuerySQLite(db, new DBUtils.SQLiteRawQueryParams<String>() {{
+            this.clause = "select name from sqlite_master where type = 'index'";
+            this.reader = (row) -> row.getString("name");
+        }});
+
+        Assert.assertTrue(indexes.contains("idx_ph_wrd_spell_chars_cvr"));
+        Assert.assertTrue(indexes.contains("idx_ph_trp_spell_chars_cvr"));
+        Assert.assertTrue(indexes.contains("idx_ph_trp_prev_word_spell_cvr"));
+        // 被覆盖索引替代的前缀索引已被删除
+        Assert.assertFalse(indexes.contains("idx_ph_wrd_spell_chars"));
+        Assert.assertFalse(indexes.contains("idx_ph_trp_spell_chars"));
+    }
+
+    @Test
+    public void test_incremental_vacuum_enabled_by_upgrade() {
+        IMEditorDict dict = IMEditorDict.instance();
+        SQLiteDatabase db = dict.getDB();
+
+        List<Integer> values = rawQuerySQLite(db, new DBUtils.SQLiteRawQueryParams<Integer>() {{
+            this.clause = "pragma auto_vacuum";
+            this.reader = (row) -> row.getInt("auto_vacuum");
+        }});
+
+        // 2 - incremental：在运行期间仅需增量回收空闲页，而不会执行完整的 vacuum
+        Assert.assertEquals(Integer.valueOf(2), CollectionUtils.first(values));
+    }
+
     @Test
     public void test_upgrade_sql_syntax() {
         IMEditorDict dict = IMEditorDict.instance();
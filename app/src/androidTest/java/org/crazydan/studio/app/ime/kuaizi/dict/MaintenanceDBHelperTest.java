@@ -0,0 +1,136 @@
+/*
+ * 筷字输入法 - 高效编辑需要又好又快的输入法
+ * Copyright (C) 2025 Crazydan Studio <https://studio.crazydan.org>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.
+ * If not, see <https://www.gnu.org/licenses/lgpl-3.0.en.html#license-text>.
+ */
+
+package org.crazydan.studio.app.ime.kuaizi.dict;
+
+import java.util.List;
+
+import android.database.sqlite.SQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import org.crazydan.studio.app.ime.kuaizi.IMEditorDict;
+import org.crazydan.studio.app.ime.kuaizi.IMEditorDictBaseTest;
+import org.crazydan.studio.app.ime.kuaizi.common.utils.CollectionUtils;
+import org.crazydan.studio.app.ime.kuaizi.dict.db.MaintenanceDBHelper;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.SQLiteRawQueryParams;
+import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.execSQLite;
+import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.rawQuerySQLite;
+
+/**
+ * @author <a href="mailto:flytreeleft@crazydan.org">flytreeleft</a>
+ * @date 2025-06-16
+ */
+@RunWith(AndroidJUnit4.class)
+public class MaintenanceDBHelperTest extends IMEditorDictBaseTest {
+    private static final long DAY_MS = 24 * 60 * 60 * 1000L;
+
+    /** 测试用的不存在的拼音字 id */
+    private static final int WORD_ID = 99_999_990;
+    private static final int RARE_WORD_ID = 99_999_991;
+
+    @Test
+    public void test_decay_user_weights() throws Exception {
+        // 确保后台维护已完成，避免其与测试数据相互影响
+        IMEditorDict.instance().maintain().get();
+
+        SQLiteDatabase db = IMEditorDict.instance().getDB();
+
+        // Note: 不提交事务，以回滚测试数据
+        db.beginTransaction();
+        try {
+            execSQLite(db,
+                       "insert into phrase_word"
+                       + " (word_id_, spell_chars_id_, weight_app_, weight_user_)"
+                       + " values (" + WORD_ID + ", 1, 0, 100), (" + RARE_WORD_ID + ", 1, 0, 1)",
+                       "insert into phrase_trans_prob"
+                       + " (word_id_, prev_word_id_, word_spell_chars_id_, prev_word_spell_chars_id_,"
+                       + "  value_app_, value_user_)"
+                       + " values (" + WORD_ID + ", -1, 1, -1, 0, 100), (" + RARE_WORD_ID + ", -1, 1, -1, 0, 1)");
+
+            // 清除后台维护所记录的衰减进度，以从当前时间开始衰减
+            execSQLite(db, "delete from meta_maintenance where name_ like 'user_weight_%'");
+
+            long now = System.currentTimeMillis();
+            // 确定衰减的起点
+            MaintenanceDBHelper.decayUserWeights(db, now, () -> false);
+
+            // 在一个半衰期内按周期多次维护，仅累计衰减时长，权重保持不变
+            for (int days = 30; days <= 180; days += 30) {
+                Assert.assertFalse(MaintenanceDBHelper.decayUserWeights(db, now + days * DAY_MS, () -> false));
+                Assert.assertEquals(Integer.valueOf(100), getUserWeight(db, WORD_ID));
+                Assert.assertEquals(Integer.valueOf(1), getUserWeight(db, RARE_WORD_ID));
+            }
+
+            // 超过一个半衰期后，按累计的 210 天做衰减（0.5^(210/180) ≈ 0.445），且低权重数据被清理
+            Assert.assertTrue(MaintenanceDBHelper.decayUserWeights(db, now + 210 * DAY_MS, () -> false));
+            Assert.assertEquals(Integer.valueOf(45), getUserWeight(db, WORD_ID));
+            Assert.assertNull(getUserWeight(db, RARE_WORD_ID));
+
+            Assert.assertEquals(Integer.valueOf(45), getUserTransValue(db, WORD_ID));
+            Assert.assertNull(getUserTransValue(db, RARE_WORD_ID));
+
+            // 继续按周期维护，直到再次超过一个半衰期
+            for (int days = 240; days <= 390; days += 30) {
+                Assert.assertFalse(MaintenanceDBHelper.decayUserWeights(db, now + days * DAY_MS, () -> false));
+                Assert.assertEquals(Integer.valueOf(45), getUserWeight(db, WORD_ID));
+            }
+
+            // 在处理完 phrase_word 后中断衰减：已处理的表不会在继续衰减时被重复衰减
+            Assert.assertFalse(MaintenanceDBHelper.decayUserWeights(db,
+                                                                    now + 420 * DAY_MS,
+                                                                    () -> getUserWeight(db, WORD_ID) != 45));
+            Assert.assertEquals(Integer.valueOf(20), getUserWeight(db, WORD_ID));
+            Assert.assertEquals(Integer.valueOf(45), getUserTransValue(db, WORD_ID));
+
+            // 继续衰减时，仍按中断前的衰减比例处理剩余的数据
+            Assert.assertTrue(MaintenanceDBHelper.decayUserWeights(db, now + 450 * DAY_MS, () -> false));
+            Assert.assertEquals(Integer.valueOf(20), getUserWeight(db, WORD_ID));
+            Assert.assertEquals(Integer.valueOf(20), getUserTransValue(db, WORD_ID));
+
+            // 衰减已完成，在一个半衰期内不再衰减
+            Assert.assertFalse(MaintenanceDBHelper.decayUserWeights(db, now + 480 * DAY_MS, () -> false));
+            Assert.assertEquals(Integer.valueOf(20), getUserTransValue(db, WORD_ID));
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private Integer getUserWeight(SQLiteDatabase db, int wordId) {
+        List<Integer> values = rawQuerySQLite(db, new SQLiteRawQueryParams<Integer>() {{
+            this.clause = "select weight_user_ from phrase_word where word_id_ = ?";
+            this.params = new String[] { wordId + "" };
+
+            this.reader = (row) -> row.getInt("weight_user_");
+        }});
+        return CollectionUtils.first(values);
+    }
+
+    private Integer getUserTransValue(SQLiteDatabase db, int wordId) {
+        List<Integer> values = rawQuerySQLite(db, new SQLiteRawQueryParams<Integer>() {{
+            this.clause = "select value_user_ from phrase_trans_prob where word_id_ = ? and prev_word_id_ = -1";
+            this.params = new String[] { wordId + "" };
+
+            this.reader = (row) -> row.getInt("value_user_");
+        }});
+        return CollectionUtils.first(values);
+    }
+}
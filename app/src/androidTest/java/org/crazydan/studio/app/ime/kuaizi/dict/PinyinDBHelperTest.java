@@ -34,10 +34,13 @@ import org.crazydan.studio.app.ime.kuaizi.IMEditorDict;
 import org.crazydan.studio.app.ime.kuaizi.IMEditorDictBaseTest;
 import org.crazydan.studio.app.ime.kuaizi.common.utils.CollectionUtils;
 import org.crazydan.studio.app.ime.kuaizi.core.input.word.PinyinWord;
+import org.crazydan.studio.app.ime.kuaizi.dict.db.HmmDBHelper;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.SQLiteRawQueryParams;
+import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.rawQuerySQLite;
 import static org.crazydan.studio.app.ime.kuaizi.dict.db.HmmDBHelper.predictPinyinPhrase;
 import static org.crazydan.studio.app.ime.kuaizi.dict.db.HmmDBHelper.saveUsedPinyinPhrase;
 import static org.crazydan.studio.app.ime.kuaizi.dict.db.PinyinDBHelper.getAllPinyinWordsByCharsId;
@@ -147,6 +150,46 @@ public class PinyinDBHelperTest extends IMEditorDictBaseTest {
         Assert.assertEquals(expectedPhrase, bestPhrase);
     }
 
+    @Test
+    public void test_predict_phrase_with_trigram() {
+        PinyinDict dict = IMEditorDict.instance().usePinyinDict();
+        SQLiteDatabase db = IMEditorDict.instance().getDB();
+
+        String pinyinCharsStr = "kuai,zi,shu,ru,fa";
+        String usedPhrase = "筷:kuài,字:zì,输:shū,入:rù,法:fǎ";
+        List<Integer> pinyinCharsIdList = getPinyinCharsIdList(dict, pinyinCharsStr.split(","));
+
+        List<PinyinWord> phraseWordList = Arrays.stream(usedPhrase.split(",")).map((word) -> {
+            String[] splits = word.split(":");
+            return getPinyinWord(db, splits[0], splits[1]);
+        }).collect(Collectors.toList());
+
+        // Note: 不提交事务，以回滚测试数据
+        db.beginTransaction();
+        try {
+            int lastWordId = phraseWordList.get(phraseWordList.size() - 1).id;
+            int before = sumTrigramValue(db, lastWordId);
+
+            // 仅出现次数达到阈值的二阶转移数据才参与预测
+            for (int i = 0; i < HmmDBHelper.TRIGRAM_MIN_COUNT; i++) {
+                saveUsedPinyinPhrase(db, phraseWordList, false);
+            }
+            // 末尾字的二阶转移及其总数
+            Assert.assertEquals(before + 2 * HmmDBHelper.TRIGRAM_MIN_COUNT, sumTrigramValue(db, lastWordId));
+
+            List<String> phraseList = getTopPhrases(db, pinyinCharsStr, pinyinCharsIdList, 1);
+            Assert.assertEquals(usedPhrase, CollectionUtils.first(phraseList));
+
+            // 撤销后，二阶转移数据恢复原状
+            for (int i = 0; i < HmmDBHelper.TRIGRAM_MIN_COUNT; i++) {
+                saveUsedPinyinPhrase(db, phraseWordList, true);
+            }
+            Assert.assertEquals(before, sumTrigramValue(db, lastWordId));
+        } finally {
+            db.endTransaction();
+        }
+    }
+
     @Test
     public void test_predict_phrase_with_not_record_pinyin() {
         PinyinDict dict = IMEditorDict.instance().usePinyinDict();
@@ -222,6 +265,15 @@ public class PinyinDBHelperTest extends IMEditorDictBaseTest {
         return getTopPhrases(db, pinyinCharsStr, pinyinCharsIdList, 5, null);
     }
 
+    private int sumTrigramValue(SQLiteDatabase db, int wordId) {
+        List<Integer> values = rawQuerySQLite(db, new SQLiteRawQueryParams<Integer>() {{
+            this.clause = "select ifnull(sum(value_user_), 0) as value_ from phrase_trigram where word_id_ = ?";
+            this.params = new String[] { wordId + "" };
+            this.reader = (row) -> row.getInt("value_");
+        }});
+        return CollectionUtils.first(values);
+    }
+
     private List<String> getTopPhrases(
             SQLiteDatabase db, String pinyinCharsStr, List<Integer> pinyinCharsIdList, int top
     ) {
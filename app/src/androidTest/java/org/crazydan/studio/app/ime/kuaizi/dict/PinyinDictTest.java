@@ -19,8 +19,12 @@
 
 package org.crazydan.studio.app.ime.kuaizi.dict;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import android.database.sqlite.SQLiteDatabase;
@@ -28,6 +32,8 @@ import android.util.Log;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import org.crazydan.studio.app.ime.kuaizi.IMEditorDict;
 import org.crazydan.studio.app.ime.kuaizi.IMEditorDictBaseTest;
+import org.crazydan.studio.app.ime.kuaizi.common.LazyPagedList;
+import org.crazydan.studio.app.ime.kuaizi.common.utils.CollectionUtils;
 import org.crazydan.studio.app.ime.kuaizi.core.input.CharInput;
 import org.crazydan.studio.app.ime.kuaizi.core.input.InputWord;
 import org.crazydan.studio.app.ime.kuaizi.core.input.word.PinyinWord;
@@ -36,6 +42,7 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.execSQLite;
 import static org.crazydan.studio.app.ime.kuaizi.dict.db.HmmDBHelper.saveUsedPinyinPhrase;
 import static org.crazydan.studio.app.ime.kuaizi.dict.db.PinyinDBHelper.getPinyinWord;
 
@@ -85,6 +92,225 @@ public class PinyinDictTest extends IMEditorDictBaseTest {
         Assert.assertEquals("这(zhè) 是(shì) Android 输(shū) 入(rù) 法(fǎ)", phraseText);
     }
 
+    @Test
+    public void test_findTopBestNextWords() {
+        PinyinDict dict = IMEditorDict.instance().usePinyinDict();
+        SQLiteDatabase db = IMEditorDict.instance().getDB();
+
+        PinyinWord prevWord = getPinyinWord(db, "筷", "kuài");
+        PinyinWord nextWord = getPinyinWord(db, "字", "zì");
+
+        // Note: 不提交事务，以回滚测试数据
+        db.beginTransaction();
+        try {
+            List<List<PinyinWord>> phrases = List.of(List.of(prevWord, nextWord));
+            for (int i = 0; i < 100; i++) {
+                saveUsedPinyinPhrase(db, phrases.get(0), false);
+            }
+            dict.invalidateNextWords(phrases);
+
+            // Note: 测试数据未提交，在后台线程中不可见，故而，在当前线程中查询并缓存
+            dict.getNextWords(prevWord.id);
+
+            List<PinyinWord> words = dict.findTopBestNextWords(prevWord, 5);
+            Log.i(LOG_TAG, prevWord + " -> " + words);
+
+            Assert.assertFalse(words.isEmpty());
+            Assert.assertEquals(nextWord.id, words.get(0).id);
+            // 再次查询直接命中缓存
+            Assert.assertSame(words.get(0), dict.findTopBestNextWords(prevWord, 5).get(0));
+            // 未收录字没有 id，不做联想
+            Assert.assertTrue(dict.findTopBestNextWords(PinyinWord.build(PinyinWord.Builder.noop), 5).isEmpty());
+        } finally {
+            db.endTransaction();
+            dict.invalidateNextWords(List.of(List.of(prevWord)));
+        }
+    }
+
+    @Test
+    public void test_getTopBestCandidateIds_with_prevWord() {
+        PinyinDict dict = IMEditorDict.instance().usePinyinDict();
+        SQLiteDatabase db = IMEditorDict.instance().getDB();
+
+        PinyinWord prevWord = getPinyinWord(db, "筷", "kuài");
+        PinyinWord nextWord = getPinyinWord(db, "紫", "zǐ");
+        CharInput input = CharInput.from(CharKey.from("zi"));
+
+        Assert.assertNotEquals(nextWord.id, dict.getTopBestCandidateIds(input, 1).get(0));
+
+        // Note: 不提交事务，以回滚测试数据
+        db.beginTransaction();
+        try {
+            // 仅增加字间转移数据，而不改变字的全局使用权重
+            execSQLite(db,
+                       "insert or replace into phrase_trans_prob"
+                       + " (word_id_, prev_word_id_, word_spell_chars_id_, prev_word_spell_chars_id_,"
+                       + "  value_app_, value_user_)"
+                       + " values (?, ?, ?, ?, 0, 100)",
+                       new Object[] { nextWord.id, prevWord.id, nextWord.spell.charsId, prevWord.spell.charsId });
+            dict.invalidateNextWords(List.of(List.of(prevWord)));
+
+            List<Integer> wordIds = dict.getTopBestCandidateIds(input, prevWord, 5);
+            Assert.assertEquals(5, wordIds.size());
+            Assert.assertEquals(nextWord.id, wordIds.get(0));
+
+            // 无前序字时，不做重排
+            Assert.assertEquals(dict.getTopBestCandidateIds(input, 5), dict.getTopBestCandidateIds(input, null, 5));
+        } finally {
+            db.endTransaction();
+            dict.invalidateNextWords(List.of(List.of(prevWord)));
+        }
+    }
+
+    @Test
+    public void test_findTopBestMatchedPhraseByInitials() {
+        PinyinDict dict = IMEditorDict.instance().usePinyinDict();
+
+        Map<String, String> sampleMap = new HashMap<String, String>() {{
+            put("zh,g", "中国");
+            put("b,j", "北京");
+            put("r,m", "人民");
+        }};
+
+        sampleMap.forEach((initials, expected) -> {
+            List<List<PinyinWord>> phrases = dict.findTopBestMatchedPhraseByInitials(Arrays.asList(initials.split(",")),
+                                                                                     5);
+            List<String> phraseTextList = phrases.stream()
+                                                 .map((phrase) -> phrase.stream()
+                                                                        .map((word) -> word.value)
+                                                                        .collect(Collectors.joining()))
+                                                 .collect(Collectors.toList());
+            Log.i(LOG_TAG, initials + ": " + phraseTextList);
+
+            Assert.assertTrue(phraseTextList.contains(expected));
+        });
+
+        // 单个声母不做预测
+        Assert.assertTrue(dict.findTopBestMatchedPhraseByInitials(List.of("zh"), 5).isEmpty());
+    }
+
+    @Test
+    public void test_findTopBestMatchedPhraseByInitials_with_user_phrase() {
+        PinyinDict dict = IMEditorDict.instance().usePinyinDict();
+        SQLiteDatabase db = IMEditorDict.instance().getDB();
+
+        String usedPhrase = "筷:kuài,字:zì,输:shū,入:rù,法:fǎ";
+        List<PinyinWord> phraseWordList = Arrays.stream(usedPhrase.split(",")).map((word) -> {
+            String[] splits = word.split(":");
+            return getPinyinWord(db, splits[0], splits[1]);
+        }).collect(Collectors.toList());
+        List<String> initialsList = List.of("k", "z", "sh", "r", "f");
+
+        // Note: 不提交事务，以回滚测试数据
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < 10; i++) {
+                saveUsedPinyinPhrase(db, phraseWordList, false);
+            }
+
+            List<List<PinyinWord>> phrases = dict.findTopBestMatchedPhraseByInitials(initialsList, 5);
+            List<String> phraseTextList = phrases.stream()
+                                                 .map((phrase) -> phrase.stream()
+                                                                        .map((word) -> word.value)
+                                                                        .collect(Collectors.joining()))
+                                                 .collect(Collectors.toList());
+            Log.i(LOG_TAG, initialsList + ": " + phraseTextList);
+
+            // 三个及以上的声母也能串联出用户输入过的短语
+            Assert.assertTrue(phraseTextList.contains("筷字输入法"));
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    @Test
+    public void test_createPagedCandidates() {
+        PinyinDict dict = IMEditorDict.instance().usePinyinDict();
+        CharInput input = CharInput.from(CharKey.from("yi"));
+        int pageSize = 20;
+
+        List<InputWord> allCandidates = new ArrayList<>(dict.getCandidates(input).values());
+        List<Integer> candidateIds = dict.getCandidateIds(input);
+        Assert.assertEquals(allCandidates.stream().map((w) -> w.id).collect(Collectors.toList()), candidateIds);
+
+        LazyPagedList<InputWord> candidates = dict.createPagedCandidates(List.of(), candidateIds, pageSize);
+        Assert.assertEquals(allCandidates.size(), candidates.size());
+        Assert.assertEquals(0, candidates.countLoaded());
+
+        // 仅构造首页及被预取的第二页
+        for (int i = 0; i < pageSize; i++) {
+            Assert.assertEquals(allCandidates.get(i), candidates.get(i));
+        }
+        Assert.assertTrue(candidates.countLoaded() <= pageSize * 2);
+    }
+
+    @Test
+    public void test_getCandidateFilterIndex() {
+        PinyinDict dict = IMEditorDict.instance().usePinyinDict();
+        CharInput input = CharInput.from(CharKey.from("yi"));
+
+        List<InputWord> allCandidates = new ArrayList<>(dict.getCandidates(input).values());
+        PinyinCandidateFilterIndex index = dict.getCandidateFilterIndex(input);
+        Assert.assertEquals(allCandidates.stream().map((w) -> w.id).collect(Collectors.toList()), index.getIds());
+
+        PinyinWord word = (PinyinWord) allCandidates.get(0);
+        PinyinWord.Filter filter = new PinyinWord.Filter(List.of(word.spell), List.of(word.radical));
+
+        // 过滤索引与逐个匹配的结果应一致
+        List<Integer> expected = allCandidates.stream()
+                                              .filter(filter::matched)
+                                              .map((w) -> w.id)
+                                              .collect(Collectors.toList());
+        Assert.assertEquals(expected, index.filterIds(filter));
+
+        Map<PinyinWord.Radical, Integer> radicals = index.countRadicals(List.of(word.spell));
+        Assert.assertEquals(Integer.valueOf(expected.size()), radicals.get(word.radical));
+    }
+
+    @Test
+    public void test_segmentPinyinChars() {
+        PinyinDict dict = IMEditorDict.instance().usePinyinDict();
+
+        Assert.assertEquals(List.of("wo", "xiang", "chi", "fan"), dict.segmentPinyinChars("woxiangchifan"));
+        Assert.assertEquals(List.of("xian"), dict.segmentPinyinChars("xian"));
+        Assert.assertEquals(List.of("xi", "an"), dict.segmentPinyinChars("xi'an"));
+        Assert.assertEquals(List.of("zhong", "guo", "v", "ren"), dict.segmentPinyinChars("ZhongGuovren"));
+
+        List<CharInput> inputs = dict.parsePinyinInputs("zhongguoren");
+        Assert.assertEquals(3, inputs.size());
+
+        List<List<InputWord>> phrases = dict.findTopBestMatchedPhrase(inputs, null, 1);
+        String phraseText = phrases.get(0).stream().map((w) -> w.value).collect(Collectors.joining());
+        Assert.assertEquals("中国人", phraseText);
+    }
+
+    @Test
+    public void test_fuzzy_pinyin_candidates() {
+        PinyinDict dict = IMEditorDict.instance().usePinyinDict();
+        PinyinCharsTree tree = dict.getPinyinCharsTree();
+
+        Integer zan = tree.getCharsId("zan");
+        Integer zhi = tree.getCharsId("zhi");
+        try {
+            tree.setFuzzyRules(Set.of(PinyinCharsTree.FuzzyRule.z_zh, PinyinCharsTree.FuzzyRule.an_ang));
+
+            Set<Integer> aliases = tree.getAliasCharsIds(zan);
+            Assert.assertEquals(Set.of(tree.getCharsId("zhan"), tree.getCharsId("zang"), tree.getCharsId("zhang")),
+                                aliases);
+            Assert.assertTrue(tree.isFuzzyMatched(zhi, tree.getCharsId("zi")));
+
+            // 精确匹配的候选字在前，模糊音匹配的在后
+            List<InputWord> candidates = new ArrayList<>(dict.getCandidates(CharInput.from(CharKey.from("zi")))
+                                                             .values());
+            Assert.assertEquals(tree.getCharsId("zi"), ((PinyinWord) candidates.get(0)).spell.charsId);
+            Assert.assertEquals(zhi, ((PinyinWord) CollectionUtils.last(candidates)).spell.charsId);
+        } finally {
+            tree.setFuzzyRules(Set.of());
+        }
+
+        Assert.assertTrue(tree.getAliasCharsIds(zan).isEmpty());
+    }
+
     private List<CharInput> parseCharInputs(PinyinDict dict, String[] texts) {
         return Arrays.stream(texts).map((text) -> {
             CharInput input = CharInput.from(CharKey.from(text));
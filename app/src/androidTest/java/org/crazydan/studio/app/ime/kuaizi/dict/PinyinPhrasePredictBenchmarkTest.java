@@ -0,0 +1,283 @@
+/*
+ * 筷字输入法 - 高效编辑需要又好又快的输入法
+ * Copyright (C) 2025 Crazydan Studio <https://studio.crazydan.org>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.
+ * If not, see <https://www.gnu.org/licenses/lgpl-3.0.en.html#license-text>.
+ */
+
+package org.crazydan.studio.app.ime.kuaizi.dict;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Bundle;
+import android.util.Log;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import org.crazydan.studio.app.ime.kuaizi.IMEditorDict;
+import org.crazydan.studio.app.ime.kuaizi.IMEditorDictBaseTest;
+import org.crazydan.studio.app.ime.kuaizi.core.input.CharInput;
+import org.crazydan.studio.app.ime.kuaizi.core.input.InputWord;
+import org.crazydan.studio.app.ime.kuaizi.core.input.word.PinyinWord;
+import org.crazydan.studio.app.ime.kuaizi.core.key.CharKey;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.crazydan.studio.app.ime.kuaizi.dict.db.HmmDBHelper.predictPinyinPhrase;
+import static org.crazydan.studio.app.ime.kuaizi.dict.db.HmmDBHelper.saveUsedPinyinPhrase;
+import static org.crazydan.studio.app.ime.kuaizi.dict.db.PinyinDBHelper.getPinyinWord;
+
+/**
+ * 基于拼音语料的短语预测准确率和耗时的基准测试
+ * <p/>
+ * 语料默认取自 androidTest 的 <code>assets/pinyin-corpus.txt</code>，
+ * 也可通过 instrumentation 参数 <code>pinyinCorpusFile</code> 指定设备上的语料文件。
+ * 语料的每行为一个短语，格式为 <code>拼音字母组合（逗号分隔）\t字:拼音（逗号分隔）</code>
+ * <p/>
+ * 测试分为三轮：未训练、以偶数行语料模拟用户输入后的训练，以及撤销训练后的复原，
+ * 训练后的准确率分别按 已输入（偶数行）和 未输入（奇数行）的语料统计
+ *
+ * @author <a href="mailto:flytreeleft@crazydan.org">flytreeleft</a>
+ * @date 2025-06-12
+ */
+@RunWith(AndroidJUnit4.class)
+public class PinyinPhrasePredictBenchmarkTest extends IMEditorDictBaseTest {
+    private static final String LOG_TAG = PinyinPhrasePredictBenchmarkTest.class.getSimpleName();
+
+    private static final String CORPUS_ASSET = "pinyin-corpus.txt";
+    private static final String CORPUS_FILE_ARG = "pinyinCorpusFile";
+
+    private static final int userPhraseBaseWeight = 500;
+    private static final int top = 3;
+
+    @Test
+    public void test_predict_phrase_with_corpus() throws Exception {
+        PinyinDict dict = IMEditorDict.instance().usePinyinDict();
+        SQLiteDatabase db = IMEditorDict.instance().getDB();
+
+        List<Sample> samples = loadSamples(dict, db);
+        Assert.assertNotEquals(0, samples.size());
+
+        List<Sample> trained = new ArrayList<>();
+        List<Sample> untrained = new ArrayList<>();
+        for (int i = 0; i < samples.size(); i++) {
+            (i % 2 == 0 ? trained : untrained).add(samples.get(i));
+        }
+
+        // 预热：避免首次查询的编译和缓存开销影响统计
+        evaluate(dict, db, samples.subList(0, Math.min(10, samples.size())));
+
+        Stats baseline = evaluate(dict, db, samples);
+        log("baseline", baseline);
+
+        try {
+            trained.forEach((sample) -> saveUsedPinyinPhrase(db, sample.words, false));
+
+            Stats seen = evaluate(dict, db, trained);
+            log("trained:seen", seen);
+
+            Stats unseen = evaluate(dict, db, untrained);
+            log("trained:unseen", unseen);
+
+            // 已输入过的短语，其预测准确率不应低于未训练时
+            Assert.assertTrue(seen.percent(seen.top1) >= baseline.percent(baseline.top1));
+        } finally {
+            // 撤销训练数据，以免影响其他测试
+            trained.forEach((sample) -> saveUsedPinyinPhrase(db, sample.words, true));
+        }
+
+        Stats restored = evaluate(dict, db, samples);
+        log("restored", restored);
+    }
+
+    private Stats evaluate(PinyinDict dict, SQLiteDatabase db, List<Sample> samples) {
+        Stats stats = new Stats(samples.size());
+
+        for (Sample sample : samples) {
+            long start = System.nanoTime();
+            predictPinyinPhrase(db, sample.pinyinCharsIdList, userPhraseBaseWeight, top);
+            stats.predictCosts[stats.total] = System.nanoTime() - start;
+
+            List<CharInput> inputs = parseCharInputs(dict, sample.pinyinCharsList);
+
+            start = System.nanoTime();
+            List<List<InputWord>> phrases = dict.findTopBestMatchedPhrase(inputs, null, top);
+            stats.findCosts[stats.total] = System.nanoTime() - start;
+
+            for (int i = 0; i < phrases.size(); i++) {
+                if (!sample.matches(phrases.get(i))) {
+                    continue;
+                }
+
+                if (i == 0) {
+                    stats.top1 += 1;
+                }
+                stats.top3 += 1;
+                break;
+            }
+            stats.total += 1;
+        }
+        return stats;
+    }
+
+    private void log(String phase, Stats stats) {
+        Log.i(LOG_TAG,
+              String.format("[%s] sentences=%d, top1=%.2f%%, top3=%.2f%%, "
+                            + "predict(p50/p90/p99)=%.3f/%.3f/%.3fms, find(p50/p90/p99)=%.3f/%.3f/%.3fms",
+                            phase,
+                            stats.total,
+                            stats.percent(stats.top1),
+                            stats.percent(stats.top3),
+                            percentile(stats.predictCosts, 0.5),
+                            percentile(stats.predictCosts, 0.9),
+                            percentile(stats.predictCosts, 0.99),
+                            percentile(stats.findCosts, 0.5),
+                            percentile(stats.findCosts, 0.9),
+                            percentile(stats.findCosts, 0.99)));
+    }
+
+    private List<Sample> loadSamples(PinyinDict dict, SQLiteDatabase db) throws IOException {
+        Bundle args = InstrumentationRegistry.getArguments();
+        String file = args.getString(CORPUS_FILE_ARG);
+
+        List<Sample> samples = new ArrayList<>();
+        try (InputStream input = file != null
+                                 ? new FileInputStream(file)
+                                 // Note: 测试资源需通过测试应用自身的上下文获取
+                                 : InstrumentationRegistry.getInstrumentation()
+                                                          .getContext()
+                                                          .getAssets()
+                                                          .open(CORPUS_ASSET);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))
+        ) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                Sample sample = Sample.parse(dict, db, line);
+                if (sample == null) {
+                    Log.w(LOG_TAG, "Ignore unrecorded sample: " + line);
+                } else {
+                    samples.add(sample);
+                }
+            }
+        }
+        return samples;
+    }
+
+    private List<CharInput> parseCharInputs(PinyinDict dict, List<String> texts) {
+        return texts.stream().map((text) -> {
+            CharInput input = CharInput.from(CharKey.from(text));
+
+            // Note: 这里仅用于标记输入为拼音输入
+            input.setWord(PinyinWord.build(PinyinWord.Builder.noop));
+
+            return input;
+        }).collect(Collectors.toList());
+    }
+
+    private static double percentile(long[] costs, double p) {
+        long[] sorted = Arrays.stream(costs).filter((c) -> c > 0).sorted().toArray();
+        if (sorted.length == 0) {
+            return 0;
+        }
+
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        index = Math.max(0, Math.min(sorted.length - 1, index));
+
+        return sorted[index] / 1000_000.0;
+    }
+
+    private static class Sample {
+        final List<String> pinyinCharsList;
+        final List<Integer> pinyinCharsIdList;
+        final List<PinyinWord> words;
+
+        Sample(List<String> pinyinCharsList, List<Integer> pinyinCharsIdList, List<PinyinWord> words) {
+            this.pinyinCharsList = pinyinCharsList;
+            this.pinyinCharsIdList = pinyinCharsIdList;
+            this.words = words;
+        }
+
+        /** 若语料中的拼音或字未被收录，则返回 null */
+        static Sample parse(PinyinDict dict, SQLiteDatabase db, String line) {
+            String[] splits = line.split("\t");
+            if (splits.length != 2) {
+                return null;
+            }
+
+            List<String> pinyinCharsList = List.of(splits[0].split(","));
+            List<Integer> pinyinCharsIdList = PinyinDBHelperTest.getPinyinCharsIdList(dict, pinyinCharsList);
+
+            List<PinyinWord> words = Arrays.stream(splits[1].split(",")).map((word) -> {
+                String[] pair = word.split(":");
+                return pair.length == 2 ? getPinyinWord(db, pair[0], pair[1]) : null;
+            }).collect(Collectors.toList());
+
+            if (pinyinCharsIdList.contains(null) //
+                || words.contains(null) //
+                || words.size() != pinyinCharsList.size()) {
+                return null;
+            }
+            return new Sample(pinyinCharsList, pinyinCharsIdList, words);
+        }
+
+        boolean matches(List<InputWord> phrase) {
+            if (phrase.size() != this.words.size()) {
+                return false;
+            }
+
+            for (int i = 0; i < phrase.size(); i++) {
+                InputWord word = phrase.get(i);
+                if (word == null || !Objects.equals(word.id, this.words.get(i).id)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class Stats {
+        final long[] predictCosts;
+        final long[] findCosts;
+
+        int total;
+        int top1;
+        int top3;
+
+        Stats(int size) {
+            this.predictCosts = new long[size];
+            this.findCosts = new long[size];
+        }
+
+        double percent(int count) {
+            return this.total > 0 ? count * 100.0 / this.total : 0;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * 筷字输入法 - 高效编辑需要又好又快的输入法
+ * Copyright (C) 2025 Crazydan Studio <https://studio.crazydan.org>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.
+ * If not, see <https://www.gnu.org/licenses/lgpl-3.0.en.html#license-text>.
+ */
+
+package org.crazydan.studio.app.ime.kuaizi.dict;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Bundle;
+import android.util.Log;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import org.crazydan.studio.app.ime.kuaizi.IMEditorDict;
+import org.crazydan.studio.app.ime.kuaizi.IMEditorDictBaseTest;
+import org.crazydan.studio.app.ime.kuaizi.core.input.word.PinyinWord;
+import org.crazydan.studio.app.ime.kuaizi.dict.db.MaintenanceDBHelper;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.SQLiteRawQueryParams;
+import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.execSQLite;
+import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.rawQuerySQLite;
+import static org.crazydan.studio.app.ime.kuaizi.dict.PinyinDBHelperTest.getPinyinCharsIdList;
+import static org.crazydan.studio.app.ime.kuaizi.dict.db.HmmDBHelper.predictPinyinPhrase;
+import static org.crazydan.studio.app.ime.kuaizi.dict.db.HmmDBHelper.saveUsedPinyinPhrase;
+import static org.crazydan.studio.app.ime.kuaizi.dict.db.PinyinDBHelper.getPinyinWord;
+import static org.crazydan.studio.app.ime.kuaizi.dict.db.PinyinDBHelper.getTopBestPinyinWordIds;
+
+/**
+ * 用户库数据量增长后的读写性能基准测试
+ * <p/>
+ * 通过随机生成的用户输入数据将用户库逐级扩充到指定的规模，
+ * 并在每个规模下分别测量{@link MaintenanceDBHelper#maintain 维护}前后的读写耗时。
+ * 规模可通过 instrumentation 参数 <code>userDBScaleSizes</code> 指定，
+ * 如：<code>-e userDBScaleSizes 10000,100000,1000000</code>
+ * <p/>
+ * 全部的数据变更均在未提交的事务中进行，测试结束后将被回滚，不会影响用户库
+ *
+ * @author <a href="mailto:flytreeleft@crazydan.org">flytreeleft</a>
+ * @date 2025-06-14
+ */
+@RunWith(AndroidJUnit4.class)
+public class UserDBScaleBenchmarkTest extends IMEditorDictBaseTest {
+    private static final String LOG_TAG = UserDBScaleBenchmarkTest.class.getSimpleName();
+
+    private static final String SCALE_SIZES_ARG = "userDBScaleSizes";
+    private static final String DEFAULT_SCALE_SIZES = "10000,100000";
+
+    private static final int userPhraseBaseWeight = 500;
+    private static final int batchSize = 10000;
+    private static final int rounds = 20;
+
+    private static final String[] samplePinyinChars = new String[] {
+            "zhong,hua,ren,min,gong,he,guo", "shi,jie,ren,min,da,tuan,jie", "wo,ai,kuai,zi,shu,ru,fa",
+            };
+    private static final String samplePhrase = "筷:kuài,字:zì,输:shū,入:rù,法:fǎ";
+
+    @Test
+    public void test_read_write_with_scaled_user_data() throws Exception {
+        IMEditorDict.instance().maintain().get();
+
+        PinyinDict dict = IMEditorDict.instance().usePinyinDict();
+        SQLiteDatabase db = IMEditorDict.instance().getDB();
+
+        List<List<Integer>> pinyinCharsIdListList = Arrays.stream(samplePinyinChars)
+                                                          .map((chars) -> getPinyinCharsIdList(dict, chars.split(",")))
+                                                          .collect(Collectors.toList());
+        List<PinyinWord> phrase = Arrays.stream(samplePhrase.split(",")).map((word) -> {
+            String[] splits = word.split(":");
+            return getPinyinWord(db, splits[0], splits[1]);
+        }).collect(Collectors.toList());
+
+        List<int[]> pinyinWords = getAllPinyinWords(db);
+        Assert.assertNotEquals(0, pinyinWords.size());
+
+        Random random = new Random(20250614);
+        long[] sizes = getScaleSizes();
+
+        // Note: 不提交事务，以回滚测试数据
+        db.beginTransaction();
+        try {
+            long inflated = 0;
+            for (long size : sizes) {
+                long start = System.nanoTime();
+                inflateUserData(db, pinyinWords, random, size - inflated);
+                long inflateCost = System.nanoTime() - start;
+                inflated = size;
+
+                Log.i(LOG_TAG,
+                      String.format("[size=%d] inflated in %.3fs, user rows: word=%d, trans_prob=%d",
+                                    size,
+                                    inflateCost / 1000_000_000.0,
+                                    countUserRows(db, "phrase_word", "weight_user_"),
+                                    countUserRows(db, "phrase_trans_prob", "value_user_")));
+
+                measure(db, "before-maintain", size, pinyinCharsIdListList, phrase);
+
+                start = System.nanoTime();
+                MaintenanceDBHelper.maintain(db);
+                long maintainCost = System.nanoTime() - start;
+                Log.i(LOG_TAG, String.format("[size=%d] maintained in %.3fs", size, maintainCost / 1000_000_000.0));
+
+                measure(db, "after-maintain", size, pinyinCharsIdListList, phrase);
+            }
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private void measure(
+            SQLiteDatabase db, String phase, long size, //
+            List<List<Integer>> pinyinCharsIdListList, List<PinyinWord> phrase
+    ) {
+        long[] predictCosts = new long[rounds * pinyinCharsIdListList.size()];
+        long[] topWordsCosts = new long[rounds * pinyinCharsIdListList.size()];
+        long[] saveCosts = new long[rounds];
+
+        for (int i = 0; i < rounds; i++) {
+            for (int j = 0; j < pinyinCharsIdListList.size(); j++) {
+                List<Integer> pinyinCharsIdList = pinyinCharsIdListList.get(j);
+                int index = i * pinyinCharsIdListList.size() + j;
+
+                long start = System.nanoTime();
+                predictPinyinPhrase(db, pinyinCharsIdList, userPhraseBaseWeight, 5);
+                predictCosts[index] = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (Integer pinyinCharsId : pinyinCharsIdList) {
+                    getTopBestPinyinWordIds(db, pinyinCharsId, userPhraseBaseWeight, 10);
+                }
+                topWordsCosts[index] = System.nanoTime() - start;
+            }
+
+            long start = System.nanoTime();
+            saveUsedPinyinPhrase(db, phrase, false);
+            saveCosts[i] = System.nanoTime() - start;
+        }
+
+        Log.i(LOG_TAG,
+              String.format("[size=%d] %s: predict(p50/p99)=%.3f/%.3fms, "
+                            + "top words(p50/p99)=%.3f/%.3fms, save(p50/p99)=%.3f/%.3fms",
+                            size,
+                            phase,
+                            percentile(predictCosts, 0.5),
+                            percentile(predictCosts, 0.99),
+                            percentile(topWordsCosts, 0.5),
+                            percentile(topWordsCosts, 0.99),
+                            percentile(saveCosts, 0.5),
+                            percentile(saveCosts, 0.99)));
+    }
+
+    /** 随机生成 <code>count</code> 个用户字间转移数据，并同步增加相应字的用户权重 */
+    private void inflateUserData(SQLiteDatabase db, List<int[]> pinyinWords, Random random, long count) {
+        List<Object[]> transProbArgs = new ArrayList<>(batchSize);
+        List<Object[]> wordArgs = new ArrayList<>(batchSize);
+
+        for (long i = 0; i < count; i++) {
+            int[] curr = pinyinWords.get(random.nextInt(pinyinWords.size()));
+            int[] prev = pinyinWords.get(random.nextInt(pinyinWords.size()));
+            int value = 1 + random.nextInt(10);
+
+            transProbArgs.add(new Object[] { value, curr[0], prev[0], curr[1], prev[1] });
+            wordArgs.add(new Object[] { value, curr[0], curr[1] });
+
+            if (transProbArgs.size() >= batchSize || i == count - 1) {
+                // Note: 已存在的数据将被忽略，故而，实际新增的数据量会略少于 count
+                execSQLite(db,
+                           "insert or ignore into phrase_trans_prob ("
+                           + "   value_app_, value_user_,"
+                           + "   word_id_, prev_word_id_,"
+                           + "   word_spell_chars_id_, prev_word_spell_chars_id_"
+                           + " ) values (0, ?, ?, ?, ?, ?)",
+                           transProbArgs);
+                execSQLite(db,
+                           "insert or ignore into phrase_word ("
+                           + "   weight_app_, weight_user_,"
+                           + "   word_id_, spell_chars_id_"
+                           + " ) values (0, ?, ?, ?)",
+                           wordArgs);
+
+                transProbArgs.clear();
+                wordArgs.clear();
+            }
+        }
+    }
+
+    /** @return 列表元素为 <code>[拼音字 id, 拼音字母组合 id]</code> */
+    private List<int[]> getAllPinyinWords(SQLiteDatabase db) {
+        return rawQuerySQLite(db, new SQLiteRawQueryParams<int[]>() {{
+            this.clause = "select id_, spell_chars_id_ from pinyin_word";
+            this.reader = (row) -> new int[] { row.getInt("id_"), row.getInt("spell_chars_id_") };
+        }});
+    }
+
+    private long countUserRows(SQLiteDatabase db, String table, String userColumn) {
+        List<Long> counts = rawQuerySQLite(db, new SQLiteRawQueryParams<Long>() {{
+            this.clause = "select count(*) as count_ from " + table + " where " + userColumn + " > 0";
+            this.reader = (row) -> row.getLong("count_");
+        }});
+        return counts.get(0);
+    }
+
+    private long[] getScaleSizes() {
+        Bundle args = InstrumentationRegistry.getArguments();
+        String sizes = args.getString(SCALE_SIZES_ARG, DEFAULT_SCALE_SIZES);
+
+        return Arrays.stream(sizes.split(",")).mapToLong(Long::parseLong).sorted().toArray();
+    }
+
+    private static double percentile(long[] costs, double p) {
+        long[] sorted = Arrays.stream(costs).sorted().toArray();
+        if (sorted.length == 0) {
+            return 0;
+        }
+
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        index = Math.max(0, Math.min(sorted.length - 1, index));
+
+        return sorted[index] / 1000_000.0;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * 筷字输入法 - 高效编辑需要又好又快的输入法
+ * Copyright (C) 2025 Crazydan Studio <https://studio.crazydan.org>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.
+ * If not, see <https://www.gnu.org/licenses/lgpl-3.0.en.html#license-text>.
+ */
+
+package org.crazydan.studio.app.ime.kuaizi.dict;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import org.crazydan.studio.app.ime.kuaizi.IMEditorDict;
+import org.crazydan.studio.app.ime.kuaizi.IMEditorDictBaseTest;
+import org.crazydan.studio.app.ime.kuaizi.common.utils.CollectionUtils;
+import org.crazydan.studio.app.ime.kuaizi.dict.db.UserDataBackupDBHelper;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.SQLiteRawQueryParams;
+import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.execSQLite;
+import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.rawQuerySQLite;
+
+/**
+ * @author <a href="mailto:flytreeleft@crazydan.org">flytreeleft</a>
+ * @date 2025-06-18
+ */
+@RunWith(AndroidJUnit4.class)
+public class UserDataBackupDBHelperTest extends IMEditorDictBaseTest {
+    private static final String LOG_TAG = UserDataBackupDBHelperTest.class.getSimpleName();
+
+    /** 测试用的不存在的拼音字 id */
+    private static final int WORD_ID = 99_999_990;
+    private static final String LATIN = "kuaizi-backup-test";
+
+    @Test
+    public void test_export_and_import_user_data() throws Exception {
+        SQLiteDatabase db = IMEditorDict.instance().getDB();
+        String version = IMEditorDict.LATEST_VERSION;
+
+        // Note: 不提交事务，以回滚测试数据
+        db.beginTransaction();
+        try {
+            execSQLite(db,
+                       "insert into phrase_word"
+                       + " (word_id_, spell_chars_id_, weight_app_, weight_user_)"
+                       + " values (" + WORD_ID + ", 1, 0, 3)",
+                       "insert into phrase_trans_prob"
+                       + " (word_id_, prev_word_id_, word_spell_chars_id_, prev_word_spell_chars_id_,"
+                       + "  value_app_, value_user_)"
+                       + " values (" + WORD_ID + ", -1, 1, -1, 0, 2)",
+                       "insert into meta_latin (value_, weight_user_) values ('" + LATIN + "', 5)");
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            UserDataBackupDBHelper.exportUserData(db, version, output);
+
+            byte[] data = output.toByteArray();
+            Log.i(LOG_TAG, "Exported user data size: " + data.length + " bytes");
+
+            // 导入即为累加合并
+            UserDataBackupDBHelper.importUserData(db, version, new ByteArrayInputStream(data));
+
+            Assert.assertEquals(Integer.valueOf(6),
+                                queryInt(db,
+                                         "select weight_user_ as v_ from phrase_word where word_id_ = "
+                                         + WORD_ID));
+            Assert.assertEquals(Integer.valueOf(4),
+                                queryInt(db,
+                                         "select value_user_ as v_ from phrase_trans_prob"
+                                         + " where word_id_ = " + WORD_ID + " and prev_word_id_ = -1"));
+            Assert.assertEquals(Integer.valueOf(10),
+                                queryInt(db,
+                                         "select weight_user_ as v_ from meta_latin where value_ = '"
+                                         + LATIN + "'"));
+
+            // 字典版本不一致的数据不能导入
+            Assert.assertThrows(IllegalArgumentException.class,
+                                () -> UserDataBackupDBHelper.importUserData(db,
+                                                                            "v0",
+                                                                            new ByteArrayInputStream(data)));
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private Integer queryInt(SQLiteDatabase db, String clause) {
+        List<Integer> values = rawQuerySQLite(db, new SQLiteRawQueryParams<Integer>() {{
+            this.clause = clause;
+            this.reader = (row) -> row.getInt("v_");
+        }});
+        return CollectionUtils.first(values);
+    }
+}
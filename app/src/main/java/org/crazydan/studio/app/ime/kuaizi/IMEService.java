@@ -42,7 +42,9 @@ import org.crazydan.studio.app.ime.kuaizi.conf.ConfigChangeListener;
 import org.crazydan.studio.app.ime.kuaizi.conf.ConfigKey;
 import org.crazydan.studio.app.ime.kuaizi.core.Keyboard;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsg;
+import org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsgBus;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsgListener;
+import org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsgType;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.UserInputMsg;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.UserKeyMsg;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.UserMsgListener;
@@ -69,6 +71,21 @@ public class IMEService extends InputMethodService implements UserMsgListener, I
     /** 记录可撤回输入的选区信息 */
     private EditorSelection.ChangeRevertion editorChangeRevertion;
 
+    /** 仅派发需在当前层处理的消息，其余消息均已转发给视图层，故仅做记录 */
+    private final InputMsgBus msgBus = new InputMsgBus() //
+            .subscribe(this::on_InputList_Commit_Doing_Msg, InputMsgType.InputList_Commit_Doing) //
+            .subscribe(this::on_InputList_Committed_Revoke_Doing_Msg, InputMsgType.InputList_Committed_Revoke_Doing) //
+            .subscribe(this::on_InputList_PairSymbol_Commit_Doing_Msg, InputMsgType.InputList_PairSymbol_Commit_Doing) //
+            .subscribe(this::on_InputText_Commit_Doing_Msg,
+                       InputMsgType.InputFavorite_Text_Commit_Doing,
+                       InputMsgType.InputClip_Text_Commit_Doing) //
+            .subscribe((msg) -> moveCursor(msg.data()), InputMsgType.Editor_Cursor_Move_Doing) //
+            .subscribe((msg) -> selectText(msg.data()), InputMsgType.Editor_Range_Select_Doing) //
+            .subscribe(this::on_Editor_Edit_Doing_Msg, InputMsgType.Editor_Edit_Doing) //
+            .subscribe((msg) -> switchIme(), InputMsgType.IME_Switch_Doing) //
+            .subscribe(this::on_Keyboard_Close_Doing_Msg, InputMsgType.Keyboard_Close_Doing) //
+            .subscribeRest((msg) -> this.log.warn("Ignore message %s", () -> new Object[] { msg.type }));
+
     // =============================== Start: 生命周期 ===================================
 
     /** 系统输入法切换到本输入法时调用 */
@@ -270,70 +287,49 @@ public class IMEService extends InputMethodService implements UserMsgListener, I
                 .debug("Message Type: %s", () -> new Object[] { msg.type }) //
                 .debug("Message Data: %s", () -> new Object[] { msg.data() });
 
-        handleMsg(msg);
+        this.msgBus.onMsg(msg);
 
         this.log.endTreeLog();
     }
 
-    private void handleMsg(InputMsg msg) {
-        switch (msg.type) {
-            case InputList_Commit_Doing: {
-                this.editorChangeRevertion = null;
+    private void on_InputList_Commit_Doing_Msg(InputMsg msg) {
+        this.editorChangeRevertion = null;
 
-                InputListCommitMsgData d = msg.data();
-                commitText(d.text, d.replacements);
-                break;
-            }
-            case InputList_Committed_Revoke_Doing: {
-                revokeTextCommitting();
-                this.editorChangeRevertion = null;
-                break;
-            }
-            case InputList_PairSymbol_Commit_Doing: {
-                this.editorChangeRevertion = null;
+        InputListCommitMsgData d = msg.data();
+        commitText(d.text, d.replacements);
+    }
 
-                InputListPairSymbolCommitMsgData d = msg.data();
-                commitPairSymbolText(d.left, d.right);
-                break;
-            }
-            case Editor_Cursor_Move_Doing: {
-                moveCursor(msg.data());
-                break;
-            }
-            case InputFavorite_Text_Commit_Doing:
-            case InputClip_Text_Commit_Doing: {
-                InputTextCommitMsgData d = msg.data();
-                commitText(d.text, d.oneByOne, false);
-                break;
-            }
-            case Editor_Range_Select_Doing: {
-                selectText(msg.data());
-                break;
-            }
-            case Editor_Edit_Doing: {
-                EditorEditMsgData d = msg.data();
+    private void on_InputList_Committed_Revoke_Doing_Msg(InputMsg msg) {
+        revokeTextCommitting();
+        this.editorChangeRevertion = null;
+    }
 
-                if (EditorAction.hasEditorEffect(d.action)) {
-                    this.editorChangeRevertion = null;
-                }
-                editText(d.action);
-                break;
-            }
-            case IME_Switch_Doing: {
-                switchIme();
-                break;
-            }
-            case Keyboard_Close_Doing: {
-                // Note: 在高版本 Android 中，其可能无法隐藏窗口，原因未知
-                hideWindow();
-                // Note: 发送退出按键消息，其行为由编辑器决定，可能会导致已输入内容丢失
-                //sendKey(KeyEvent.KEYCODE_BACK);
-                break;
-            }
-            default: {
-                this.log.warn("Ignore message %s", () -> new Object[] { msg.type });
-            }
+    private void on_InputList_PairSymbol_Commit_Doing_Msg(InputMsg msg) {
+        this.editorChangeRevertion = null;
+
+        InputListPairSymbolCommitMsgData d = msg.data();
+        commitPairSymbolText(d.left, d.right);
+    }
+
+    private void on_InputText_Commit_Doing_Msg(InputMsg msg) {
+        InputTextCommitMsgData d = msg.data();
+        commitText(d.text, d.oneByOne, false);
+    }
+
+    private void on_Editor_Edit_Doing_Msg(InputMsg msg) {
+        EditorEditMsgData d = msg.data();
+
+        if (EditorAction.hasEditorEffect(d.action)) {
+            this.editorChangeRevertion = null;
         }
+        editText(d.action);
+    }
+
+    private void on_Keyboard_Close_Doing_Msg(InputMsg msg) {
+        // Note: 在高版本 Android 中，其可能无法隐藏窗口，原因未知
+        hideWindow();
+        // Note: 发送退出按键消息，其行为由编辑器决定，可能会导致已输入内容丢失
+        //sendKey(KeyEvent.KEYCODE_BACK);
     }
 
     // =============================== End: 消息处理 ===================================
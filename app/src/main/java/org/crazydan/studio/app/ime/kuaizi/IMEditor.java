@@ -19,9 +19,13 @@
 
 package org.crazydan.studio.app.ime.kuaizi;
 
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import android.content.ClipboardManager;
 import android.content.Context;
@@ -47,7 +51,9 @@ import org.crazydan.studio.app.ime.kuaizi.core.KeyFactory;
 import org.crazydan.studio.app.ime.kuaizi.core.Keyboard;
 import org.crazydan.studio.app.ime.kuaizi.core.KeyboardContext;
 import org.crazydan.studio.app.ime.kuaizi.core.input.CharInput;
+import org.crazydan.studio.app.ime.kuaizi.core.input.InputClip;
 import org.crazydan.studio.app.ime.kuaizi.core.input.InputWord;
+import org.crazydan.studio.app.ime.kuaizi.core.input.completion.InputCompletion;
 import org.crazydan.studio.app.ime.kuaizi.core.input.word.PinyinWord;
 import org.crazydan.studio.app.ime.kuaizi.core.key.CharKey;
 import org.crazydan.studio.app.ime.kuaizi.core.keyboard.EditorKeyboard;
@@ -74,9 +80,12 @@ import org.crazydan.studio.app.ime.kuaizi.core.msg.input.KeyboardHandModeSwitchM
 import org.crazydan.studio.app.ime.kuaizi.core.msg.input.KeyboardSwitchMsgData;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.input.KeyboardThemeSwitchMsgData;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.user.UserEditorActionSingleTapMsgData;
+import org.crazydan.studio.app.ime.kuaizi.dict.PinyinCharsTree;
+import org.crazydan.studio.app.ime.kuaizi.dict.PinyinDict;
 
 import static org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsgType.Config_Update_Done;
 import static org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsgType.Editor_Edit_Doing;
+import static org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsgType.InputChars_Input_Doing;
 import static org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsgType.InputClip_Discard_Done;
 import static org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsgType.Keyboard_Close_Doing;
 import static org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsgType.Keyboard_Close_Done;
@@ -107,6 +116,8 @@ public class IMEditor implements InputMsgListener, UserMsgListener, ConfigChange
     private InputList inputList;
 
     private Keyboard keyboard;
+    /** 空闲的键盘：已回收且可被复用，以避免在每次切换键盘时均重新创建键盘 */
+    private final Map<Keyboard.Type, Keyboard> idleKeyboards = new EnumMap<>(Keyboard.Type.class);
     private Favoriteboard favoriteboard;
     private Inputboard inputboard;
     /** 切换前的主键盘类型 */
@@ -146,6 +157,7 @@ public class IMEditor implements InputMsgListener, UserMsgListener, ConfigChange
      */
     public void start(Context context, Keyboard.Type keyboardType, boolean resetInputting) {
         this.dictOpening = true;
+        updatePinyinFuzzyRules();
         // Note: 字典库是异步开启的，不会阻塞键盘视图的渲染，故而，无需显示提示信息
         this.dict.open(context).thenRun(() -> this.dictOpening = false);
 
@@ -166,6 +178,9 @@ public class IMEditor implements InputMsgListener, UserMsgListener, ConfigChange
 
         fire_InputMsg(Keyboard_Start_Done);
 
+        // 在后台预备常用的临时键盘
+        prepareKeyboards();
+
         // 启动异步任务
         this.task.start();
     }
@@ -175,6 +190,9 @@ public class IMEditor implements InputMsgListener, UserMsgListener, ConfigChange
         withFavoriteboardContext(this.favoriteboard::close);
 
         fire_InputMsg(Keyboard_Close_Done);
+
+        // 在键盘关闭后的空闲时间维护字典：键盘在此期间被重新开启时，将取消维护
+        this.task.maintainDictWhenIdle();
     }
 
     /** 退出 {@link IMEditor} */
@@ -215,6 +233,7 @@ public class IMEditor implements InputMsgListener, UserMsgListener, ConfigChange
         this.inputList = null;
 
         this.keyboard = null;
+        this.idleKeyboards.clear();
         this.inputboard = null;
         this.prevMasterKeyboardType = null;
 
@@ -226,6 +245,13 @@ public class IMEditor implements InputMsgListener, UserMsgListener, ConfigChange
         withFavoriteboardContext(this.favoriteboard::start);
     }
 
+    /** 根据配置更新字典的拼音模糊音规则 */
+    private void updatePinyinFuzzyRules() {
+        Set<String> ruleNames = this.config.get(ConfigKey.pinyin_fuzzy_rules);
+
+        this.dict.setPinyinFuzzyRules(PinyinCharsTree.FuzzyRule.from(ruleNames));
+    }
+
     // =============================== End: 生命周期 ===================================
 
     // =============================== Start: 消息处理 ===================================
@@ -250,6 +276,10 @@ public class IMEditor implements InputMsgListener, UserMsgListener, ConfigChange
                 on_Keyboard_HandMode_Switch_Doing_Msg(data);
                 break;
             }
+            case pinyin_fuzzy_rules: {
+                updatePinyinFuzzyRules();
+                break;
+            }
             case theme: {
                 Keyboard.Theme theme = (Keyboard.Theme) newValue;
                 KeyboardThemeSwitchMsgData data = new KeyboardThemeSwitchMsgData(theme);
@@ -339,6 +369,8 @@ public class IMEditor implements InputMsgListener, UserMsgListener, ConfigChange
 
         on_InputClip_Related_Msg(msg);
 
+        // Note: 全部类型的消息在处理后均需转发给外部监听者，且部分消息需中断转发，
+        // 故而，不通过 InputMsgBus 按类型派发，而仅在此处理需先于转发完成的状态更新
         switch (msg.type) {
             case Keyboard_Switch_Doing: {
                 on_Keyboard_Switch_Doing_Msg(msg.data());
@@ -384,19 +416,30 @@ public class IMEditor implements InputMsgListener, UserMsgListener, ConfigChange
                 withInputboardContext(this.inputboard::restoreCommitted);
                 break;
             }
+            case InputList_Edit_Undo_Doing: {
+                withInputboardContext(this.inputboard::undo);
+                break;
+            }
+            case InputList_Edit_Redo_Doing: {
+                withInputboardContext(this.inputboard::redo);
+                break;
+            }
             case Editor_Edit_Doing: {
                 EditorEditMsgData data = msg.data();
 
-                // 对编辑内容会造成修改的操作，需要清除 已提交 的恢复数据
+                // 对编辑内容会造成修改的操作，需要清除 已提交 的恢复数据，
+                // 并废弃在提交时创建的联想输入
                 if (EditorAction.hasEditorEffect(data.action)) {
                     this.inputboard.clearCommitted();
+                    this.inputList.clearCompletions();
                 }
                 break;
             }
             case Input_Pending_Drop_Done:
             case InputChars_Input_Doing:
             case InputChars_Input_Done:
-            case InputCandidate_Choose_Done: {
+            case InputCandidate_Choose_Done:
+            case InputCompletion_Apply_Done: {
                 // 若产生新的输入，则需要清除 已删除/已提交 的恢复数据
                 if (!this.inputList.isEmpty()) {
                     this.log.debug("Clear %s's committed/cleaned for message %s",
@@ -405,6 +448,15 @@ public class IMEditor implements InputMsgListener, UserMsgListener, ConfigChange
                     this.inputboard.clearCommitted();
                     this.inputboard.clearCleaned();
                 }
+
+                // 在输入完成后，记录输入列表的编辑历史
+                if (msg.type != InputChars_Input_Doing) {
+                    withInputboardContext(this.inputboard::recordEdit);
+                }
+                break;
+            }
+            case Input_Selected_Delete_Done: {
+                withInputboardContext(this.inputboard::recordEdit);
                 break;
             }
             default: {
@@ -423,9 +475,11 @@ public class IMEditor implements InputMsgListener, UserMsgListener, ConfigChange
 
     /** 发送 {@link InputMsg} 消息 */
     private void fire_InputMsg(InputMsgType type, InputMsgData data) {
-        KeyFactory keyFactory = createKeyFactory();
+        // Note: 消息可能在之后的帧中才被处理，而届时键盘可能已被重置或回收、输入列表可能已被修改、字典可能已被关闭，
+        // 故而，需在此时确定键盘状态、输入列表和快捷输入的数据，仅将按键布局和快捷输入视图数据的构建延迟到首次获取时
+        KeyFactory keyFactory = createKeyFactory(this.keyboard);
         InputFactory inputFactory = createInputFactory();
-        List<?> inputQuickList = getInputQuickList();
+        Supplier<List<?>> inputQuickList = createInputQuickListGetter();
 
         InputMsg msg = InputMsg.build((b) -> b.type(type)
                                               .data(data)
@@ -554,6 +608,9 @@ public class IMEditor implements InputMsgListener, UserMsgListener, ConfigChange
         if (current != null && newType != Keyboard.Type.InputList_Commit_Option) {
             withKeyboardContext(current::stop);
         }
+        if (current != null) {
+            recycleKeyboard(current);
+        }
         this.config.set(ConfigKey.prev_keyboard_type, currentType);
 
         // Note: 对特定的键盘需冻结输入列表，以避免打断当前的键盘操作
@@ -562,12 +619,43 @@ public class IMEditor implements InputMsgListener, UserMsgListener, ConfigChange
         }, newType);
         this.inputList.freeze(frozen);
 
-        this.keyboard = createKeyboard(newType);
+        this.keyboard = obtainKeyboard(newType);
         withKeyboardContext(this.keyboard::start);
 
         return currentType;
     }
 
+    /** 预创建常用的临时键盘，并在后台{@link Keyboard#prepare 预备}其初始按键布局等数据 */
+    private void prepareKeyboards() {
+        Keyboard.Type[] types = new Keyboard.Type[] {
+                Keyboard.Type.Symbol, Keyboard.Type.Emoji, Keyboard.Type.Math
+        };
+
+        for (Keyboard.Type type : types) {
+            if (type != getKeyboardType() && !this.idleKeyboards.containsKey(type)) {
+                this.idleKeyboards.put(type, createKeyboard(type));
+            }
+        }
+
+        withKeyboardContext((context) -> {
+            this.idleKeyboards.values().forEach((keyboard) -> keyboard.prepare(context));
+        });
+    }
+
+    /** 优先从{@link #idleKeyboards 空闲键盘}中获取指定类型的键盘，若不存在，则创建新的键盘 */
+    private Keyboard obtainKeyboard(Keyboard.Type type) {
+        Keyboard keyboard = this.idleKeyboards.remove(type);
+
+        return keyboard != null ? keyboard : createKeyboard(type);
+    }
+
+    /** 回收键盘，并放入{@link #idleKeyboards 空闲键盘}中 */
+    private void recycleKeyboard(Keyboard keyboard) {
+        keyboard.recycle();
+
+        this.idleKeyboards.put(keyboard.getType(), keyboard);
+    }
+
     private Keyboard createKeyboard(Keyboard.Type type) {
         switch (type) {
             case Number:
@@ -617,8 +705,8 @@ public class IMEditor implements InputMsgListener, UserMsgListener, ConfigChange
     }
 
     /** 创建 {@link KeyFactory} 以使其携带{@link KeyFactory.NoAnimation 无动画}和{@link KeyFactory.LeftHandMode 左手模式}信息 */
-    private KeyFactory createKeyFactory() {
-        KeyFactory factory = this.keyboard != null ? withKeyboardContext(this.keyboard::buildKeyFactory) : null;
+    private KeyFactory createKeyFactory(Keyboard keyboard) {
+        KeyFactory factory = keyboard != null ? withKeyboardContext(keyboard::buildKeyFactory) : null;
 
         boolean leftHandMode = this.config.get(ConfigKey.hand_mode) == Keyboard.HandMode.left;
         if (!leftHandMode || factory == null) {
@@ -642,14 +730,17 @@ public class IMEditor implements InputMsgListener, UserMsgListener, ConfigChange
         builder.dict(this.dict).inputList(this.inputList).listener(this);
     }
 
-    private List<?> getInputQuickList() {
+    /** 创建快捷输入数据的获取函数：在此时确定数据来源，仅视图数据在调用获取函数时才创建 */
+    private Supplier<List<?>> createInputQuickListGetter() {
         if (this.inputList.verifyCompletions()) {
-            return this.inputList.getCompletionViewDataList();
+            Supplier<List<InputCompletion.ViewData>> getter = this.inputList.createCompletionViewDataListGetter();
+            return getter::get;
         } else if ( //
                 !this.config.bool(ConfigKey.disable_input_clip_popup_tips) //
                 && this.favoriteboard.verifyClips() //
         ) {
-            return this.favoriteboard.getClips();
+            List<InputClip> clips = this.favoriteboard.getClips();
+            return () -> clips;
         }
         return null;
     }
@@ -703,7 +794,7 @@ public class IMEditor implements InputMsgListener, UserMsgListener, ConfigChange
 
     /** 更改最后一个输入的候选字 */
     public void changeLastInputWord(InputWord word) {
-        CharInput input = this.inputList.getLastCharInput();
+        CharInput input = (CharInput) this.inputList.getWritableInput(this.inputList.getLastCharInput());
         input.setWord(word);
         input.confirmWord();
     }
@@ -737,11 +828,48 @@ public class IMEditor implements InputMsgListener, UserMsgListener, ConfigChange
         }
     }
 
+    /**
+     * 将连续的拼音字母串（如 <code>woxiangchifan</code>）切分后，以预测的最佳拼音短语向输入列表做预备输入
+     * <p/>
+     * 可用于转换粘贴的拼音，以及在自动化测试中快速模拟输入
+     */
+    public void preparePinyinInputs(String text) {
+        PinyinDict dict = this.dict.usePinyinDict();
+
+        List<CharInput> inputs = dict.parsePinyinInputs(text);
+        List<InputWord> phrase = CollectionUtils.first(dict.findTopBestMatchedPhrase(inputs, null, 1));
+
+        withInputboardContext(this.inputboard::reset);
+
+        for (int i = 0; i < inputs.size(); i++) {
+            CharInput input = inputs.get(i);
+            InputWord word = phrase != null ? phrase.get(i) : null;
+            // Note: 单个拼音不做短语预测，直接取其最佳候选字
+            if (word == null && CharInput.isPinyin(input)) {
+                word = dict.getFirstBestCandidate(dict.getPinyinCharsTree().getCharsId(input));
+            }
+
+            this.inputList.selectLast();
+
+            CharInput pending = this.inputList.newCharPending();
+            input.getKeys().forEach(pending::appendKey);
+            if (word != null) {
+                pending.setWord(word);
+            }
+
+            this.inputList.confirmPending();
+        }
+    }
+
     // =============================== End: 自动化，用于模拟输入等 ===================================
 
     private static class TaskHandler extends Handler {
         private static final int MSG_START = 0;
         private static final int MSG_FAVORITE_TEXT = 2;
+        private static final int MSG_MAINTAIN_DICT = 3;
+
+        /** 键盘关闭后，持续空闲多长时间才维护字典 */
+        private static final long MAINTAIN_DICT_IDLE_DELAY_MS = 60 * 1000;
 
         private final IMEditor editor;
 
@@ -759,6 +887,12 @@ public class IMEditor implements InputMsgListener, UserMsgListener, ConfigChange
         public void stop() {
             removeMessages(MSG_START);
             removeMessages(MSG_FAVORITE_TEXT);
+            removeMessages(MSG_MAINTAIN_DICT);
+        }
+
+        public void maintainDictWhenIdle() {
+            removeMessages(MSG_MAINTAIN_DICT);
+            sendEmptyMessageDelayed(MSG_MAINTAIN_DICT, MAINTAIN_DICT_IDLE_DELAY_MS);
         }
 
         @Override
@@ -773,6 +907,10 @@ public class IMEditor implements InputMsgListener, UserMsgListener, ConfigChange
                     this.editor.saveTextToFavorite(text);
                     break;
                 }
+                case MSG_MAINTAIN_DICT: {
+                    this.editor.dict.maintainWhenIdle();
+                    break;
+                }
             }
         }
     }
@@ -23,8 +23,11 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
@@ -32,15 +35,19 @@ import android.content.Context;
 import android.database.sqlite.SQLiteDatabase;
 import org.crazydan.studio.app.ime.kuaizi.common.Async;
 import org.crazydan.studio.app.ime.kuaizi.common.utils.FileUtils;
-import org.crazydan.studio.app.ime.kuaizi.common.utils.ResourceUtils;
+import org.crazydan.studio.app.ime.kuaizi.dict.BaseDBDict;
 import org.crazydan.studio.app.ime.kuaizi.dict.DictDBType;
 import org.crazydan.studio.app.ime.kuaizi.dict.PinyinCharsTree;
 import org.crazydan.studio.app.ime.kuaizi.dict.PinyinDict;
 import org.crazydan.studio.app.ime.kuaizi.dict.UserInputDataDict;
 import org.crazydan.studio.app.ime.kuaizi.dict.UserInputFavoriteDict;
+import org.crazydan.studio.app.ime.kuaizi.dict.db.MaintenanceDBHelper;
+import org.crazydan.studio.app.ime.kuaizi.dict.db.UserDataBackupDBHelper;
 import org.crazydan.studio.app.ime.kuaizi.dict.upgrade.From_v0;
 import org.crazydan.studio.app.ime.kuaizi.dict.upgrade.From_v2_to_v3;
 import org.crazydan.studio.app.ime.kuaizi.dict.upgrade.From_v3_to_v4;
+import org.crazydan.studio.app.ime.kuaizi.dict.upgrade.From_v4_to_v5;
+import org.crazydan.studio.app.ime.kuaizi.dict.upgrade.From_v5_to_v6;
 import org.crazydan.studio.app.ime.kuaizi.dict.upgrade.Upgrader;
 
 import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.closeSQLite;
@@ -60,16 +67,22 @@ public class IMEditorDict {
     public static final String VERSION_V2 = "v2";
     public static final String VERSION_V3 = "v3";
     public static final String VERSION_V4 = "v4";
+    public static final String VERSION_V5 = "v5";
+    public static final String VERSION_V6 = "v6";
 
     /** 字典首次安装版本号 */
     public static final String FIRST_INSTALL_VERSION = VERSION_V0;
     /** 连续的字典版本号，用于递进升级 */
-    public static final String[] CONTINUOUS_VERSIONS = new String[] { VERSION_V2, VERSION_V3, VERSION_V4 };
+    public static final String[] CONTINUOUS_VERSIONS = new String[] {
+            VERSION_V2, VERSION_V3, VERSION_V4, VERSION_V5, VERSION_V6
+    };
     /** 字典最新版本号 */
     public static final String LATEST_VERSION = CONTINUOUS_VERSIONS[CONTINUOUS_VERSIONS.length - 1];
 
     /** 字典版本文件名 */
     private static final String version_filename = "ime_user_dict.version";
+    /** 字典的{@link #maintainWhenIdle 空闲维护}间隔 */
+    private static final long MAINTAIN_INTERVAL_MS = 60 * 60 * 1000;
 
     private static final IMEditorDict instance = new IMEditorDict();
 
@@ -78,14 +91,22 @@ public class IMEditorDict {
     private boolean opened;
     /** 异步 */
     private Async async;
+    /** 维护任务的异步：独立于查询和预备任务，以避免耗时的维护阻塞输入过程中的查询 */
+    private Async maintainAsync;
+    /** 是否已取消维护：在字典关闭时，需中断正在进行的维护 */
+    private volatile boolean maintainCancelled;
 
     private String version;
     private SQLiteDatabase db;
+    /** 最近一次{@link #maintain 维护}的时间：在字典开启时从用户库中读取 */
+    private volatile long maintainedAt;
 
     // <<<<<<<<<<<<< 缓存常量数据
     private PinyinCharsTree pinyinCharsTree;
     private Map<Class<?>, Object> deriveDicts;
     // >>>>>>>>>>>>>
+    /** 拼音模糊音规则 */
+    private volatile Set<PinyinCharsTree.FuzzyRule> pinyinFuzzyRules = Set.of();
 
     IMEditorDict() {
     }
@@ -112,6 +133,8 @@ public class IMEditorDict {
         }
 
         this.async = new Async(1, 4);
+        this.maintainAsync = new Async(1, 1);
+        this.maintainCancelled = false;
 
         return this.async.future(() -> {
             doUpgrade(context);
@@ -138,6 +161,22 @@ public class IMEditorDict {
 
     // =================== Start: 派生字典 ==================
 
+    /**
+     * 设置拼音模糊音规则
+     * <p/>
+     * 在字典开启前设置时，将在开启时再预先计算各拼音的模糊音别名
+     */
+    public synchronized void setPinyinFuzzyRules(Set<PinyinCharsTree.FuzzyRule> rules) {
+        if (this.pinyinFuzzyRules.equals(rules)) {
+            return;
+        }
+
+        this.pinyinFuzzyRules = rules;
+        if (this.pinyinCharsTree != null) {
+            this.pinyinCharsTree.setFuzzyRules(rules);
+        }
+    }
+
     public PinyinDict usePinyinDict() {
         return deriveDict(PinyinDict.class, () -> new PinyinDict(getDB(), this.async, this.pinyinCharsTree));
     }
@@ -166,28 +205,105 @@ public class IMEditorDict {
         File userDBFile = getUserDBFile(context);
 
         this.db = openSQLite(userDBFile, false);
+        // Note: 启用 WAL 模式，以使得后台维护（创建索引、分析、回收空间等）的写操作不会阻塞输入过程中的查询
+        this.db.enableWriteAheadLogging();
         execSQLite(this.db, /*"pragma cache_size = 200;",*/ "pragma temp_store = memory;");
 
         // 启用系统支持的可显示的表情
         enableAllPrintableEmojis(this.db);
 
+        this.maintainedAt = MaintenanceDBHelper.getMaintainedAt(this.db);
+
         this.deriveDicts = new HashMap<>();
         if (this.pinyinCharsTree == null) {
             this.pinyinCharsTree = createPinyinCharsTree(this.db);
+            this.pinyinCharsTree.setFuzzyRules(this.pinyinFuzzyRules);
         }
     }
 
     private void doClose() {
         this.async.shutdown(1500);
+        // Note: 维护任务会对用户库做分批写入，需在其中断并结束后，才能关闭数据库
+        this.maintainCancelled = true;
+        this.maintainAsync.shutdownAndWait();
 
         closeSQLite(this.db);
 
         this.db = null;
         this.async = null;
+        this.maintainAsync = null;
         this.pinyinCharsTree = null;
         this.deriveDicts = null;
     }
 
+    /**
+     * 在后台维护用户库：更新查询计划的统计数据、衰减用户权重、回收空间等
+     * <p/>
+     * 维护任务在独立的队列中执行，不会占用查询和预备任务的队列，在字典未开启时不做任何处理
+     */
+    public synchronized CompletableFuture<Void> maintain() {
+        if (!isOpened()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        this.maintainedAt = System.currentTimeMillis();
+        return this.maintainAsync.future(this::doMaintain);
+    }
+
+    /**
+     * 在后台执行与字典相关的预备任务，如，基于{@link PinyinCharsTree 拼音字母组合树}预构建按键布局
+     * <p/>
+     * 任务将在已提交的异步任务之后执行，若字典正在开启，则在其开启完毕后执行，
+     * 在字典未开启时不做任何处理
+     */
+    public synchronized CompletableFuture<Void> prepare(Runnable task) {
+        // Note: 开启任务与预备任务在同一队列中依次执行
+        if (this.async == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return this.async.future(() -> {
+            if (isOpened()) {
+                task.run();
+            }
+        });
+    }
+
+    /**
+     * 在空闲时（由调用方确定，如，键盘关闭一段时间后）{@link #maintain 维护}用户库
+     * <p/>
+     * 距离上次维护不足 {@link #MAINTAIN_INTERVAL_MS} 时，不做任何处理，
+     * 其维护时间记录在用户库中，故而，不会因输入法进程的重启而重复维护
+     */
+    public synchronized void maintainWhenIdle() {
+        if (System.currentTimeMillis() - this.maintainedAt < MAINTAIN_INTERVAL_MS) {
+            return;
+        }
+
+        maintain();
+    }
+
+    private void doMaintain() {
+        SQLiteDatabase db = getDB();
+        if (db == null || !db.isOpen() || this.maintainCancelled) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        MaintenanceDBHelper.maintain(db);
+
+        boolean decayed = MaintenanceDBHelper.decayUserWeights(db, now, () -> this.maintainCancelled);
+        // Note: 衰减被中断时，不记录维护时间，以在下次维护时继续衰减
+        if (this.maintainCancelled) {
+            return;
+        }
+
+        if (decayed) {
+            MaintenanceDBHelper.vacuumIncrementally(db);
+        }
+        MaintenanceDBHelper.setMaintainedAt(db, now);
+    }
+
     public File getUserDBFile(Context context) {
         return getDBFile(context, DictDBType.user);
     }
@@ -196,11 +312,67 @@ public class IMEditorDict {
         return getFile(context, dbType.filename);
     }
 
-    public void saveUserDB(Context context, OutputStream output) throws IOException {
+    /**
+     * 导出用户数据：仅包含用户产生的数据，不包含应用内置的字典数据
+     *
+     * @see UserDataBackupDBHelper#exportUserData
+     */
+    public void exportUserData(Context context, OutputStream output) throws IOException {
+        withUserDB(context, (db, version) -> UserDataBackupDBHelper.exportUserData(db, version, output));
+    }
+
+    /**
+     * 导入{@link #exportUserData 导出的用户数据}：以累加方式合并到当前的用户数据中
+     * <p/>
+     * 导入在单个事务中完成，失败时不会留下部分合并的数据，故而，可安全重试
+     *
+     * @see UserDataBackupDBHelper#importUserData
+     */
+    public void importUserData(Context context, InputStream input) throws IOException {
+        withUserDB(context, (db, version) -> UserDataBackupDBHelper.importUserData(db, version, input));
+
+        // 用户权重已变化，需废弃基于其的缓存，以免联想和候选字排序仍采用旧数据
+        invalidateDictCaches();
+    }
+
+    private void invalidateDictCaches() {
+        List<Object> dicts;
+        synchronized (this) {
+            // Note: 字典未打开时，不存在派生字典，也就没有需要废弃的缓存
+            dicts = this.deriveDicts != null ? new ArrayList<>(this.deriveDicts.values()) : List.of();
+        }
+
+        dicts.forEach((dict) -> ((BaseDBDict) dict).invalidateCaches());
+    }
+
+    private interface UserDBConsumer {
+        void accept(SQLiteDatabase db, String version) throws IOException;
+    }
+
+    /**
+     * 在字典未开启时（如，在配置界面中），直接打开用户库
+     * <p/>
+     * 注：导出也需在事务中进行，故而，始终以读写模式打开用户库
+     */
+    private void withUserDB(Context context, UserDBConsumer consumer) throws IOException {
+        SQLiteDatabase db = getDB();
+        if (db != null) {
+            consumer.accept(db, getVersion(context));
+            return;
+        }
+
         File userDBFile = getUserDBFile(context);
+        if (!userDBFile.exists()) {
+            throw new IOException("The user dict doesn't exist");
+        }
+
+        String version = getVersion(context);
+        if (!LATEST_VERSION.equals(version)) {
+            throw new IOException("The user dict isn't upgraded to the latest version " + LATEST_VERSION);
+        }
 
-        try (InputStream input = FileUtils.newInput(userDBFile)) {
-            ResourceUtils.copy(input, output);
+        try (SQLiteDatabase userDB = openSQLite(userDBFile, false)) {
+            consumer.accept(userDB, version);
         }
     }
 
@@ -252,6 +424,8 @@ public class IMEditorDict {
         return new HashMap<String, Upgrader>() {{
             put(VERSION_V2 + "-" + VERSION_V3, new From_v2_to_v3());
             put(VERSION_V3 + "-" + VERSION_V4, new From_v3_to_v4());
+            put(VERSION_V4 + "-" + VERSION_V5, new From_v4_to_v5());
+            put(VERSION_V5 + "-" + VERSION_V6, new From_v5_to_v6());
         }};
     }
 
@@ -37,8 +37,10 @@ import org.crazydan.studio.app.ime.kuaizi.common.utils.ThemeUtils;
 import org.crazydan.studio.app.ime.kuaizi.common.utils.ViewUtils;
 import org.crazydan.studio.app.ime.kuaizi.common.widget.AudioPlayer;
 import org.crazydan.studio.app.ime.kuaizi.common.widget.ViewClosable;
+import org.crazydan.studio.app.ime.kuaizi.common.widget.ViewUpdateScheduler;
 import org.crazydan.studio.app.ime.kuaizi.conf.ConfigKey;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsg;
+import org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsgBus;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsgListener;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.UserInputMsg;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.input.ConfigUpdateMsgData;
@@ -64,6 +66,7 @@ public class IMEditorView extends BaseThemedView {
         ;
     }
 
+    private final InputMsgBus msgBus;
     private final Handler asyncInputMsgHandler;
     private final AudioPlayer audioPlayer;
 
@@ -85,6 +88,18 @@ public class IMEditorView extends BaseThemedView {
                               R.raw.tick_clock,
                               R.raw.tick_ping);
 
+        // Note: 涉及重建视图和视图显隐切换等情况，因此，需在最后转发消息到子视图，
+        // 且子视图需在转发时获取，而不能在订阅时绑定
+        this.msgBus = new InputMsgBus() //
+                .subscribeAll(super::onMsg) //
+                .subscribeAll((msg) -> {
+                    InputMsgListener current = currentBoard();
+                    current.onMsg(msg);
+                }) //
+                .subscribe((msg) -> ObjectUtils.invokeWhenNonNull(this.candidatesView,
+                                                                  (v) -> post(() -> v.onMsg(msg))),
+                           InputMsgBus.except(CandidatesView.IGNORED_MSG_TYPES));
+
         this.asyncInputMsgHandler = new Handler(Looper.getMainLooper()) {
             @Override
             public void handleMessage(@NonNull Message msg) {
@@ -108,6 +123,8 @@ public class IMEditorView extends BaseThemedView {
                 }
             });
         });
+
+        this.log.debug("View update metrics: %s", () -> new Object[] { ViewUpdateScheduler.getMetrics() });
     }
 
     // =============================== Start: 视图更新 ===================================
@@ -201,13 +218,7 @@ public class IMEditorView extends BaseThemedView {
      * 故而，在最上层的视图中通过 {@link Handler} 处理来自线程中的 {@link InputMsg} 消息
      */
     private void handleMsgInMainLooper(InputMsg msg) {
-        super.onMsg(msg);
-
-        // Note: 涉及重建视图和视图显隐切换等情况，因此，需在最后转发消息到子视图
-        InputMsgListener current = currentBoard();
-        current.onMsg(msg);
-
-        ObjectUtils.invokeWhenNonNull(this.candidatesView, (v) -> post(() -> v.onMsg(msg)));
+        this.msgBus.onMsg(msg);
     }
 
     @Override
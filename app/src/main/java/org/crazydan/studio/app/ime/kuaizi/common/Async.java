@@ -49,6 +49,19 @@ public class Async {
         this.executor.shutdown();
     }
 
+    /** 不再接受新任务，并等待已提交的任务全部执行完毕 */
+    public void shutdownAndWait() {
+        this.executor.shutdown();
+
+        try {
+            while (!this.executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                // Note: 任务需自行检查中断条件，以确保其能够尽快结束
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     public CompletableFuture<Void> future(Runnable runnable) {
         return CompletableFuture.runAsync(runnable, this.executor);
     }
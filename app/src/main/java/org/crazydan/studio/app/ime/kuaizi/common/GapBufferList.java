@@ -0,0 +1,256 @@
+/*
+ * 筷字输入法 - 高效编辑需要又好又快的输入法
+ * Copyright (C) 2025 Crazydan Studio <https://studio.crazydan.org>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.
+ * If not, see <https://www.gnu.org/licenses/lgpl-3.0.en.html#license-text>.
+ */
+
+package org.crazydan.studio.app.ime.kuaizi.common;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * 基于 Gap Buffer 的列表
+ * <p/>
+ * 在存储数组中保留一段空闲区间（Gap），并在插入和删除时将其移动至操作位置，
+ * 从而在连续的同一位置附近（如，光标处）的插入和删除仅需移动少量元素。
+ * 同时，维护元素引用到其存储位置的映射，在移动 Gap 时仅更新被移动元素的映射，
+ * 从而可在 O(1) 时间内{@link #indexOfRef(Object) 按引用查找元素位置}
+ * <p/>
+ * 注：若同一元素被多次添加，则在其被删除至仅剩一个之前，按引用查找该元素将退化为遍历查找
+ *
+ * @author <a href="mailto:flytreeleft@crazydan.org">flytreeleft</a>
+ * @date 2025-06-24
+ */
+public class GapBufferList<E> extends AbstractList<E> implements RandomAccess {
+    private static final int MIN_CAPACITY = 16;
+
+    private Object[] buffer = new Object[MIN_CAPACITY];
+    /** Gap 区间的起始存储位置（含） */
+    private int gapStart = 0;
+    /** Gap 区间的结束存储位置（不含） */
+    private int gapEnd = MIN_CAPACITY;
+
+    /** 元素引用与其存储位置的映射 */
+    private final Map<Object, Integer> positions = new IdentityHashMap<>();
+    /** 被多次添加的元素及其多出的数量：在元素被删除时递减，直至其仅剩一个 */
+    private final Map<Object, Integer> duplicates = new IdentityHashMap<>();
+
+    @Override
+    public int size() {
+        return this.buffer.length - gapLength();
+    }
+
+    @Override
+    public E get(int index) {
+        checkIndex(index, size());
+
+        return elementAt(toPosition(index));
+    }
+
+    @Override
+    public E set(int index, E element) {
+        checkIndex(index, size());
+
+        int position = toPosition(index);
+        E old = elementAt(position);
+
+        this.buffer[position] = element;
+        unmapPosition(old, position);
+        mapPosition(element, position);
+
+        return old;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        checkIndex(index, size() + 1);
+
+        moveGapTo(index);
+        ensureGap();
+
+        this.buffer[this.gapStart] = element;
+        mapPosition(element, this.gapStart);
+        this.gapStart += 1;
+
+        this.modCount += 1;
+    }
+
+    @Override
+    public E remove(int index) {
+        checkIndex(index, size());
+
+        moveGapTo(index);
+
+        E old = elementAt(this.gapEnd);
+        this.buffer[this.gapEnd] = null;
+        this.gapEnd += 1;
+        // Note: 在 Gap 扩展后再解除映射，以确保被删除的位置不会被重新映射
+        unmapPosition(old, this.gapEnd - 1);
+
+        this.modCount += 1;
+
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(this.buffer, null);
+        this.gapStart = 0;
+        this.gapEnd = this.buffer.length;
+
+        this.positions.clear();
+        this.duplicates.clear();
+
+        this.modCount += 1;
+    }
+
+    /** 获取指定元素（按对象引用匹配）的位置，若不存在，则返回 <code>-1</code> */
+    public int indexOfRef(Object element) {
+        if (this.duplicates.containsKey(element)) {
+            for (int i = 0; i < size(); i++) {
+                if (get(i) == element) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        Integer position = this.positions.get(element);
+        return position != null ? toIndex(position) : -1;
+    }
+
+    private int gapLength() {
+        return this.gapEnd - this.gapStart;
+    }
+
+    /** 逻辑位置转换为存储位置 */
+    private int toPosition(int index) {
+        return index < this.gapStart ? index : index + gapLength();
+    }
+
+    /** 存储位置转换为逻辑位置 */
+    private int toIndex(int position) {
+        return position < this.gapStart ? position : position - gapLength();
+    }
+
+    @SuppressWarnings("unchecked")
+    private E elementAt(int position) {
+        return (E) this.buffer[position];
+    }
+
+    /** 将 Gap 移动至指定的逻辑位置，并更新被移动元素的存储位置 */
+    private void moveGapTo(int index) {
+        if (index < this.gapStart) {
+            int count = this.gapStart - index;
+            int target = this.gapEnd - count;
+
+            System.arraycopy(this.buffer, index, this.buffer, target, count);
+            Arrays.fill(this.buffer, index, Math.min(this.gapStart, target), null);
+
+            this.gapStart = index;
+            this.gapEnd = target;
+            remapPositions(target, target + count);
+        } else if (index > this.gapStart) {
+            int count = index - this.gapStart;
+            int target = this.gapStart;
+
+            System.arraycopy(this.buffer, this.gapEnd, this.buffer, target, count);
+            Arrays.fill(this.buffer, Math.max(this.gapEnd, index), this.gapEnd + count, null);
+
+            this.gapStart = index;
+            this.gapEnd += count;
+            remapPositions(target, target + count);
+        }
+    }
+
+    /** 确保 Gap 不为空，若为空，则扩容 */
+    private void ensureGap() {
+        if (gapLength() > 0) {
+            return;
+        }
+
+        int oldCapacity = this.buffer.length;
+        int newCapacity = Math.max(MIN_CAPACITY, oldCapacity * 2);
+        int tailCount = oldCapacity - this.gapEnd;
+
+        Object[] newBuffer = new Object[newCapacity];
+        System.arraycopy(this.buffer, 0, newBuffer, 0, this.gapStart);
+        System.arraycopy(this.buffer, this.gapEnd, newBuffer, newCapacity - tailCount, tailCount);
+
+        this.buffer = newBuffer;
+        this.gapEnd = newCapacity - tailCount;
+        remapPositions(this.gapEnd, newCapacity);
+    }
+
+    /** 更新存储区间 <code>[from, to)</code> 内元素的存储位置 */
+    private void remapPositions(int from, int to) {
+        for (int i = from; i < to; i++) {
+            this.positions.put(this.buffer[i], i);
+        }
+    }
+
+    private void mapPosition(E element, int position) {
+        if (this.positions.put(element, position) != null) {
+            this.duplicates.merge(element, 1, Integer::sum);
+        }
+    }
+
+    private void unmapPosition(E element, int position) {
+        Integer duplicated = this.duplicates.get(element);
+        if (duplicated == null) {
+            Integer mapped = this.positions.get(element);
+
+            if (mapped != null && mapped == position) {
+                this.positions.remove(element);
+            }
+            return;
+        }
+
+        if (duplicated > 1) {
+            this.duplicates.put(element, duplicated - 1);
+            return;
+        }
+
+        // 仅剩一个时，重新映射其存储位置，以恢复按引用的直接查找
+        this.duplicates.remove(element);
+        this.positions.put(element, findPosition(element));
+    }
+
+    /** 遍历查找指定元素（按对象引用匹配）的存储位置，Gap 区间除外 */
+    private int findPosition(Object element) {
+        for (int i = 0; i < this.gapStart; i++) {
+            if (this.buffer[i] == element) {
+                return i;
+            }
+        }
+        for (int i = this.gapEnd; i < this.buffer.length; i++) {
+            if (this.buffer[i] == element) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
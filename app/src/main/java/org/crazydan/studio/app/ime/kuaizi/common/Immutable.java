@@ -19,7 +19,16 @@
 
 package org.crazydan.studio.app.ime.kuaizi.common;
 
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import android.util.LruCache;
 
@@ -40,9 +49,17 @@ public abstract class Immutable {
      * 因为二者的属性值是全部相等的
      */
     private final int objHash;
+    /**
+     * 当前不可变对象的标识属性，用于在 {@link #objHash} 相同时进一步判断不可变对象是否{@link #equals(Object) 相等}，
+     * 以避免 hash 冲突导致不同的对象被视为相等
+     *
+     * @see Builder#identity()
+     */
+    private final Object[] objIdentity;
 
     protected Immutable(Builder<?> builder) {
         this.objHash = builder.hashCode();
+        this.objIdentity = builder.objIdentity();
     }
 
     @Override
@@ -55,7 +72,7 @@ public abstract class Immutable {
         }
 
         Immutable that = (Immutable) o;
-        return this.objHash == that.objHash;
+        return this.objHash == that.objHash && Arrays.deepEquals(this.objIdentity, that.objIdentity);
     }
 
     @Override
@@ -67,7 +84,8 @@ public abstract class Immutable {
      * 不可变对象的构建器
      * <p/>
      * 该构建器以单例模式暂存不可变对象的属性值，并在 {@link #build()}
-     * 后重置以实现复用，因此，其不是线程安全的
+     * 后重置以实现复用，因此，其不是线程安全的，
+     * 需通过 {@link ThreadLocalBuilder} 使各线程独占其构建器
      */
     public abstract static class Builder<O extends Immutable> {
 
@@ -81,6 +99,11 @@ public abstract class Immutable {
             return b.build();
         }
 
+        /** 通过当前线程独占的构建器创建不可变对象 */
+        public static <O extends Immutable, B extends Builder<O>> O build(ThreadLocalBuilder<B> b, Consumer<B> c) {
+            return build(b.get(), c);
+        }
+
         /**
          * 创建指定 {@link Immutable} 的副本
          * <p/>
@@ -93,6 +116,13 @@ public abstract class Immutable {
             });
         }
 
+        /** 通过当前线程独占的构建器创建指定 {@link Immutable} 的副本 */
+        public static <O extends Immutable, B extends Builder<O>> O copy(
+                ThreadLocalBuilder<B> b, O o, Consumer<B> c
+        ) {
+            return copy(b.get(), o, c);
+        }
+
         /** 为便于构建器作为单例复用，必须在 {@link #build} 返回之前，重置所有的构建配置 */
         protected abstract void reset();
 
@@ -106,46 +136,88 @@ public abstract class Immutable {
 
         /** 从指定 {@link Immutable} 中复制初始的构建配置 */
         protected void doCopy(O source) {}
+
+        /**
+         * 获取参与计算 {@link #hashCode()} 的全部属性值，用于在 hash 值相同时进一步判断对象是否相等
+         * <p/>
+         * 其属性需与 {@link #hashCode()} 保持一致，父类的标识属性可直接将 <code>super.identity()</code>
+         * 作为数组元素。若返回 null，则仅以 hash 值判断对象是否相等
+         */
+        protected Object[] identity() {
+            return null;
+        }
+
+        /** 获取将被构建的不可变对象的标识属性 */
+        Object[] objIdentity() {
+            return identity();
+        }
+
+        /** 以引用值作为标识属性，即，仅当引用的是同一对象时才视为相等 */
+        protected static Object ref(Object obj) {
+            return obj != null ? new Ref(obj) : null;
+        }
     }
 
     /**
      * 可缓存已构建的 {@link Immutable} 对象的 {@link Builder}
      * <p/>
-     * 注意，构建器在 {@link #build} 时，将以其 {@link #hashCode()} 作为按键缓存的唯一索引
+     * 注意，构建器在 {@link #build} 时，将以其 {@link #hashCode()} 及{@link #identity() 标识属性}作为缓存的唯一索引，
+     * 在 hash 值冲突时，将比较二者的标识属性，以确保不会取出不相等的对象
      */
     public abstract static class CachableBuilder<O extends Immutable> extends Builder<O> {
-        final LruCache<Integer, O> cache;
+        /** 按构建器类型统计的缓存命中情况 */
+        private static final Map<Class<?>, CacheStats> cacheStats = new ConcurrentHashMap<>();
+
+        /** Note: 在 {@link ThreadLocalBuilder} 中，各线程的构建器将共享同一缓存 */
+        InternCache<O> cache;
+        private final CacheStats stats;
+        /** 当前构建对象的缓存索引，其标识属性将由缓存的不可变对象共享，以避免重复获取 */
+        private Identity building;
 
         private boolean _notCache_;
 
         /**
-         * @param cacheSize
-         *         可缓存的 {@link  Immutable} 对象的数量。若小于或等于 0，则表示禁用缓存
+         * @param cacheBytes
+         *         缓存的 {@link  Immutable} 对象可占用的内存字节数（估算值）。若小于或等于 0，则表示禁用缓存
          */
-        protected CachableBuilder(int cacheSize) {
-            this.cache = cacheSize > 0 ? new LruCache<>(cacheSize) : null;
+        protected CachableBuilder(int cacheBytes) {
+            this.stats = cacheStats.computeIfAbsent(getClass(), CacheStats::new);
+            this.cache = cacheBytes > 0 ? new InternCache<>(cacheBytes, this.stats) : null;
+        }
+
+        /** 获取各类型构建器的缓存命中统计 */
+        public static List<CacheStats> getAllCacheStats() {
+            return new ArrayList<>(cacheStats.values());
         }
 
         /**
          * 通过 {@link #doBuild()} 构建 {@link Immutable} 并缓存
          * <p/>
-         * 若与当前构建器的 {@link #hashCode()} 相同的不可变对象已缓存，
+         * 若与当前构建器的 {@link #hashCode()} 及{@link #identity() 标识属性}均相同的不可变对象已缓存，
          * 则直接从缓存中取出该不可变对象
          */
         @Override
         protected O build() {
-            int hash = hashCode();
-
             boolean cachable = this.cache != null && !this._notCache_;
             this._notCache_ = false;
 
-            O obj = cachable ? this.cache.get(hash) : null;
+            Identity identity = cachable ? new Identity(hashCode(), identity()) : null;
+
+            O obj = cachable ? this.cache.get(identity) : null;
             if (obj == null) {
-                obj = doBuild();
+                this.building = identity;
+                try {
+                    obj = doBuild();
+                } finally {
+                    this.building = null;
+                }
 
                 if (cachable) {
-                    this.cache.put(hash, obj);
+                    this.cache.intern(identity, obj);
+                    this.stats.misses.incrementAndGet();
                 }
+            } else {
+                this.stats.hits.incrementAndGet();
             }
             return obj;
         }
@@ -158,6 +230,11 @@ public abstract class Immutable {
          */
         protected abstract O doBuild();
 
+        @Override
+        Object[] objIdentity() {
+            return this.building != null ? this.building.fields : identity();
+        }
+
         /** 清空缓存 */
         public void clear() {
             if (this.cache != null) {
@@ -169,5 +246,221 @@ public abstract class Immutable {
         public void notCache() {
             this._notCache_ = true;
         }
+
+        /** 与指定构建器共享缓存 */
+        @SuppressWarnings("unchecked")
+        void shareCache(CachableBuilder<?> source) {
+            this.cache = (InternCache<O>) source.cache;
+        }
+    }
+
+    /** 以对象引用判断是否相等的标识属性 */
+    private static class Ref {
+        private final Object obj;
+
+        Ref(Object obj) {
+            this.obj = obj;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Ref && this.obj == ((Ref) o).obj;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this.obj);
+        }
+    }
+
+    /** 缓存索引：仅当 hash 值及标识属性均相等时，才视为同一索引 */
+    private static class Identity {
+        private final int hash;
+        private final Object[] fields;
+        /**
+         * 对应缓存项的估算字节数：缓存对象与索引共享属性值，故而仅计算一次
+         * <p/>
+         * 注：仅用于查找缓存的索引无需估算，故而，在{@link InternCache#intern 放入缓存}时才计算该值
+         */
+        private int bytes;
+
+        Identity(int hash, Object[] fields) {
+            this.hash = hash;
+            this.fields = fields;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Identity)) {
+                return false;
+            }
+
+            Identity that = (Identity) o;
+            return this.hash == that.hash && Arrays.deepEquals(this.fields, that.fields);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        /** 粗略估算属性值所占用的内存字节数，仅用于控制缓存规模，无需精确 */
+        private static int estimateBytes(Object value) {
+            if (value == null) {
+                return 0;
+            } else if (value instanceof String) {
+                return 40 + 2 * ((String) value).length();
+            } else if (value instanceof Immutable) {
+                return 16 + estimateBytes(((Immutable) value).objIdentity);
+            } else if (value instanceof Object[]) {
+                Object[] array = (Object[]) value;
+
+                int bytes = 16 + 4 * array.length;
+                for (Object element : array) {
+                    bytes += estimateBytes(element);
+                }
+                return bytes;
+            } else if (value.getClass().isArray()) {
+                return 16 + 8 * Array.getLength(value);
+            } else if (value instanceof Collection) {
+                int bytes = 24;
+                for (Object element : (Collection<?>) value) {
+                    bytes += 4 + estimateBytes(element);
+                }
+                return bytes;
+            }
+            return 16;
+        }
+    }
+
+    /** 按估算字节数限制规模的不可变对象缓存，并记录其淘汰数量和内存占用 */
+    private static class InternCache<O extends Immutable> extends LruCache<Identity, O> {
+        private final CacheStats stats;
+
+        InternCache(int maxBytes, CacheStats stats) {
+            super(maxBytes);
+            this.stats = stats;
+        }
+
+        void intern(Identity identity, O obj) {
+            identity.bytes = 64 + Identity.estimateBytes(identity.fields);
+
+            // Note: 放入缓存时可能会立即淘汰该缓存项，故而，需先计入其内存占用
+            this.stats.bytes.addAndGet(identity.bytes);
+
+            put(identity, obj);
+        }
+
+        @Override
+        protected int sizeOf(Identity key, O value) {
+            return key.bytes;
+        }
+
+        @Override
+        protected void entryRemoved(boolean evicted, Identity key, O oldValue, O newValue) {
+            this.stats.bytes.addAndGet(-key.bytes);
+
+            if (evicted) {
+                this.stats.evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 线程独占的 {@link Builder}
+     * <p/>
+     * 各线程通过 {@link #get()} 获取其独占的构建器，从而可在任意线程中安全地构建不可变对象（如，在后台预构建按键布局），
+     * 而对于 {@link CachableBuilder}，各线程的构建器将共享同一缓存（{@link LruCache} 是线程安全的），
+     * 以保持已构建对象的复用效果
+     */
+    public static class ThreadLocalBuilder<B extends Builder<?>> {
+        private final ThreadLocal<B> local;
+        /** 最先创建的构建器，其缓存将被共享给其他线程的构建器 */
+        private CachableBuilder<?> first;
+
+        public ThreadLocalBuilder(Supplier<B> creator) {
+            this.local = ThreadLocal.withInitial(() -> create(creator));
+        }
+
+        /** 获取当前线程独占的构建器 */
+        public B get() {
+            return this.local.get();
+        }
+
+        /** 清空共享的缓存 */
+        public synchronized void clear() {
+            if (this.first != null) {
+                this.first.clear();
+            }
+        }
+
+        private synchronized B create(Supplier<B> creator) {
+            B b = creator.get();
+
+            if (b instanceof CachableBuilder) {
+                CachableBuilder<?> cb = (CachableBuilder<?>) b;
+
+                if (this.first == null) {
+                    this.first = cb;
+                } else {
+                    cb.shareCache(this.first);
+                }
+            }
+            return b;
+        }
+    }
+
+    /** {@link CachableBuilder} 的缓存命中、淘汰及内存占用统计 */
+    public static class CacheStats {
+        /** 构建器类型 */
+        public final Class<?> type;
+
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        /** Note: 含因{@link CachableBuilder#clear() 清空缓存}而移除的缓存项 */
+        final AtomicLong evictions = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+
+        CacheStats(Class<?> type) {
+            this.type = type;
+        }
+
+        public long getHits() {
+            return this.hits.get();
+        }
+
+        public long getMisses() {
+            return this.misses.get();
+        }
+
+        public long getEvictions() {
+            return this.evictions.get();
+        }
+
+        /** 已缓存对象的估算内存字节数 */
+        public long getBytes() {
+            return this.bytes.get();
+        }
+
+        /** 命中率：在无访问时为 0 */
+        public double getHitRate() {
+            long hits = getHits();
+            long total = hits + getMisses();
+
+            return total > 0 ? hits * 1.0 / total : 0;
+        }
+
+        @Override
+        public String toString() {
+            return this.type.getName() //
+                   + "{hits=" + getHits() //
+                   + ", misses=" + getMisses() //
+                   + ", evictions=" + getEvictions() //
+                   + ", bytes=" + getBytes() //
+                   + "}";
+        }
     }
 }
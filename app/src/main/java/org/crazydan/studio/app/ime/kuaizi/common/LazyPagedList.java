@@ -0,0 +1,137 @@
+/*
+ * 筷字输入法 - 高效编辑需要又好又快的输入法
+ * Copyright (C) 2025 Crazydan Studio <https://studio.crazydan.org>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.
+ * If not, see <https://www.gnu.org/licenses/lgpl-3.0.en.html#license-text>.
+ */
+
+package org.crazydan.studio.app.ime.kuaizi.common;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 按页延迟构造元素的只读列表
+ * <p/>
+ * 列表由已构造的头部数据和仅包含 id 的尾部数据组成，尾部数据在被访问时，
+ * 才通过 {@link #pageLoader} 按页批量构造其元素，并在后台预取下一页的数据，
+ * 从而使得被构造的元素数量与被访问的页数成正比，而不是与列表总长度成正比
+ * <p/>
+ * 注：遍历全部元素（如，过滤列表）将会构造全部页的数据
+ *
+ * @author <a href="mailto:flytreeleft@crazydan.org">flytreeleft</a>
+ * @date 2025-06-21
+ */
+public class LazyPagedList<T> extends AbstractList<T> {
+    private final List<T> head;
+    private final List<Integer> ids;
+    private final int pageSize;
+    /** 根据 id 列表构造 <code>{'id': 元素}</code> */
+    private final Function<List<Integer>, Map<Integer, T>> pageLoader;
+    /** 用于在后台预取下一页，为 null 时不做预取 */
+    private final Async async;
+
+    /** 已构造的页：<code>{'页序号': [元素, ...]}</code> */
+    private final Map<Integer, List<T>> pages = new ConcurrentHashMap<>();
+    /** 已发起预取的页序号 */
+    private final Set<Integer> prefetchedPages = ConcurrentHashMap.newKeySet();
+
+    public LazyPagedList(
+            List<T> head, List<Integer> ids, int pageSize, //
+            Function<List<Integer>, Map<Integer, T>> pageLoader, Async async
+    ) {
+        this.head = head;
+        this.ids = ids;
+        this.pageSize = pageSize;
+        this.pageLoader = pageLoader;
+        this.async = async;
+    }
+
+    @Override
+    public int size() {
+        return this.head.size() + this.ids.size();
+    }
+
+    @Override
+    public T get(int index) {
+        if (index < this.head.size()) {
+            return this.head.get(index);
+        }
+
+        int tailIndex = index - this.head.size();
+        if (tailIndex >= this.ids.size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+
+        int page = tailIndex / this.pageSize;
+        List<T> data = loadPage(page);
+        prefetchPage(page + 1);
+
+        return data.get(tailIndex % this.pageSize);
+    }
+
+    /** 获取已构造的头部数据 */
+    public List<T> getHead() {
+        return this.head;
+    }
+
+    /**
+     * 以相同的分页大小和构造方式创建新的列表，如，用于过滤后的数据
+     * <p/>
+     * 注：新列表的元素将被重新构造
+     */
+    public LazyPagedList<T> derive(List<T> head, List<Integer> ids) {
+        return new LazyPagedList<>(head, ids, this.pageSize, this.pageLoader, this.async);
+    }
+
+    /** 已构造的元素数量 */
+    public int countLoaded() {
+        return this.head.size() + this.pages.values().stream().mapToInt(List::size).sum();
+    }
+
+    private List<T> loadPage(int page) {
+        // Note: 对同一页的并发构造将等待先开始的构造完成，而不会重复构造
+        return this.pages.computeIfAbsent(page, (k) -> {
+            int start = page * this.pageSize;
+            int end = Math.min(start + this.pageSize, this.ids.size());
+
+            List<Integer> pageIds = this.ids.subList(start, end);
+            Map<Integer, T> map = this.pageLoader.apply(pageIds);
+
+            List<T> data = new ArrayList<>(pageIds.size());
+            pageIds.forEach((id) -> data.add(map.get(id)));
+
+            return data;
+        });
+    }
+
+    private void prefetchPage(int page) {
+        if (this.async == null //
+            || page * this.pageSize >= this.ids.size() //
+            || this.pages.containsKey(page) //
+            || !this.prefetchedPages.add(page)) {
+            return;
+        }
+
+        this.async.future(() -> {
+            loadPage(page);
+        });
+    }
+}
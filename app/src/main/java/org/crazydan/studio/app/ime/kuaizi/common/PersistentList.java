@@ -0,0 +1,255 @@
+/*
+ * 筷字输入法 - 高效编辑需要又好又快的输入法
+ * Copyright (C) 2025 Crazydan Studio <https://studio.crazydan.org>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.
+ * If not, see <https://www.gnu.org/licenses/lgpl-3.0.en.html#license-text>.
+ */
+
+package org.crazydan.studio.app.ime.kuaizi.common;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 持久化（不可变）列表
+ * <p/>
+ * 以按位置索引的 AVL 树存储元素，每次变更仅复制从根节点到变更位置的路径上的节点，
+ * 其余节点在新旧列表间共享，因此，变更的时间和新增内存占用均为 O(log n)，
+ * 且变更前的列表保持不变，可直接作为快照保存
+ *
+ * @author <a href="mailto:flytreeleft@crazydan.org">flytreeleft</a>
+ * @date 2025-06-24
+ */
+public final class PersistentList<E> implements Iterable<E> {
+    private static final PersistentList<?> EMPTY = new PersistentList<>(null);
+
+    private final Node<E> root;
+
+    private PersistentList(Node<E> root) {
+        this.root = root;
+    }
+
+    /** 获取空列表 */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentList<E> empty() {
+        return (PersistentList<E>) EMPTY;
+    }
+
+    /** 以指定列表的元素构建平衡的持久化列表 */
+    public static <E> PersistentList<E> of(List<? extends E> list) {
+        Node<E> root = build(list, 0, list.size());
+        return root != null ? new PersistentList<>(root) : empty();
+    }
+
+    public int size() {
+        return size(this.root);
+    }
+
+    public boolean isEmpty() {
+        return this.root == null;
+    }
+
+    public E get(int index) {
+        checkIndex(index, size());
+
+        Node<E> node = this.root;
+        while (true) {
+            int leftSize = size(node.left);
+
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.value;
+            }
+        }
+    }
+
+    /** 替换指定位置的元素，并返回新的列表 */
+    public PersistentList<E> set(int index, E element) {
+        checkIndex(index, size());
+
+        return new PersistentList<>(set(this.root, index, element));
+    }
+
+    /** 在指定位置插入元素，并返回新的列表 */
+    public PersistentList<E> insert(int index, E element) {
+        checkIndex(index, size() + 1);
+
+        return new PersistentList<>(insert(this.root, index, element));
+    }
+
+    /** 删除指定位置的元素，并返回新的列表 */
+    public PersistentList<E> remove(int index) {
+        checkIndex(index, size());
+
+        Node<E> root = remove(this.root, index);
+        return root != null ? new PersistentList<>(root) : empty();
+    }
+
+    /** 按位置顺序遍历元素 */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private final Deque<Node<E>> stack = new ArrayDeque<>();
+
+            {
+                pushLeft(root);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !this.stack.isEmpty();
+            }
+
+            @Override
+            public E next() {
+                if (this.stack.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+
+                Node<E> node = this.stack.pop();
+                pushLeft(node.right);
+
+                return node.value;
+            }
+
+            private void pushLeft(Node<E> node) {
+                for (; node != null; node = node.left) {
+                    this.stack.push(node);
+                }
+            }
+        };
+    }
+
+    private static <E> Node<E> build(List<? extends E> list, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+
+        int mid = (from + to) >>> 1;
+        return new Node<>(list.get(mid), build(list, from, mid), build(list, mid + 1, to));
+    }
+
+    private static <E> Node<E> set(Node<E> node, int index, E element) {
+        int leftSize = size(node.left);
+
+        if (index < leftSize) {
+            return new Node<>(node.value, set(node.left, index, element), node.right);
+        } else if (index > leftSize) {
+            return new Node<>(node.value, node.left, set(node.right, index - leftSize - 1, element));
+        }
+        return new Node<>(element, node.left, node.right);
+    }
+
+    private static <E> Node<E> insert(Node<E> node, int index, E element) {
+        if (node == null) {
+            return new Node<>(element, null, null);
+        }
+
+        int leftSize = size(node.left);
+        if (index <= leftSize) {
+            return balance(node.value, insert(node.left, index, element), node.right);
+        }
+        return balance(node.value, node.left, insert(node.right, index - leftSize - 1, element));
+    }
+
+    private static <E> Node<E> remove(Node<E> node, int index) {
+        int leftSize = size(node.left);
+
+        if (index < leftSize) {
+            return balance(node.value, remove(node.left, index), node.right);
+        } else if (index > leftSize) {
+            return balance(node.value, node.left, remove(node.right, index - leftSize - 1));
+        }
+
+        if (node.left == null) {
+            return node.right;
+        } else if (node.right == null) {
+            return node.left;
+        }
+
+        // 以右子树的首个元素替换被删除的节点
+        Node<E> first = node.right;
+        while (first.left != null) {
+            first = first.left;
+        }
+        return balance(first.value, node.left, remove(node.right, 0));
+    }
+
+    /** 构造节点，并在左右子树高度差超过 1 时做旋转 */
+    private static <E> Node<E> balance(E value, Node<E> left, Node<E> right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node<>(left.value, left.left, new Node<>(value, left.right, right));
+            }
+
+            Node<E> lr = left.right;
+            return new Node<>(lr.value,
+                              new Node<>(left.value, left.left, lr.left),
+                              new Node<>(value, lr.right, right));
+        } else if (rightHeight > leftHeight + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node<>(right.value, new Node<>(value, left, right.left), right.right);
+            }
+
+            Node<E> rl = right.left;
+            return new Node<>(rl.value,
+                              new Node<>(value, left, rl.left),
+                              new Node<>(right.value, rl.right, right.right));
+        }
+        return new Node<>(value, left, right);
+    }
+
+    private static int size(Node<?> node) {
+        return node != null ? node.size : 0;
+    }
+
+    private static int height(Node<?> node) {
+        return node != null ? node.height : 0;
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private static class Node<E> {
+        final E value;
+        final Node<E> left;
+        final Node<E> right;
+
+        final int size;
+        final int height;
+
+        Node(E value, Node<E> left, Node<E> right) {
+            this.value = value;
+            this.left = left;
+            this.right = right;
+
+            this.size = size(left) + size(right) + 1;
+            this.height = Math.max(height(left), height(right)) + 1;
+        }
+    }
+}
@@ -253,7 +253,8 @@ public class DBUtils {
         return list;
     }
 
-    private static void withTransaction(SQLiteDatabase db, Runnable call) {
+    /** 在事务中执行 <code>call</code>：其正常结束时提交事务，否则，回滚事务 */
+    public static void withTransaction(SQLiteDatabase db, Runnable call) {
         db.beginTransaction();
         try {
             call.run();
@@ -0,0 +1,297 @@
+/*
+ * 筷字输入法 - 高效编辑需要又好又快的输入法
+ * Copyright (C) 2025 Crazydan Studio <https://studio.crazydan.org>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.
+ * If not, see <https://www.gnu.org/licenses/lgpl-3.0.en.html#license-text>.
+ */
+
+package org.crazydan.studio.app.ime.kuaizi.common.widget;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.crazydan.studio.app.ime.kuaizi.common.Motion;
+
+/**
+ * {@link ViewGestureDetector.GestureData 手势数据}的追踪记录
+ * <p/>
+ * 用于录制真实的手势序列，并在无界面的环境中进行回放，以得到可重复的输入性能数据。
+ * 与 {@link org.crazydan.studio.app.ime.kuaizi.common.log.Logger#enableLogCache} 相同，
+ * 录制功能需显式启用，未启用时 {@link #record} 不做任何处理
+ * <p/>
+ * 记录的文本格式为每行一个手势，各字段以 <code>\t</code> 分隔：
+ * <code>类型 数据种类 x y 时间戳 扩展数据1 扩展数据2 目标 hash 目标描述</code>
+ *
+ * @author <a href="mailto:flytreeleft@crazydan.org">flytreeleft</a>
+ * @date 2025-06-10
+ */
+public class ViewGestureTrace {
+    /** 记录格式的版本 */
+    public static final int VERSION = 1;
+
+    private static final String HEADER = "# kuaizi-gesture-trace v" + VERSION;
+    private static final String NULL = "-";
+
+    private static final ViewGestureTrace recorder = new ViewGestureTrace();
+
+    private final List<Entry> entries = new ArrayList<>();
+    private boolean enabled;
+
+    /** 启用或禁用手势录制：禁用时将清空已录制的数据 */
+    public static void enableRecording(boolean enabled) {
+        synchronized (recorder) {
+            recorder.enabled = enabled;
+            if (!enabled) {
+                recorder.entries.clear();
+            }
+        }
+    }
+
+    public static boolean isRecording() {
+        return recorder.enabled;
+    }
+
+    /** 获取已录制的手势 */
+    public static ViewGestureTrace getRecorded() {
+        ViewGestureTrace trace = new ViewGestureTrace();
+
+        synchronized (recorder) {
+            trace.entries.addAll(recorder.entries);
+        }
+        return trace;
+    }
+
+    /**
+     * 录制手势：仅在{@link #enableRecording 启用}录制后才有效
+     *
+     * @param targetHash
+     *         手势目标（如，按键）的 hash 值，用于在回放时精确定位目标，可为 null
+     * @param targetDesc
+     *         手势目标的描述，用于在回放时 hash 不匹配的情况下定位目标，可为 null
+     */
+    public static void record(
+            ViewGestureDetector.GestureType type, ViewGestureDetector.GestureData data, //
+            Integer targetHash, String targetDesc
+    ) {
+        if (!recorder.enabled) {
+            return;
+        }
+
+        synchronized (recorder) {
+            recorder.entries.add(new Entry(type, data, targetHash, targetDesc));
+        }
+    }
+
+    public List<Entry> getEntries() {
+        return this.entries;
+    }
+
+    public boolean isEmpty() {
+        return this.entries.isEmpty();
+    }
+
+    // =============================== Start: 序列化 ===================================
+
+    /** 将记录写入 <code>writer</code> */
+    public void write(Writer writer) throws IOException {
+        writer.write(HEADER);
+        writer.write('\n');
+
+        for (Entry entry : this.entries) {
+            writer.write(entry.format());
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    /** 从 <code>reader</code> 中读取记录，忽略空行和以 <code>#</code> 开头的注释行 */
+    public static ViewGestureTrace read(Reader reader) throws IOException {
+        ViewGestureTrace trace = new ViewGestureTrace();
+
+        BufferedReader br = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        String line;
+        while ((line = br.readLine()) != null) {
+            // Note: 不能直接 trim 整行，以避免末尾的空字段被移除
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+
+            trace.entries.add(Entry.parse(line));
+        }
+        return trace;
+    }
+
+    // =============================== End: 序列化 ===================================
+
+    /** 手势记录 */
+    public static class Entry {
+        public final ViewGestureDetector.GestureType type;
+        public final ViewGestureDetector.GestureData data;
+
+        /** 手势目标的 hash 值，可为 null */
+        public final Integer targetHash;
+        /** 手势目标的描述，可为 null */
+        public final String targetDesc;
+
+        Entry(
+                ViewGestureDetector.GestureType type, ViewGestureDetector.GestureData data, //
+                Integer targetHash, String targetDesc
+        ) {
+            this.type = type;
+            this.data = data;
+            this.targetHash = targetHash;
+            this.targetDesc = targetDesc;
+        }
+
+        String format() {
+            ViewGestureDetector.GestureData g = this.data;
+
+            DataKind kind;
+            String extra1 = NULL;
+            String extra2 = NULL;
+            // Note: 子类需在父类之前判断
+            if (g instanceof ViewGestureDetector.MovingGestureData) {
+                kind = DataKind.moving;
+
+                Motion motion = ((ViewGestureDetector.MovingGestureData) g).motion;
+                extra1 = motion.direction.name();
+                extra2 = motion.distance + "";
+            } else if (g instanceof ViewGestureDetector.FlippingGestureData) {
+                kind = DataKind.flipping;
+
+                Motion motion = ((ViewGestureDetector.FlippingGestureData) g).motion;
+                extra1 = motion.direction.name();
+                extra2 = motion.distance + "";
+            } else if (g instanceof ViewGestureDetector.LongPressTickGestureData) {
+                kind = DataKind.long_press_tick;
+
+                ViewGestureDetector.LongPressTickGestureData tick = (ViewGestureDetector.LongPressTickGestureData) g;
+                extra1 = tick.tick + "";
+                extra2 = tick.duration + "";
+            } else if (g instanceof ViewGestureDetector.SingleTapGestureData) {
+                kind = DataKind.single_tap;
+                extra1 = ((ViewGestureDetector.SingleTapGestureData) g).tick + "";
+            } else if (g instanceof ViewGestureDetector.TickGestureData) {
+                kind = DataKind.tick;
+                extra1 = ((ViewGestureDetector.TickGestureData) g).tick + "";
+            } else if (g != null) {
+                kind = DataKind.basic;
+            } else {
+                kind = DataKind.none;
+            }
+
+            return String.join("\t",
+                               this.type.name(),
+                               kind.name(),
+                               g != null ? g.at.x + "" : NULL,
+                               g != null ? g.at.y + "" : NULL,
+                               g != null ? g.timestamp + "" : NULL,
+                               extra1,
+                               extra2,
+                               this.targetHash != null ? this.targetHash + "" : NULL,
+                               escape(this.targetDesc));
+        }
+
+        static Entry parse(String line) {
+            String[] fields = line.split("\t", -1);
+            if (fields.length < 9) {
+                throw new IllegalArgumentException("Invalid gesture trace line: " + line);
+            }
+
+            ViewGestureDetector.GestureType type = ViewGestureDetector.GestureType.valueOf(fields[0]);
+            DataKind kind = DataKind.valueOf(fields[1]);
+
+            ViewGestureDetector.GestureData g = null;
+            if (kind != DataKind.none) {
+                g = new ViewGestureDetector.GestureData(Float.parseFloat(fields[2]),
+                                                        Float.parseFloat(fields[3]),
+                                                        Long.parseLong(fields[4]));
+            }
+
+            switch (kind) {
+                case moving: {
+                    Motion motion = new Motion(Motion.Direction.valueOf(fields[5]), Float.parseFloat(fields[6]));
+                    g = new ViewGestureDetector.MovingGestureData(g, motion);
+                    break;
+                }
+                case flipping: {
+                    Motion motion = new Motion(Motion.Direction.valueOf(fields[5]), Float.parseFloat(fields[6]));
+                    g = new ViewGestureDetector.FlippingGestureData(g, motion);
+                    break;
+                }
+                case long_press_tick: {
+                    g = new ViewGestureDetector.LongPressTickGestureData(g,
+                                                                         Integer.parseInt(fields[5]),
+                                                                         Long.parseLong(fields[6]));
+                    break;
+                }
+                case single_tap: {
+                    g = new ViewGestureDetector.SingleTapGestureData(g, Integer.parseInt(fields[5]));
+                    break;
+                }
+                case tick: {
+                    g = new ViewGestureDetector.TickGestureData(g, Integer.parseInt(fields[5]));
+                    break;
+                }
+            }
+
+            Integer targetHash = NULL.equals(fields[7]) ? null : Integer.parseInt(fields[7]);
+            String targetDesc = unescape(fields[8]);
+
+            return new Entry(type, g, targetHash, targetDesc);
+        }
+
+        private static String escape(String s) {
+            if (s == null) {
+                return NULL;
+            }
+            return s.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n");
+        }
+
+        private static String unescape(String s) {
+            if (NULL.equals(s)) {
+                return null;
+            }
+
+            StringBuilder sb = new StringBuilder(s.length());
+            for (int i = 0; i < s.length(); i++) {
+                char ch = s.charAt(i);
+                if (ch == '\\' && i + 1 < s.length()) {
+                    char next = s.charAt(++i);
+                    sb.append(next == 't' ? '\t' : next == 'n' ? '\n' : next);
+                } else {
+                    sb.append(ch);
+                }
+            }
+            return sb.toString();
+        }
+    }
+
+    /** 手势数据的种类，与 {@link ViewGestureDetector.GestureData} 的子类对应 */
+    private enum DataKind {
+        none,
+        basic,
+        moving,
+        flipping,
+        tick,
+        long_press_tick,
+        single_tap,
+    }
+}
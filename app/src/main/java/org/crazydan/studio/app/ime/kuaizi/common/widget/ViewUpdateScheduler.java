@@ -0,0 +1,124 @@
+/*
+ * 筷字输入法 - 高效编辑需要又好又快的输入法
+ * Copyright (C) 2025 Crazydan Studio <https://studio.crazydan.org>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.
+ * If not, see <https://www.gnu.org/licenses/lgpl-3.0.en.html#license-text>.
+ */
+
+package org.crazydan.studio.app.ime.kuaizi.common.widget;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import android.view.Choreographer;
+
+/**
+ * 视图更新调度器
+ * <p/>
+ * 仅将视图标记为待更新，并在下一帧的垂直同步信号（vsync）到达时，通过 {@link Choreographer} 统一执行更新。
+ * 同一帧内对同一目标的多次更新，仅执行最后一次，从而丢弃一次滑屏输入等产生的连续消息所引起的冗余的绑定和布局
+ * <p/>
+ * 注：更新在 {@link Choreographer} 的动画阶段执行，早于当前帧的布局和绘制，故而，不会额外推迟一帧显示
+ * <p/>
+ * 注：仅可在主线程中使用
+ *
+ * @author <a href="mailto:flytreeleft@crazydan.org">flytreeleft</a>
+ * @date 2025-06-26
+ */
+public class ViewUpdateScheduler {
+    /** 待更新目标及其最新的更新 */
+    private static Map<Object, Runnable> pending = new LinkedHashMap<>();
+    private static boolean scheduled;
+
+    private static final Choreographer.FrameCallback frameCallback = ViewUpdateScheduler::doFrame;
+
+    private static long scheduledCount;
+    private static long coalescedCount;
+    private static long appliedCount;
+    private static long frameCount;
+
+    /**
+     * 调度指定目标的更新
+     * <p/>
+     * 若该目标在本帧内已有未执行的更新，则以新的更新替换之
+     *
+     * @param target
+     *         更新目标，一般为视图自身，也可为视图内的某个独立更新的部件
+     */
+    public static void schedule(Object target, Runnable update) {
+        scheduledCount += 1;
+
+        if (pending.put(target, update) != null) {
+            coalescedCount += 1;
+        }
+
+        if (!scheduled) {
+            scheduled = true;
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        }
+    }
+
+    /** 取消指定目标的未执行的更新，如，在视图被销毁时 */
+    public static void cancel(Object target) {
+        pending.remove(target);
+    }
+
+    /** 获取当前的更新统计数据 */
+    public static Metrics getMetrics() {
+        return new Metrics(scheduledCount, coalescedCount, appliedCount, frameCount);
+    }
+
+    private static void doFrame(long frameTimeNanos) {
+        scheduled = false;
+
+        // Note: 在更新过程中可能会调度新的更新，其将在下一帧执行
+        Map<Object, Runnable> updates = pending;
+        pending = new LinkedHashMap<>();
+
+        for (Runnable update : updates.values()) {
+            update.run();
+        }
+
+        appliedCount += updates.size();
+        frameCount += 1;
+    }
+
+    /** 更新统计数据 */
+    public static class Metrics {
+        /** 调度的更新数 */
+        public final long scheduled;
+        /** 因同一帧内被再次调度而丢弃的更新数 */
+        public final long coalesced;
+        /** 实际执行的更新数 */
+        public final long applied;
+        /** 执行了更新的帧数 */
+        public final long frames;
+
+        Metrics(long scheduled, long coalesced, long applied, long frames) {
+            this.scheduled = scheduled;
+            this.coalesced = coalesced;
+            this.applied = applied;
+            this.frames = frames;
+        }
+
+        @Override
+        public String toString() {
+            return "scheduled=" + this.scheduled
+                   + ", coalesced=" + this.coalesced
+                   + ", applied=" + this.applied
+                   + ", frames=" + this.frames;
+        }
+    }
+}
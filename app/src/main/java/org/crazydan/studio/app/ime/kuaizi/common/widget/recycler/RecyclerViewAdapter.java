@@ -25,19 +25,38 @@ import java.util.List;
 import java.util.Objects;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
+import org.crazydan.studio.app.ime.kuaizi.common.Async;
 
 /**
  * @author <a href="mailto:flytreeleft@crazydan.org">flytreeleft</a>
  * @date 2023-07-07
  */
 public abstract class RecyclerViewAdapter<I, H extends RecyclerView.ViewHolder> extends RecyclerView.Adapter<H> {
+    /** 数据项数量不小于该值时，{@link ItemUpdatePolicy#differ_async} 才在后台计算差异 */
+    private static final int ASYNC_DIFF_MIN_ITEMS = 100;
+    private static final Async diffAsync = new Async(1, 1);
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
     private final ItemUpdatePolicy itemUpdatePolicy;
 
     protected List<I> items = new ArrayList<>();
+    /**
+     * 正在后台计算差异的新数据项列表：在差异更新完成前，其为最新的数据项，
+     * 对数据项的直接修改均作用在该列表上，而 {@link #items} 则保持与视图一致
+     */
+    private List<I> pendingItems;
+
+    /** 差异更新的版本号：用于丢弃过期的后台差异计算结果 */
+    private int diffVersion;
+    /** 在后台计算差异期间对数据项的直接修改次数：若发生了修改，则需重新计算差异 */
+    private int itemsModCount;
 
     protected RecyclerViewAdapter(ItemUpdatePolicy itemUpdatePolicy) {
         this.itemUpdatePolicy = itemUpdatePolicy;
@@ -51,16 +70,31 @@ public abstract class RecyclerViewAdapter<I, H extends RecyclerView.ViewHolder>
      * @return 更新前的数据项列表
      */
     public List<I> updateItems(List<I> newItems) {
-        List<I> oldItems = this.items;
-        this.items = newItems != null ? newItems : new ArrayList<>();
+        List<I> oldItems = getLatestItems();
+        List<I> shownItems = this.items;
+        newItems = newItems != null ? newItems : new ArrayList<>();
+
+        // 放弃尚未完成的后台差异更新
+        this.diffVersion += 1;
+        this.pendingItems = null;
+
+        if (this.itemUpdatePolicy == ItemUpdatePolicy.differ_async //
+            && Math.max(shownItems.size(), newItems.size()) >= ASYNC_DIFF_MIN_ITEMS) {
+            this.pendingItems = newItems;
+            updateItemsByAsyncDiffer(shownItems, newItems);
+            return oldItems;
+        }
+
+        this.items = newItems;
 
         switch (this.itemUpdatePolicy) {
             case full: {
-                updateItemsByFull(oldItems, newItems);
+                updateItemsByFull(shownItems, newItems);
                 break;
             }
-            case differ: {
-                updateItemsByDiffer(oldItems, newItems);
+            case differ:
+            case differ_async: {
+                updateItemsByDiffer(shownItems, newItems);
                 break;
             }
             case manual: {
@@ -71,11 +105,27 @@ public abstract class RecyclerViewAdapter<I, H extends RecyclerView.ViewHolder>
         return oldItems;
     }
 
+    /**
+     * 获取已通知到视图的数据项数量
+     * <p/>
+     * Note: 需与视图的更新通知保持一致，否则，{@link RecyclerView} 将检测到数据不一致，
+     * 因此，在后台差异更新完成前，其不包含新的数据项，需通过 {@link #getLatestItemCount()} 获取最新的数量
+     */
     @Override
     public int getItemCount() {
         return this.items.size();
     }
 
+    /** 获取最新的数据项数量：包含正在后台计算差异的数据项 */
+    public int getLatestItemCount() {
+        return getLatestItems().size();
+    }
+
+    /** 获取最新的数据项列表：若存在正在后台计算差异的数据项，则返回该数据项列表 */
+    protected List<I> getLatestItems() {
+        return this.pendingItems != null ? this.pendingItems : this.items;
+    }
+
     /** 根据 {@link RecyclerView.ViewHolder} 获取与其绑定的数据项 */
     public I getItem(RecyclerView.ViewHolder holder) {
         int position = holder != null ? holder.getAdapterPosition() : -1;
@@ -88,42 +138,138 @@ public abstract class RecyclerViewAdapter<I, H extends RecyclerView.ViewHolder>
         return position < 0 || position >= this.items.size() ? null : this.items.get(position);
     }
 
-    /** 在指定位置新增数据项 */
+    /** 在指定位置新增数据项：位置为在{@link #getLatestItems() 最新数据项列表}中的位置 */
     public void addItem(int position, I item) {
+        if (this.pendingItems != null) {
+            this.pendingItems.add(position, item);
+            this.itemsModCount += 1;
+            return;
+        }
+
         this.items.add(position, item);
         notifyItemInserted(position);
     }
 
-    /** 在指定位置更新数据项 */
+    /** 在指定位置更新数据项：位置为在{@link #getLatestItems() 最新数据项列表}中的位置 */
     public void updateItem(int position, I item) {
+        if (this.pendingItems != null) {
+            this.pendingItems.set(position, item);
+            this.itemsModCount += 1;
+            return;
+        }
+
         this.items.set(position, item);
         notifyItemChanged(position);
     }
 
-    /** 删除指定位置的数据项 */
+    /** 删除指定位置的数据项：位置为在{@link #getLatestItems() 最新数据项列表}中的位置 */
     public void removeItems(List<Integer> positions) {
         // 从高位向低位做删除，以确保待删除数据的位置不变
         positions.stream().sorted((a, b) -> b - a).forEach((position) -> {
+            if (this.pendingItems != null) {
+                this.pendingItems.remove((int) position);
+                this.itemsModCount += 1;
+                return;
+            }
+
             this.items.remove((int) position);
             notifyItemRemoved(position);
         });
     }
 
-    /** 清空数据项 */
+    /** 清空数据项：直接同步更新，并放弃尚未完成的后台差异更新 */
     public void clearItems() {
-        updateItems(null);
+        int size = this.items.size();
+
+        this.diffVersion += 1;
+        this.pendingItems = null;
+        this.items = new ArrayList<>();
+
+        if (size > 0) {
+            notifyItemRangeRemoved(0, size);
+        }
     }
 
-    /** 根据新旧列表更新差异数据项 */
+    /**
+     * 根据新旧列表更新差异数据项
+     * <p/>
+     * 通过 {@link DiffUtil}（Myers 差分算法）计算新旧列表的最小编辑序列（含移动），
+     * 并合并连续的插入、删除和变更通知，从而仅重新绑定实际发生变化的数据项
+     */
     protected void updateItemsByDiffer(List<I> oldItems, List<I> newItems) {
-        updateItemsByComparator(oldItems, newItems, (o, n) -> {
-            if (o instanceof Comparable && n instanceof Comparable) {
-                return ((Comparable<I>) o).compareTo(n);
-            }
-            return Objects.equals(o, n) ? 0 : -1;
+        calculateDiff(oldItems, newItems).dispatchUpdatesTo(this);
+    }
+
+    /** 在后台计算新旧列表的差异，再在主线程中更新数据项 */
+    private void updateItemsByAsyncDiffer(List<I> oldItems, List<I> newItems) {
+        int version = this.diffVersion;
+        int modCount = this.itemsModCount;
+
+        // Note: 新旧列表在计算期间需保持不变，故而，对其做浅复制
+        List<I> oldSnapshot = new ArrayList<>(oldItems);
+        List<I> newSnapshot = new ArrayList<>(newItems);
+
+        diffAsync.future(() -> calculateDiff(oldSnapshot, newSnapshot)).thenAccept((result) -> {
+            mainHandler.post(() -> {
+                // 已有更新的数据
+                if (version != this.diffVersion) {
+                    return;
+                }
+
+                // 若在计算期间新数据项已被直接修改，则需基于修改后的数据项重新计算差异
+                if (modCount != this.itemsModCount) {
+                    updateItemsByAsyncDiffer(this.items, newItems);
+                    return;
+                }
+
+                this.pendingItems = null;
+                this.items = newItems;
+                result.dispatchUpdatesTo(this);
+            });
         });
     }
 
+    private DiffUtil.DiffResult calculateDiff(List<I> oldItems, List<I> newItems) {
+        return DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldItems.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newItems.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                return isSameItem(oldItems.get(oldItemPosition), newItems.get(newItemPosition));
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                return isSameItemContent(oldItems.get(oldItemPosition), newItems.get(newItemPosition));
+            }
+        }, true);
+    }
+
+    /**
+     * 判断新旧数据项是否为同一数据项，以识别数据项的插入、删除和移动
+     * <p/>
+     * 默认通过 {@link Objects#equals} 判断，对于有稳定标识（如，id）的数据项，应重载该接口
+     */
+    protected boolean isSameItem(I oldItem, I newItem) {
+        return Objects.equals(oldItem, newItem);
+    }
+
+    /** 判断{@link #isSameItem 同一数据项}的内容是否未发生变化，若已变化，则需重新绑定其视图 */
+    protected boolean isSameItemContent(I oldItem, I newItem) {
+        if (oldItem instanceof Comparable && newItem instanceof Comparable) {
+            return ((Comparable<I>) oldItem).compareTo(newItem) == 0;
+        }
+        return Objects.equals(oldItem, newItem);
+    }
+
     /** 根据新旧列表更新全部数据项 */
     protected void updateItemsByFull(List<I> oldItems, List<I> newItems) {
         updateItemsByComparator(oldItems, newItems, (o, n) -> -1);
@@ -176,6 +322,8 @@ public abstract class RecyclerViewAdapter<I, H extends RecyclerView.ViewHolder>
         full,
         /** 差异更新 */
         differ,
+        /** 差异更新：在数据项较多时，在后台计算差异，适用于数据项可能很多的列表 */
+        differ_async,
         /** 自行确定 */
         manual,
     }
@@ -19,8 +19,11 @@
 
 package org.crazydan.studio.app.ime.kuaizi.conf;
 
+import java.util.Set;
+
 import org.crazydan.studio.app.ime.kuaizi.IMESubtype;
 import org.crazydan.studio.app.ime.kuaizi.core.Keyboard;
+import org.crazydan.studio.app.ime.kuaizi.dict.PinyinCharsTree;
 
 /** 配置项 */
 public enum ConfigKey {
@@ -61,6 +64,8 @@ public enum ConfigKey {
 
     /** 启用候选字变体优先：主要针对拼音字的繁/简体 */
     enable_candidate_variant_first(Boolean.class, false),
+    /** 拼音模糊音规则：其值为 {@link PinyinCharsTree.FuzzyRule} 的名称集合 */
+    pinyin_fuzzy_rules(Set.class, null),
     /** 启用 X 输入面板 */
     enable_x_input_pad(Boolean.class, false),
     /** 启用在 X 输入面板中让拉丁文输入共用拼音输入的按键布局 */
@@ -90,7 +95,7 @@ public enum ConfigKey {
     /** 解析数据 */
     public <T> T parse(Object value) {
         if (value != null) {
-            if (value.getClass() == this.type) {
+            if (this.type.isInstance(value)) {
                 return (T) value;
             } else if (this.type.isEnum()) {
                 for (Object o : this.type.getEnumConstants()) {
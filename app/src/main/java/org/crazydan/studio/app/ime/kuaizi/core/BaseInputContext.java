@@ -84,8 +84,8 @@ public abstract class BaseInputContext extends Immutable {
         private InputList inputList;
         private InputMsgListener listener;
 
-        protected Builder(int cacheSize) {
-            super(cacheSize);
+        protected Builder(int cacheBytes) {
+            super(cacheBytes);
         }
 
         // ===================== Start: 构建函数 ===================
@@ -113,6 +113,11 @@ public abstract class BaseInputContext extends Immutable {
                                 System.identityHashCode(this.listener));
         }
 
+        @Override
+        protected Object[] identity() {
+            return new Object[] { ref(this.dict), ref(this.inputList), ref(this.listener) };
+        }
+
         // ===================== End: 构建函数 ===================
 
         // ===================== Start: 构建配置 ===================
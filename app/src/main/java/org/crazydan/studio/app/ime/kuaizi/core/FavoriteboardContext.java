@@ -22,6 +22,8 @@ package org.crazydan.studio.app.ime.kuaizi.core;
 import java.util.Objects;
 import java.util.function.Consumer;
 
+import org.crazydan.studio.app.ime.kuaizi.common.Immutable.ThreadLocalBuilder;
+
 /**
  * {@link Favoriteboard} 的上下文
  *
@@ -29,7 +31,7 @@ import java.util.function.Consumer;
  * @date 2025-02-21
  */
 public class FavoriteboardContext extends BaseInputContext {
-    private final static Builder builder = new Builder();
+    private final static ThreadLocalBuilder<Builder> builder = new ThreadLocalBuilder<>(Builder::new);
 
     // <<<<<<<<<<<<<<<<<<<<<<<<< 配置信息
     /** 已使用的剪贴数据标识 */
@@ -56,7 +58,7 @@ public class FavoriteboardContext extends BaseInputContext {
         private boolean clipsDisabled;
 
         protected Builder() {
-            super(1);
+            super(512);
         }
 
         // ===================== Start: 构建函数 ===================
@@ -79,6 +81,11 @@ public class FavoriteboardContext extends BaseInputContext {
             return Objects.hash(super.hashCode(), this.usedClipCode, this.clipsDisabled);
         }
 
+        @Override
+        protected Object[] identity() {
+            return new Object[] { super.identity(), this.usedClipCode, this.clipsDisabled };
+        }
+
         // ===================== End: 构建函数 ===================
 
         // ===================== Start: 构建配置 ===================
@@ -19,6 +19,9 @@
 
 package org.crazydan.studio.app.ime.kuaizi.core;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
 import org.crazydan.studio.app.ime.kuaizi.core.input.word.PinyinWord;
 
 /**
@@ -28,6 +31,15 @@ import org.crazydan.studio.app.ime.kuaizi.core.input.word.PinyinWord;
  * @date 2023-06-28
  */
 public abstract class Input {
+    /** 用于为新建的输入分配{@link #getId() 标识} */
+    private static final AtomicInteger nextId = new AtomicInteger();
+
+    /** 输入的标识：新建的输入均有不同的标识，而其{@link #copy() 副本}则沿用原输入的标识 */
+    private int id = nextId.incrementAndGet();
+    /** 内容的修改次数：用于判断输入在两次视图构建之间是否发生了变化 */
+    private int modCount;
+    /** 内容修改的监听：由输入所在的{@link InputList 输入列表}绑定，以记录其发生变化的位置 */
+    private Consumer<Input> modListener;
 
     /** 指定输入是否为 null 或{@link #isEmpty() 空白} */
     public static boolean isEmpty(Input input) {
@@ -37,12 +49,51 @@ public abstract class Input {
     /** 是否为空白输入 */
     protected abstract boolean isEmpty();
 
+    /**
+     * 获取输入的标识
+     * <p/>
+     * 输入在被修改时可能会被替换为其{@link #copy() 副本}，但二者的标识是相同的，
+     * 故而，可用于在视图中识别同一输入
+     */
+    public int getId() {
+        return this.id;
+    }
+
+    /** 获取内容的修改次数 */
+    public int getModCount() {
+        return this.modCount;
+    }
+
+    /** 标记输入内容已被修改 */
+    protected void markModified() {
+        this.modCount += 1;
+
+        if (this.modListener != null) {
+            this.modListener.accept(this);
+        }
+    }
+
+    Consumer<Input> getModListener() {
+        return this.modListener;
+    }
+
+    /** 设置内容修改的监听，仅由{@link InputList 输入列表}调用 */
+    void setModListener(Consumer<Input> modListener) {
+        this.modListener = modListener;
+    }
+
     /** 确认输入，一般用于包含 输入列表 的输入 */
     public void confirm() {}
 
-    /** 创建副本 */
+    /** 创建副本：副本需通过 {@link #withSameId} 沿用当前输入的{@link #getId() 标识} */
     public abstract Input copy();
 
+    /** 使副本沿用当前输入的{@link #getId() 标识} */
+    protected <T extends Input> T withSameId(T copied) {
+        ((Input) copied).id = this.id;
+        return copied;
+    }
+
     /**
      * 获取输入的文本内容
      *
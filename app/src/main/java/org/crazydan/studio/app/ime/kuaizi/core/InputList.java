@@ -21,16 +21,24 @@ package org.crazydan.studio.app.ime.kuaizi.core;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.function.Function;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import org.crazydan.studio.app.ime.kuaizi.common.GapBufferList;
+import org.crazydan.studio.app.ime.kuaizi.common.PersistentList;
 import org.crazydan.studio.app.ime.kuaizi.common.utils.CollectionUtils;
 import org.crazydan.studio.app.ime.kuaizi.core.input.CharInput;
 import org.crazydan.studio.app.ime.kuaizi.core.input.GapInput;
+import org.crazydan.studio.app.ime.kuaizi.core.input.InputViewData;
 import org.crazydan.studio.app.ime.kuaizi.core.input.InputWord;
 import org.crazydan.studio.app.ime.kuaizi.core.input.MathExprInput;
 import org.crazydan.studio.app.ime.kuaizi.core.input.completion.InputCompletion;
@@ -56,7 +64,20 @@ import org.crazydan.studio.app.ime.kuaizi.core.key.InputWordKey;
  * @date 2023-06-28
  */
 public class InputList {
-    private final List<Input> inputs = new ArrayList<>();
+    /** 英文结束标点符号：其左右两边为中文时，从该符号处结束短语 */
+    private static final Set<String> LATIN_PHRASE_END_SYMBOLS = Set.of(",", ".", ";", ":", "?", "!");
+    /** 中文结束标点符号 */
+    private static final Set<String> HAN_PHRASE_END_SYMBOLS = Set.of("，", "。", "；", "：", "？", "！", "∶", "…");
+
+    /** Note: 输入的插入、删除和查找主要发生在光标附近，故而，采用 Gap Buffer 存储 */
+    private final GapBufferList<Input> inputs = new GapBufferList<>();
+    /** 与 {@link #inputs} 同步变更的持久化列表，用于以结构共享的方式{@link #snapshot() 创建快照} */
+    private PersistentList<Input> persistentInputs = PersistentList.empty();
+    /**
+     * 自上次{@link #snapshot() 创建快照}以来加入列表的输入：其未被快照引用，可被直接修改，
+     * 而其余输入则需通过 {@link #getWritableInput} 复制后才能修改
+     */
+    private Set<Input> ownedInputs = newIdentitySet();
     private final Cursor cursor = new Cursor();
 
     /** 输入补全 */
@@ -65,6 +86,25 @@ public class InputList {
     private boolean frozen;
     private Input.Option inputOption;
 
+    /** 上次构建的{@link InputViewData 视图数据}快照 */
+    private InputViewData.Snapshot viewDataSnapshot;
+    /** 自上次构建{@link InputViewData 视图数据}以来，发生变化的位置 */
+    private final BitSet dirtyPositions = new BitSet();
+    /** 是否需全部重建{@link InputViewData 视图数据} */
+    private boolean allDirty;
+    /** 文本和短语的分段索引，仅在发生变化的位置上按需更新 */
+    private Segments segments;
+    /** 输入列表的修改次数：在{@link #getSegments() 分段索引}中检测到变化时递增 */
+    private int modCount;
+    /** 列表中的输入的内容修改监听：在{@link #segments 分段索引}中标记被修改输入所在的位置 */
+    private final Consumer<Input> inputModListener = this::onInputModified;
+    /**
+     * 列表中的{@link MathExprInput 算术输入}及其已记录的修改次数
+     * <p/>
+     * 其嵌套输入列表的变化不会通知到当前列表，故而，需在{@link #getSegments() 获取分段索引}时逐个检查
+     */
+    private final Map<Input, Integer> nestedInputModCounts = new IdentityHashMap<>();
+
     public InputList() {
         // 确保始终至少有一个 GapInput
         reset();
@@ -94,6 +134,10 @@ public class InputList {
     }
 
     public void setInputOption(Input.Option option) {
+        // Note: 输入间的空格与输入选项相关，故而，需重建分段索引
+        if (this.inputOption != option) {
+            this.segments = null;
+        }
         this.inputOption = option;
     }
 
@@ -109,25 +153,79 @@ public class InputList {
 
     /** 替换为指定的 {@link InputList}，使二者数据相同，但第一层属性的引用是不相同的，可被直接修改 */
     public void replaceBy(InputList source) {
+        unbindInputs();
         this.inputs.clear();
         this.inputs.addAll(source.inputs);
+        this.inputs.forEach((input) -> bindInput(input, false));
+        this.persistentInputs = source.persistentInputs;
+        // Note: 输入与源列表共享，故而，均需在复制后才能修改
+        this.ownedInputs = newIdentitySet();
 
         this.cursor.replaceBy(source.cursor);
+        this.segments = null;
+
+        markAllDirty();
     }
 
     /** 重置 */
     public void reset() {
         this.inputOption = null;
 
+        unbindInputs();
         this.inputs.clear();
+        this.persistentInputs = PersistentList.empty();
+        this.ownedInputs = newIdentitySet();
         this.cursor.reset();
+        this.segments = null;
+
+        markAllDirty();
 
         // 始终包含并选中一个 Gap 位
         Input gap = new GapInput();
-        this.inputs.add(gap);
+        addInput(0, gap);
         doSelect(gap);
     }
 
+    /**
+     * 创建快照
+     * <p/>
+     * 快照与输入列表共享未发生变化的部分，其创建的时间和内存开销均与输入数量无关，
+     * 可用于多级的撤销和重做。注：快照中的输入为引用，仅{@link #getPending() 待输入}为副本，
+     * 因此，在创建快照后，列表中的输入均需通过 {@link #getWritableInput} 复制后再修改，以确保快照内容不变
+     */
+    public Snapshot snapshot() {
+        // 当前的输入均将被快照引用，不可再被直接修改
+        this.ownedInputs = newIdentitySet();
+
+        Input pending = getPending();
+        return new Snapshot(this.persistentInputs, getSelected(), pending != null ? pending.copy() : null);
+    }
+
+    /** 从快照中恢复输入列表 */
+    public void restore(Snapshot snapshot) {
+        unbindInputs();
+        this.inputs.clear();
+        snapshot.inputs.forEach(this.inputs::add);
+        this.inputs.forEach((input) -> bindInput(input, false));
+        this.persistentInputs = snapshot.inputs;
+        this.ownedInputs = newIdentitySet();
+
+        this.cursor.selected = snapshot.selected;
+        // Note: 待输入可被直接修改，故而，需恢复其副本，以确保快照可被多次恢复
+        this.cursor.pending = snapshot.pending != null ? snapshot.pending.copy() : null;
+        this.segments = null;
+
+        markAllDirty();
+    }
+
+    /** 判断输入列表与指定快照是否相同：仅对比输入的引用和待输入的内容 */
+    public boolean isSameAs(Snapshot snapshot) {
+        return snapshot != null
+               && this.persistentInputs == snapshot.inputs
+               && getSelected() == snapshot.selected
+               && Objects.equals(getPending(), snapshot.pending);
+    }
+
     /** 是否冻结输入列表？ */
     public void freeze(boolean frozen) {
         this.frozen = frozen;
@@ -135,17 +233,130 @@ public class InputList {
 
     // =================== End: 整体性处理 ====================
 
+    // =================== Start: 视图数据的增量构建 ====================
+
+    /** 获取上次构建的{@link InputViewData 视图数据}快照，可能为 null */
+    public InputViewData.Snapshot getViewDataSnapshot() {
+        return this.viewDataSnapshot;
+    }
+
+    /**
+     * 更新{@link InputViewData 视图数据}快照，并重置{@link #getDirtyPositions() 已变化位置}
+     * <p/>
+     * 仅在完成视图数据的构建后调用
+     */
+    public void updateViewDataSnapshot(InputViewData.Snapshot snapshot) {
+        this.viewDataSnapshot = snapshot;
+        this.dirtyPositions.clear();
+        this.allDirty = false;
+    }
+
+    /**
+     * 获取自上次{@link #updateViewDataSnapshot 更新视图数据快照}以来，
+     * 因输入的插入、删除、替换和光标移动而发生变化的位置
+     * <p/>
+     * 在插入和删除输入时，其后的已变化位置会随之移动，即，位置始终对应当前的输入列表。
+     * 调用方可在构建过程中追加变化位置，其将在{@link #updateViewDataSnapshot 更新快照}时被清空
+     * <p/>
+     * 注：输入自身内容的变化由 {@link Input#getModCount()} 判断，不在此记录
+     *
+     * @return 若需全部重建，则返回 null
+     */
+    public BitSet getDirtyPositions() {
+        return this.allDirty ? null : this.dirtyPositions;
+    }
+
+    /** 标记全部位置均已变化 */
+    private void markAllDirty() {
+        this.viewDataSnapshot = null;
+        this.dirtyPositions.clear();
+        this.allDirty = true;
+    }
+
+    /** 标记 <code>[fromIndex, toIndex)</code> 区间及其左右相邻位置均已变化，以重新计算相邻 Gap 的空格 */
+    private void markDirty(int fromIndex, int toIndex) {
+        if (!this.allDirty && fromIndex >= 0) {
+            this.dirtyPositions.set(Math.max(0, fromIndex - 1), toIndex + 1);
+        }
+    }
+
+    /** 标记指定输入及其{@link CharInput#getPair() 配对输入}所在位置已变化 */
+    private void markDirty(Input input) {
+        int index = getInputIndex(input);
+        markDirty(index, index + 1);
+
+        if (input instanceof CharInput && ((CharInput) input).hasPair()) {
+            int pairIndex = getInputIndex(((CharInput) input).getPair());
+            markDirty(pairIndex, pairIndex + 1);
+        }
+    }
+
+    /**
+     * 在指定位置插入或删除输入后，同步移动其后的已变化位置，并标记该位置及其左右相邻位置已变化
+     * <p/>
+     * 其后未变化的输入，其视图数据仅需更新位置，不需要重建
+     */
+    private void shiftDirtyPositions(int index, boolean inserted) {
+        if (this.allDirty) {
+            return;
+        }
+
+        shiftPositions(this.dirtyPositions, index, inserted);
+
+        if (inserted) {
+            markDirty(index, index + 1);
+        } else {
+            markDirty(index, index);
+        }
+    }
+
+    /** 在指定位置插入或删除输入后，同步移动其后的位置标记 */
+    private static void shiftPositions(BitSet positions, int index, boolean inserted) {
+        // Note: 在变化位置之后可能没有标记，此时无需移动
+        int length = positions.length();
+        if (index >= length) {
+            return;
+        }
+
+        if (inserted) {
+            BitSet tail = positions.get(index, length);
+            positions.clear(index, length);
+
+            for (int i = tail.nextSetBit(0); i >= 0; i = tail.nextSetBit(i + 1)) {
+                positions.set(index + 1 + i);
+            }
+        } else {
+            BitSet tail = positions.get(index + 1, Math.max(index + 1, length));
+            positions.clear(index, length);
+
+            for (int i = tail.nextSetBit(0); i >= 0; i = tail.nextSetBit(i + 1)) {
+                positions.set(index + i);
+            }
+        }
+    }
+
+    // =================== End: 视图数据的增量构建 ====================
+
     // ======================== Start: 处理输入补全 ==========================
 
-    /** 获取输入补全的视图数据 */
-    public List<InputCompletion.ViewData> getCompletionViewDataList() {
+    /**
+     * 创建输入补全视图数据的获取函数
+     * <p/>
+     * 补全数据和输入选项在此时确定，仅视图数据在调用获取函数时才创建，
+     * 从而不受之后的输入补全变更的影响
+     */
+    public Supplier<List<InputCompletion.ViewData>> createCompletionViewDataListGetter() {
         if (this.completions == null) {
-            return List.of();
+            return List::of;
         }
-        return this.completions.data.stream().map((completion) -> {
-            // Note: 使用输入选项，以确保汉字的繁/简转换符合应用的配置要求
-            return InputCompletion.ViewData.create(completion, getInputOption());
-        }).collect(Collectors.toList());
+
+        List<InputCompletion> data = new ArrayList<>(this.completions.data);
+        // Note: 使用输入选项，以确保汉字的繁/简转换符合应用的配置要求
+        Input.Option option = getInputOption();
+
+        return () -> data.stream()
+                         .map((completion) -> InputCompletion.ViewData.create(completion, option))
+                         .collect(Collectors.toList());
     }
 
     /**
@@ -169,6 +380,32 @@ public class InputList {
         return this.completions;
     }
 
+    /** 新建 {@link InputCompletions.Type#Initials_Phrase} 类型的输入补全 */
+    public InputCompletions newInitialsPhraseCompletions(Input start, Input end) {
+        int startIndex = getInputIndex(start);
+        int endIndex = getInputIndex(end);
+        this.completions = new InputCompletions(InputCompletions.Type.Initials_Phrase, startIndex, endIndex + 1);
+
+        return this.completions;
+    }
+
+    /**
+     * 新建 {@link InputCompletions.Type#Next_Word} 类型的输入补全
+     * <p/>
+     * 该补全在输入列表提交前创建，并仅在输入列表被提交（重置）后的空列表上有效，
+     * 故而，其应用范围固定为列表的起始位置
+     */
+    public InputCompletions newNextWordCompletions() {
+        this.completions = new InputCompletions(InputCompletions.Type.Next_Word, 0, 1);
+
+        return this.completions;
+    }
+
+    /** 清空输入补全 */
+    public void clearCompletions() {
+        this.completions = null;
+    }
+
     /**
      * 检查输入补全，若针对{@link #getSelected() 当前选中输入}无有效的输入补全，
      * 则清空已有的输入补全数据，否则，保留现有的输入补全数据
@@ -206,8 +443,9 @@ public class InputList {
                 }
                 break;
             }
-            // 短语补全仅针对拼音输入
-            case Phrase_Word: {
+            // 短语补全仅针对拼音输入，简拼补全仅针对简拼输入
+            case Phrase_Word:
+            case Initials_Phrase: {
                 // 拼音是单输入并直接确认的，因此，只有光标在 Gap 上时，才会构造输入补全
                 if (!isGapSelected) {
                     this.completions = null;
@@ -215,6 +453,14 @@ public class InputList {
                 }
                 break;
             }
+            // 后继字补全仅针对提交后的空列表，一旦有新的输入，则不再补全
+            case Next_Word: {
+                if (!isGapSelected || !isEmpty()) {
+                    this.completions = null;
+                    return false;
+                }
+                break;
+            }
         }
         return !this.completions.data.isEmpty();
     }
@@ -253,7 +499,8 @@ public class InputList {
             CharInput source = completion.inputs.get(i);
 
             switch (completions.type) {
-                case Latin: {
+                case Latin:
+                case Initials_Phrase: {
                     select(target);
                     withPending(source);
                     confirmPending();
@@ -261,6 +508,7 @@ public class InputList {
                 }
                 case Phrase_Word: {
                     if (!target.isWordConfirmed() && source.hasWord()) {
+                        target = (CharInput) getWritableInput(target);
                         target.setWord(source.getWord());
                         // 直接确认输入字，以避免后续进行的短语预测对其的修改
                         target.confirmWord();
@@ -327,6 +575,27 @@ public class InputList {
         return isSelected(input) ? getPending() : null;
     }
 
+    /**
+     * 获取在指定输入位置上显示的{@link MathExprInput 算术输入}
+     * <p/>
+     * 算术输入的编辑均发生在其待输入（副本）上，故而，在待输入为算术输入时，优先返回待输入
+     *
+     * @return 若该位置未显示算术输入，则返回 null
+     */
+    public MathExprInput getMathExprInputOn(Input input) {
+        Input pending = getPendingOn(input);
+
+        return pending instanceof MathExprInput
+               // 待输入的算术不能为空，否则，原输入需为空，才能将待输入作为算术输入，
+               // 从而确保在未修改非算术输入时能够正常显示原始输入
+               && (!Input.isEmpty(pending) || Input.isEmpty(input)) //
+               ? (MathExprInput) pending //
+               : input instanceof MathExprInput
+                 // 若算术输入 没有 被替换为非算术输入，则返回其自身
+                 && Input.isEmpty(pending) //
+                 ? (MathExprInput) input : null;
+    }
+
     /** 获取指定输入上的非空待输入 */
     public Input getNoneEmptyPendingOn(Input input) {
         Input pending = getPendingOn(input);
@@ -399,6 +668,8 @@ public class InputList {
      */
     private void withPending(Input input) {
         this.cursor.withPending(input);
+
+        markDirty(getSelected());
     }
 
     /**
@@ -538,14 +809,18 @@ public class InputList {
             // Note: 新的 Gap 位置自动后移，故无需更新光标的选中对象
             Input gap = new GapInput();
 
-            this.inputs.addAll(selectedIndex, Arrays.asList(gap, pending));
+            addInput(selectedIndex, gap);
+            addInput(selectedIndex + 1, pending);
         } else {
             // 保持对配对符号的引用
+            // Note: 配对符号输入将被绑定到待输入上，故而，需先复制
             if (selected instanceof CharInput && pending instanceof CharInput) {
-                ((CharInput) pending).setPair(((CharInput) selected).getPair());
+                CharInput pair = ((CharInput) selected).getPair();
+                ((CharInput) pending).setPair((CharInput) getWritableInput(pair));
             }
 
-            this.inputs.set(selectedIndex, pending);
+            setInput(selectedIndex, pending);
+            markDirty(selectedIndex, selectedIndex + 1);
         }
 
         doSelect(pending);
@@ -652,8 +927,8 @@ public class InputList {
     public void clearPairOnSelected() {
         Input selected = getSelected();
 
-        if (selected instanceof CharInput) {
-            ((CharInput) selected).clearPair();
+        if (selected instanceof CharInput && ((CharInput) selected).hasPair()) {
+            ((CharInput) getWritableInput(selected)).clearPair();
         }
     }
 
@@ -675,7 +950,12 @@ public class InputList {
 
     /** 选中指定的输入，并重建其待输入 */
     private void doSelect(Input input) {
+        // 原选中输入及其配对输入的选中状态需更新
+        markDirty(getSelected());
+
         this.cursor.select(input);
+
+        markDirty(input);
     }
 
     /** 选中指定的输入，并重建其待输入 */
@@ -742,7 +1022,7 @@ public class InputList {
         }
 
         // Note: 这里需要做对象引用的判断，以避免内容相同的输入被判定为已选择
-        return CollectionUtils.indexOfRef(this.inputs, input);
+        return this.inputs.indexOfRef(input);
     }
 
     /** 获取指定位置的输入 */
@@ -841,6 +1121,7 @@ public class InputList {
         if (byStep && CharInput.isLatin(current)) {
             CharInput input = (CharInput) current;
             if (input.countKeys() > 1) {
+                input = (CharInput) getWritableInput(input);
                 input.dropLastKey();
                 return;
             }
@@ -908,9 +1189,88 @@ public class InputList {
         }
 
         // 输入位
-        this.inputs.remove(index);
+        removeInput(index);
         // Gap 位
-        this.inputs.remove(index - 1);
+        removeInput(index - 1);
+    }
+
+    /** 在指定位置插入输入：需同步更新 {@link #persistentInputs} */
+    private void addInput(int index, Input input) {
+        this.inputs.add(index, input);
+        this.ownedInputs.add(input);
+        bindInput(input, true);
+        this.persistentInputs = this.persistentInputs.insert(index, input);
+        shiftDirtyPositions(index, true);
+
+        if (this.segments != null) {
+            this.segments.insert(index);
+        }
+    }
+
+    /** 替换指定位置的输入：需同步更新 {@link #persistentInputs} */
+    private void setInput(int index, Input input) {
+        Input old = this.inputs.set(index, input);
+        this.ownedInputs.remove(old);
+        this.ownedInputs.add(input);
+        this.persistentInputs = this.persistentInputs.set(index, input);
+
+        unbindInput(old);
+        bindInput(input, true);
+        if (this.segments != null) {
+            this.segments.markChanged(index);
+        }
+    }
+
+    /** 删除指定位置的输入：需同步更新 {@link #persistentInputs} */
+    private void removeInput(int index) {
+        Input old = this.inputs.remove(index);
+        this.ownedInputs.remove(old);
+        unbindInput(old);
+        this.persistentInputs = this.persistentInputs.remove(index);
+        shiftDirtyPositions(index, false);
+
+        if (this.segments != null) {
+            this.segments.remove(index);
+        }
+    }
+
+    /**
+     * 绑定列表中的输入，以在其内容被修改时，仅标记其所在位置需重新计算
+     * <p/>
+     * Note: 被快照共享的输入可能同时在多个列表中，但其需{@link #getWritableInput 复制}后才能被修改，
+     * 故而，仅需确保可被直接修改的输入（新加入列表的输入）绑定在当前列表即可
+     *
+     * @param force
+     *         是否强制绑定。若不强制，则不改变已绑定在其他列表上的输入
+     */
+    private void bindInput(Input input, boolean force) {
+        if (force || input.getModListener() == null) {
+            input.setModListener(this.inputModListener);
+        }
+
+        if (input instanceof MathExprInput) {
+            this.nestedInputModCounts.put(input, input.getModCount());
+        }
+    }
+
+    /** 解除对列表中的输入的绑定：仅解除绑定在当前列表上的监听 */
+    private void unbindInput(Input input) {
+        if (input.getModListener() == this.inputModListener) {
+            input.setModListener(null);
+        }
+        this.nestedInputModCounts.remove(input);
+    }
+
+    private void unbindInputs() {
+        this.inputs.forEach(this::unbindInput);
+        this.nestedInputModCounts.clear();
+    }
+
+    /** 列表中的输入内容被修改时，标记其所在位置需重新计算分段索引 */
+    private void onInputModified(Input input) {
+        if (this.segments != null) {
+            this.segments.markChanged(this.inputs.indexOfRef(input));
+        }
     }
 
     /** 删除指定输入的{@link CharInput#getPair() 配对输入} */
@@ -926,10 +1286,56 @@ public class InputList {
             return;
         }
 
-        pairInput.clearPair();
+        // Note: 配对的两侧输入均将被删除，故而，无需解除二者的配对关系，
+        // 且保持其不变，也可确保引用它们的快照不被修改
         removeNonGapInputAt(pairInputIndex);
     }
 
+    /**
+     * 获取可被直接修改的输入
+     * <p/>
+     * 列表中的输入可能被{@link #snapshot() 快照}所引用，故而，需以其副本替换列表中的原输入后，
+     * 再对副本做修改（写时复制）。对于{@link CharInput#getPair() 配对符号输入}，
+     * 因其两侧相互引用，故而，将一同复制两侧的输入，并重新绑定二者的配对关系
+     *
+     * @return 若指定输入为待输入等不在列表中的输入，或者其未被快照引用，则直接返回该输入
+     */
+    public Input getWritableInput(Input input) {
+        int index = getInputIndex(input);
+        if (index < 0 || this.ownedInputs.contains(input)) {
+            return input;
+        }
+
+        Input copied = copyInputAt(index);
+
+        CharInput pair = input instanceof CharInput ? ((CharInput) input).getPair() : null;
+        int pairIndex = getInputIndex(pair);
+        if (pairIndex >= 0) {
+            CharInput pairCopied = (CharInput) (this.ownedInputs.contains(pair) ? pair : copyInputAt(pairIndex));
+            ((CharInput) copied).setPair(pairCopied);
+        }
+        return copied;
+    }
+
+    /** 以副本替换指定位置的输入，若其为已选中输入，则同时选中其副本 */
+    private Input copyInputAt(int index) {
+        Input input = this.inputs.get(index);
+        Input copied = input.copy();
+
+        setInput(index, copied);
+        markDirty(index, index + 1);
+
+        // Note: 待输入本身即为副本，无需更新
+        if (this.cursor.selected == input) {
+            this.cursor.selected = copied;
+        }
+        return copied;
+    }
+
+    private static Set<Input> newIdentitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
     // ======================== End: 处理普通输入 ==========================
 
     // ======================== Start: 处理输入间的空格 ==========================
@@ -1017,19 +1423,31 @@ public class InputList {
 
     /** 获取输入文本内容：必须先确认当前输入，否则，会出现不能正确添加输入间的空格的问题 */
     public StringBuilder getText(Input.Option option) {
-        StringBuilder sb = new StringBuilder();
+        Segments segments = getSegments();
 
-        int total = this.inputs.size();
-        for (int i = 0; i < total; i++) {
-            Input input = this.inputs.get(i);
+        if (segments.text == null || segments.textOption != option) {
+            if (segments.textOption != option) {
+                segments.textsChanged.set(0, segments.size);
+                segments.textOption = option;
+            }
 
-            sb.append(input.getText(option));
+            // 仅重新获取发生变化的位置上的文本
+            BitSet changed = segments.textsChanged;
+            for (int i = changed.nextSetBit(0); i >= 0 && i < segments.size; i = changed.nextSetBit(i + 1)) {
+                String text = this.inputs.get(i).getText(option).toString();
 
-            if (needGapSpace(i)) {
-                sb.append(" ");
+                segments.texts[i] = needGapSpace(i) ? text + " " : text;
             }
+            changed.clear();
+
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < segments.size; i++) {
+                sb.append(segments.texts[i]);
+            }
+            segments.text = sb.toString();
         }
-        return sb;
+        // Note: 调用方可能会修改返回结果，故而，始终返回新的对象
+        return new StringBuilder(segments.text);
     }
 
     /** 获取全部的表情符号 */
@@ -1059,15 +1477,20 @@ public class InputList {
 
     /** 获取全部的拼音短语 */
     public List<List<PinyinWord>> getPinyinPhraseWords() {
+        Segments segments = getSegments();
+        if (segments.phraseWords != null) {
+            return segments.phraseWords;
+        }
+
         List<List<PinyinWord>> phrases = new ArrayList<>();
 
         List<PinyinWord> phrase = new ArrayList<>();
         for (int i = 0; i < this.inputs.size(); i++) {
             Input input = getInput(i, true);
 
-            if (isPinyinPhraseEndAt(i)) {
+            if (segments.phraseEnds[i]) {
                 if (!phrase.isEmpty()) {
-                    phrases.add(phrase);
+                    phrases.add(Collections.unmodifiableList(phrase));
                     phrase = new ArrayList<>();
                 }
             } else if (CharInput.isPinyin(input)) {
@@ -1076,10 +1499,11 @@ public class InputList {
         }
 
         if (!phrase.isEmpty()) {
-            phrases.add(phrase);
+            phrases.add(Collections.unmodifiableList(phrase));
         }
 
-        return phrases;
+        segments.phraseWords = Collections.unmodifiableList(phrases);
+        return segments.phraseWords;
     }
 
     /** 获取从指定输入开始及其之前的连续拼音字 */
@@ -1117,35 +1541,26 @@ public class InputList {
             return List.of();
         }
 
-        List<CharInput> phrase = new ArrayList<>(this.inputs.size());
-        // @return false - 中止添加；true - 继续添加
-        Function<Integer, Boolean> addInputToPhrase = (index) -> {
-            if (isPinyinPhraseEndAt(index)) {
-                return false;
-            }
-
-            Input input = getInput(index, true);
-            if (input instanceof CharInput && !Input.isEmpty(input)) {
-                phrase.add((CharInput) input);
-            }
-            return true;
-        };
-
+        Segments segments = getSegments();
         // 先找之前的（不含起点）
-        for (int i = fromIndex - 1; i >= 0; i--) {
-            if (!addInputToPhrase.apply(i)) {
-                break;
-            }
+        int start = fromIndex;
+        while (start > 0 && !segments.phraseEnds[start - 1]) {
+            start -= 1;
         }
-        Collections.reverse(phrase);
-
         // 再找之后的（包含起点）
-        for (int i = fromIndex; i < this.inputs.size(); i++) {
-            if (!addInputToPhrase.apply(i)) {
-                break;
-            }
+        int end = fromIndex;
+        while (end < segments.size && !segments.phraseEnds[end]) {
+            end += 1;
         }
 
+        List<CharInput> phrase = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            Input input = getInput(i, true);
+
+            if (input instanceof CharInput && !Input.isEmpty(input)) {
+                phrase.add((CharInput) input);
+            }
+        }
         return phrase;
     }
 
@@ -1162,9 +1577,7 @@ public class InputList {
 
         String chars = ((CharInput) input).getJoinedKeyChars();
         // 英文结束标点符号左右两边为中文时，则从该符号处结束短语
-        if (List.of(new String[] {
-                ",", ".", ";", ":", "?", "!", //
-        }).contains(chars)) {
+        if (LATIN_PHRASE_END_SYMBOLS.contains(chars)) {
             Input left = getInput(index - 1, true);
             Input right = getInput(index + 1, true);
 
@@ -1172,10 +1585,77 @@ public class InputList {
                    && (right == null || CharInput.isPinyin(right));
         }
 
-        return List.of(new String[] {
-                "，", "。", "；", "：", "？", "！", //
-                "∶", "…", //
-        }).contains(chars);
+        return HAN_PHRASE_END_SYMBOLS.contains(chars);
+    }
+
+    /**
+     * 获取输入列表的修改次数
+     * <p/>
+     * 在输入的增删、替换、选中及其内容（含嵌套的输入列表）发生变化后，该值将增大，
+     * 可用于判断输入列表在两次查询之间是否发生了变化
+     */
+    public int getModCount() {
+        getSegments();
+        return this.modCount;
+    }
+
+    /**
+     * 获取分段索引
+     * <p/>
+     * 输入的增删、替换及其{@link Input#markModified() 内容修改}均会即时标记其所在位置，
+     * 故而，仅需重新计算已标记的位置的短语结束标记，并在有变化时，丢弃缓存的文本和短语。
+     * 而选中输入的待输入和嵌套输入列表的变化，则在此时检查其修改次数
+     */
+    private Segments getSegments() {
+        if (this.segments == null) {
+            this.segments = new Segments(this.inputs.size());
+        }
+
+        Segments segments = this.segments;
+        // Note: 短语按选中输入的待输入划分，故而，在待输入变化时，需更新新旧选中输入所在的位置
+        Input lastSelected = segments.selected;
+        Input selected = getSelected();
+        Input pending = getPending();
+        int pendingModCount = pending != null ? pending.getModCount() : 0;
+        if (lastSelected != selected //
+            || segments.pending != pending //
+            || segments.pendingModCount != pendingModCount //
+        ) {
+            segments.markChanged(getInputIndex(lastSelected));
+            segments.markChanged(getInputIndex(selected));
+        }
+
+        for (Map.Entry<Input, Integer> entry : this.nestedInputModCounts.entrySet()) {
+            Input input = entry.getKey();
+            int inputModCount = input.getModCount();
+
+            if (entry.getValue() != inputModCount) {
+                entry.setValue(inputModCount);
+                segments.markChanged(getInputIndex(input));
+            }
+        }
+
+        segments.selected = selected;
+        segments.pending = pending;
+        segments.pendingModCount = pendingModCount;
+
+        BitSet changed = segments.changed;
+        if (changed.isEmpty()) {
+            return segments;
+        }
+
+        for (int i = changed.nextSetBit(0); i >= 0 && i < segments.size; i = changed.nextSetBit(i + 1)) {
+            segments.phraseEnds[i] = isPinyinPhraseEndAt(i);
+        }
+        segments.textsChanged.or(changed);
+        changed.clear();
+
+        segments.text = null;
+        segments.phraseWords = null;
+
+        this.modCount += 1;
+
+        return segments;
     }
 
     @Override
@@ -1207,6 +1687,101 @@ public class InputList {
 
     // ========================= End: 嵌套使用 =======================
 
+    /**
+     * 输入列表的分段索引：记录各位置是否为拼音短语的结束位置，并缓存各位置的文本和短语等查询结果
+     * <p/>
+     * 在输入插入和删除时，同步移动各位置的记录，并标记变化位置及其左右相邻位置，
+     * 以在{@link #getSegments() 获取索引}时仅重新计算这些位置
+     */
+    private static class Segments {
+        /** 需重新计算短语结束标记的位置 */
+        final BitSet changed = new BitSet();
+        /** 需重新获取文本的位置 */
+        final BitSet textsChanged = new BitSet();
+        /** 各位置是否为短语的结束位置 */
+        boolean[] phraseEnds;
+        /** 各位置上的输入文本：包含其需添加的 Gap 空格 */
+        String[] texts;
+        int size;
+
+        /** 选中的输入及其待输入 */
+        Input selected;
+        Input pending;
+        int pendingModCount;
+
+        Input.Option textOption;
+        String text;
+        List<List<PinyinWord>> phraseWords;
+
+        Segments(int size) {
+            int capacity = Math.max(size, 16);
+
+            this.phraseEnds = new boolean[capacity];
+            this.texts = new String[capacity];
+            this.size = size;
+
+            this.changed.set(0, size);
+        }
+
+        /**
+         * 标记指定位置及其左右相邻位置需重新计算
+         * <p/>
+         * Note: 英文标点是否结束短语、Gap 是否需要空格，均与其左右相邻的输入有关
+         */
+        void markChanged(int index) {
+            if (index >= 0 && index < this.size) {
+                this.changed.set(Math.max(0, index - 1), Math.min(index + 2, this.size));
+            }
+        }
+
+        /** 在指定位置插入空白记录 */
+        void insert(int index) {
+            if (this.size == this.phraseEnds.length) {
+                int capacity = this.size * 2;
+
+                this.phraseEnds = Arrays.copyOf(this.phraseEnds, capacity);
+                this.texts = Arrays.copyOf(this.texts, capacity);
+            }
+
+            int moved = this.size - index;
+            System.arraycopy(this.phraseEnds, index, this.phraseEnds, index + 1, moved);
+            System.arraycopy(this.texts, index, this.texts, index + 1, moved);
+            this.size += 1;
+
+            shiftPositions(this.changed, index, true);
+            shiftPositions(this.textsChanged, index, true);
+            markChanged(index);
+        }
+
+        /** 删除指定位置的记录 */
+        void remove(int index) {
+            int moved = this.size - index - 1;
+            System.arraycopy(this.phraseEnds, index + 1, this.phraseEnds, index, moved);
+            System.arraycopy(this.texts, index + 1, this.texts, index, moved);
+            this.size -= 1;
+
+            this.texts[this.size] = null;
+            shiftPositions(this.changed, index, false);
+            shiftPositions(this.textsChanged, index, false);
+            // Note: 删除位置的左右两侧变为相邻
+            markChanged(index);
+            markChanged(index - 1);
+        }
+    }
+
+    /** {@link InputList} 的快照 */
+    public static class Snapshot {
+        private final PersistentList<Input> inputs;
+        private final Input selected;
+        private final Input pending;
+
+        Snapshot(PersistentList<Input> inputs, Input selected, Input pending) {
+            this.inputs = inputs;
+            this.selected = selected;
+            this.pending = pending;
+        }
+    }
+
     private static class Cursor {
         /** 光标位置指向的已选中输入 */
         private Input selected;
@@ -19,7 +19,8 @@
 
 package org.crazydan.studio.app.ime.kuaizi.core;
 
-import java.util.function.Supplier;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.crazydan.studio.app.ime.kuaizi.common.log.Logger;
 import org.crazydan.studio.app.ime.kuaizi.core.input.InputViewData;
@@ -51,17 +52,25 @@ public class Inputboard {
     protected final Logger log = Logger.getLogger(getClass());
 
     private Stage stage;
+    private final History history;
 
     public Inputboard() {
         this.stage = Stage.none();
+        this.history = new History();
     }
 
-    /** 构建 {@link InputFactory} */
+    /**
+     * 构建 {@link InputFactory}
+     * <p/>
+     * 输入的视图数据为输入列表在当前时刻的快照，且为增量构建，故而，在此时直接构建，
+     * 以避免在之后获取时，其内容已随输入列表的变更而变化
+     */
     public InputFactory buildInputFactory(InputboardContext context) {
         InputList inputList = context.inputList;
         Input.Option inputOption = inputList.getInputOption();
 
-        return () -> InputViewData.build(inputList, inputOption);
+        List<InputViewData> inputs = InputViewData.build(inputList, inputOption);
+        return () -> inputs;
     }
 
     // =============================== Start: 消息处理 ===================================
@@ -86,8 +95,10 @@ public class Inputboard {
                 else {
                     input = getInputAt(inputList, data.positionInParent);
 
-                    if (input instanceof MathExprInput) {
-                        InputList subInputList = ((MathExprInput) input).getInputList();
+                    // Note: 视图中显示的是算术待输入（副本）的内嵌输入列表，故而，需从其中获取所选中的输入
+                    MathExprInput mathExprInput = inputList.getMathExprInputOn(input);
+                    if (mathExprInput != null) {
+                        InputList subInputList = mathExprInput.getInputList();
                         input = getInputAt(subInputList, data.position);
                     }
                 }
@@ -166,6 +177,9 @@ public class Inputboard {
         Input.Option inputOption = context.createInputOption();
 
         inputList.setInputOption(inputOption);
+
+        // 以当前的输入列表作为编辑历史的起点
+        this.history.reset(inputList.snapshot());
     }
 
     /** 重置：{@link InputList#reset() 重置} {@link InputList}，并清空 {@link #stage} */
@@ -190,6 +204,7 @@ public class Inputboard {
     public void restoreCommitted(InputboardContext context) {
         if (canRestoreCommitted()) {
             this.stage = Stage.restore(context.inputList, this.stage);
+            this.history.record(context.inputList);
         }
     }
 
@@ -217,6 +232,7 @@ public class Inputboard {
     public void restoreCleaned(InputboardContext context) {
         if (canRestoreCleaned()) {
             this.stage = Stage.restore(context.inputList, this.stage);
+            this.history.record(context.inputList);
         }
     }
 
@@ -227,6 +243,40 @@ public class Inputboard {
         }
     }
 
+    /** 记录对输入列表的编辑，以支持{@link #undo 撤销}和{@link #redo 重做} */
+    public void recordEdit(InputboardContext context) {
+        InputList inputList = context.inputList;
+        if (inputList.isFrozen()) {
+            return;
+        }
+
+        this.history.record(inputList);
+    }
+
+    /** 是否有可撤销的编辑 */
+    public boolean canUndo() {
+        return this.history.canUndo();
+    }
+
+    /** 撤销对输入列表的编辑 */
+    public void undo(InputboardContext context) {
+        if (canUndo()) {
+            context.inputList.restore(this.history.undo());
+        }
+    }
+
+    /** 是否有可重做的编辑 */
+    public boolean canRedo() {
+        return this.history.canRedo();
+    }
+
+    /** 重做对输入列表的编辑 */
+    public void redo(InputboardContext context) {
+        if (canRedo()) {
+            context.inputList.restore(this.history.redo());
+        }
+    }
+
     /** 暂存 {@link InputList}，并对其进行{@link InputList#reset() 重置} */
     private void resetWithStage(InputboardContext context, Stage.Type stageType) {
         InputList inputList = context.inputList;
@@ -234,8 +284,8 @@ public class Inputboard {
             return;
         }
 
-        // Note: 在 Staged 中暂存 InputList 的副本
-        this.stage = Stage.create(stageType, inputList::copy);
+        // Note: 在 Staged 中暂存 InputList 的快照
+        this.stage = Stage.create(stageType, inputList);
 
         inputList.reset();
 
@@ -257,11 +307,11 @@ public class Inputboard {
 
         public final Type type;
 
-        private final InputList inputList;
+        private final InputList.Snapshot snapshot;
 
-        Stage(Type type, InputList inputList) {
+        Stage(Type type, InputList.Snapshot snapshot) {
             this.type = type;
-            this.inputList = inputList;
+            this.snapshot = snapshot;
         }
 
         /** 创建 {@link Type#none} 类型的 {@link Stage}，即，不存储任何 {@link InputList} 数据 */
@@ -270,15 +320,14 @@ public class Inputboard {
         }
 
         /** 创建指定 {@link Type} 的 {@link Stage} */
-        public static Stage create(Type type, Supplier<InputList> s) {
+        public static Stage create(Type type, InputList inputList) {
             switch (type) {
                 case none: {
                     return none();
                 }
                 default: {
-                    InputList inputList = s.get();
                     // 为空的输入列表的无需暂存
-                    return inputList.isEmpty() ? none() : new Stage(type, inputList);
+                    return inputList.isEmpty() ? none() : new Stage(type, inputList.snapshot());
                 }
             }
         }
@@ -286,10 +335,66 @@ public class Inputboard {
         /** 还原 {@link Stage} 中的数据到指定的 {@link InputList}，并返回 {@link #none()} */
         public static Stage restore(InputList inputList, Stage stage) {
             if (stage.type != Type.none) {
-                inputList.replaceBy(stage.inputList);
+                inputList.restore(stage.snapshot);
             }
 
             return none();
         }
     }
+
+    /**
+     * 用于支持对输入列表编辑的多级撤销和重做
+     * <p/>
+     * 记录的是与输入列表共享结构的{@link InputList.Snapshot 快照}，每个记录点的内存开销与输入数量无关
+     */
+    static class History {
+        /** 最多保留的记录点数量 */
+        private static final int MAX_SIZE = 50;
+
+        private final List<InputList.Snapshot> snapshots = new ArrayList<>();
+        /** 当前记录点在 {@link #snapshots} 中的位置 */
+        private int current = -1;
+
+        /** 以指定快照作为唯一的记录点 */
+        public void reset(InputList.Snapshot snapshot) {
+            this.snapshots.clear();
+            this.snapshots.add(snapshot);
+            this.current = 0;
+        }
+
+        /** 记录输入列表的当前状态：若其与当前记录点相同，则不做记录，并且，将丢弃当前记录点之后的记录 */
+        public void record(InputList inputList) {
+            if (this.current >= 0 && inputList.isSameAs(this.snapshots.get(this.current))) {
+                return;
+            }
+
+            this.snapshots.subList(this.current + 1, this.snapshots.size()).clear();
+            this.snapshots.add(inputList.snapshot());
+
+            if (this.snapshots.size() > MAX_SIZE) {
+                this.snapshots.remove(0);
+            }
+            this.current = this.snapshots.size() - 1;
+        }
+
+        public boolean canUndo() {
+            return this.current > 0;
+        }
+
+        /** 回退到上一个记录点，并返回该记录点 */
+        public InputList.Snapshot undo() {
+            this.current -= 1;
+            return this.snapshots.get(this.current);
+        }
+
+        public boolean canRedo() {
+            return this.current < this.snapshots.size() - 1;
+        }
+
+        /** 前进到下一个记录点，并返回该记录点 */
+        public InputList.Snapshot redo() {
+            this.current += 1;
+            return this.snapshots.get(this.current);
+        }
+    }
 }
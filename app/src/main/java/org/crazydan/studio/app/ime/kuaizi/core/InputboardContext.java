@@ -22,6 +22,7 @@ package org.crazydan.studio.app.ime.kuaizi.core;
 import java.util.Objects;
 import java.util.function.Consumer;
 
+import org.crazydan.studio.app.ime.kuaizi.common.Immutable.ThreadLocalBuilder;
 import org.crazydan.studio.app.ime.kuaizi.conf.Config;
 import org.crazydan.studio.app.ime.kuaizi.conf.ConfigKey;
 
@@ -32,7 +33,7 @@ import org.crazydan.studio.app.ime.kuaizi.conf.ConfigKey;
  * @date 2024-12-15
  */
 public class InputboardContext extends BaseInputContext {
-    private final static Builder builder = new Builder();
+    private final static ThreadLocalBuilder<Builder> builder = new ThreadLocalBuilder<>(Builder::new);
 
     // <<<<<<<<<<<<<<<<<<<<<<<<< 配置信息
     /** 是否优先使用候选字的变体：主要针对拼音输入的候选字 */
@@ -60,7 +61,7 @@ public class InputboardContext extends BaseInputContext {
         private boolean useCandidateVariantFirst;
 
         protected Builder() {
-            super(1);
+            super(512);
         }
 
         // ===================== Start: 构建函数 ===================
@@ -82,6 +83,11 @@ public class InputboardContext extends BaseInputContext {
             return Objects.hash(super.hashCode(), this.useCandidateVariantFirst);
         }
 
+        @Override
+        protected Object[] identity() {
+            return new Object[] { super.identity(), this.useCandidateVariantFirst };
+        }
+
         // ===================== End: 构建函数 ===================
 
         // ===================== Start: 构建配置 ===================
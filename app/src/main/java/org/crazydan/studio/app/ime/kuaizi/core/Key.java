@@ -75,8 +75,8 @@ public abstract class Key extends Immutable {
 
         private boolean disabled;
 
-        protected Builder(int cacheSize) {
-            super(cacheSize);
+        protected Builder(int cacheBytes) {
+            super(cacheBytes);
         }
 
         // ===================== Start: 构建函数 ===================
@@ -98,6 +98,11 @@ public abstract class Key extends Immutable {
             return Objects.hash(this.value, this.label, this.disabled, this.icon, this.color.fg, this.color.bg);
         }
 
+        @Override
+        protected Object[] identity() {
+            return new Object[] { this.value, this.label, this.disabled, this.icon, this.color.fg, this.color.bg };
+        }
+
         // ===================== End: 构建函数 ===================
 
         // ===================== Start: 按键配置 ===================
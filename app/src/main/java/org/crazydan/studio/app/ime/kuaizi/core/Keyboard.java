@@ -53,6 +53,12 @@ public interface Keyboard {
     /** 结束 */
     void stop(KeyboardContext context);
 
+    /** 预备：在后台预先准备键盘所需的数据（如，初始按键布局），以降低切换到该键盘时的延迟 */
+    default void prepare(KeyboardContext context) {}
+
+    /** 回收：恢复键盘至初始状态，以便于被再次启用 */
+    void recycle();
+
     // ==========================================================
 
     /** 响应来自 {@link InputList} 的 {@link InputMsg} 消息 */
@@ -23,6 +23,7 @@ import java.util.Objects;
 import java.util.function.Consumer;
 
 import org.crazydan.studio.app.ime.kuaizi.IMESubtype;
+import org.crazydan.studio.app.ime.kuaizi.common.Immutable.ThreadLocalBuilder;
 import org.crazydan.studio.app.ime.kuaizi.conf.Config;
 import org.crazydan.studio.app.ime.kuaizi.conf.ConfigKey;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.UserKeyMsg;
@@ -34,7 +35,7 @@ import org.crazydan.studio.app.ime.kuaizi.core.msg.UserKeyMsg;
  * @date 2024-12-23
  */
 public class KeyboardContext extends BaseInputContext {
-    private final static Builder builder = new Builder();
+    private final static ThreadLocalBuilder<Builder> builder = new ThreadLocalBuilder<>(Builder::new);
 
     /** 与当前上下文直接关联的 {@link Key}，一般为触发 {@link UserKeyMsg} 消息所对应的按键，可能为 null */
     public final Key key;
@@ -60,6 +61,10 @@ public class KeyboardContext extends BaseInputContext {
     public final boolean hasRevokableInputsCommit;
     /** 是否有可取消的输入清空 */
     public final boolean hasCancellableInputsClean;
+    /** 是否有可撤销的输入列表编辑 */
+    public final boolean hasUndoableInputsEdit;
+    /** 是否有可重做的输入列表编辑 */
+    public final boolean hasRedoableInputsEdit;
     // >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>
 
     /** 构建 {@link KeyboardContext} */
@@ -83,6 +88,8 @@ public class KeyboardContext extends BaseInputContext {
 
         this.hasRevokableInputsCommit = builder.hasRevokableInputsCommit;
         this.hasCancellableInputsClean = builder.hasCancellableInputsClean;
+        this.hasUndoableInputsEdit = builder.hasUndoableInputsEdit;
+        this.hasRedoableInputsEdit = builder.hasRedoableInputsEdit;
     }
 
     /** 创建副本 */
@@ -110,9 +117,11 @@ public class KeyboardContext extends BaseInputContext {
 
         private boolean hasRevokableInputsCommit;
         private boolean hasCancellableInputsClean;
+        private boolean hasUndoableInputsEdit;
+        private boolean hasRedoableInputsEdit;
 
         protected Builder() {
-            super(2);
+            super(2 * 1024);
         }
 
         // ===================== Start: 构建函数 ===================
@@ -139,6 +148,8 @@ public class KeyboardContext extends BaseInputContext {
 
             this.hasRevokableInputsCommit = source.hasRevokableInputsCommit;
             this.hasCancellableInputsClean = source.hasCancellableInputsClean;
+            this.hasUndoableInputsEdit = source.hasUndoableInputsEdit;
+            this.hasRedoableInputsEdit = source.hasRedoableInputsEdit;
         }
 
         @Override
@@ -158,6 +169,8 @@ public class KeyboardContext extends BaseInputContext {
 
             this.hasRevokableInputsCommit = false;
             this.hasCancellableInputsClean = false;
+            this.hasUndoableInputsEdit = false;
+            this.hasRedoableInputsEdit = false;
         }
 
         @Override
@@ -172,7 +185,28 @@ public class KeyboardContext extends BaseInputContext {
                                 this.latinUsePinyinKeysInXInputPadEnabled,
                                 this.userInputDataDisabled,
                                 this.hasRevokableInputsCommit,
-                                this.hasCancellableInputsClean);
+                                this.hasCancellableInputsClean,
+                                this.hasUndoableInputsEdit,
+                                this.hasRedoableInputsEdit);
+        }
+
+        @Override
+        protected Object[] identity() {
+            return new Object[] {
+                    super.identity(),
+                    this.key,
+                    this.keyboardPrevType,
+                    this.keyboardHandMode,
+                    this.movingThresholdInPx,
+                    this.useSingleLineInputMode,
+                    this.xInputPadEnabled,
+                    this.latinUsePinyinKeysInXInputPadEnabled,
+                    this.userInputDataDisabled,
+                    this.hasRevokableInputsCommit,
+                    this.hasCancellableInputsClean,
+                    this.hasUndoableInputsEdit,
+                    this.hasRedoableInputsEdit
+            };
         }
 
         // ===================== End: 构建函数 ===================
@@ -196,6 +230,8 @@ public class KeyboardContext extends BaseInputContext {
 
             this.hasRevokableInputsCommit = inputboard.canRestoreCommitted();
             this.hasCancellableInputsClean = inputboard.canRestoreCleaned();
+            this.hasUndoableInputsEdit = inputboard.canUndo();
+            this.hasRedoableInputsEdit = inputboard.canRedo();
 
             return this;
         }
@@ -146,7 +146,7 @@ public class CharInput extends Input {
 
         copied.replaceAllKeys(this.keys);
 
-        return copied;
+        return withSameId(copied);
     }
 
     /** 获取输入按键列表（只读） */
@@ -192,23 +192,27 @@ public class CharInput extends Input {
     /** 追加输入按键 */
     public void appendKey(Key key) {
         this.keys.add(key);
+        markModified();
     }
 
     /** 丢弃最后一个按键 */
     public void dropLastKey() {
         if (!this.keys.isEmpty()) {
             this.keys.remove(this.keys.size() - 1);
+            markModified();
         }
     }
 
     /** 丢弃所有按键 */
     public void dropAllKeys() {
         this.keys.clear();
+        markModified();
     }
 
     /** 替换所有按键为指定按键 */
     protected void replaceAllKeys(List<Key> keys) {
         this.keys = new ArrayList<>(keys);
+        markModified();
     }
 
     /**
@@ -235,6 +239,7 @@ public class CharInput extends Input {
 
         // 追加按键
         this.keys.add(newKey);
+        markModified();
     }
 
     /**
@@ -250,6 +255,7 @@ public class CharInput extends Input {
         int oldKeyIndex = this.keys.lastIndexOf(oldKey);
         if (oldKeyIndex >= 0) {
             this.keys.set(oldKeyIndex, newKey);
+            markModified();
         }
     }
 
@@ -326,13 +332,18 @@ public class CharInput extends Input {
         this.pair = pair;
         // 同步设置对端关联
         this.pair.pair = this;
+
+        markModified();
+        pair.markModified();
     }
 
     public void clearPair() {
         if (this.pair != null) {
             this.pair.pair = null;
+            this.pair.markModified();
         }
         this.pair = null;
+        markModified();
     }
 
     public boolean hasPair() {
@@ -351,6 +362,7 @@ public class CharInput extends Input {
     /** 设置{@link InputWord 输入字} */
     public void setWord(InputWord word) {
         this.word = new CharInput.ConfirmableWord(word);
+        markModified();
     }
 
     /** 是否有{@link #getWord() 输入字} */
@@ -361,6 +373,7 @@ public class CharInput extends Input {
     /** 确认{@link #getWord() 输入字} */
     public void confirmWord() {
         this.word.confirmed = true;
+        markModified();
     }
 
     /** {@link #getWord() 输入字}是否已确认，已确认的字不会被词组预测等替换 */
@@ -452,6 +465,7 @@ public class CharInput extends Input {
         CharKey newKey = CharKey.build((b) -> b.from(key).value(keyValue).label(keyValue));
 
         this.keys.set(keyIndex, newKey);
+        markModified();
     }
 
     // ======================= End: 拼音输入转换 ======================
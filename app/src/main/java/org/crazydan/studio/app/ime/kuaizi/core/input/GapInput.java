@@ -36,7 +36,7 @@ public class GapInput extends Input {
     protected boolean isEmpty() {return true;}
 
     @Override
-    public Input copy() {return new GapInput();}
+    public Input copy() {return withSameId(new GapInput());}
 
     @Override
     public StringBuilder getText(Option option) {return new StringBuilder();}
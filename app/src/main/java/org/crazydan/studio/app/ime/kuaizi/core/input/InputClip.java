@@ -23,6 +23,7 @@ import java.util.Objects;
 import java.util.function.Consumer;
 
 import org.crazydan.studio.app.ime.kuaizi.common.Immutable;
+import org.crazydan.studio.app.ime.kuaizi.common.Immutable.ThreadLocalBuilder;
 
 /**
  * 剪贴板数据
@@ -31,7 +32,7 @@ import org.crazydan.studio.app.ime.kuaizi.common.Immutable;
  * @date 2023-07-06
  */
 public class InputClip extends Immutable {
-    private final static Builder builder = new Builder();
+    private final static ThreadLocalBuilder<Builder> builder = new ThreadLocalBuilder<>(Builder::new);
 
     /** 类型 */
     public final InputTextType type;
@@ -103,6 +104,11 @@ public class InputClip extends Immutable {
             return Objects.hash(this.type, this.code, this.text, this.html);
         }
 
+        @Override
+        protected Object[] identity() {
+            return new Object[] { this.type, this.code, this.text, this.html };
+        }
+
         // ===================== End: 构建函数 ===================
 
         // ===================== Start: 构建配置 ===================
@@ -24,6 +24,7 @@ import java.util.Objects;
 import java.util.function.Consumer;
 
 import org.crazydan.studio.app.ime.kuaizi.common.Immutable;
+import org.crazydan.studio.app.ime.kuaizi.common.Immutable.ThreadLocalBuilder;
 
 /**
  * 输入收藏
@@ -32,7 +33,7 @@ import org.crazydan.studio.app.ime.kuaizi.common.Immutable;
  * @date 2023-07-06
  */
 public class InputFavorite extends Immutable {
-    private final static Builder builder = new Builder();
+    private final static ThreadLocalBuilder<Builder> builder = new ThreadLocalBuilder<>(Builder::new);
 
     /** 对象 id，一般对应持久化的主键值 */
     public final Integer id;
@@ -148,6 +149,20 @@ public class InputFavorite extends Immutable {
                                 this.usedCount);
         }
 
+        @Override
+        protected Object[] identity() {
+            return new Object[] {
+                    this.id,
+                    this.type,
+                    this.shortcut,
+                    this.text,
+                    this.html,
+                    this.createdAt,
+                    this.usedAt,
+                    this.usedCount
+            };
+        }
+
         // ===================== End: 构建函数 ===================
 
         // ===================== Start: 构建配置 ===================
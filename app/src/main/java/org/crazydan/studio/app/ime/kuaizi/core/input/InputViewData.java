@@ -21,10 +21,12 @@ package org.crazydan.studio.app.ime.kuaizi.core.input;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Objects;
 
 import org.crazydan.studio.app.ime.kuaizi.common.Immutable;
+import org.crazydan.studio.app.ime.kuaizi.common.Immutable.ThreadLocalBuilder;
 import org.crazydan.studio.app.ime.kuaizi.core.Input;
 import org.crazydan.studio.app.ime.kuaizi.core.InputList;
 import org.crazydan.studio.app.ime.kuaizi.core.input.word.PinyinWord;
@@ -36,14 +38,14 @@ import org.crazydan.studio.app.ime.kuaizi.core.input.word.PinyinWord;
  * @date 2024-12-09
  */
 public class InputViewData extends Immutable {
-    private final static Builder builder = new Builder();
+    private final static ThreadLocalBuilder<Builder> builder = new ThreadLocalBuilder<>(Builder::new);
     /**
      * 由于 Builder 是单例的，故而，不能对嵌套 {@link InputList} 复用其实例，否则，在外层配置的数据会被下层覆盖。
      * 并且，在构建嵌套的 {@link InputList} 时，不需要缓存，由最上层构建器缓存其整体即可
      * <p/>
      * 注意，每层嵌套均需单独实例化构建器，当前只有一层嵌套
      */
-    private final static Builder mathBuilder = new Builder(true);
+    private final static ThreadLocalBuilder<Builder> mathBuilder = new ThreadLocalBuilder<>(() -> new Builder(true));
 
     public enum Type {
         /** 字符输入：{@link CharInput} */
@@ -58,6 +60,8 @@ public class InputViewData extends Immutable {
 
     /** 当前输入在 {@link InputList} 中的位置（序号） */
     public final int position;
+    /** 当前输入的{@link Input#getId() 标识}，用于在视图中识别同一输入 */
+    public final int inputId;
     /** 当前输入的类型 */
     public final Type type;
 
@@ -90,6 +94,7 @@ public class InputViewData extends Immutable {
         super(builder);
 
         this.position = builder.position;
+        this.inputId = builder.inputId;
         this.type = builder.type;
 
         this.hasPending = builder.hasPending;
@@ -108,9 +113,67 @@ public class InputViewData extends Immutable {
         mathBuilder.clear();
     }
 
-    /** 构建 {@link InputViewData} 列表 */
+    /**
+     * 构建 {@link InputViewData} 列表
+     * <p/>
+     * 仅重建自上次构建以来发生变化的位置及其左右相邻位置（其 Gap 空格可能随之变化），
+     * 其余位置直接复用{@link InputList#getViewDataSnapshot() 上次构建的视图数据}，
+     * 对于因插入或删除输入而移动了位置的，仅更新其位置
+     */
     public static List<InputViewData> build(InputList inputList, Input.Option option) {
-        return doBuild(builder, inputList, option, !inputList.isFrozen());
+        boolean canBeSelected = !inputList.isFrozen();
+        Snapshot last = inputList.getViewDataSnapshot();
+        BitSet dirty = inputList.getDirtyPositions();
+
+        List<Input> inputs = inputList.getInputs();
+        int total = inputs.size();
+
+        boolean reusable = last != null
+                           && dirty != null
+                           && last.option == option
+                           && last.canBeSelected == canBeSelected;
+        // Note: 在插入或删除输入后，其后的输入均整体移动了相同的位置
+        int shift = reusable ? total - last.size : 0;
+
+        if (reusable) {
+            // Note: 已选中输入的视图依赖于其待输入，而待输入的内容可随时变化，
+            // 故而，始终重建已选中输入及其相邻位置
+            int selectedIndex = inputList.getSelectedIndex();
+            dirty.set(Math.max(0, selectedIndex - 1), selectedIndex + 2);
+
+            for (int i = 0; i < total; i++) {
+                Input input = inputs.get(i);
+
+                if (last.indexOf(input, i, shift) < 0) {
+                    dirty.set(Math.max(0, i - 1), i + 2);
+                }
+            }
+        }
+
+        Snapshot snapshot = new Snapshot(last, total, option, canBeSelected);
+        Builder b = builder.get();
+
+        for (int i = 0; i < total; i++) {
+            int position = i;
+            Input input = inputs.get(i);
+
+            InputViewData data;
+            if (reusable && !dirty.get(i)) {
+                data = last.dataList.get(last.indexOf(input, i, shift));
+
+                if (data.position != position) {
+                    data = Builder.copy(b, data, (bld) -> bld.position(position));
+                }
+            } else {
+                data = Builder.build(b, (bld) -> doBuild(bld, inputList, option, position, canBeSelected));
+            }
+
+            snapshot.add(data, input);
+        }
+
+        inputList.updateViewDataSnapshot(snapshot);
+
+        return snapshot.dataList;
     }
 
     /** 构建 {@link InputViewData} 列表 */
@@ -142,10 +205,13 @@ public class InputViewData extends Immutable {
         boolean hasEmptyPending = Input.isEmpty(pending);
         boolean shouldBeSelected = canBeSelected && needToBeSelected(inputList, input);
 
-        MathExprInput mathExprInput = tryGetMathExprInput(inputList, input);
+        MathExprInput mathExprInput = inputList.getMathExprInputOn(input);
         if (mathExprInput != null) {
             // Note: 只有上层输入整体被选中时，下层的输入才能被独立选中
-            List<InputViewData> inputs = doBuild(mathBuilder, mathExprInput.getInputList(), option, shouldBeSelected);
+            List<InputViewData> inputs = doBuild(mathBuilder.get(),
+                                                 mathExprInput.getInputList(),
+                                                 option,
+                                                 shouldBeSelected);
 
             b.type(Type.MathExpr).inputs(inputs);
         } else if (input instanceof GapInput) {
@@ -173,6 +239,7 @@ public class InputViewData extends Immutable {
         String[] textAndSpell = getInputTextAndSpell(currInput, option);
 
         b.position(position)
+         .inputId(input.getId())
          .hasPending(hasPending)
          .selected(shouldBeSelected)
          .gapSpaces(gapSpaces)
@@ -218,20 +285,6 @@ public class InputViewData extends Immutable {
         return new String[] { text, spell };
     }
 
-    private static MathExprInput tryGetMathExprInput(InputList inputList, Input input) {
-        Input pending = inputList.getPendingOn(input);
-
-        return pending instanceof MathExprInput
-               // 待输入的算术不能为空，否则，原输入需为空，才能将待输入作为算术输入，
-               // 从而确保在未修改非算术输入时能够正常显示原始输入
-               && (!Input.isEmpty(pending) || Input.isEmpty(input)) //
-               ? (MathExprInput) pending //
-               : input instanceof MathExprInput
-                 // 若算术输入 没有 被替换为非算术输入，则返回其自身
-                 && Input.isEmpty(pending) //
-                 ? (MathExprInput) input : null;
-    }
-
     private static boolean needToBeSelected(InputList inputList, Input input) {
         boolean selected = inputList.isSelected(input);
 
@@ -244,9 +297,89 @@ public class InputViewData extends Immutable {
         return selected;
     }
 
+    /** {@link InputViewData} 列表的构建快照，用于增量构建 */
+    public static class Snapshot {
+        private final List<InputViewData> dataList;
+        /** 构建时各位置上的输入 */
+        private Input[] inputs;
+        /** 构建时各位置上输入的{@link Input#getModCount() 修改次数} */
+        private int[] modCounts;
+        private int size;
+
+        /**
+         * 上一快照的数组：在构建下一快照时复用，以避免每次构建均重新分配数组
+         * <p/>
+         * Note: 构建时需读取上一快照的数组，故而，在两组数组间交替使用
+         */
+        private Input[] spareInputs;
+        private int[] spareModCounts;
+
+        private final Input.Option option;
+        private final boolean canBeSelected;
+
+        Snapshot(Snapshot last, int capacity, Input.Option option, boolean canBeSelected) {
+            this.dataList = new ArrayList<>(capacity);
+            this.option = option;
+            this.canBeSelected = canBeSelected;
+
+            if (last != null) {
+                this.inputs = last.spareInputs;
+                this.modCounts = last.spareModCounts;
+
+                this.spareInputs = last.inputs;
+                this.spareModCounts = last.modCounts;
+            }
+
+            if (this.inputs == null || this.inputs.length < capacity) {
+                this.inputs = new Input[capacity + capacity / 2];
+                this.modCounts = new int[this.inputs.length];
+            } else {
+                // 不持有已丢弃输入的引用
+                Arrays.fill(this.inputs, capacity, this.inputs.length, null);
+            }
+        }
+
+        private void add(InputViewData data, Input input) {
+            this.dataList.add(data);
+            this.inputs[this.size] = input;
+            this.modCounts[this.size] = input.getModCount();
+            this.size += 1;
+        }
+
+        /**
+         * 获取指定输入在快照中的位置：仅在其未{@link Input#getModCount() 修改}时，才返回其位置
+         *
+         * @param position
+         *         输入的当前位置
+         * @param shift
+         *         输入列表的长度变化量，若输入位于插入或删除的位置之后，则其在快照中的位置为 <code>position - shift</code>
+         * @return 若不存在或已被修改，则返回 -1
+         */
+        private int indexOf(Input input, int position, int shift) {
+            // 嵌套的输入列表不做增量判断
+            if (input instanceof MathExprInput) {
+                return -1;
+            }
+
+            if (isSameAt(position, input)) {
+                return position;
+            } else if (shift != 0 && isSameAt(position - shift, input)) {
+                return position - shift;
+            }
+            return -1;
+        }
+
+        private boolean isSameAt(int index, Input input) {
+            return index >= 0 && index < this.size //
+                   && this.inputs[index] == input //
+                   && this.modCounts[index] == input.getModCount();
+        }
+    }
+
     /** {@link InputViewData} 的构建器 */
     public static class Builder extends Immutable.CachableBuilder<InputViewData> {
         private int position;
+        private int inputId;
         private Type type;
 
         private boolean hasPending;
@@ -263,7 +396,7 @@ public class InputViewData extends Immutable {
         }
 
         protected Builder(boolean disableCache) {
-            super(disableCache ? 0 : 20);
+            super(disableCache ? 0 : 16 * 1024);
         }
 
         // ===================== Start: 构建函数 ===================
@@ -273,9 +406,28 @@ public class InputViewData extends Immutable {
             return new InputViewData(this);
         }
 
+        @Override
+        protected void doCopy(InputViewData source) {
+            super.doCopy(source);
+
+            this.position = source.position;
+            this.inputId = source.inputId;
+            this.type = source.type;
+
+            this.hasPending = source.hasPending;
+            this.selected = source.selected;
+
+            this.gapSpaces = source.gapSpaces;
+            this.inputs = source.inputs;
+
+            this.text = source.text;
+            this.spell = source.spell;
+        }
+
         @Override
         protected void reset() {
             this.position = 0;
+            this.inputId = 0;
             this.type = null;
 
             this.hasPending = false;
@@ -291,6 +443,7 @@ public class InputViewData extends Immutable {
         @Override
         public int hashCode() {
             return Objects.hash(this.position,
+                                this.inputId,
                                 this.type,
                                 this.hasPending,
                                 this.selected,
@@ -300,6 +453,21 @@ public class InputViewData extends Immutable {
                                 this.spell);
         }
 
+        @Override
+        protected Object[] identity() {
+            return new Object[] {
+                    this.position,
+                    this.inputId,
+                    this.type,
+                    this.hasPending,
+                    this.selected,
+                    this.gapSpaces,
+                    this.inputs != null ? this.inputs.toArray() : null,
+                    this.text,
+                    this.spell
+            };
+        }
+
         // ===================== End: 构建函数 ===================
 
         // ===================== Start: 构建配置 ===================
@@ -310,6 +478,12 @@ public class InputViewData extends Immutable {
             return this;
         }
 
+        /** @see InputViewData#inputId */
+        public Builder inputId(int inputId) {
+            this.inputId = inputId;
+            return this;
+        }
+
         /** @see InputViewData#type */
         public Builder type(Type type) {
             this.type = type;
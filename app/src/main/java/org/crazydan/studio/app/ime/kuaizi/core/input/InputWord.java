@@ -73,6 +73,11 @@ public abstract class InputWord extends Immutable {
             return Objects.hash(this.id, this.value, this.weight);
         }
 
+        @Override
+        protected Object[] identity() {
+            return new Object[] { this.id, this.value, this.weight };
+        }
+
         // ===================== End: 构建函数 ===================
 
         // ===================== Start: 构建配置 ===================
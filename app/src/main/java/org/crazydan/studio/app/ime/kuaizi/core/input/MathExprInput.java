@@ -66,14 +66,22 @@ public class MathExprInput extends Input {
         return this.inputList.isEmpty();
     }
 
+    /** 内嵌输入列表的变化也视为算术输入内容的变化 */
+    @Override
+    public int getModCount() {
+        return super.getModCount() + this.inputList.getModCount();
+    }
+
     @Override
     public Input copy() {
-        // Note：
-        // - 输入列表直接复用，以确保与视图绑定的输入对象实例保持不变
-        // - 只有新建 pending 时才会做复制操作，
-        //   此时，对算术表达式的原输入或 pending 做修改操作都是等效的，
-        //   不需要通过副本规避
-        return new MathExprInput(getInputList());
+        // Note：原输入可能被上层输入列表的快照所引用，故而，需通过内嵌输入列表的快照复制其副本，
+        // 以确保在副本（待输入）上的编辑不会影响原输入，从而可撤销对算术表达式的修改。
+        // 快照与原列表共享未变化的输入，故而，复制开销很小，且在修改前，二者的输入对象实例保持一致
+        InputList inputList = new InputList();
+        inputList.restore(this.inputList.snapshot());
+        inputList.setInputOption(this.inputList.getInputOption());
+
+        return withSameId(new MathExprInput(inputList));
     }
 
     @Override
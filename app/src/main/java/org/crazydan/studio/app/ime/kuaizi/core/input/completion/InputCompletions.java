@@ -66,6 +66,10 @@ public class InputCompletions {
         Latin,
         /** 短语补全：替换或补充指定范围内的短语输入的{@link CharInput#getWord() 输入字} */
         Phrase_Word,
+        /** 简拼短语补全：将指定范围内仅含声母的简拼输入替换为已确认的拼音字输入 */
+        Initials_Phrase,
+        /** 后继字补全（联想）：在输入列表提交后，向空的输入列表中补充已确认的后继拼音字 */
+        Next_Word,
         ;
     }
 
@@ -21,6 +21,7 @@ package org.crazydan.studio.app.ime.kuaizi.core.input.word;
 
 import java.util.function.Consumer;
 
+import org.crazydan.studio.app.ime.kuaizi.common.Immutable.ThreadLocalBuilder;
 import org.crazydan.studio.app.ime.kuaizi.core.input.InputWord;
 
 /**
@@ -30,7 +31,7 @@ import org.crazydan.studio.app.ime.kuaizi.core.input.InputWord;
  * @date 2023-08-26
  */
 public class EmojiWord extends InputWord {
-    private final static Builder builder = new Builder();
+    private final static ThreadLocalBuilder<Builder> builder = new ThreadLocalBuilder<>(Builder::new);
 
     /** 构建 {@link EmojiWord} */
     public static EmojiWord build(Consumer<Builder> c) {
@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.function.Consumer;
 
+import org.crazydan.studio.app.ime.kuaizi.common.Immutable.ThreadLocalBuilder;
 import org.crazydan.studio.app.ime.kuaizi.core.input.InputWord;
 import org.crazydan.studio.app.ime.kuaizi.core.key.CtrlKey;
 
@@ -36,7 +37,7 @@ import org.crazydan.studio.app.ime.kuaizi.core.key.CtrlKey;
  * @date 2023-08-26
  */
 public class PinyinWord extends InputWord {
-    private final static Builder builder = new Builder();
+    private final static ThreadLocalBuilder<Builder> builder = new ThreadLocalBuilder<>(Builder::new);
 
     /** 读音 */
     public final Spell spell;
@@ -270,6 +271,18 @@ public class PinyinWord extends InputWord {
                                 this.traditional);
         }
 
+        @Override
+        protected Object[] identity() {
+            return new Object[] {
+                    super.identity(),
+                    this.spell,
+                    this.radical,
+                    this.variant,
+                    this.glyphId,
+                    this.traditional
+            };
+        }
+
         // ===================== End: 构建函数 ===================
 
         // ===================== Start: 构建配置 ===================
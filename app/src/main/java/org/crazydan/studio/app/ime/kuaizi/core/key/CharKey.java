@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.function.Consumer;
 
+import org.crazydan.studio.app.ime.kuaizi.common.Immutable.ThreadLocalBuilder;
 import org.crazydan.studio.app.ime.kuaizi.common.utils.CharUtils;
 import org.crazydan.studio.app.ime.kuaizi.core.Key;
 
@@ -35,7 +36,7 @@ import org.crazydan.studio.app.ime.kuaizi.core.Key;
  * @date 2023-06-28
  */
 public class CharKey extends TypedKey<CharKey.Type> {
-    private final static Builder builder = new Builder(false);
+    private final static ThreadLocalBuilder<Builder> builder = new ThreadLocalBuilder<>(() -> new Builder(false));
 
     /** 字符按键的{@link Level 等级} */
     public final Level level;
@@ -183,7 +184,7 @@ public class CharKey extends TypedKey<CharKey.Type> {
         private List<String> replacements = new ArrayList<>();
 
         Builder(boolean disableCache) {
-            super(disableCache ? 0 : 60);
+            super(disableCache ? 0 : 32 * 1024);
         }
 
         // ===================== Start: 构建函数 ===================
@@ -202,6 +203,12 @@ public class CharKey extends TypedKey<CharKey.Type> {
             return Objects.hash(super.hashCode(), this.level, this.replacements);
         }
 
+        @Override
+        protected Object[] identity() {
+            // Note: 替换列表在 #doBuild 中会被修改，故而，需复制其当前值
+            return new Object[] { super.identity(), this.level, this.replacements.toArray() };
+        }
+
         @Override
         protected void reset() {
             super.reset();
@@ -22,6 +22,7 @@ package org.crazydan.studio.app.ime.kuaizi.core.key;
 import java.util.Objects;
 import java.util.function.Consumer;
 
+import org.crazydan.studio.app.ime.kuaizi.common.Immutable.ThreadLocalBuilder;
 import org.crazydan.studio.app.ime.kuaizi.core.Key;
 
 /**
@@ -31,7 +32,7 @@ import org.crazydan.studio.app.ime.kuaizi.core.Key;
  * @date 2023-06-28
  */
 public class CtrlKey extends TypedKey<CtrlKey.Type> {
-    private final static Builder builder = new Builder();
+    private final static ThreadLocalBuilder<Builder> builder = new ThreadLocalBuilder<>(Builder::new);
 
     public final Option<?> option;
 
@@ -186,7 +187,7 @@ public class CtrlKey extends TypedKey<CtrlKey.Type> {
         private Option<?> option;
 
         Builder() {
-            super(30);
+            super(16 * 1024);
         }
 
         // ===================== Start: 构建函数 ===================
@@ -230,6 +231,11 @@ public class CtrlKey extends TypedKey<CtrlKey.Type> {
             return Objects.hash(super.hashCode(), this.option);
         }
 
+        @Override
+        protected Object[] identity() {
+            return new Object[] { super.identity(), this.option };
+        }
+
         @Override
         protected void reset() {
             super.reset();
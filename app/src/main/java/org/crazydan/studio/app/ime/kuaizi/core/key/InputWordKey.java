@@ -22,6 +22,7 @@ package org.crazydan.studio.app.ime.kuaizi.core.key;
 import java.util.Objects;
 import java.util.function.Consumer;
 
+import org.crazydan.studio.app.ime.kuaizi.common.Immutable.ThreadLocalBuilder;
 import org.crazydan.studio.app.ime.kuaizi.core.Key;
 import org.crazydan.studio.app.ime.kuaizi.core.input.InputWord;
 import org.crazydan.studio.app.ime.kuaizi.core.input.word.EmojiWord;
@@ -33,7 +34,7 @@ import org.crazydan.studio.app.ime.kuaizi.core.input.word.EmojiWord;
  * @date 2023-07-09
  */
 public class InputWordKey extends Key {
-    private final static Builder builder = new Builder();
+    private final static ThreadLocalBuilder<Builder> builder = new ThreadLocalBuilder<>(Builder::new);
 
     public final InputWord word;
 
@@ -87,6 +88,11 @@ public class InputWordKey extends Key {
             return Objects.hash(super.hashCode(), this.word);
         }
 
+        @Override
+        protected Object[] identity() {
+            return new Object[] { super.identity(), this.word };
+        }
+
         @Override
         protected void reset() {
             super.reset();
@@ -21,6 +21,7 @@ package org.crazydan.studio.app.ime.kuaizi.core.key;
 
 import java.util.function.Consumer;
 
+import org.crazydan.studio.app.ime.kuaizi.common.Immutable.ThreadLocalBuilder;
 import org.crazydan.studio.app.ime.kuaizi.core.Key;
 
 /**
@@ -30,7 +31,7 @@ import org.crazydan.studio.app.ime.kuaizi.core.Key;
  * @date 2023-09-18
  */
 public class MathOpKey extends TypedKey<MathOpKey.Type> {
-    private final static Builder builder = new Builder();
+    private final static ThreadLocalBuilder<Builder> builder = new ThreadLocalBuilder<>(Builder::new);
 
     /** 构建 {@link MathOpKey} */
     public static MathOpKey build(Consumer<Builder> c) {
@@ -105,7 +106,7 @@ public class MathOpKey extends TypedKey<MathOpKey.Type> {
         public static final Consumer<Builder> noop = (b) -> {};
 
         Builder() {
-            super(20);
+            super(8 * 1024);
         }
 
         // ===================== Start: 构建函数 ===================
@@ -22,6 +22,7 @@ package org.crazydan.studio.app.ime.kuaizi.core.key;
 import java.util.Objects;
 import java.util.function.Consumer;
 
+import org.crazydan.studio.app.ime.kuaizi.common.Immutable.ThreadLocalBuilder;
 import org.crazydan.studio.app.ime.kuaizi.core.Key;
 import org.crazydan.studio.app.ime.kuaizi.dict.Symbol;
 
@@ -32,7 +33,7 @@ import org.crazydan.studio.app.ime.kuaizi.dict.Symbol;
  * @date 2023-08-29
  */
 public class SymbolKey extends Key {
-    private final static Builder builder = new Builder();
+    private final static ThreadLocalBuilder<Builder> builder = new ThreadLocalBuilder<>(Builder::new);
 
     public final Symbol symbol;
 
@@ -82,6 +83,11 @@ public class SymbolKey extends Key {
             return Objects.hash(super.hashCode(), this.symbol);
         }
 
+        @Override
+        protected Object[] identity() {
+            return new Object[] { super.identity(), this.symbol };
+        }
+
         @Override
         protected void reset() {
             super.reset();
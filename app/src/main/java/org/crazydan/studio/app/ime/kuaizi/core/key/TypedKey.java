@@ -48,8 +48,8 @@ public abstract class TypedKey<T extends Enum<?>> extends Key {
             extends Key.Builder<B, K> {
         private T type;
 
-        protected Builder(int cacheSize) {
-            super(cacheSize);
+        protected Builder(int cacheBytes) {
+            super(cacheBytes);
         }
 
         // ===================== Start: 构建函数 ===================
@@ -59,6 +59,11 @@ public abstract class TypedKey<T extends Enum<?>> extends Key {
             return Objects.hash(super.hashCode(), this.type);
         }
 
+        @Override
+        protected Object[] identity() {
+            return new Object[] { super.identity(), this.type };
+        }
+
         @Override
         protected void reset() {
             super.reset();
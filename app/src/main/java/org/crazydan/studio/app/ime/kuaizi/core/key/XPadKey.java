@@ -23,6 +23,7 @@ import java.util.Arrays;
 import java.util.Objects;
 import java.util.function.Consumer;
 
+import org.crazydan.studio.app.ime.kuaizi.common.Immutable.ThreadLocalBuilder;
 import org.crazydan.studio.app.ime.kuaizi.core.Key;
 
 /**
@@ -32,7 +33,7 @@ import org.crazydan.studio.app.ime.kuaizi.core.Key;
  * @date 2023-11-04
  */
 public class XPadKey extends Key implements Comparable<XPadKey> {
-    private final static Builder builder = new Builder();
+    private final static ThreadLocalBuilder<Builder> builder = new ThreadLocalBuilder<>(Builder::new);
 
     /** #0 区按键 */
     public final Key zone_0_key;
@@ -92,6 +93,11 @@ public class XPadKey extends Key implements Comparable<XPadKey> {
                                 Arrays.deepHashCode(this.zone_2_keys));
         }
 
+        @Override
+        protected Object[] identity() {
+            return new Object[] { super.identity(), this.zone_0_key, this.zone_1_keys, this.zone_2_keys };
+        }
+
         @Override
         protected void reset() {
             super.reset();
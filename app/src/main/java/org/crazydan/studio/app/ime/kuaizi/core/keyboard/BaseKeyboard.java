@@ -58,6 +58,7 @@ import org.crazydan.studio.app.ime.kuaizi.core.msg.input.KeyboardStateChangeMsgD
 import org.crazydan.studio.app.ime.kuaizi.core.msg.input.KeyboardSwitchMsgData;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.user.UserLongPressTickMsgData;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.user.UserSingleTapMsgData;
+import org.crazydan.studio.app.ime.kuaizi.dict.PinyinDict;
 import org.crazydan.studio.app.ime.kuaizi.dict.UserInputData;
 import org.crazydan.studio.app.ime.kuaizi.dict.UserInputDataDict;
 
@@ -121,6 +122,11 @@ public abstract class BaseKeyboard implements Keyboard {
     public void stop(KeyboardContext context) {
     }
 
+    @Override
+    public void recycle() {
+        this.state = createInitState();
+    }
+
     protected KeyTableConfig createKeyTableConfig(KeyboardContext context) {
         return new KeyTableConfig(context);
     }
@@ -453,7 +459,7 @@ public abstract class BaseKeyboard implements Keyboard {
         CharInput input = inputList.getCharPending();
         if (CharKey.Type.Symbol.match(key)) {
             // Note：标点符号是独立输入，故，需替换当前位置的前一个标点符号输入（当前输入必然为 Gap）
-            input = (CharInput) inputList.getInputBeforeSelected();
+            input = (CharInput) inputList.getWritableInput(inputList.getInputBeforeSelected());
 
             // 对输入列表为空时的标点符号直输输入进行替换
             if (input == null) {
@@ -758,6 +764,8 @@ public abstract class BaseKeyboard implements Keyboard {
             }
 
             StringBuilder text = inputList.getText();
+            // Note: 需在提交前创建，其将在提交后的空输入列表上生效
+            do_InputList_NextWord_Completion_Creating(context, canBeRevoked);
 
             fire_InputList_Commit_Doing(context, text, replacements, canBeRevoked);
         }
@@ -804,6 +812,8 @@ public abstract class BaseKeyboard implements Keyboard {
         handle_UserInput_Data(context, (data) -> {
             UserInputDataDict dict = context.dict.useUserInputDataDict();
             dict.save(data);
+
+            context.dict.usePinyinDict().invalidateNextWords(data.phrases);
         });
     }
 
@@ -812,9 +822,70 @@ public abstract class BaseKeyboard implements Keyboard {
         handle_UserInput_Data(context, (data) -> {
             UserInputDataDict dict = context.dict.useUserInputDataDict();
             dict.revokeSave(data);
+
+            context.dict.usePinyinDict().invalidateNextWords(data.phrases);
+        });
+    }
+
+    /**
+     * 根据输入列表末尾的拼音字创建{@link InputCompletions.Type#Next_Word 后继字补全}，
+     * 以在输入列表提交后做联想输入
+     * <p/>
+     * 仅针对可撤回的提交，且末尾输入为拼音字时才做联想，否则，清空已有的输入补全。
+     * 后继字在短语预测时已在后台预先查询，在此仅从缓存中获取，以避免在提交时查询数据库
+     */
+    protected void do_InputList_NextWord_Completion_Creating(KeyboardContext context, boolean canBeRevoked) {
+        InputList inputList = context.inputList;
+        inputList.clearCompletions();
+
+        Input last = inputList.getInputBefore(inputList.getLastInput());
+        if (!canBeRevoked || !CharInput.isPinyin(last)) {
+            return;
+        }
+
+        PinyinDict dict = context.dict.usePinyinDict();
+        PinyinWord lastWord = (PinyinWord) ((CharInput) last).getWord();
+
+        List<PinyinWord> nextWords = dict.findTopBestNextWords(lastWord, 5);
+        if (nextWords.isEmpty()) {
+            return;
+        }
+
+        InputCompletions completions = inputList.newNextWordCompletions();
+        nextWords.forEach((word) -> {
+            CharInput input = create_Confirmed_PinyinWord_Input(dict, word);
+            if (input == null) {
+                return;
+            }
+
+            InputCompletion completion = new InputCompletion();
+            completion.inputs.add(input);
+
+            completions.add(completion);
         });
     }
 
+    /**
+     * 创建已确认{@link PinyinWord 拼音字}的输入
+     * <p/>
+     * 以拼音字母组合作为输入按键，以支持对补全后的输入继续做短语预测
+     *
+     * @return 若拼音字的拼音字母组合无效，则返回 null
+     */
+    protected static CharInput create_Confirmed_PinyinWord_Input(PinyinDict dict, PinyinWord word) {
+        String chars = dict.getPinyinCharsTree().getChars(word.spell.charsId);
+        List<Key> keys = CharKey.from(chars);
+        if (keys.isEmpty()) {
+            return null;
+        }
+
+        CharInput input = CharInput.from(keys);
+        input.setWord(word);
+        input.confirmWord();
+
+        return input;
+    }
+
     /** 回删输入列表中的输入内容 */
     protected void do_InputList_Backspacing(KeyboardContext context) {
         InputList inputList = context.inputList;
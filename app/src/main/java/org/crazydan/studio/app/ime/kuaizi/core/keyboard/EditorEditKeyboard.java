@@ -21,6 +21,7 @@ package org.crazydan.studio.app.ime.kuaizi.core.keyboard;
 
 import org.crazydan.studio.app.ime.kuaizi.common.Motion;
 import org.crazydan.studio.app.ime.kuaizi.common.Point;
+import org.crazydan.studio.app.ime.kuaizi.common.widget.EditorAction;
 import org.crazydan.studio.app.ime.kuaizi.core.KeyFactory;
 import org.crazydan.studio.app.ime.kuaizi.core.KeyboardContext;
 import org.crazydan.studio.app.ime.kuaizi.core.key.CtrlKey;
@@ -28,6 +29,9 @@ import org.crazydan.studio.app.ime.kuaizi.core.keyboard.keytable.EditorKeyTable;
 import org.crazydan.studio.app.ime.kuaizi.core.keyboard.state.EditorEditStateData;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.UserKeyMsg;
 
+import static org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsgType.InputList_Edit_Redo_Doing;
+import static org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsgType.InputList_Edit_Undo_Doing;
+
 /**
  * 编辑器 编辑键盘
  * <p/>
@@ -196,5 +200,36 @@ public abstract class EditorEditKeyboard extends BaseKeyboard {
         }
     }
 
+    /**
+     * 撤销或重做对输入列表的编辑
+     * <p/>
+     * 仅在输入列表不为空且有可撤销或重做的编辑时才做处理，否则，由 目标编辑器 做撤销或重做
+     *
+     * @return 若已处理，则返回 <code>true</code>
+     */
+    protected boolean try_Undo_Or_Redo_InputList_Editing(KeyboardContext context, EditorAction action) {
+        if (context.inputList.isEmpty()) {
+            return false;
+        }
+
+        switch (action) {
+            case undo: {
+                if (context.hasUndoableInputsEdit) {
+                    fire_Common_InputMsg(context, InputList_Edit_Undo_Doing);
+                    return true;
+                }
+                break;
+            }
+            case redo: {
+                if (context.hasRedoableInputsEdit) {
+                    fire_Common_InputMsg(context, InputList_Edit_Redo_Doing);
+                    return true;
+                }
+                break;
+            }
+        }
+        return false;
+    }
+
     // ======================== End: 编辑器编辑逻辑 ========================
 }
@@ -87,7 +87,9 @@ public class EditorKeyboard extends EditorEditKeyboard {
                     play_SingleTick_InputAudio(context);
 
                     CtrlKey.Option<EditorAction> option = key.option();
-                    do_Editor_Editing(context, option.value);
+                    if (!try_Undo_Or_Redo_InputList_Editing(context, option.value)) {
+                        do_Editor_Editing(context, option.value);
+                    }
                 }
                 break;
             }
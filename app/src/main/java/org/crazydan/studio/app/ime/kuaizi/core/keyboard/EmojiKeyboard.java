@@ -49,6 +49,18 @@ public class EmojiKeyboard extends InputCandidateKeyboard {
         start_Emoji_Choosing(context);
     }
 
+    @Override
+    public void prepare(KeyboardContext context) {
+        SymbolEmojiKeyTable keyTable = createKeyTable(context);
+        int pageSize = keyTable.getEmojiGridPageSize();
+
+        // 预先查询并缓存全部表情，以避免在启动键盘时查询数据库
+        context.dict.prepare(() -> {
+            UserInputDataDict dict = context.dict.useUserInputDataDict();
+            dict.getAllEmojis(pageSize / 2);
+        });
+    }
+
     private SymbolEmojiKeyTable createKeyTable(KeyboardContext context) {
         KeyTableConfig keyTableConf = createKeyTableConfig(context);
 
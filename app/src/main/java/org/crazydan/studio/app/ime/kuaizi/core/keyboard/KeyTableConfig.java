@@ -19,6 +19,8 @@
 
 package org.crazydan.studio.app.ime.kuaizi.core.keyboard;
 
+import java.util.Objects;
+
 import org.crazydan.studio.app.ime.kuaizi.core.InputList;
 import org.crazydan.studio.app.ime.kuaizi.core.Keyboard;
 import org.crazydan.studio.app.ime.kuaizi.core.KeyboardContext;
@@ -62,4 +64,34 @@ public class KeyTableConfig {
 
         this.hasRevokableInputsCommit = context.hasRevokableInputsCommit;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        KeyTableConfig that = (KeyTableConfig) o;
+        return this.hasInputs == that.hasInputs
+               && this.charInputSelected == that.charInputSelected
+               && this.keyboardHandMode == that.keyboardHandMode
+               && this.useSingleLineInputMode == that.useSingleLineInputMode
+               && this.xInputPadEnabled == that.xInputPadEnabled
+               && this.latinUsePinyinKeysInXInputPadEnabled == that.latinUsePinyinKeysInXInputPadEnabled
+               && this.hasRevokableInputsCommit == that.hasRevokableInputsCommit;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.hasInputs,
+                            this.charInputSelected,
+                            this.keyboardHandMode,
+                            this.useSingleLineInputMode,
+                            this.xInputPadEnabled,
+                            this.latinUsePinyinKeysInXInputPadEnabled,
+                            this.hasRevokableInputsCommit);
+    }
 }
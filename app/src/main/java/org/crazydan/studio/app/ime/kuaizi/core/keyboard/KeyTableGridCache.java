@@ -0,0 +1,77 @@
+/*
+ * 筷字输入法 - 高效编辑需要又好又快的输入法
+ * Copyright (C) 2025 Crazydan Studio <https://studio.crazydan.org>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.
+ * If not, see <https://www.gnu.org/licenses/lgpl-3.0.en.html#license-text>.
+ */
+
+package org.crazydan.studio.app.ime.kuaizi.core.keyboard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import android.util.LruCache;
+import org.crazydan.studio.app.ime.kuaizi.common.Immutable;
+import org.crazydan.studio.app.ime.kuaizi.core.Key;
+
+/**
+ * {@link KeyTable} 按键布局的缓存
+ * <p/>
+ * 按键布局由 {@link KeyTable} 的类型、{@link KeyTableConfig 配置}及布局状态（如，拼音的各级字母）唯一确定，
+ * 且其中的按键均为只读对象，故而，可直接复用已构建的布局，以避免在滑屏输入过程中反复构建整个布局
+ * <p/>
+ * 注：缓存可在后台线程中预热，{@link LruCache} 是线程安全的，但布局的构建不加锁，
+ * 故而，<code>creator</code> 仅能使用线程独占的{@link Immutable.ThreadLocalBuilder 构建器}，
+ * 并且多个线程可能会同时构建同一布局，但最终仅保留其中一个
+ *
+ * @author <a href="mailto:flytreeleft@crazydan.org">flytreeleft</a>
+ * @date 2025-06-23
+ */
+public class KeyTableGridCache {
+    private static final LruCache<List<Object>, Key[][]> cache = new LruCache<>(256);
+
+    /**
+     * 获取缓存的按键布局，若不存在，则通过 <code>creator</code> 构建并缓存
+     *
+     * @param states
+     *         布局状态，其元素可为 null
+     */
+    public static Key[][] get(KeyTable keyTable, Supplier<Key[][]> creator, Object... states) {
+        List<Object> key = createKey(keyTable, states);
+
+        Key[][] grid = cache.get(key);
+        if (grid == null) {
+            grid = creator.get();
+            cache.put(key, grid);
+        }
+        return grid;
+    }
+
+    /** 清空全部缓存，如，在按键样式等发生变化后 */
+    public static void clear() {
+        cache.evictAll();
+    }
+
+    private static List<Object> createKey(KeyTable keyTable, Object... states) {
+        List<Object> key = new ArrayList<>(states.length + 2);
+        key.add(keyTable.getClass());
+        key.add(keyTable.config);
+        key.addAll(Arrays.asList(states));
+
+        return key;
+    }
+}
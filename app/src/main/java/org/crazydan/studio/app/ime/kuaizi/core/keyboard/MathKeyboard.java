@@ -56,7 +56,15 @@ public class MathKeyboard extends EditorEditKeyboard {
         KeyTableConfig keyTableConf = createKeyTableConfig(context);
         MathKeyTable keyTable = MathKeyTable.create(keyTableConf);
 
-        return keyTable::createGrid;
+        return () -> KeyTableGridCache.get(keyTable, keyTable::createGrid, "math");
+    }
+
+    @Override
+    public void prepare(KeyboardContext context) {
+        KeyTableConfig keyTableConf = createKeyTableConfig(context);
+        MathKeyTable keyTable = MathKeyTable.create(keyTableConf);
+
+        context.dict.prepare(() -> KeyTableGridCache.get(keyTable, keyTable::createGrid, "math"));
     }
 
     @Override
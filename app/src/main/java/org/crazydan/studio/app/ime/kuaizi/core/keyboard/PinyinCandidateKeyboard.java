@@ -22,10 +22,10 @@ package org.crazydan.studio.app.ime.kuaizi.core.keyboard;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import org.crazydan.studio.app.ime.kuaizi.common.LazyPagedList;
 import org.crazydan.studio.app.ime.kuaizi.common.utils.CollectionUtils;
 import org.crazydan.studio.app.ime.kuaizi.core.Input;
 import org.crazydan.studio.app.ime.kuaizi.core.InputList;
@@ -45,6 +45,7 @@ import org.crazydan.studio.app.ime.kuaizi.core.keyboard.state.PinyinCandidateAdv
 import org.crazydan.studio.app.ime.kuaizi.core.keyboard.state.PinyinCandidateChooseStateData;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.UserKeyMsg;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.UserKeyMsgType;
+import org.crazydan.studio.app.ime.kuaizi.dict.PinyinCandidateFilterIndex;
 import org.crazydan.studio.app.ime.kuaizi.dict.PinyinCharsTree;
 import org.crazydan.studio.app.ime.kuaizi.dict.PinyinDict;
 
@@ -232,12 +233,18 @@ public class PinyinCandidateKeyboard extends InputCandidateKeyboard {
         int bestEmojisTop = pageSize - bestCandidatesTop;
 
         PinyinDict dict = context.dict.usePinyinDict();
-        Map<Integer, InputWord> candidateMap = dict.getCandidates(pending);
-        List<InputWord> allCandidates = new ArrayList<>(candidateMap.values());
+        // Note: 仅获取候选字的 id 及其过滤索引，在翻页时才构造该页的候选字，以避免构造全部的同音字
+        PinyinCandidateFilterIndex filterIndex = dict.getCandidateFilterIndex(pending);
+        List<Integer> candidateIds = filterIndex.getIds();
 
-        List<Integer> topBestCandidateIds = dict.getTopBestCandidateIds(pending, bestCandidatesTop);
+        // Note: 以待输入的前序拼音字对最佳候选字做重排
+        List<PinyinWord> phraseWords = inputList.getPinyinPhraseWordsFrom(pending);
+        PinyinWord prevWord = phraseWords.size() > 1 ? phraseWords.get(phraseWords.size() - 2) : null;
+
+        List<Integer> topBestCandidateIds = dict.getTopBestCandidateIds(pending, prevWord, bestCandidatesTop);
+        Map<Integer, PinyinWord> topBestCandidateMap = dict.getCandidatesByIds(topBestCandidateIds);
         List<InputWord> topBestCandidates = topBestCandidateIds.stream()
-                                                               .map(candidateMap::get)
+                                                               .map(topBestCandidateMap::get)
                                                                .collect(Collectors.toList());
 
         // 拼音修正后，需更新其自动确定的候选字
@@ -257,26 +264,42 @@ public class PinyinCandidateKeyboard extends InputCandidateKeyboard {
         List<InputWord> topBestEmojis = dict.findTopBestEmojisMatchedPhrase(emojiKeywords, bestEmojisTop);
         topBestCandidates.addAll(topBestEmojis);
 
+        List<InputWord> headCandidates = new ArrayList<>();
         if (!topBestCandidates.isEmpty()) {
-            int allCandidatesCount = allCandidates.size();
+            int allCandidatesCount = candidateIds.size();
 
             // 最佳候选字不再重复出现在普通候选字列表
-            allCandidates.removeAll(topBestCandidates);
+            // Note: 表情的 id 与拼音字的 id 不在同一空间，不能参与排除
+            candidateIds = new ArrayList<>(candidateIds);
+            candidateIds.removeAll(topBestCandidates.stream()
+                                                    .filter((w) -> w instanceof PinyinWord)
+                                                    .map((w) -> w.id)
+                                                    .collect(Collectors.toSet()));
 
             // 若候选字列表总共只有一页，则合并最佳候选字，并确保最佳候选字在最前面位置
             if (allCandidatesCount <= pageSize) {
-                allCandidates.addAll(0, topBestCandidates);
+                Map<Integer, PinyinWord> candidateMap = dict.getCandidatesByIds(candidateIds);
+
+                List<InputWord> onePageCandidates = new ArrayList<>(topBestCandidates);
+                candidateIds.forEach((id) -> onePageCandidates.add(candidateMap.get(id)));
+                candidateIds = List.of();
 
-                allCandidates = reorder_TopBestCandidates_in_One_Page(allCandidates, bestCandidatesTop, pageSize);
+                headCandidates = reorder_TopBestCandidates_in_One_Page(onePageCandidates,
+                                                                       bestCandidatesTop,
+                                                                       pageSize);
             } else {
-                topBestCandidates = reorder_TopBestCandidates_in_One_Page(topBestCandidates,
-                                                                          bestCandidatesTop,
-                                                                          pageSize);
-                allCandidates.addAll(0, topBestCandidates);
+                headCandidates = reorder_TopBestCandidates_in_One_Page(topBestCandidates,
+                                                                       bestCandidatesTop,
+                                                                       pageSize);
             }
         }
 
-        PinyinCandidateChooseStateData stateData = new PinyinCandidateChooseStateData(pending, allCandidates, pageSize);
+        LazyPagedList<InputWord> allCandidates = dict.createPagedCandidates(headCandidates, candidateIds, pageSize);
+
+        PinyinCandidateChooseStateData stateData = new PinyinCandidateChooseStateData(pending,
+                                                                                      allCandidates,
+                                                                                      filterIndex,
+                                                                                      pageSize);
         this.state = new State(State.Type.InputCandidate_Choose_Doing, stateData);
 
         fire_InputCandidate_Choose_Doing(context);
@@ -358,7 +381,7 @@ public class PinyinCandidateKeyboard extends InputCandidateKeyboard {
         int pageSize = keyTable.getAdvanceFilterKeysPageSize();
 
         PinyinCandidateAdvanceFilterStateData stateData = new PinyinCandidateAdvanceFilterStateData(pending,
-                                                                                                    prevStateData.getCandidates(),
+                                                                                                    prevStateData.getFilterIndex(),
                                                                                                     pageSize);
         stateData.updateFilter(filter);
 
@@ -479,10 +502,17 @@ public class PinyinCandidateKeyboard extends InputCandidateKeyboard {
             InputWord word = bestPhrase.get(i);
             // Note: 非拼音位置的输入，其拼音字为 null，不覆盖其 word
             if (word != null) {
+                target = (CharInput) inputList.getWritableInput(target);
                 target.setWord(word);
             }
         }
 
+        // 在后台预先查询短语末尾拼音字的后继拼音字，以在提交输入时可直接构造联想补全
+        InputWord lastWord = CollectionUtils.last(bestPhrase);
+        if (lastWord instanceof PinyinWord) {
+            dict.prefetchNextWords((PinyinWord) lastWord);
+        }
+
         bestPhrases.remove(0);
         return bestPhrases;
     }
@@ -499,8 +529,10 @@ public class PinyinCandidateKeyboard extends InputCandidateKeyboard {
         if (pinyinCharsId != null //
             && (!input.isWordConfirmed() //
                 || !input.hasWord() //
+                // Note: 模糊音匹配的已确认字也视为与当前拼音相符
                 || (input.getWord() instanceof PinyinWord
-                    && !Objects.equals(((PinyinWord) input.getWord()).spell.charsId, pinyinCharsId)) //
+                    && !dict.getPinyinCharsTree()
+                            .isFuzzyMatched(((PinyinWord) input.getWord()).spell.charsId, pinyinCharsId)) //
             ) //
         ) {
             word = dict.getFirstBestCandidate(pinyinCharsId);
@@ -20,13 +20,22 @@
 package org.crazydan.studio.app.ime.kuaizi.core.keyboard;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
+import org.crazydan.studio.app.ime.kuaizi.common.Immutable;
+import org.crazydan.studio.app.ime.kuaizi.core.Input;
 import org.crazydan.studio.app.ime.kuaizi.core.InputList;
 import org.crazydan.studio.app.ime.kuaizi.core.Key;
 import org.crazydan.studio.app.ime.kuaizi.core.KeyFactory;
 import org.crazydan.studio.app.ime.kuaizi.core.KeyboardContext;
 import org.crazydan.studio.app.ime.kuaizi.core.input.CharInput;
+import org.crazydan.studio.app.ime.kuaizi.core.input.GapInput;
+import org.crazydan.studio.app.ime.kuaizi.core.input.completion.InputCompletion;
+import org.crazydan.studio.app.ime.kuaizi.core.input.completion.InputCompletions;
+import org.crazydan.studio.app.ime.kuaizi.core.input.word.PinyinWord;
 import org.crazydan.studio.app.ime.kuaizi.core.key.CharKey;
 import org.crazydan.studio.app.ime.kuaizi.core.key.CtrlKey;
 import org.crazydan.studio.app.ime.kuaizi.core.keyboard.keytable.PinyinKeyTable;
@@ -49,6 +58,8 @@ import static org.crazydan.studio.app.ime.kuaizi.core.keyboard.PinyinCandidateKe
  * @date 2023-06-28
  */
 public class PinyinKeyboard extends EditorEditKeyboard {
+    /** 参与短语补全的连续简拼输入的最大数量 */
+    private static final int INITIALS_PHRASE_MAX_SIZE = 8;
 
     @Override
     public Type getType() {return Type.Pinyin;}
@@ -56,6 +67,13 @@ public class PinyinKeyboard extends EditorEditKeyboard {
     @Override
     public boolean isMaster() {return true;}
 
+    @Override
+    public void start(KeyboardContext context) {
+        super.start(context);
+
+        prepare_NextChar_KeyGrids(context);
+    }
+
     @Override
     public KeyFactory do_BuildKeyFactory(KeyboardContext context) {
         KeyTableConfig keyTableConf = createKeyTableConfig(context);
@@ -74,17 +92,29 @@ public class PinyinKeyboard extends EditorEditKeyboard {
                 String level1Char = stateData.getLevel1Key() != null ? stateData.getLevel1Key().value : null;
                 String level2Char = stateData.getLevel2Key() != null ? stateData.getLevel2Key().value : null;
 
-                return (KeyFactory.NoAnimation) () -> keyTable.createNextCharKeys(charsTree,
-                                                                                  level0Char,
-                                                                                  level1Char,
-                                                                                  level2Char,
-                                                                                  stateData.getLevel2NextChars());
+                // Note：第 2 级后继字母由第 0/1 级字母唯一确定，无需作为缓存的键
+                return (KeyFactory.NoAnimation) () -> KeyTableGridCache.get(keyTable,
+                                                                            () -> keyTable.createNextCharKeys(
+                                                                                    charsTree,
+                                                                                    level0Char,
+                                                                                    level1Char,
+                                                                                    level2Char,
+                                                                                    stateData.getLevel2NextChars()),
+                                                                            "next",
+                                                                            level0Char,
+                                                                            level1Char,
+                                                                            level2Char);
             }
             case InputChars_Flip_Doing: {
                 PinyinCharsTree charsTree = getPinyinCharsTree(context);
                 InputCharsFlipStateData stateData = this.state.data();
 
-                return (KeyFactory.NoAnimation) () -> keyTable.createFullCharKeys(charsTree, stateData.startChar);
+                return (KeyFactory.NoAnimation) () -> KeyTableGridCache.get(keyTable,
+                                                                            () -> keyTable.createFullCharKeys(
+                                                                                    charsTree,
+                                                                                    stateData.startChar),
+                                                                            "full",
+                                                                            stateData.startChar);
             }
             case InputChars_XPad_Input_Doing: {
                 PinyinCharsTree charsTree = getPinyinCharsTree(context);
@@ -97,10 +127,14 @@ public class PinyinKeyboard extends EditorEditKeyboard {
 
                 String level1Char = stateData.getLevel1Key() != null ? stateData.getLevel1Key().value : null;
 
-                return () -> keyTable.createXPadNextCharKeys(charsTree,
-                                                             level0Char,
-                                                             level1Char,
-                                                             stateData.getLevel2NextChars());
+                return () -> KeyTableGridCache.get(keyTable,
+                                                   () -> keyTable.createXPadNextCharKeys(charsTree,
+                                                                                         level0Char,
+                                                                                         level1Char,
+                                                                                         stateData.getLevel2NextChars()),
+                                                   "xpad",
+                                                   level0Char,
+                                                   level1Char);
             }
             default: {
                 State previous = this.state.previous;
@@ -121,6 +155,55 @@ public class PinyinKeyboard extends EditorEditKeyboard {
         }
     }
 
+    /**
+     * 在后台预构建全部第 0 级字母的后继按键布局，
+     * 以确保在滑屏输入的起始阶段可直接从{@link KeyTableGridCache 缓存}中获取按键布局
+     * <p/>
+     * 注：预构建与界面线程并发进行，故而，其仅可读取只读数据（按键表配置、拼音字母树等），
+     * 按键则由当前线程独占的{@link Immutable.ThreadLocalBuilder 构建器}构建，不可使用被多线程共享的构建器
+     */
+    private void prepare_NextChar_KeyGrids(KeyboardContext context) {
+        KeyTableConfig keyTableConf = createKeyTableConfig(context);
+
+        context.dict.prepare(() -> {
+            // Note: 在后台线程中创建按键表，以确保其构建过程不与界面线程共享任何状态
+            PinyinKeyTable keyTable = PinyinKeyTable.create(keyTableConf);
+            PinyinCharsTree charsTree = getPinyinCharsTree(context);
+            Map<Integer, List<String>> level2NextChars = new HashMap<>();
+
+            for (Key[] row : keyTable.createFullKeyGrid()) {
+                for (Key key : row) {
+                    if (!(key instanceof CharKey) || charsTree.getChild(key.value) == null) {
+                        continue;
+                    }
+
+                    String level0Char = key.value;
+                    if (keyTableConf.xInputPadEnabled) {
+                        KeyTableGridCache.get(keyTable,
+                                              () -> keyTable.createXPadNextCharKeys(charsTree,
+                                                                                    level0Char,
+                                                                                    null,
+                                                                                    level2NextChars),
+                                              "xpad",
+                                              level0Char,
+                                              null);
+                    } else {
+                        KeyTableGridCache.get(keyTable,
+                                              () -> keyTable.createNextCharKeys(charsTree,
+                                                                                level0Char,
+                                                                                null,
+                                                                                null,
+                                                                                level2NextChars),
+                                              "next",
+                                              level0Char,
+                                              null,
+                                              null);
+                    }
+                }
+            }
+        });
+    }
+
     /** 注意，延迟到实际使用时再调用，以避免字典还未初始化完毕 */
     private PinyinCharsTree getPinyinCharsTree(KeyboardContext context) {
         PinyinDict dict = context.dict.usePinyinDict();
@@ -558,6 +641,59 @@ public class PinyinKeyboard extends EditorEditKeyboard {
         return dict.findTopBestMatchedLatins(text, 5);
     }
 
+    /**
+     * 构造简拼短语的输入补全
+     * <p/>
+     * 取光标之前的连续简拼输入（最多 {@link #INITIALS_PHRASE_MAX_SIZE} 个）的声母查询短语，
+     * 在应用补全后，这些简拼输入将被替换为短语中已确认的拼音字输入
+     */
+    private void create_Initials_Phrase_Completions(KeyboardContext context) {
+        InputList inputList = context.inputList;
+        if (!inputList.isGapSelected()) {
+            return;
+        }
+
+        PinyinDict dict = context.dict.usePinyinDict();
+        PinyinCharsTree charsTree = dict.getPinyinCharsTree();
+
+        Input gap = inputList.getSelected();
+        List<CharInput> inputs = new ArrayList<>();
+        for (Input input = inputList.getInputBefore(gap);
+             input != null && inputs.size() < INITIALS_PHRASE_MAX_SIZE;
+             input = inputList.getInputBefore(input)) {
+            if (input instanceof GapInput) {
+                continue;
+            }
+            if (!(input instanceof CharInput) || !charsTree.isPinyinInitialsInput((CharInput) input)) {
+                break;
+            }
+            inputs.add(0, (CharInput) input);
+        }
+
+        List<String> initialsList = inputs.stream().map(CharInput::getJoinedKeyChars).collect(Collectors.toList());
+        List<List<PinyinWord>> phrases = dict.findTopBestMatchedPhraseByInitials(initialsList, 5);
+        if (phrases.isEmpty()) {
+            return;
+        }
+
+        InputCompletions completions = inputList.newInitialsPhraseCompletions(inputs.get(0), gap);
+        phrases.forEach((phrase) -> {
+            InputCompletion completion = new InputCompletion();
+
+            for (PinyinWord word : phrase) {
+                CharInput input = create_Confirmed_PinyinWord_Input(dict, word);
+                if (input == null) {
+                    return;
+                }
+                completion.inputs.add(input);
+            }
+
+            completions.add(completion);
+        });
+
+        fire_Input_Completion_Create_Done(context);
+    }
+
     // ======================== End: 输入补全 ========================
 
     /** 结束输入：始终针对 {@link InputList#getCharPending() 待输入}，并做状态复位 */
@@ -571,8 +707,15 @@ public class PinyinKeyboard extends EditorEditKeyboard {
         CharInput pending = inputList.getCharPending();
         PinyinDict dict = context.dict.usePinyinDict();
 
+        PinyinCharsTree charsTree = dict.getPinyinCharsTree();
+        // 仅含声母的输入视为简拼输入，予以保留，并对其所在的连续简拼输入做短语补全
+        if (charsTree.isPinyinInitialsInput(pending)) {
+            confirm_InputList_Pending(context);
+
+            create_Initials_Phrase_Completions(context);
+        }
         // 若为无效的拼音输入，则直接丢弃
-        if (!dict.getPinyinCharsTree().isPinyinCharsInput(pending)) {
+        else if (!charsTree.isPinyinCharsInput(pending)) {
             drop_InputList_Pending(context);
         } else {
             predict_NotConfirmed_Phrase_InputWords_with_Completions(context,
@@ -598,7 +741,11 @@ public class PinyinKeyboard extends EditorEditKeyboard {
 
     @Override
     protected void after_InputList_Backspacing(KeyboardContext context) {
+        // Note: 回删后，原补全的应用范围可能已失效，需重新构造
+        context.inputList.clearCompletions();
+
         predict_NotConfirmed_Phrase_InputWords_with_Completions(context, null, this::fire_Input_Completion_Create_Done);
+        create_Initials_Phrase_Completions(context);
     }
 
     @Override
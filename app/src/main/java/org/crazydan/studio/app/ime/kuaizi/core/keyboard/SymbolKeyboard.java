@@ -57,6 +57,18 @@ public class SymbolKeyboard extends InputCandidateKeyboard {
         start_Symbol_Choosing(context, onlyPair);
     }
 
+    @Override
+    public void prepare(KeyboardContext context) {
+        SymbolEmojiKeyTable keyTable = createKeyTable(context);
+
+        // 预构建各默认分组的首页符号按键
+        context.dict.prepare(() -> {
+            for (SymbolGroup group : new SymbolGroup[] { SymbolGroup.han, SymbolGroup.latin }) {
+                getSymbolGrid(keyTable, group, false, 0);
+            }
+        });
+    }
+
     private SymbolEmojiKeyTable createKeyTable(KeyboardContext context) {
         KeyTableConfig keyTableConf = createKeyTableConfig(context);
 
@@ -73,7 +85,18 @@ public class SymbolKeyboard extends InputCandidateKeyboard {
 
         SymbolChooseStateData stateData = this.state.data();
 
-        return () -> keyTable.createSymbolGrid(stateData.getGroup(), stateData.isOnlyPair(), stateData.getPageStart());
+        return () -> getSymbolGrid(keyTable, stateData.getGroup(), stateData.isOnlyPair(), stateData.getPageStart());
+    }
+
+    private static Key[][] getSymbolGrid(
+            SymbolEmojiKeyTable keyTable, SymbolGroup group, boolean onlyPair, int pageStart
+    ) {
+        return KeyTableGridCache.get(keyTable,
+                                     () -> keyTable.createSymbolGrid(group, onlyPair, pageStart),
+                                     "symbol",
+                                     group,
+                                     onlyPair,
+                                     pageStart);
     }
 
     @Override
@@ -187,10 +210,11 @@ public class SymbolKeyboard extends InputCandidateKeyboard {
 
         // 用新的配对符号替换原配对符号
         if (selected instanceof CharInput && ((CharInput) selected).hasPair()) {
+            // Note: 配对符号输入的复制将同时替换当前选中输入，故而，需在创建待输入之前进行
+            CharInput rightInput = (CharInput) inputList.getWritableInput(((CharInput) selected).getPair());
             CharInput pending = inputList.newCharPending();
 
             CharInput leftInput = pending;
-            CharInput rightInput = ((CharInput) selected).getPair();
 
             int rightInputIndex = inputList.getInputIndex(rightInput);
             // 交换左右顺序
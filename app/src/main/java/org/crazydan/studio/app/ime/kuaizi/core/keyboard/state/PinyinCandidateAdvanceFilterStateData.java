@@ -20,15 +20,14 @@
 package org.crazydan.studio.app.ime.kuaizi.core.keyboard.state;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.crazydan.studio.app.ime.kuaizi.core.input.CharInput;
-import org.crazydan.studio.app.ime.kuaizi.core.input.InputWord;
 import org.crazydan.studio.app.ime.kuaizi.core.input.word.PinyinWord;
 import org.crazydan.studio.app.ime.kuaizi.core.keyboard.State;
+import org.crazydan.studio.app.ime.kuaizi.dict.PinyinCandidateFilterIndex;
 
 /**
  * {@link State.Type#InputCandidate_Advance_Filter_Doing} 的状态数据
@@ -37,14 +36,18 @@ import org.crazydan.studio.app.ime.kuaizi.core.keyboard.State;
  * @date 2023-11-27
  */
 public class PinyinCandidateAdvanceFilterStateData extends PinyinCandidateFilterStateData<PinyinWord.Radical> {
-    private final Map<PinyinWord.Spell, List<WordRadical>> spellAndRadicalsMap;
+    private final PinyinCandidateFilterIndex filterIndex;
+
+    /** 当前读音过滤条件下的可用部首：在读音过滤条件变更时更新 */
+    private List<PinyinWord.Radical> cachedRadicals;
+    private List<PinyinWord.Spell> cachedRadicalsSpells;
 
     public PinyinCandidateAdvanceFilterStateData(
-            CharInput input, List<InputWord> candidates, int pageSize
+            CharInput input, PinyinCandidateFilterIndex filterIndex, int pageSize
     ) {
         super(input, pageSize);
 
-        this.spellAndRadicalsMap = initSpellAndRadicalsMap(candidates);
+        this.filterIndex = filterIndex;
     }
 
     /** 获取可用的过滤部首列表 */
@@ -54,62 +57,22 @@ public class PinyinCandidateAdvanceFilterStateData extends PinyinCandidateFilter
     }
 
     public List<PinyinWord.Spell> getSpells() {
-        return this.spellAndRadicalsMap.keySet().stream().sorted(this::compareSpell).collect(Collectors.toList());
+        return this.filterIndex.getSpells().stream().sorted(this::compareSpell).collect(Collectors.toList());
     }
 
+    /** 获取可用的过滤部首列表：按部首的候选字数量降序排列，数量相同的，再按部首笔画数升序排列 */
     public List<PinyinWord.Radical> getRadicals() {
-        Map<PinyinWord.Radical, Integer> map = new HashMap<>();
-
-        this.spellAndRadicalsMap.forEach((spell, radicals) -> {
-            if (!this.filter.spells.isEmpty() && !this.filter.spells.contains(spell)) {
-                return;
-            }
-
-            radicals.forEach((radical) -> {
-                map.compute(radical.value, (k, v) -> (v == null ? 0 : v) + radical.weight);
-            });
-        });
-
-        return map.keySet().stream().map((value) -> new WordRadical(value, map.get(value))).sorted((a, b) -> {
-            int diff = b.weight - a.weight;
-            if (diff == 0) {
-                diff = a.value.strokeCount - b.value.strokeCount;
-            }
-            return diff;
-        }).map((radical) -> radical.value).collect(Collectors.toList());
-    }
-
-    private Map<PinyinWord.Spell, List<WordRadical>> initSpellAndRadicalsMap(List<InputWord> candidates) {
-        Map<PinyinWord.Spell, Map<PinyinWord.Radical, Integer>> map = new HashMap<>();
-
-        candidates.stream().filter((w) -> w instanceof PinyinWord).map((w) -> (PinyinWord) w).forEach((w) -> {
-            PinyinWord.Spell spell = w.spell;
-            PinyinWord.Radical radical = w.radical;
-
-            map.computeIfAbsent(spell, (k) -> new HashMap<>()).compute(radical, (k, v) -> (v == null ? 0 : v) + 1);
-        });
-
-        Map<PinyinWord.Spell, List<WordRadical>> result = new HashMap<>();
-        map.forEach((spell, radicalMap) -> {
-            List<WordRadical> radicals = new ArrayList<>();
-
-            radicalMap.forEach((radical, weight) -> {
-                radicals.add(new WordRadical(radical, weight));
-            });
-
-            result.put(spell, radicals);
-        });
-
-        return result;
-    }
+        // Note: 部首的增减不影响可用部首，故而，仅在读音过滤条件变更时，才通过过滤索引重新统计
+        if (this.cachedRadicals == null || !this.filter.spells.equals(this.cachedRadicalsSpells)) {
+            Map<PinyinWord.Radical, Integer> map = this.filterIndex.countRadicals(this.filter.spells);
 
-    private static class WordRadical {
-        private final PinyinWord.Radical value;
-        private final int weight;
+            // Note: 统计结果已按笔画数升序排列，在稳定排序后，数量相同的部首依然保持该顺序
+            List<PinyinWord.Radical> radicals = new ArrayList<>(map.keySet());
+            radicals.sort((a, b) -> map.get(b) - map.get(a));
 
-        private WordRadical(PinyinWord.Radical value, int weight) {
-            this.value = value;
-            this.weight = weight;
+            this.cachedRadicals = radicals;
+            this.cachedRadicalsSpells = new ArrayList<>(this.filter.spells);
         }
+        return this.cachedRadicals;
     }
 }
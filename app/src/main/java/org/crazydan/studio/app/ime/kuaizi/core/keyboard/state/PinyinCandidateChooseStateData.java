@@ -19,17 +19,17 @@
 
 package org.crazydan.studio.app.ime.kuaizi.core.keyboard.state;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
-import org.crazydan.studio.app.ime.kuaizi.common.utils.CollectionUtils;
+import org.crazydan.studio.app.ime.kuaizi.common.LazyPagedList;
 import org.crazydan.studio.app.ime.kuaizi.core.input.CharInput;
 import org.crazydan.studio.app.ime.kuaizi.core.input.InputWord;
-import org.crazydan.studio.app.ime.kuaizi.core.input.word.EmojiWord;
 import org.crazydan.studio.app.ime.kuaizi.core.input.word.PinyinWord;
 import org.crazydan.studio.app.ime.kuaizi.core.keyboard.State;
+import org.crazydan.studio.app.ime.kuaizi.dict.PinyinCandidateFilterIndex;
 
 /**
  * {@link State.Type#InputCandidate_Choose_Doing} 的状态数据
@@ -40,24 +40,32 @@ import org.crazydan.studio.app.ime.kuaizi.core.keyboard.State;
  * @date 2023-07-10
  */
 public class PinyinCandidateChooseStateData extends PinyinCandidateFilterStateData<InputWord> {
-    private final List<InputWord> candidates;
+    private final LazyPagedList<InputWord> candidates;
+    private final PinyinCandidateFilterIndex filterIndex;
     private final List<PinyinWord.Spell> spells;
 
     private List<InputWord> cachedFilterCandidates;
 
-    public PinyinCandidateChooseStateData(CharInput input, List<InputWord> candidates, int pageSize) {
+    /**
+     * @param candidates
+     *         全部的候选字，仅在翻页时才构造该页的候选字
+     * @param filterIndex
+     *         全部候选字的过滤索引，用于在过滤时直接得到匹配的候选字，而无需构造全部的候选字
+     */
+    public PinyinCandidateChooseStateData(
+            CharInput input, LazyPagedList<InputWord> candidates, PinyinCandidateFilterIndex filterIndex, int pageSize
+    ) {
         super(input, pageSize);
 
         this.candidates = candidates;
+        this.filterIndex = filterIndex;
         this.cachedFilterCandidates = candidates;
 
-        this.spells = candidates.stream()
-                                .filter((w) -> w instanceof PinyinWord)
-                                .map((w) -> ((PinyinWord) w).spell)
-                                .filter((spell) -> spell.id != null)
-                                .sorted(this::compareSpell)
-                                .distinct()
-                                .collect(Collectors.toList());
+        this.spells = filterIndex.getSpells()
+                                 .stream()
+                                 .filter((spell) -> spell.id != null)
+                                 .sorted(this::compareSpell)
+                                 .collect(Collectors.toList());
     }
 
     @Override
@@ -65,8 +73,8 @@ public class PinyinCandidateChooseStateData extends PinyinCandidateFilterStateDa
         return this.cachedFilterCandidates;
     }
 
-    public List<InputWord> getCandidates() {
-        return this.candidates;
+    public PinyinCandidateFilterIndex getFilterIndex() {
+        return this.filterIndex;
     }
 
     public List<PinyinWord.Spell> getSpells() {
@@ -76,56 +84,32 @@ public class PinyinCandidateChooseStateData extends PinyinCandidateFilterStateDa
     @Override
     public boolean updateFilter(PinyinWord.Filter filter) {
         if (super.updateFilter(filter)) {
-            this.cachedFilterCandidates = filterCandidates(this.candidates);
+            this.cachedFilterCandidates = filterCandidates();
             return true;
         }
         return false;
     }
 
-    private List<InputWord> filterCandidates(List<InputWord> candidates) {
+    private List<InputWord> filterCandidates() {
         if (this.filter.isEmpty()) {
-            return candidates;
+            return this.candidates;
         }
 
-        int pageSize = getPageSize();
         // Note：存在过滤条件时，仅过滤匹配的拼音字（不含表情），
         // 并合并高频字和其他字，高频字不再单独占用首页
-        List<InputWord> firstPageData = CollectionUtils.subList(candidates, 0, pageSize)
+        List<InputWord> firstPageData = this.candidates.getHead()
                                                        .stream()
-                                                       .filter(this::matched)
                                                        .filter(Objects::nonNull)
+                                                       .filter(this.filter::matched)
                                                        .collect(Collectors.toList());
-        List<InputWord> restPageData = CollectionUtils.subList(candidates, pageSize, candidates.size())
-                                                      .stream()
-                                                      .filter(this::matched)
-                                                      .collect(Collectors.toList());
-        restPageData.removeAll(firstPageData);
-
-        int totalPageDataSize = firstPageData.size() + restPageData.size();
-        if (totalPageDataSize == 0) {
-            return new ArrayList<>();
-        }
-        // 首页为空，则返回剩余数据
-        else if (firstPageData.isEmpty()) {
-            return restPageData;
-        }
-        // 高频字不单独占用一页
-        else {
-            firstPageData.addAll(restPageData);
-            return firstPageData;
-        }
-    }
+        Set<Integer> firstPageDataIds = firstPageData.stream().map((w) -> w.id).collect(Collectors.toSet());
 
-    private boolean matched(InputWord word) {
-        // 表情符号不做匹配
-        if (word instanceof EmojiWord) {
-            return false;
-        }
-        // 占位用的，不做过滤
-        else if (word == null) {
-            return true;
-        }
+        // Note: 直接通过过滤索引得到剩余的匹配候选字，仅在翻页时才构造其对象
+        List<Integer> restPageDataIds = this.filterIndex.filterIds(this.filter)
+                                                        .stream()
+                                                        .filter((id) -> !firstPageDataIds.contains(id))
+                                                        .collect(Collectors.toList());
 
-        return this.filter.matched(word);
+        return this.candidates.derive(firstPageData, restPageDataIds);
     }
 }
@@ -67,6 +67,11 @@ public abstract class BaseMsg<T, D> extends Immutable {
             return Objects.hash(this.type, this.data);
         }
 
+        @Override
+        protected Object[] identity() {
+            return new Object[] { this.type, this.data };
+        }
+
         // ===================== End: 构建函数 ===================
 
         // ===================== Start: 按键配置 ===================
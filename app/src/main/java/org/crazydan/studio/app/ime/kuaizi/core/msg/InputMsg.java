@@ -22,7 +22,9 @@ package org.crazydan.studio.app.ime.kuaizi.core.msg;
 import java.util.List;
 import java.util.Objects;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
+import org.crazydan.studio.app.ime.kuaizi.common.Immutable.ThreadLocalBuilder;
 import org.crazydan.studio.app.ime.kuaizi.core.Input;
 import org.crazydan.studio.app.ime.kuaizi.core.InputFactory;
 import org.crazydan.studio.app.ime.kuaizi.core.InputList;
@@ -39,18 +41,18 @@ import org.crazydan.studio.app.ime.kuaizi.core.Keyboard;
  * @date 2024-12-11
  */
 public class InputMsg extends BaseMsg<InputMsgType, InputMsgData> {
-    private final static Builder builder = new Builder();
+    private final static ThreadLocalBuilder<Builder> builder = new ThreadLocalBuilder<>(Builder::new);
 
     /** 用于重新布局 {@link Key} */
-    public final KeyFactory keyFactory;
+    private final KeyFactory keyFactory;
     /** 用于重新布局 {@link Input} */
-    public final InputFactory inputFactory;
+    private final InputFactory inputFactory;
 
     /** 输入列表状态 */
     public final InputListState inputList;
 
     /** 快捷输入数据 */
-    public final List<?> inputQuickList;
+    private final Lazy<List<?>> inputQuickList;
 
     /** 构建 {@link InputMsg} */
     public static InputMsg build(Consumer<Builder> c) {
@@ -64,10 +66,53 @@ public class InputMsg extends BaseMsg<InputMsgType, InputMsgData> {
         this.inputFactory = builder.inputFactory;
 
         this.inputList = builder.inputList;
-        this.inputQuickList = builder.inputQuickList;
+        this.inputQuickList = new Lazy<>(builder.inputQuickList);
+    }
+
+    /**
+     * 获取用于重新布局 {@link Key} 的 {@link KeyFactory}
+     * <p/>
+     * 其在发送消息时创建，并已确定键盘的状态和配置，仅按键布局在调用 {@link KeyFactory#getKeys()} 时才构建
+     *
+     * @return 可能为 null
+     */
+    public KeyFactory keyFactory() {
+        return this.keyFactory;
+    }
+
+    /**
+     * 获取用于重新布局 {@link Input} 的 {@link InputFactory}
+     * <p/>
+     * 其在发送消息时创建，并已确定输入列表的视图数据
+     *
+     * @return 可能为 null
+     */
+    public InputFactory inputFactory() {
+        return this.inputFactory;
+    }
+
+    /**
+     * 获取快捷输入数据
+     * <p/>
+     * 其数据来源（输入补全或剪贴数据）在发送消息时确定，
+     * 仅视图数据在首次获取时才创建，并在之后直接返回该结果
+     *
+     * @return 可能为 null
+     */
+    public List<?> inputQuickList() {
+        return this.inputQuickList.get();
     }
 
     public static class InputListState {
+        /** 全部可能的状态：其均为只读对象，可被所有消息共享 */
+        private static final InputListState[] states = new InputListState[8];
+
+        static {
+            for (int i = 0; i < states.length; i++) {
+                states[i] = new InputListState((i & 4) != 0, (i & 2) != 0, (i & 1) != 0);
+            }
+        }
+
         /** 输入列表是否已冻结 */
         public final boolean frozen;
         /** 输入列表是否为空 */
@@ -81,19 +126,42 @@ public class InputMsg extends BaseMsg<InputMsgType, InputMsgData> {
             this.canCancelClean = canCancelClean;
         }
 
+        static InputListState of(boolean frozen, boolean empty, boolean canCancelClean) {
+            return states[(frozen ? 4 : 0) | (empty ? 2 : 0) | (canCancelClean ? 1 : 0)];
+        }
+
         @Override
         public int hashCode() {
             return Objects.hash(this.frozen, this.empty, this.canCancelClean);
         }
     }
 
+    /** 延迟创建并缓存结果的消息数据 */
+    private static class Lazy<T> {
+        private Supplier<? extends T> supplier;
+        private T value;
+
+        Lazy(Supplier<? extends T> supplier) {
+            this.supplier = supplier;
+        }
+
+        synchronized T get() {
+            if (this.supplier != null) {
+                this.value = this.supplier.get();
+                // 释放对创建函数的引用，以避免其所引用的对象不能被及时回收
+                this.supplier = null;
+            }
+            return this.value;
+        }
+    }
+
     /** {@link InputMsg} 的构建器 */
     public static class Builder extends BaseMsg.Builder<Builder, InputMsg, InputMsgType, InputMsgData> {
         private KeyFactory keyFactory;
         private InputFactory inputFactory;
 
         private InputListState inputList;
-        private List<?> inputQuickList;
+        private Supplier<List<?>> inputQuickList;
 
         // ===================== Start: 构建函数 ===================
 
@@ -121,17 +189,28 @@ public class InputMsg extends BaseMsg<InputMsgType, InputMsgData> {
                                 this.inputQuickList);
         }
 
+        @Override
+        protected Object[] identity() {
+            return new Object[] {
+                    super.identity(),
+                    ref(this.keyFactory),
+                    ref(this.inputFactory),
+                    this.inputList,
+                    ref(this.inputQuickList)
+            };
+        }
+
         // ===================== End: 构建函数 ===================
 
         // ===================== Start: 构建配置 ===================
 
-        /** @see InputMsg#keyFactory */
+        /** @see InputMsg#keyFactory() */
         public Builder keyFactory(KeyFactory keyFactory) {
             this.keyFactory = keyFactory;
             return this;
         }
 
-        /** @see InputMsg#inputFactory */
+        /** @see InputMsg#inputFactory() */
         public Builder inputFactory(InputFactory inputFactory) {
             this.inputFactory = inputFactory;
             return this;
@@ -139,12 +218,12 @@ public class InputMsg extends BaseMsg<InputMsgType, InputMsgData> {
 
         /** @see InputMsg#inputList */
         public Builder inputList(InputList inputList, boolean canCancelCleanInputList) {
-            this.inputList = new InputListState(inputList.isFrozen(), inputList.isEmpty(), canCancelCleanInputList);
+            this.inputList = InputListState.of(inputList.isFrozen(), inputList.isEmpty(), canCancelCleanInputList);
             return this;
         }
 
-        /** @see InputMsg#inputQuickList */
-        public Builder inputQuickList(List<?> inputQuickList) {
+        /** @see InputMsg#inputQuickList() */
+        public Builder inputQuickList(Supplier<List<?>> inputQuickList) {
             this.inputQuickList = inputQuickList;
             return this;
         }
@@ -0,0 +1,157 @@
+/*
+ * 筷字输入法 - 高效编辑需要又好又快的输入法
+ * Copyright (C) 2025 Crazydan Studio <https://studio.crazydan.org>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.
+ * If not, see <https://www.gnu.org/licenses/lgpl-3.0.en.html#license-text>.
+ */
+
+package org.crazydan.studio.app.ime.kuaizi.core.msg;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link InputMsg} 消息总线
+ * <p/>
+ * 按{@link InputMsgType 消息类型}登记订阅者，在派发消息时，
+ * 直接取该类型的订阅者列表逐个调用，从而使订阅者仅在其关注的消息到达时被唤醒，
+ * 而无需逐层转发全部消息，再由各层通过 <code>switch</code> 判断是否忽略
+ * <p/>
+ * 对于仅依赖最新消息的幂等更新（如，按输入列表状态更新按钮），
+ * 可{@link #subscribeCoalesced 合并订阅}，以在同一轮次内仅处理最后一条消息
+ * <p/>
+ * 注：同一类型的订阅者按其订阅顺序接收消息，
+ * 且订阅应在构造阶段完成，不支持在派发过程中变更订阅
+ *
+ * @author <a href="mailto:flytreeleft@crazydan.org">flytreeleft</a>
+ * @date 2025-06-25
+ */
+public class InputMsgBus implements InputMsgListener {
+    private static final InputMsgType[] ALL_TYPES = InputMsgType.values();
+    private static final InputMsgListener[] NO_SUBSCRIBERS = new InputMsgListener[0];
+
+    /** 以消息类型的序号为下标的订阅者表 */
+    private final InputMsgListener[][] subscribers = new InputMsgListener[ALL_TYPES.length][];
+
+    public InputMsgBus() {
+        Arrays.fill(this.subscribers, NO_SUBSCRIBERS);
+    }
+
+    /** 获取除指定类型以外的全部消息类型 */
+    public static EnumSet<InputMsgType> except(Collection<InputMsgType> types) {
+        EnumSet<InputMsgType> all = EnumSet.allOf(InputMsgType.class);
+        all.removeAll(types);
+
+        return all;
+    }
+
+    /** 订阅全部类型的消息 */
+    public InputMsgBus subscribeAll(InputMsgListener listener) {
+        return subscribe(listener, ALL_TYPES);
+    }
+
+    /** 订阅指定类型的消息 */
+    public InputMsgBus subscribe(InputMsgListener listener, InputMsgType... types) {
+        return subscribe(listener, Arrays.asList(types));
+    }
+
+    /** 订阅指定类型的消息 */
+    public InputMsgBus subscribe(InputMsgListener listener, Collection<InputMsgType> types) {
+        for (InputMsgType type : types) {
+            int index = type.ordinal();
+            InputMsgListener[] old = this.subscribers[index];
+
+            InputMsgListener[] list = Arrays.copyOf(old, old.length + 1);
+            list[old.length] = listener;
+
+            this.subscribers[index] = list;
+        }
+        return this;
+    }
+
+    /**
+     * 订阅当前尚无订阅者的消息
+     * <p/>
+     * 一般在最后订阅，以处理未被其他订阅者关注的消息，如，记录被忽略的消息
+     */
+    public InputMsgBus subscribeRest(InputMsgListener listener) {
+        EnumSet<InputMsgType> types = EnumSet.noneOf(InputMsgType.class);
+        for (InputMsgType type : ALL_TYPES) {
+            if (this.subscribers[type.ordinal()].length == 0) {
+                types.add(type);
+            }
+        }
+        return subscribe(listener, types);
+    }
+
+    /**
+     * 合并订阅指定类型的消息
+     * <p/>
+     * 消息到达时仅记录为待处理，并通过 <code>executor</code> 调度处理，
+     * 在调度执行前到达的消息将替换未处理的消息，即，订阅者仅接收调度执行时的最后一条消息
+     *
+     * @param executor
+     *         待处理消息的调度器，如，<code>View#post</code>
+     */
+    public InputMsgBus subscribeCoalesced(
+            InputMsgListener listener, Executor executor, Collection<InputMsgType> types
+    ) {
+        return subscribe(new CoalescedListener(listener, executor), types);
+    }
+
+    /** 向订阅了该消息类型的订阅者派发消息 */
+    @Override
+    public void onMsg(InputMsg msg) {
+        InputMsgListener[] list = this.subscribers[msg.type.ordinal()];
+
+        for (InputMsgListener listener : list) {
+            listener.onMsg(msg);
+        }
+    }
+
+    private static class CoalescedListener implements InputMsgListener, Runnable {
+        private final InputMsgListener listener;
+        private final Executor executor;
+
+        private InputMsg pending;
+
+        CoalescedListener(InputMsgListener listener, Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+        }
+
+        @Override
+        public void onMsg(InputMsg msg) {
+            boolean scheduled = this.pending != null;
+            this.pending = msg;
+
+            if (!scheduled) {
+                this.executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            InputMsg msg = this.pending;
+            this.pending = null;
+
+            if (msg != null) {
+                this.listener.onMsg(msg);
+            }
+        }
+    }
+}
@@ -62,6 +62,10 @@ public enum InputMsgType {
     InputList_Commit_Doing,
     /** 已提交输入列表撤回中 */
     InputList_Committed_Revoke_Doing,
+    /** 输入列表的编辑撤销中 */
+    InputList_Edit_Undo_Doing,
+    /** 输入列表的编辑重做中 */
+    InputList_Edit_Redo_Doing,
     /** 输入列表中的 配对符号 提交中：将输入内容写入到 目标编辑器 中 */
     InputList_PairSymbol_Commit_Doing,
 
@@ -21,6 +21,7 @@ package org.crazydan.studio.app.ime.kuaizi.core.msg;
 
 import java.util.function.Consumer;
 
+import org.crazydan.studio.app.ime.kuaizi.common.Immutable.ThreadLocalBuilder;
 import org.crazydan.studio.app.ime.kuaizi.core.Input;
 
 /**
@@ -30,7 +31,7 @@ import org.crazydan.studio.app.ime.kuaizi.core.Input;
  * @date 2024-12-11
  */
 public class UserInputMsg extends BaseMsg<UserInputMsgType, UserInputMsgData> {
-    private final static Builder builder = new Builder();
+    private final static ThreadLocalBuilder<Builder> builder = new ThreadLocalBuilder<>(Builder::new);
 
     /** 构建 {@link UserInputMsg} */
     public static UserInputMsg build(Consumer<Builder> c) {
@@ -21,6 +21,7 @@ package org.crazydan.studio.app.ime.kuaizi.core.msg;
 
 import java.util.function.Consumer;
 
+import org.crazydan.studio.app.ime.kuaizi.common.Immutable.ThreadLocalBuilder;
 import org.crazydan.studio.app.ime.kuaizi.core.Key;
 
 /**
@@ -30,7 +31,7 @@ import org.crazydan.studio.app.ime.kuaizi.core.Key;
  * @date 2024-12-11
  */
 public class UserKeyMsg extends BaseMsg<UserKeyMsgType, UserKeyMsgData> {
-    private final static Builder builder = new Builder();
+    private final static ThreadLocalBuilder<Builder> builder = new ThreadLocalBuilder<>(Builder::new);
 
     /** 构建 {@link UserKeyMsg} */
     public static UserKeyMsg build(Consumer<Builder> c) {
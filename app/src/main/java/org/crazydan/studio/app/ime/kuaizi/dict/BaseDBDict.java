@@ -34,4 +34,7 @@ public abstract class BaseDBDict {
         this.db = db;
         this.async = async;
     }
+
+    /** 在用户数据被整体变更（如，{@link org.crazydan.studio.app.ime.kuaizi.IMEditorDict#importUserData 恢复备份}）后，废弃已缓存的查询结果 */
+    public void invalidateCaches() {}
 }
@@ -0,0 +1,143 @@
+/*
+ * 筷字输入法 - 高效编辑需要又好又快的输入法
+ * Copyright (C) 2025 Crazydan Studio <https://studio.crazydan.org>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.
+ * If not, see <https://www.gnu.org/licenses/lgpl-3.0.en.html#license-text>.
+ */
+
+package org.crazydan.studio.app.ime.kuaizi.dict;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.crazydan.studio.app.ime.kuaizi.core.input.word.PinyinWord;
+
+/**
+ * 拼音候选字的过滤索引
+ * <p/>
+ * 针对某个拼音的全部候选字，按候选字在列表中的位置，
+ * 预先构建读音和部首到候选字位置集合（{@link BitSet}）的映射，以及部首的笔画数分桶，
+ * 从而将按读音和部首的过滤及其组合转换为位集合的并/交运算，
+ * 而无需在每次变更过滤条件时遍历全部的{@link PinyinWord 拼音字对象}
+ *
+ * @author <a href="mailto:flytreeleft@crazydan.org">flytreeleft</a>
+ * @date 2025-06-22
+ */
+public class PinyinCandidateFilterIndex {
+    /** 按候选顺序排列的候选字 id */
+    private final List<Integer> ids = new ArrayList<>();
+    /** 读音及其候选字位置集合：按读音的出现顺序排列 */
+    private final Map<PinyinWord.Spell, BitSet> spellBits = new LinkedHashMap<>();
+    /** 部首及其候选字位置集合 */
+    private final Map<PinyinWord.Radical, BitSet> radicalBits = new HashMap<>();
+    /** 按部首笔画数分桶的部首：按笔画数升序排列 */
+    private final TreeMap<Integer, List<PinyinWord.Radical>> strokeCountRadicals = new TreeMap<>();
+
+    /** 按候选顺序依次添加候选字 */
+    public void add(Integer id, PinyinWord.Spell spell, PinyinWord.Radical radical) {
+        int position = this.ids.size();
+        this.ids.add(id);
+
+        this.spellBits.computeIfAbsent(spell, (k) -> new BitSet()).set(position);
+
+        BitSet bits = this.radicalBits.get(radical);
+        if (bits == null) {
+            bits = new BitSet();
+            this.radicalBits.put(radical, bits);
+
+            this.strokeCountRadicals.computeIfAbsent(radical.strokeCount, (k) -> new ArrayList<>()).add(radical);
+        }
+        bits.set(position);
+    }
+
+    /** 获取全部候选字 id：按候选顺序排列 */
+    public List<Integer> getIds() {
+        return Collections.unmodifiableList(this.ids);
+    }
+
+    /** 获取全部候选字的读音 */
+    public List<PinyinWord.Spell> getSpells() {
+        return new ArrayList<>(this.spellBits.keySet());
+    }
+
+    /** 获取与过滤条件匹配的候选字 id：按候选顺序排列 */
+    public List<Integer> filterIds(PinyinWord.Filter filter) {
+        BitSet bits = match(filter.spells, filter.radicals);
+
+        List<Integer> result = new ArrayList<>(bits.cardinality());
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            result.add(this.ids.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * 统计在指定读音下各部首的候选字数量
+     *
+     * @param spells
+     *         若为空，则不限定读音
+     * @return 结果按部首笔画数升序排列，且不含数量为 0 的部首
+     */
+    public Map<PinyinWord.Radical, Integer> countRadicals(Collection<PinyinWord.Spell> spells) {
+        BitSet spellMatched = match(spells, List.of());
+        Map<PinyinWord.Radical, Integer> result = new LinkedHashMap<>();
+
+        this.strokeCountRadicals.forEach((strokeCount, radicals) -> {
+            for (PinyinWord.Radical radical : radicals) {
+                BitSet bits = (BitSet) this.radicalBits.get(radical).clone();
+                bits.and(spellMatched);
+
+                int count = bits.cardinality();
+                if (count > 0) {
+                    result.put(radical, count);
+                }
+            }
+        });
+        return result;
+    }
+
+    /** 同一类条件之间为并集，不同类条件之间为交集，空条件表示不做限定 */
+    private BitSet match(Collection<PinyinWord.Spell> spells, Collection<PinyinWord.Radical> radicals) {
+        BitSet result = new BitSet(this.ids.size());
+        result.set(0, this.ids.size());
+
+        if (!spells.isEmpty()) {
+            result.and(union(this.spellBits, spells));
+        }
+        if (!radicals.isEmpty()) {
+            result.and(union(this.radicalBits, radicals));
+        }
+        return result;
+    }
+
+    private static <K> BitSet union(Map<K, BitSet> bitsMap, Collection<K> keys) {
+        BitSet result = new BitSet();
+
+        for (K key : keys) {
+            BitSet bits = bitsMap.get(key);
+            if (bits != null) {
+                result.or(bits);
+            }
+        }
+        return result;
+    }
+}
@@ -21,10 +21,17 @@ package org.crazydan.studio.app.ime.kuaizi.dict;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.crazydan.studio.app.ime.kuaizi.core.input.CharInput;
@@ -37,6 +44,13 @@ import org.crazydan.studio.app.ime.kuaizi.core.input.CharInput;
  * 第三层为除去第一二层之后的部分
  */
 public class PinyinCharsTree {
+    /** 拼音字母组合的最大长度，如 <code>zhuang</code> */
+    private static final int MAX_CHARS_LENGTH = 6;
+    /** 拼音字母串的强制分隔符，如 <code>xi'an</code> */
+    private static final char CHARS_SEPARATOR = '\'';
+    /** 无法构成拼音的单个字符的对数概率：确保其仅在无法切分出拼音时才被单独切分 */
+    private static final double UNKNOWN_CHARS_LOG_PROB = -1000;
+
     /** 当前节点所对应的拼音字母组合的 id，若不是有效拼音，则其值为 null */
     public final Integer id;
     /** 当前节点所对应的拼音字母组合中的字母 */
@@ -44,6 +58,14 @@ public class PinyinCharsTree {
 
     /** 后继字母及其子树：按字母顺序升序排序 */
     private final Map<String, PinyinCharsTree> children = new LinkedHashMap<>();
+    /** 拼音字母组合 id 与拼音字母组合的映射：仅在根节点上按需构建 */
+    private Map<Integer, String> charsIdAndCharsMap;
+    /**
+     * 拼音字母组合 id 与其模糊音别名 id 集合的映射：仅在根节点上{@link #setFuzzyRules 设置模糊音规则}时预先构建
+     * <p/>
+     * 别名集合中不含拼音字母组合自身，且没有别名的拼音字母组合不在该映射中
+     */
+    private volatile Map<Integer, Set<Integer>> charsIdAndAliasIdsMap = Map.of();
 
     PinyinCharsTree(Integer id, String value) {
         this.id = id;
@@ -123,6 +145,145 @@ public class PinyinCharsTree {
 
         return child != null ? child.id : null;
     }
+
+    /** 获取指定 id 的拼音字母组合，若其不存在，则返回 null */
+    public String getChars(Integer charsId) {
+        if (charsId == null) {
+            return null;
+        }
+
+        if (this.charsIdAndCharsMap == null) {
+            Map<Integer, String> map = new HashMap<>(600);
+            getAllPinyinChars().forEach((chars) -> map.put(getCharsId(chars), chars));
+
+            this.charsIdAndCharsMap = map;
+        }
+        return this.charsIdAndCharsMap.get(charsId);
+    }
+    // >>>>>>>>>>>>>>>>>>>>>>>>>>>>>
+
+    // <<<<<<<<<<<<<<<<<<<<<<<<<<<<
+
+    /**
+     * 将连续的拼音字母串（如 <code>woxiangchifan</code>）切分为拼音字母组合列表
+     * <p/>
+     * 以切分位置为节点构造切分网格，并通过动态规划选择各拼音字母组合的对数概率之和最大的切分路径，
+     * 从而由拼音的使用频率决定有歧义的切分（如 <code>xian</code> 与 <code>xi'an</code>）。
+     * 因拼音字母组合的长度不超过 {@link #MAX_CHARS_LENGTH}，故而，其时间复杂度为线性的
+     * <p/>
+     * 可通过 <code>'</code> 强制分隔拼音，其不会出现在结果中，
+     * 而无法构成拼音的字符则将被逐个单独切分出来
+     *
+     * @param charsLogProbGetter
+     *         获取指定 id 的拼音字母组合的对数概率
+     */
+    public List<String> segmentChars(String text, Function<Integer, Double> charsLogProbGetter) {
+        String chars = text.toLowerCase();
+        int total = chars.length();
+
+        // scores[i] 为前 i 个字符的最佳切分的得分，starts[i] 为其最后一个切分的起始位置
+        double[] scores = new double[total + 1];
+        int[] starts = new int[total + 1];
+        Arrays.fill(scores, Double.NEGATIVE_INFINITY);
+        scores[0] = 0;
+
+        for (int end = 1; end <= total; end++) {
+            if (chars.charAt(end - 1) == CHARS_SEPARATOR) {
+                scores[end] = scores[end - 1];
+                starts[end] = end - 1;
+                continue;
+            }
+
+            for (int length = 1; length <= MAX_CHARS_LENGTH && length <= end; length++) {
+                int start = end - length;
+                // Note: 拼音不能跨越分隔符
+                if (chars.charAt(start) == CHARS_SEPARATOR) {
+                    break;
+                }
+
+                Integer charsId = getCharsId(chars.substring(start, end));
+                double prob;
+                if (charsId != null) {
+                    prob = charsLogProbGetter.apply(charsId);
+                } else if (length == 1) {
+                    prob = UNKNOWN_CHARS_LOG_PROB;
+                } else {
+                    continue;
+                }
+
+                double score = scores[start] + prob;
+                if (score > scores[end]) {
+                    scores[end] = score;
+                    starts[end] = start;
+                }
+            }
+        }
+
+        LinkedList<String> segments = new LinkedList<>();
+        for (int end = total; end > 0; end = starts[end]) {
+            if (chars.charAt(end - 1) != CHARS_SEPARATOR) {
+                segments.addFirst(chars.substring(starts[end], end));
+            }
+        }
+        return segments;
+    }
+    // >>>>>>>>>>>>>>>>>>>>>>>>>>>>>
+
+    // <<<<<<<<<<<<<<<<<<<<<<<<<<<<
+
+    /**
+     * 设置模糊音规则，并预先计算全部拼音字母组合的别名集合
+     * <p/>
+     * 规则可组合使用，如，在同时启用 {@link FuzzyRule#z_zh} 和 {@link FuzzyRule#an_ang} 时，
+     * <code>zan</code> 的别名为 <code>zhan, zang, zhang</code>
+     */
+    public void setFuzzyRules(Collection<FuzzyRule> rules) {
+        Map<Integer, Set<Integer>> map = new HashMap<>();
+
+        if (rules != null && !rules.isEmpty()) {
+            getAllPinyinChars().forEach((chars) -> {
+                Integer charsId = getCharsId(chars);
+
+                Set<String> aliases = new HashSet<>();
+                aliases.add(chars);
+                // Note: 先替换声母再替换韵母，以得到二者的组合
+                for (FuzzyRule rule : rules) {
+                    if (rule.initial) {
+                        aliases.addAll(rule.replace(aliases, true));
+                    }
+                }
+                for (FuzzyRule rule : rules) {
+                    if (!rule.initial) {
+                        aliases.addAll(rule.replace(aliases, false));
+                    }
+                }
+
+                Set<Integer> aliasIds = aliases.stream()
+                                               .map(this::getCharsId)
+                                               .filter((id) -> id != null && !id.equals(charsId))
+                                               .collect(Collectors.toSet());
+                if (!aliasIds.isEmpty()) {
+                    map.put(charsId, aliasIds);
+                }
+            });
+        }
+
+        this.charsIdAndAliasIdsMap = map;
+    }
+
+    /**
+     * 获取指定拼音字母组合 id 的模糊音别名 id 集合
+     *
+     * @return 不含其自身，且在未启用模糊音或无别名时，返回空集合
+     */
+    public Set<Integer> getAliasCharsIds(Integer charsId) {
+        return this.charsIdAndAliasIdsMap.getOrDefault(charsId, Set.of());
+    }
+
+    /** 判断拼音字母组合 <code>charsId</code> 是否与 <code>targetCharsId</code> 相同或为其模糊音别名 */
+    public boolean isFuzzyMatched(Integer charsId, Integer targetCharsId) {
+        return Objects.equals(charsId, targetCharsId) || getAliasCharsIds(targetCharsId).contains(charsId);
+    }
     // >>>>>>>>>>>>>>>>>>>>>>>>>>>>>
 
     // <<<<<<<<<<<<<<<<<<<<<<<<<<<<
@@ -154,6 +315,18 @@ public class PinyinCharsTree {
     public boolean isPinyinCharsInput(CharInput input) {
         return getCharsId(input) != null;
     }
+
+    /**
+     * 判断指定的{@link CharInput 输入}是否为仅包含声母的简拼输入
+     * <p/>
+     * 即，其输入为第一层的声母，且该声母本身不是有效拼音
+     */
+    public boolean isPinyinInitialsInput(CharInput input) {
+        String chars = input.getJoinedKeyChars();
+        PinyinCharsTree child = getChild(chars);
+
+        return child != null && !child.isPinyin() && child.hasChild();
+    }
     // >>>>>>>>>>>>>>>>>>>>>>>>
 
     private void add(String topChar, String[] charsSegments, Map<String, Integer> pinyinCharsAndIdMap) {
@@ -190,4 +363,67 @@ public class PinyinCharsTree {
 
         return charsSegments;
     }
+
+    /** 模糊音规则 */
+    public enum FuzzyRule {
+        z_zh("z", "zh", true),
+        c_ch("c", "ch", true),
+        s_sh("s", "sh", true),
+        n_l("n", "l", true),
+        an_ang("an", "ang", false),
+        en_eng("en", "eng", false),
+        in_ing("in", "ing", false),
+        ;
+
+        private final String left;
+        private final String right;
+        /** 是否为声母规则，否则，为韵母规则 */
+        private final boolean initial;
+
+        FuzzyRule(String left, String right, boolean initial) {
+            this.left = left;
+            this.right = right;
+            this.initial = initial;
+        }
+
+        /** 根据规则名称列表得到模糊音规则，忽略无效的名称 */
+        public static Set<FuzzyRule> from(Collection<String> names) {
+            Set<FuzzyRule> rules = new HashSet<>();
+            if (names == null) {
+                return rules;
+            }
+
+            for (FuzzyRule rule : values()) {
+                if (names.contains(rule.name())) {
+                    rules.add(rule);
+                }
+            }
+            return rules;
+        }
+
+        /** 对拼音字母组合做声母或韵母的双向替换，返回替换后的结果，其可能不是有效拼音 */
+        private Set<String> replace(Set<String> charsSet, boolean initial) {
+            Set<String> result = new HashSet<>();
+
+            for (String chars : charsSet) {
+                if (initial) {
+                    String start = splitChars(chars)[0];
+
+                    if (start.equals(this.left)) {
+                        result.add(this.right + chars.substring(start.length()));
+                    } else if (start.equals(this.right)) {
+                        result.add(this.left + chars.substring(start.length()));
+                    }
+                } else {
+                    // Note: 需先检查较长的韵母，以避免 ang 被视为以 an 结尾
+                    if (chars.endsWith(this.right)) {
+                        result.add(chars.substring(0, chars.length() - this.right.length()) + this.left);
+                    } else if (chars.endsWith(this.left)) {
+                        result.add(chars.substring(0, chars.length() - this.left.length()) + this.right);
+                    }
+                }
+            }
+            return result;
+        }
+    }
 }
@@ -20,28 +20,40 @@
 package org.crazydan.studio.app.ime.kuaizi.dict;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import android.database.sqlite.SQLiteDatabase;
+import android.util.LruCache;
 import org.crazydan.studio.app.ime.kuaizi.common.Async;
+import org.crazydan.studio.app.ime.kuaizi.common.LazyPagedList;
+import org.crazydan.studio.app.ime.kuaizi.core.Key;
 import org.crazydan.studio.app.ime.kuaizi.core.input.CharInput;
 import org.crazydan.studio.app.ime.kuaizi.core.input.InputWord;
 import org.crazydan.studio.app.ime.kuaizi.core.input.word.PinyinWord;
+import org.crazydan.studio.app.ime.kuaizi.core.key.CharKey;
 import org.crazydan.studio.app.ime.kuaizi.dict.db.PinyinDBHelper;
 
 import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.SQLiteQueryParams;
 import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.querySQLite;
+import static org.crazydan.studio.app.ime.kuaizi.dict.db.HmmDBHelper.getTopNextPinyinWords;
 import static org.crazydan.studio.app.ime.kuaizi.dict.db.HmmDBHelper.predictPinyinPhrase;
+import static org.crazydan.studio.app.ime.kuaizi.dict.db.HmmDBHelper.predictPinyinPhraseByInitials;
+import static org.crazydan.studio.app.ime.kuaizi.dict.db.PinyinDBHelper.getAllPinyinWordIdsByCharsId;
 import static org.crazydan.studio.app.ime.kuaizi.dict.db.PinyinDBHelper.getAllPinyinWordsByCharsId;
 import static org.crazydan.studio.app.ime.kuaizi.dict.db.PinyinDBHelper.getFirstBestPinyinWord;
+import static org.crazydan.studio.app.ime.kuaizi.dict.db.PinyinDBHelper.getPinyinCandidateFilterIndex;
+import static org.crazydan.studio.app.ime.kuaizi.dict.db.PinyinDBHelper.getPinyinCharsWeights;
 import static org.crazydan.studio.app.ime.kuaizi.dict.db.PinyinDBHelper.getPinyinWordsByWordId;
 import static org.crazydan.studio.app.ime.kuaizi.dict.db.PinyinDBHelper.getTopBestPinyinWordIds;
 import static org.crazydan.studio.app.ime.kuaizi.dict.db.UserInputDataDBHelper.getEmojisByKeyword;
@@ -58,8 +70,32 @@ import static org.crazydan.studio.app.ime.kuaizi.dict.db.UserInputDataDBHelper.g
 public class PinyinDict extends BaseDBDict {
     /** 用户词组数据的基础权重，以确保用户输入权重大于应用词组数据 */
     private final int userPhraseBaseWeight = 500;
+    /** 每个拼音字所缓存的后继拼音字数量 */
+    private static final int NEXT_WORDS_TOP = 8;
+    /** 每个拼音字所缓存的转移块大小，即，其转移次数最多的后继拼音字数量 */
+    private static final int NEXT_TRANS_BLOCK_SIZE = 64;
 
     private final PinyinCharsTree pinyinCharsTree;
+    /**
+     * 拼音字的后继拼音字缓存：<code>{'拼音字 id': [后继拼音字, ...]}</code>
+     * <p/>
+     * 以使得在输入提交后可直接从缓存中得到联想结果，
+     * 仅在未命中缓存时，才从{@link #nextTransBlockCache 转移块}中获取并缓存其前 {@link #NEXT_WORDS_TOP} 个后继拼音字
+     */
+    private final LruCache<Integer, List<PinyinWord>> nextWordsCache = new LruCache<>(256);
+    /**
+     * 拼音字的转移块缓存：<code>{'拼音字 id': [[后继拼音字 id, 后继拼音字的拼音字母组合 id], ...]}</code>
+     * <p/>
+     * 其为前 {@link #NEXT_TRANS_BLOCK_SIZE} 个后继拼音字，且按转移次数降序排列，
+     * 用于{@link #findTopBestNextWords 联想输入}和{@link #getTopBestCandidateIds(CharInput, PinyinWord, int) 候选字重排}
+     */
+    private final LruCache<Integer, List<Integer[]>> nextTransBlockCache = new LruCache<>(256);
+    /**
+     * 拼音字母组合的对数概率获取函数：在首次切分拼音字母串时，根据拼音的使用权重构建
+     * <p/>
+     * 用户权重的后续变化对拼音使用频率的影响甚微，故而，不做更新
+     */
+    private Function<Integer, Double> pinyinCharsLogProbGetter;
 
     public PinyinDict(SQLiteDatabase db, Async async, PinyinCharsTree pinyinCharsTree) {
         super(db, async);
@@ -75,11 +111,16 @@ public class PinyinDict extends BaseDBDict {
         return PinyinDBHelper.getPinyinWord(this.db, word, pinyin);
     }
 
-    /** 获取指定拼音的候选拼音字列表：已按权重等排序 */
+    /**
+     * 获取指定拼音的候选拼音字列表：已按权重等排序
+     * <p/>
+     * 在启用模糊音时，其模糊音别名的候选字将排在精确匹配的候选字之后
+     */
     public Map<Integer, InputWord> getCandidates(CharInput input) {
         Integer pinyinCharsId = getPinyinCharsTree().getCharsId(input);
+        Set<Integer> aliasCharsIds = getPinyinCharsTree().getAliasCharsIds(pinyinCharsId);
 
-        return getAllPinyinWordsByCharsId(this.db, pinyinCharsId).stream()
+        return getAllPinyinWordsByCharsId(this.db, pinyinCharsId, aliasCharsIds).stream()
                                                                  .collect(Collectors.toMap((w) -> w.id,
                                                                                            Function.identity(),
                                                                                            (a, b) -> a,
@@ -87,20 +128,142 @@ public class PinyinDict extends BaseDBDict {
                                                                                            LinkedHashMap::new));
     }
 
+    /**
+     * 获取指定拼音的全部候选拼音字 id：其顺序与 {@link #getCandidates} 的一致
+     * <p/>
+     * 仅用于按需（分页）构造候选字，以避免一次性构造全部的同音字
+     */
+    public List<Integer> getCandidateIds(CharInput input) {
+        Integer pinyinCharsId = getPinyinCharsTree().getCharsId(input);
+        Set<Integer> aliasCharsIds = getPinyinCharsTree().getAliasCharsIds(pinyinCharsId);
+
+        return getAllPinyinWordIdsByCharsId(this.db, pinyinCharsId, aliasCharsIds);
+    }
+
+    /**
+     * 获取指定拼音的全部候选字的{@link PinyinCandidateFilterIndex 过滤索引}
+     * <p/>
+     * 索引中的候选字顺序与 {@link #getCandidateIds} 的一致
+     */
+    public PinyinCandidateFilterIndex getCandidateFilterIndex(CharInput input) {
+        Integer pinyinCharsId = getPinyinCharsTree().getCharsId(input);
+        Set<Integer> aliasCharsIds = getPinyinCharsTree().getAliasCharsIds(pinyinCharsId);
+
+        return getPinyinCandidateFilterIndex(this.db, pinyinCharsId, aliasCharsIds);
+    }
+
+    /** 获取指定 id 的候选拼音字：<code>{'拼音字 id': 拼音字}</code> */
+    public Map<Integer, PinyinWord> getCandidatesByIds(Collection<Integer> wordIds) {
+        return getPinyinWordsByWordId(this.db, new HashSet<>(wordIds));
+    }
+
+    /**
+     * 创建按页构造的候选字列表
+     * <p/>
+     * 在访问到 <code>candidateIds</code> 所在的页时，才构造该页的候选字，并在后台预取下一页的候选字
+     *
+     * @param head
+     *         已构造的候选字，其位于列表的最前面，一般为最佳候选字
+     */
+    public LazyPagedList<InputWord> createPagedCandidates(List<InputWord> head, List<Integer> candidateIds, int pageSize) {
+        return new LazyPagedList<>(head, candidateIds, pageSize, (ids) -> {
+            Map<Integer, InputWord> map = new HashMap<>(ids.size());
+            map.putAll(getCandidatesByIds(ids));
+
+            return map;
+        }, this.async);
+    }
+
     /**
      * 获取指定拼音的第一个最佳候选字
      * <p/>
      * 优先选择使用权重最高的，否则，选择候选字列表中的第一个
      */
     public PinyinWord getFirstBestCandidate(Integer pinyinCharsId) {
-        return getFirstBestPinyinWord(this.db, pinyinCharsId, this.userPhraseBaseWeight);
+        Set<Integer> aliasCharsIds = getPinyinCharsTree().getAliasCharsIds(pinyinCharsId);
+
+        return getFirstBestPinyinWord(this.db, pinyinCharsId, aliasCharsIds, this.userPhraseBaseWeight);
     }
 
     /** 获取指定拼音的前 <code>top</code> 个高权重的候选拼音字 id */
     public List<Integer> getTopBestCandidateIds(CharInput input, int top) {
         Integer pinyinCharsId = getPinyinCharsTree().getCharsId(input);
+        Set<Integer> aliasCharsIds = getPinyinCharsTree().getAliasCharsIds(pinyinCharsId);
 
-        return getTopBestPinyinWordIds(this.db, pinyinCharsId, this.userPhraseBaseWeight, top);
+        return getTopBestPinyinWordIds(this.db, pinyinCharsId, aliasCharsIds, this.userPhraseBaseWeight, top);
+    }
+
+    /**
+     * 将连续的拼音字母串（如 <code>woxiangchifan</code>）切分为拼音字母组合列表
+     * <p/>
+     * 有歧义的切分（如 <code>xian</code> 与 <code>xi'an</code>）由拼音的使用频率决定，
+     * 具体见 {@link PinyinCharsTree#segmentChars}
+     */
+    public List<String> segmentPinyinChars(String text) {
+        return getPinyinCharsTree().segmentChars(text, getPinyinCharsLogProbGetter());
+    }
+
+    /**
+     * 将连续的拼音字母串切分为{@link CharInput 输入}列表，
+     * 以直接用于{@link #findTopBestMatchedPhrase 拼音短语预测}
+     * <p/>
+     * 可构成拼音的输入均被标记为拼音输入，其余的则为普通的字符输入
+     */
+    public List<CharInput> parsePinyinInputs(String text) {
+        List<CharInput> inputs = new ArrayList<>();
+
+        for (String chars : segmentPinyinChars(text)) {
+            List<Key> keys = CharKey.from(chars);
+            // Note: 忽略非字母和数字的字符
+            if (keys.isEmpty()) {
+                continue;
+            }
+
+            CharInput input = CharInput.from(keys);
+            if (getPinyinCharsTree().isPinyinCharsInput(input)) {
+                // Note: 这里仅用于标记输入为拼音输入，其候选字需另行确定
+                input.setWord(PinyinWord.build(PinyinWord.Builder.noop));
+            }
+            inputs.add(input);
+        }
+        return inputs;
+    }
+
+    /**
+     * 根据前序拼音字获取指定拼音的前 <code>top</code> 个高权重的候选拼音字 id
+     * <p/>
+     * 前序拼音字的{@link #nextTransBlockCache 转移块}中与该拼音匹配的后继拼音字按转移次数排在最前面，
+     * 剩余位置再按{@link #getTopBestCandidateIds(CharInput, int) 全局使用权重}依次填充
+     *
+     * @param prevWord
+     *         输入的前序拼音字，可为 null
+     */
+    public List<Integer> getTopBestCandidateIds(CharInput input, PinyinWord prevWord, int top) {
+        List<Integer> topBestIds = getTopBestCandidateIds(input, top);
+        if (prevWord == null || prevWord.id == null) {
+            return topBestIds;
+        }
+
+        Integer pinyinCharsId = getPinyinCharsTree().getCharsId(input);
+        List<Integer> wordIds = new ArrayList<>(top);
+
+        for (Integer[] trans : getNextTransBlock(prevWord.id)) {
+            if (wordIds.size() >= top) {
+                break;
+            }
+            if (getPinyinCharsTree().isFuzzyMatched(trans[1], pinyinCharsId)) {
+                wordIds.add(trans[0]);
+            }
+        }
+        for (Integer wordId : topBestIds) {
+            if (wordIds.size() >= top) {
+                break;
+            }
+            if (!wordIds.contains(wordId)) {
+                wordIds.add(wordId);
+            }
+        }
+        return wordIds;
     }
 
     /**
@@ -146,6 +309,7 @@ public class PinyinDict extends BaseDBDict {
         List<Integer[]> phraseWordsList = predictPinyinPhrase(this.db,
                                                               pinyinCharsIdList,
                                                               confirmedPhraseWords,
+                                                              getPinyinCharsTree()::getAliasCharsIds,
                                                               this.userPhraseBaseWeight,
                                                               top);
         if (phraseWordsList.isEmpty()) {
@@ -179,6 +343,107 @@ public class PinyinDict extends BaseDBDict {
         }).collect(Collectors.toList());
     }
 
+    /**
+     * 根据拼音的声母（简拼），查找最靠前的 <code>top</code> 个拼音短语
+     *
+     * @param initialsList
+     *         拼音的声母列表，如 <code>[zh, g]</code>
+     */
+    public List<List<PinyinWord>> findTopBestMatchedPhraseByInitials(List<String> initialsList, int top) {
+        List<Integer[]> phraseWordsList = predictPinyinPhraseByInitials(this.db, initialsList, top);
+        if (phraseWordsList.isEmpty()) {
+            return List.of();
+        }
+
+        Set<Integer> pinyinWordIds = new HashSet<>();
+        phraseWordsList.forEach(wordIds -> pinyinWordIds.addAll(List.of(wordIds)));
+
+        Map<Integer, PinyinWord> pinyinWordMap = getPinyinWordsByWordId(this.db, pinyinWordIds);
+
+        return phraseWordsList.stream()
+                              .map((wordIds) -> Arrays.stream(wordIds)
+                                                      .map(pinyinWordMap::get)
+                                                      .collect(Collectors.toList()))
+                              // Note: 忽略含有未收录字的短语
+                              .filter((phrase) -> !phrase.contains(null))
+                              .collect(Collectors.toList());
+    }
+
+    /**
+     * 获取指定拼音字的最靠前的 <code>top</code> 个后继拼音字，用于在输入提交后做联想输入
+     * <p/>
+     * 联想在输入提交时构造，故而，仅从缓存中获取，不做数据库查询。
+     * 若未命中缓存，则返回空列表，并在后台{@link #prefetchNextWords 查询并缓存}其后继拼音字
+     */
+    public List<PinyinWord> findTopBestNextWords(PinyinWord prevWord, int top) {
+        // Note: 未收录字（如，短语预测中的占位字）没有 id
+        if (prevWord == null || prevWord.id == null) {
+            return List.of();
+        }
+
+        List<PinyinWord> words = this.nextWordsCache.get(prevWord.id);
+        if (words == null) {
+            prefetchNextWords(prevWord);
+            return List.of();
+        }
+
+        return words.size() > top ? words.subList(0, top) : words;
+    }
+
+    /** 在后台查询并缓存指定拼音字的后继拼音字，以确保在输入提交时可直接从缓存中得到联想结果 */
+    public void prefetchNextWords(PinyinWord prevWord) {
+        if (prevWord == null || prevWord.id == null || this.nextWordsCache.get(prevWord.id) != null) {
+            return;
+        }
+
+        this.async.future(() -> {
+            getNextWords(prevWord.id);
+        });
+    }
+
+    /** 获取指定拼音字的后继拼音字：仅在未命中缓存时，才从{@link #getNextTransBlock 转移块}中获取并缓存 */
+    List<PinyinWord> getNextWords(Integer prevWordId) {
+        List<PinyinWord> words = this.nextWordsCache.get(prevWordId);
+
+        if (words == null) {
+            List<Integer> wordIds = getNextTransBlock(prevWordId).stream()
+                                                                 .limit(NEXT_WORDS_TOP)
+                                                                 .map((trans) -> trans[0])
+                                                                 .collect(Collectors.toList());
+            Map<Integer, PinyinWord> wordMap = getPinyinWordsByWordId(this.db, new HashSet<>(wordIds));
+
+            words = wordIds.stream().map(wordMap::get).filter(Objects::nonNull).collect(Collectors.toList());
+            this.nextWordsCache.put(prevWordId, words);
+        }
+        return words;
+    }
+
+    /** 在短语的使用数据发生变化后，废弃其中拼音字的后继拼音字缓存 */
+    public void invalidateNextWords(List<List<PinyinWord>> phrases) {
+        phrases.forEach((phrase) -> phrase.forEach((word) -> {
+            this.nextWordsCache.remove(word.id);
+            this.nextTransBlockCache.remove(word.id);
+        }));
+    }
+
+    @Override
+    public synchronized void invalidateCaches() {
+        this.nextWordsCache.evictAll();
+        this.nextTransBlockCache.evictAll();
+        this.pinyinCharsLogProbGetter = null;
+    }
+
+    /** 获取指定拼音字的转移块：仅在未命中缓存时，才通过一次索引查询获取 */
+    private List<Integer[]> getNextTransBlock(Integer prevWordId) {
+        List<Integer[]> block = this.nextTransBlockCache.get(prevWordId);
+
+        if (block == null) {
+            block = getTopNextPinyinWords(this.db, prevWordId, this.userPhraseBaseWeight, NEXT_TRANS_BLOCK_SIZE);
+            this.nextTransBlockCache.put(prevWordId, block);
+        }
+        return block;
+    }
+
     /** 根据拼音输入短语的后 4 个字作为关键字查询得到最靠前的 <code>top</code> 个表情 */
     public List<InputWord> findTopBestEmojisMatchedPhrase(List<PinyinWord> phraseWords, int top) {
         if (phraseWords.isEmpty()) {
@@ -200,6 +465,19 @@ public class PinyinDict extends BaseDBDict {
                                                                .collect(Collectors.toList());
     }
 
+    private synchronized Function<Integer, Double> getPinyinCharsLogProbGetter() {
+        if (this.pinyinCharsLogProbGetter == null) {
+            Map<Integer, Long> weights = getPinyinCharsWeights(this.db);
+
+            // Note: 采用加一平滑，以使未被使用过的拼音也有非零的概率
+            double total = weights.values().stream().mapToLong(Long::longValue).sum() //
+                           + getPinyinCharsTree().getAllPinyinChars().size();
+
+            this.pinyinCharsLogProbGetter = (charsId) -> Math.log((weights.getOrDefault(charsId, 0L) + 1) / total);
+        }
+        return this.pinyinCharsLogProbGetter;
+    }
+
     public static PinyinCharsTree createPinyinCharsTree(SQLiteDatabase db) {
         Map<String, Integer> pinyinCharsAndIdMap = new HashMap<>(600);
 
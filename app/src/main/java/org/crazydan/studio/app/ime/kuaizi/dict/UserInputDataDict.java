@@ -24,6 +24,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import android.database.sqlite.SQLiteDatabase;
+import android.util.LruCache;
 import org.crazydan.studio.app.ime.kuaizi.common.Async;
 import org.crazydan.studio.app.ime.kuaizi.core.input.InputWord;
 import org.crazydan.studio.app.ime.kuaizi.core.input.word.PinyinWord;
@@ -41,6 +42,8 @@ import static org.crazydan.studio.app.ime.kuaizi.dict.db.UserInputDataDBHelper.s
  * @date 2025-03-27
  */
 public class UserInputDataDict extends BaseDBDict {
+    /** 已查询的全部表情：<code>{'常用分组的表情数量': 全部表情}</code> */
+    private final LruCache<Integer, Emojis> emojisCache = new LruCache<>(2);
 
     public UserInputDataDict(SQLiteDatabase db, Async async) {
         super(db, async);
@@ -63,7 +66,21 @@ public class UserInputDataDict extends BaseDBDict {
      *         {@link Emojis#GROUP_GENERAL} 分组中的表情数量
      */
     public Emojis getAllEmojis(int groupGeneralCount) {
-        return getAllGroupedEmojis(this.db, groupGeneralCount);
+        Emojis emojis = this.emojisCache.get(groupGeneralCount);
+
+        if (emojis == null) {
+            emojis = getAllGroupedEmojis(this.db, groupGeneralCount);
+            this.emojisCache.put(groupGeneralCount, emojis);
+        }
+        return emojis;
+    }
+
+    /** 重新查询已缓存的表情，以确保其始终可直接使用 */
+    @Override
+    public void invalidateCaches() {
+        this.emojisCache.snapshot()
+                        .keySet()
+                        .forEach((count) -> this.emojisCache.put(count, getAllGroupedEmojis(this.db, count)));
     }
 
     /** 查找以指定参数开头的最靠前的 <code>top</code> 个拉丁文 */
@@ -95,7 +112,14 @@ public class UserInputDataDict extends BaseDBDict {
 
     /** 保存表情的使用频率等信息 */
     private void doSaveUsedEmojis(List<InputWord> emojis, boolean reverse) {
+        if (emojis.isEmpty()) {
+            return;
+        }
+
         saveUsedEmojis(this.db, emojis.stream().map((w) -> w.id).collect(Collectors.toList()), reverse);
+
+        // Note: 常用表情已变化，需在后台重新查询已缓存的表情
+        invalidateCaches();
     }
 
     /** 保存拉丁文的使用频率等信息 */
@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -38,6 +39,7 @@ import org.crazydan.studio.app.ime.kuaizi.dict.hmm.Viterbi;
 
 import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.SQLiteRawQueryParams;
 import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.SQLiteRawUpsertParams;
+import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.createSQLiteArgHolders;
 import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.execSQLite;
 import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.rawQuerySQLite;
 import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.upsertSQLite;
@@ -60,6 +62,25 @@ public class HmmDBHelper {
     /** 代表 未收录 的字，其没有对应的拼音字 */
     private static final Integer WORD_IGNORED = -10;
 
+    /** 参与预测的二阶转移数据的最小出现次数，低于该值的数据将被视为噪声而忽略 */
+    public static final int TRIGRAM_MIN_COUNT = 2;
+    /** 单次预测所加载的二阶转移数据的最大数量，以控制内存占用 */
+    private static final int TRIGRAM_QUERY_LIMIT = 2048;
+    /** 简拼预测时，各位置上参与补充后继字的前序字的最大数量 */
+    private static final int INITIALS_PREV_WORDS_TOP = 32;
+
+    /**
+     * 从拼音字母组合表（meta_pinyin_chars）中取声母的 SQL 表达式，
+     * 其中的 <code>%1$s</code> 需替换为该表的别名
+     * <p/>
+     * 零声母的拼音以其首字母作为声母
+     */
+    public static final String PINYIN_CHARS_INITIALS_SQL = "(case"
+                                                           + "   when substr(%1$s.value_, 1, 2) in ('zh', 'ch', 'sh')"
+                                                           + "     then substr(%1$s.value_, 1, 2)"
+                                                           + "   else substr(%1$s.value_, 1, 1)"
+                                                           + " end)";
+
     /** @see #predictPinyinPhrase(SQLiteDatabase, List, Map, int, int) */
     public static List<Integer[]> predictPinyinPhrase(
             SQLiteDatabase db, List<Integer> pinyinCharsIdList, int userPhraseBaseWeight, int top
@@ -67,6 +88,15 @@ public class HmmDBHelper {
         return predictPinyinPhrase(db, pinyinCharsIdList, null, userPhraseBaseWeight, top);
     }
 
+    /** @see #predictPinyinPhrase(SQLiteDatabase, List, Map, Function, int, int) */
+    public static List<Integer[]> predictPinyinPhrase(
+            SQLiteDatabase db, //
+            List<Integer> pinyinCharsIdList, Map<Integer, Integer> confirmedPhraseWords, //
+            int userPhraseBaseWeight, int top
+    ) {
+        return predictPinyinPhrase(db, pinyinCharsIdList, confirmedPhraseWords, null, userPhraseBaseWeight, top);
+    }
+
     /**
      * 根据拼音的字母组合得到前 N 个最佳预测结果
      *
@@ -75,6 +105,10 @@ public class HmmDBHelper {
      * @param confirmedPhraseWords
      *         已经确认位置的拼音字 id，已确认的字将会影响其前后相邻字的预测结果。
      *         为 null 或空时，表示无已确认的拼音字
+     * @param aliasCharsIdsGetter
+     *         获取拼音字母组合的模糊音别名 id 集合的函数，
+     *         别名对应的拼音字将与原拼音字在同一次查询中取出，并在预测时做降权处理。
+     *         为 null 时，表示未启用模糊音
      * @param userPhraseBaseWeight
      *         用户词组数据的基础权重，以确保用户输入权重大于应用词组数据
      * @param top
@@ -84,17 +118,30 @@ public class HmmDBHelper {
     public static List<Integer[]> predictPinyinPhrase(
             SQLiteDatabase db, //
             List<Integer> pinyinCharsIdList, Map<Integer, Integer> confirmedPhraseWords, //
+            Function<Integer, Set<Integer>> aliasCharsIdsGetter, //
             int userPhraseBaseWeight, int top
     ) {
         if (pinyinCharsIdList.isEmpty() || top < 1) {
             return List.of();
         }
 
+        // 各位置上的拼音字母组合及其模糊音别名
+        List<Set<Integer>> pinyinCharsIdsList = pinyinCharsIdList.stream().map((charsId) -> {
+            Set<Integer> aliases = aliasCharsIdsGetter != null ? aliasCharsIdsGetter.apply(charsId) : null;
+            if (aliases == null || aliases.isEmpty()) {
+                return Set.of(charsId);
+            }
+
+            Set<Integer> charsIds = new HashSet<>(aliases);
+            charsIds.add(charsId);
+            return charsIds;
+        }).collect(Collectors.toList());
+
         // 取出 HMM 字间转移概率
         Map<Integer, Map<Integer, Integer>> transProb = new HashMap<>();
-        Map<Integer, Set<Integer>> pinyinCharsIdAndWordIdsMap = new HashMap<>(pinyinCharsIdList.size());
+        Map<Integer, Set<Integer>> pinyinCharsIdAndWordIdsMap = new HashMap<>(pinyinCharsIdsList.size());
 
-        queryTransProb(db, pinyinCharsIdList, (row) -> {
+        queryTransProb(db, pinyinCharsIdsList, (row) -> {
             Integer wordId = row.getInt("word_id_");
             Integer preWordId = row.getInt("prev_word_id_");
             int pinyinCharsId = row.getInt("word_spell_chars_id_");
@@ -114,20 +161,54 @@ public class HmmDBHelper {
 
 //        Log.i(LOG_TAG, "TransProb: " + new Gson().toJson(transProb));
 
+        // 取出 HMM 字间二阶转移概率：仅在三个及以上的拼音时才需要
+        Map<Integer, Map<Long, Integer>> trigramProb = pinyinCharsIdList.size() > 2 ? new HashMap<>() : null;
+        if (trigramProb != null) {
+            queryTrigramProb(db, pinyinCharsIdList, (row) -> {
+                int wordId = row.getInt("word_id_");
+                int prevWordId = row.getInt("prev_word_id_");
+                int prev2WordId = row.getInt("prev2_word_id_");
+                int userValue = row.getInt("value_user_");
+
+                trigramProb.computeIfAbsent(wordId, (k) -> new HashMap<>())
+                           .put(Viterbi.trigramKey(prev2WordId, prevWordId), userValue);
+            });
+        }
+
+        boolean hasFuzzy = pinyinCharsIdsList.stream().anyMatch((charsIds) -> charsIds.size() > 1);
+
         // 计算 viterbi 矩阵
         Map<Integer, Object[]>[] viterbi = calcViterbi(pinyinCharsIdList, transProb, new Viterbi.Options() {{
             this.wordTotal = WORD_TOTAL;
             this.wordBos = WORD_EOS_BOS;
             this.wordEos = WORD_EOS_BOS;
+            this.trigramProb = trigramProb;
 
             this.wordsGetter = (spell, index) -> {
                 Integer confirmed = confirmedPhraseWords != null ? confirmedPhraseWords.get(index) : null;
                 if (confirmed != null) {
                     return Set.of(confirmed);
                 }
-                // Note: 在词典表中未收录的拼音，直接返回 WORD_IGNORED，以表示待忽略字
-                return pinyinCharsIdAndWordIdsMap.getOrDefault(spell, Set.of(WORD_IGNORED));
+
+                Set<Integer> charsIds = pinyinCharsIdsList.get(index);
+                if (charsIds.size() == 1) {
+                    // Note: 在词典表中未收录的拼音，直接返回 WORD_IGNORED，以表示待忽略字
+                    return pinyinCharsIdAndWordIdsMap.getOrDefault(spell, Set.of(WORD_IGNORED));
+                }
+
+                Set<Integer> words = new HashSet<>();
+                charsIds.forEach((charsId) -> words.addAll(pinyinCharsIdAndWordIdsMap.getOrDefault(charsId,
+                                                                                                   Set.of())));
+                return words.isEmpty() ? Set.of(WORD_IGNORED) : words;
             };
+
+            if (hasFuzzy) {
+                // 不是当前位置上的拼音的字，即为模糊音匹配的字
+                this.fuzzyWordChecker = (word, index) -> {
+                    Set<Integer> exactWords = pinyinCharsIdAndWordIdsMap.get(pinyinCharsIdList.get(index));
+                    return exactWords == null || !exactWords.contains(word);
+                };
+            }
         }});
 
 //        Log.i(LOG_TAG, "Viterbi: " + new Gson().toJson(viterbi));
@@ -136,6 +217,131 @@ public class HmmDBHelper {
         return getBestPhraseFromViterbi(viterbi, pinyinCharsIdList.size(), top);
     }
 
+    /**
+     * 根据拼音的声母（简拼）得到前 N 个最佳预测结果
+     * <p/>
+     * 相邻两个声母组合构成简拼索引（phrase_initials）的索引键，
+     * 一次查询取出全部索引键的数据，再按前序字将相邻索引键的数据串联为短语，
+     * 并取转移次数的对数之和最大的短语
+     * <p/>
+     * 由于索引中仅保留了各索引键的高频数据，前一位置的字不一定是下一索引键中的前序字，
+     * 故而，从第三个声母开始，还需从字间转移数据（phrase_trans_prob）中补充
+     * 前一位置的前 {@link #INITIALS_PREV_WORDS_TOP} 个字的后继字。
+     * 每增加一个声母，其查询和计算量均不超过常数
+     *
+     * @param initialsList
+     *         拼音的声母列表，零声母的拼音以其首字母作为声母。声母数量小于 2 时，无预测结果
+     * @param top
+     *         最佳预测结果数
+     * @return 列表元素为 短语的拼音字 id 数组，且列表中最靠前的为预测结果权重最高的短语
+     */
+    public static List<Integer[]> predictPinyinPhraseByInitials(
+            SQLiteDatabase db, List<String> initialsList, int top
+    ) {
+        int phraseSize = initialsList.size();
+        if (phraseSize < 2 || top < 1) {
+            return List.of();
+        }
+
+        List<String> initialsKeys = new ArrayList<>(phraseSize - 1);
+        for (int i = 1; i < phraseSize; i++) {
+            initialsKeys.add(initialsList.get(i - 1) + ":" + initialsList.get(i));
+        }
+
+        // 结构: initialsKey -> [[prev_word_id_, word_id_, weight_], ...]
+        Map<String, List<int[]>> initialsAndTransMap = new HashMap<>(initialsKeys.size());
+        Set<String> distinctInitialsKeys = new HashSet<>(initialsKeys);
+
+        rawQuerySQLite(db, new SQLiteRawQueryParams<Void>() {{
+            this.clause = "select initials_, prev_word_id_, word_id_, weight_"
+                          + " from phrase_initials"
+                          + " where initials_ in (" + createSQLiteArgHolders(distinctInitialsKeys) + ")";
+            this.params = distinctInitialsKeys.toArray(new String[0]);
+
+            this.voidReader = (row) -> {
+                String initials = row.getString("initials_");
+                int[] trans = new int[] {
+                        row.getInt("prev_word_id_"), row.getInt("word_id_"), row.getInt("weight_")
+                };
+
+                initialsAndTransMap.computeIfAbsent(initials, (k) -> new ArrayList<>()).add(trans);
+            };
+        }});
+
+        // 构造与 Viterbi 相同结构的矩阵：viterbi[i] = {word_id_: [probability, prev_word_id_]}
+        Map<Integer, Object[]>[] viterbi = new Map[phraseSize];
+        viterbi[0] = new HashMap<>();
+        for (int[] trans : initialsAndTransMap.getOrDefault(initialsKeys.get(0), List.of())) {
+            viterbi[0].put(trans[0], new Object[] { 0.0, null });
+        }
+
+        for (int i = 1; i < phraseSize; i++) {
+            Map<Integer, Object[]> prevWords = viterbi[i - 1];
+            Map<Integer, Object[]> currWords = new HashMap<>();
+
+            List<int[]> transList = initialsAndTransMap.getOrDefault(initialsKeys.get(i - 1), List.of());
+            // Note: 首个索引键的前序字即为其自身数据，无需补充
+            if (i > 1) {
+                transList = new ArrayList<>(transList);
+                transList.addAll(queryTransByInitials(db,
+                                                      getTopViterbiWords(prevWords, INITIALS_PREV_WORDS_TOP),
+                                                      initialsList.get(i)));
+            }
+
+            for (int[] trans : transList) {
+                Object[] prev = prevWords.get(trans[0]);
+                if (prev == null) {
+                    continue;
+                }
+
+                double prob = (double) prev[0] + Math.log(1 + trans[2]);
+                Object[] curr = currWords.get(trans[1]);
+                if (curr == null || (double) curr[0] < prob) {
+                    currWords.put(trans[1], new Object[] { prob, trans[0] });
+                }
+            }
+
+            if (currWords.isEmpty()) {
+                return List.of();
+            }
+            viterbi[i] = currWords;
+        }
+
+        return getBestPhraseFromViterbi(viterbi, phraseSize, top);
+    }
+
+    /**
+     * 获取指定拼音字的前 N 个最可能的后继拼音字
+     * <p/>
+     * 直接按 {@link Hmm#transProb} 中前序字为该拼音字的转移次数排序，
+     * 查询由 phrase_trans_prob 上以 <code>prev_word_id_</code> 开头的覆盖索引支撑，
+     * 不含句尾和转移总数等统计数据
+     *
+     * @param prevWordId
+     *         前序拼音字 id
+     * @param userPhraseBaseWeight
+     *         用户词组数据的基础权重，以确保用户输入权重大于应用词组数据
+     * @return 元素为 <code>[后继拼音字 id, 后继拼音字的拼音字母组合 id]</code>，
+     * 且列表中最靠前的为转移次数最多的拼音字
+     */
+    public static List<Integer[]> getTopNextPinyinWords(
+            SQLiteDatabase db, Integer prevWordId, int userPhraseBaseWeight, int top
+    ) {
+        return rawQuerySQLite(db, new SQLiteRawQueryParams<Integer[]>() {{
+            this.clause = "select word_id_, word_spell_chars_id_,"
+                          + "   (value_app_ + value_user_"
+                          + "    + (case when value_user_ > 0 then " + userPhraseBaseWeight + " else 0 end)"
+                          + "   ) as weight_"
+                          + " from phrase_trans_prob"
+                          + " where prev_word_id_ = ? and word_id_ >= 0"
+                          + " order by weight_ desc"
+                          + " limit " + top;
+            this.params = new String[] { prevWordId + "" };
+
+            this.reader = (row) -> new Integer[] { row.getInt("word_id_"), row.getInt("word_spell_chars_id_") };
+        }});
+    }
+
     /**
      * 保存用户输入的拼音短语
      *
@@ -149,6 +355,63 @@ public class HmmDBHelper {
 
         Hmm hmm = calcTransProb(phrase);
         saveHmm(db, hmm, reverse);
+
+        savePhraseInitials(db, phrase, reverse);
+    }
+
+    /**
+     * 更新用户短语在简拼索引（phrase_initials）中的数据
+     * <p/>
+     * 简拼索引仅在词典升级时构建，故而，需在保存用户短语时同步更新其相邻字的索引数据，
+     * 以使得此后输入的短语也能通过简拼得到
+     *
+     * @param reverse
+     *         是否反向操作，即，撤销对输入短语的保存
+     */
+    private static void savePhraseInitials(SQLiteDatabase db, List<PinyinWord> phrase, boolean reverse) {
+        // [weight_, prev_word_id_, word_id_, prev_word_spell_chars_id_, word_spell_chars_id_]
+        List<Object[]> phraseInitialsData = new ArrayList<>(phrase.size());
+        for (int i = 1; i < phrase.size(); i++) {
+            PinyinWord prev = phrase.get(i - 1);
+            PinyinWord curr = phrase.get(i);
+            if (prev.id == null || curr.id == null) {
+                continue;
+            }
+
+            phraseInitialsData.add(new Object[] { 1, prev.id, curr.id, prev.spell.charsId, curr.spell.charsId });
+        }
+
+        if (phraseInitialsData.isEmpty()) {
+            return;
+        }
+
+        if (!reverse) {
+            upsertSQLite(db, new SQLiteRawUpsertParams() {{
+                // Note: 确保更新和新增的参数位置相同
+                this.updateClause = "update phrase_initials"
+                                    + " set weight_ = weight_ + ?"
+                                    + " where prev_word_id_ = ? and word_id_ = ?";
+                this.insertClause = "insert into phrase_initials ("
+                                    + "   weight_, prev_word_id_, word_id_, initials_"
+                                    + " )"
+                                    + " select ?, ?, ?,"
+                                    + "   (" + String.format(PINYIN_CHARS_INITIALS_SQL, "prev_chars_") + " || ':' || "
+                                    + String.format(PINYIN_CHARS_INITIALS_SQL, "chars_") + ")"
+                                    + " from meta_pinyin_chars prev_chars_, meta_pinyin_chars chars_"
+                                    + " where prev_chars_.id_ = ? and chars_.id_ = ?";
+
+                this.insertParamsList = phraseInitialsData;
+                this.updateParamsGetter = (i) -> Arrays.copyOf(this.insertParamsList.get(i), 3);
+            }});
+        } else {
+            execSQLite(db,
+                       "update phrase_initials"
+                       + " set weight_ = max(weight_ - ?, 0)"
+                       + " where prev_word_id_ = ? and word_id_ = ?",
+                       phraseInitialsData.stream().map((data) -> Arrays.copyOf(data, 3)).collect(Collectors.toList()));
+            // 清理无用数据
+            execSQLite(db, "delete from phrase_initials where weight_ = 0");
+        }
     }
 
     /**
@@ -274,12 +537,106 @@ public class HmmDBHelper {
                        phraseTransProbDataGetter.apply(true));
         }
 
+        // ==============================================================================
+        Function<Boolean, List<Object[]>> phraseTrigramDataGetter = //
+                (updated) -> {
+                    List<Object[]> phraseTrigramData = new ArrayList<>();
+
+                    hmm.trigramProb.forEach((curr, prob) -> {
+                        String[] currIds = getWordId.apply(curr);
+
+                        prob.forEach((prevs, value) -> {
+                            String[] prevIds;
+                            String[] prev2Ids;
+                            if (Hmm.TOTAL.equals(prevs)) {
+                                prevIds = prev2Ids = getWordId.apply(prevs);
+                            } else {
+                                String[] splits = prevs.split(",");
+                                prev2Ids = getWordId.apply(splits[0]);
+                                prevIds = getWordId.apply(splits[1]);
+                            }
+
+                            phraseTrigramData.add(updated
+                                                  ? new Object[] { value, currIds[0], prevIds[0], prev2Ids[0] }
+                                                  : new Object[] {
+                                                          value, currIds[0], prevIds[0], prev2Ids[0], //
+                                                          currIds[1], prevIds[1], prev2Ids[1]
+                                                  });
+                        });
+                    });
+                    return phraseTrigramData;
+                };
+
+        if (!hmm.trigramProb.isEmpty() && !reverse) {
+            upsertSQLite(db, new SQLiteRawUpsertParams() {{
+                // Note: 确保更新和新增的参数位置相同
+                this.updateClause = "update phrase_trigram"
+                                    + " set value_user_ = value_user_ + ?"
+                                    + " where word_id_ = ? and prev_word_id_ = ? and prev2_word_id_ = ?";
+                this.insertClause = "insert into phrase_trigram ("
+                                    + "   value_user_,"
+                                    + "   word_id_, prev_word_id_, prev2_word_id_,"
+                                    + "   word_spell_chars_id_, prev_word_spell_chars_id_, prev2_word_spell_chars_id_"
+                                    + " ) values (?, ?, ?, ?, ?, ?, ?)";
+
+                this.insertParamsList = phraseTrigramDataGetter.apply(false);
+                this.updateParamsGetter = (i) -> Arrays.copyOf(this.insertParamsList.get(i), 4);
+            }});
+        } else if (!hmm.trigramProb.isEmpty()) {
+            execSQLite(db,
+                       "update phrase_trigram"
+                       + " set value_user_ = max(value_user_ - ?, 0)"
+                       + " where word_id_ = ? and prev_word_id_ = ? and prev2_word_id_ = ?",
+                       phraseTrigramDataGetter.apply(true));
+        }
+
         if (reverse) {
             // 清理无用数据
             execSQLite(db,
                        "delete from phrase_word where weight_app_ = 0 and weight_user_ = 0",
-                       "delete from phrase_trans_prob where value_app_ = 0 and value_user_ = 0");
+                       "delete from phrase_trans_prob where value_app_ = 0 and value_user_ = 0",
+                       "delete from phrase_trigram where value_user_ = 0");
+        }
+    }
+
+    /** 获取 viterbi 矩阵中某一位置上概率最高的前 N 个字 */
+    private static List<Integer> getTopViterbiWords(Map<Integer, Object[]> words, int top) {
+        return words.entrySet()
+                    .stream()
+                    .sorted((a, b) -> Double.compare((double) b.getValue()[0], (double) a.getValue()[0]))
+                    .limit(top)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+    }
+
+    /**
+     * 查询指定前序字的声母为 <code>initials</code> 的后继字
+     * <p/>
+     * 查询由 phrase_trans_prob 上以 <code>prev_word_id_</code> 开头的覆盖索引支撑
+     *
+     * @return 元素为 <code>[prev_word_id_, word_id_, weight_]</code>
+     */
+    private static List<int[]> queryTransByInitials(SQLiteDatabase db, List<Integer> prevWordIds, String initials) {
+        if (prevWordIds.isEmpty()) {
+            return List.of();
         }
+
+        return rawQuerySQLite(db, new SQLiteRawQueryParams<int[]>() {{
+            // Note: 直接拼接字 id，以避免参数解析
+            this.clause = "select trp_.prev_word_id_, trp_.word_id_,"
+                          + "   (trp_.value_app_ + trp_.value_user_) as weight_"
+                          + " from phrase_trans_prob trp_"
+                          + "   inner join meta_pinyin_chars chars_ on chars_.id_ = trp_.word_spell_chars_id_"
+                          + " where trp_.prev_word_id_ in ("
+                          + prevWordIds.stream().map(String::valueOf).collect(Collectors.joining(", "))
+                          + " ) and trp_.word_id_ >= 0"
+                          + "   and " + String.format(PINYIN_CHARS_INITIALS_SQL, "chars_") + " = ?";
+            this.params = new String[] { initials };
+
+            this.reader = (row) -> new int[] {
+                    row.getInt("prev_word_id_"), row.getInt("word_id_"), row.getInt("weight_")
+            };
+        }});
     }
 
     /** 计算给定短语的 {@link Hmm#transProb} 数据 */
@@ -289,18 +646,72 @@ public class HmmDBHelper {
                                        .map((w) -> w.id + ":" + w.spell.charsId).collect(Collectors.toList()));
     }
 
-    private static void queryTransProb(
+    /**
+     * 查询拼音字母组合序列中的二阶转移数据
+     * <p/>
+     * 仅返回出现次数不低于 {@link #TRIGRAM_MIN_COUNT} 的数据（总数数据除外），
+     * 且最多返回 {@link #TRIGRAM_QUERY_LIMIT} 条高频数据
+     */
+    private static void queryTrigramProb(
             SQLiteDatabase db, List<Integer> spellCharsIdList, Consumer<DBUtils.SQLiteRow> consumer
     ) {
+        List<Integer[]> charsIdTripleList = new ArrayList<>(spellCharsIdList.size() * 2);
+        for (int i = 2; i < spellCharsIdList.size(); i++) {
+            Integer currCharsId = spellCharsIdList.get(i);
+
+            charsIdTripleList.add(new Integer[] {
+                    spellCharsIdList.get(i - 2), spellCharsIdList.get(i - 1), currCharsId
+            });
+            // 当前拼音字都需包含 TOTAL 行，以得到其二阶转移总数
+            charsIdTripleList.add(new Integer[] { WORD_TOTAL, WORD_TOTAL, currCharsId });
+        }
+
+        rawQuerySQLite(db, new SQLiteRawQueryParams<Void>() {{
+            // Note: 直接拼接参数，以避免参数解析
+            this.clause = "select distinct"
+                          + "   word_id_, prev_word_id_, prev2_word_id_, value_user_"
+                          + " from phrase_trigram"
+                          + " where ("
+                          // Note: 低版本不支持 where (a, b) in ((1, 2), (3, 4), ...) 形式，只能采用 or 实现
+                          + charsIdTripleList.stream()
+                                             .map(triple -> "(prev2_word_spell_chars_id_,"
+                                                            + " prev_word_spell_chars_id_,"
+                                                            + " word_spell_chars_id_)"
+                                                            + (" = (" + triple[0] + ", " + triple[1] + ", " + triple[2]
+                                                               + ")"))
+                                             .collect(Collectors.joining(" or "))
+                          + " ) and (value_user_ >= " + TRIGRAM_MIN_COUNT + " or prev_word_id_ = " + WORD_TOTAL + ")"
+                          + " order by value_user_ desc"
+                          + " limit " + TRIGRAM_QUERY_LIMIT;
+
+            this.voidReader = consumer;
+        }});
+    }
+
+    /**
+     * 查询拼音字母组合序列中的字间转移数据
+     * <p/>
+     * 各位置上的拼音字母组合可为多个（含模糊音别名），
+     * 其前后序的全部组合均在同一次查询中取出
+     */
+    private static void queryTransProb(
+            SQLiteDatabase db, List<Set<Integer>> spellCharsIdsList, Consumer<DBUtils.SQLiteRow> consumer
+    ) {
+        Set<Integer> eosBos = Set.of(WORD_EOS_BOS);
+
         // 短语前后序拼音组合
-        List<Integer[]> charsIdPairList = new ArrayList<>(spellCharsIdList.size() + 1);
-        for (int i = 0; i <= spellCharsIdList.size(); i++) {
-            Integer prevCharsId = i == 0 ? WORD_EOS_BOS : spellCharsIdList.get(i - 1);
-            Integer currCharsId = i == spellCharsIdList.size() ? WORD_EOS_BOS : spellCharsIdList.get(i);
-
-            charsIdPairList.add(new Integer[] { prevCharsId, currCharsId });
-            // 当前拼音字都需包含 TOTAL 列，以得到其转移总数
-            charsIdPairList.add(new Integer[] { WORD_TOTAL, currCharsId });
+        Set<List<Integer>> charsIdPairList = new LinkedHashSet<>((spellCharsIdsList.size() + 1) * 2);
+        for (int i = 0; i <= spellCharsIdsList.size(); i++) {
+            Set<Integer> prevCharsIds = i == 0 ? eosBos : spellCharsIdsList.get(i - 1);
+            Set<Integer> currCharsIds = i == spellCharsIdsList.size() ? eosBos : spellCharsIdsList.get(i);
+
+            for (Integer currCharsId : currCharsIds) {
+                for (Integer prevCharsId : prevCharsIds) {
+                    charsIdPairList.add(List.of(prevCharsId, currCharsId));
+                }
+                // 当前拼音字都需包含 TOTAL 列，以得到其转移总数
+                charsIdPairList.add(List.of(WORD_TOTAL, currCharsId));
+            }
         }
 
         rawQuerySQLite(db, new SQLiteRawQueryParams<Void>() {{
@@ -311,7 +722,7 @@ public class HmmDBHelper {
                           // Note: 低版本不支持 where (a, b) in ((1, 2), (3, 4), ...) 形式，只能采用 or 实现
                           + charsIdPairList.stream()
                                            .map(pair -> "(prev_word_spell_chars_id_, word_spell_chars_id_)" //
-                                                        + (" = (" + pair[0] + ", " + pair[1] + ")"))
+                                                        + (" = (" + pair.get(0) + ", " + pair.get(1) + ")"))
                                            .collect(Collectors.joining(" or "));
 
             this.voidReader = consumer;
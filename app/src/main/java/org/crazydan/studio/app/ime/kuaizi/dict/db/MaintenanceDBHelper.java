@@ -0,0 +1,414 @@
+/*
+ * 筷字输入法 - 高效编辑需要又好又快的输入法
+ * Copyright (C) 2025 Crazydan Studio <https://studio.crazydan.org>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.
+ * If not, see <https://www.gnu.org/licenses/lgpl-3.0.en.html#license-text>.
+ */
+
+package org.crazydan.studio.app.ime.kuaizi.dict.db;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import android.database.sqlite.SQLiteDatabase;
+import org.crazydan.studio.app.ime.kuaizi.common.log.Logger;
+import org.crazydan.studio.app.ime.kuaizi.common.utils.CollectionUtils;
+
+import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.SQLiteRawQueryParams;
+import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.createSQLiteArgHolders;
+import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.execSQLite;
+import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.rawQuerySQLite;
+import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.withTransaction;
+
+/**
+ * 用户库的维护：清理低频数据、更新查询计划的统计数据、衰减用户权重和回收空间等
+ * <p/>
+ * 用户库中的词典表（phrase_word、phrase_trans_prob 和 phrase_trigram）会随用户输入而持续增长，
+ * 需定期维护以确保查询性能不随数据量增长而明显下降。
+ * 所有的维护操作均可重复执行，且在无需维护时不做任何处理
+ * <p/>
+ * 注：索引需在{@link org.crazydan.studio.app.ime.kuaizi.dict.upgrade.Upgrader 版本升级}中创建，
+ * 以避免在输入法运行期间对大表建立索引
+ *
+ * @author <a href="mailto:flytreeleft@crazydan.org">flytreeleft</a>
+ * @date 2025-06-14
+ */
+public class MaintenanceDBHelper {
+    private static final Logger log = Logger.getLogger(MaintenanceDBHelper.class);
+
+    /** 在表的数据量变化超过该比例时，视为查询计划的统计数据已过期 */
+    private static final float STATS_STALE_RATIO = 0.2f;
+    /** 在表的数据量变化不超过该值时，不视为统计数据已过期，以避免小表被频繁分析 */
+    private static final int STATS_STALE_MIN_ROWS = 1000;
+
+    /** 需维护统计数据的表 */
+    private static final String[] TABLES = new String[] { "phrase_word", "phrase_trans_prob", "phrase_trigram" };
+
+    /** 二阶转移数据的最大行数：超出部分将按出现次数从低到高删除，以控制其存储和查询开销 */
+    private static final int TRIGRAM_MAX_ROWS = 50_000;
+
+    /** 用户权重的半衰期（天）：权重在该时长后衰减为原来的一半 */
+    private static final int USER_WEIGHT_HALF_LIFE_DAYS = 180;
+    /** 分批更新的行数：避免长时间占用数据库而阻塞输入过程中的查询 */
+    private static final int BATCH_ROWS = 5000;
+
+    private static final long DAY_MS = 24 * 60 * 60 * 1000L;
+
+    /** 用户权重已衰减到的时间的维护项名称 */
+    private static final String KEY_USER_WEIGHT_DECAYED_AT = "user_weight_decayed_at";
+    /** 正在进行的用户权重衰减的目标时间的维护项名称：仅在衰减未完成时存在 */
+    private static final String KEY_USER_WEIGHT_DECAYING_TO = "user_weight_decaying_to";
+    /** 正在进行的用户权重衰减的表（在 {@link #USER_WEIGHT_TABLES} 中的序号）的维护项名称 */
+    private static final String KEY_USER_WEIGHT_DECAY_TABLE = "user_weight_decay_table";
+    /** 正在进行的用户权重衰减的下一批起始 rowid 的维护项名称 */
+    private static final String KEY_USER_WEIGHT_DECAY_ROWID = "user_weight_decay_rowid";
+    /** 最近一次维护时间的维护项名称 */
+    private static final String KEY_MAINTAINED_AT = "maintained_at";
+
+    /** 带有用户权重的表：<code>{'表名', '应用权重列', '用户权重列'}</code>，应用权重列可为 null */
+    private static final String[][] USER_WEIGHT_TABLES = new String[][] {
+            new String[] { "phrase_word", "weight_app_", "weight_user_" },
+            new String[] { "phrase_trans_prob", "value_app_", "value_user_" },
+            new String[] { "phrase_trigram", null, "value_user_" },
+            };
+
+    /** 执行全部的维护操作 */
+    public static void maintain(SQLiteDatabase db) {
+        pruneTrigrams(db);
+        analyzeIfStale(db);
+    }
+
+    /**
+     * 获取最近一次维护的时间（毫秒）
+     *
+     * @return 从未维护过时，返回 0
+     */
+    public static long getMaintainedAt(SQLiteDatabase db) {
+        initMaintenanceTable(db);
+
+        Long value = getMaintenanceValue(db, KEY_MAINTAINED_AT);
+        return value != null ? value : 0;
+    }
+
+    /** 记录最近一次维护的时间（毫秒） */
+    public static void setMaintainedAt(SQLiteDatabase db, long time) {
+        initMaintenanceTable(db);
+
+        setMaintenanceValue(db, KEY_MAINTAINED_AT, time);
+    }
+
+    /**
+     * 在二阶转移数据超过{@link #TRIGRAM_MAX_ROWS 最大行数}时，删除出现次数最低的数据
+     * <p/>
+     * 二阶转移总数（TOTAL）不做调整，其仅会使二阶转移概率略微偏低，
+     * 并在插值计算中自然地偏向一阶转移概率
+     *
+     * @return 删除的行数
+     */
+    public static long pruneTrigrams(SQLiteDatabase db) {
+        long excess = countRows(db, "phrase_trigram") - TRIGRAM_MAX_ROWS;
+        if (excess <= 0) {
+            return 0;
+        }
+
+        log.info("Prune %s low count trigrams", () -> new Object[] { excess });
+
+        execSQLite(db,
+                   "delete from phrase_trigram"
+                   + " where rowid in ("
+                   + "   select rowid from phrase_trigram"
+                   + "   where prev_word_id_ != -2"
+                   + "   order by value_user_ asc"
+                   + "   limit ?"
+                   + " )",
+                   new Object[] { excess });
+        return excess;
+    }
+
+    /**
+     * 在统计数据不存在或已过期时，执行 <code>analyze</code>，
+     * 并通过 <code>pragma optimize</code> 让 SQLite 自行调整其他可优化项
+     * <p/>
+     * Note: <code>pragma optimize</code> 和 <code>pragma analysis_limit</code>
+     * 在低版本 SQLite 中不被支持，但 SQLite 会直接忽略未知的 pragma，故可直接执行
+     *
+     * @return 是否执行了 <code>analyze</code>
+     */
+    public static boolean analyzeIfStale(SQLiteDatabase db) {
+        boolean analyzed = false;
+
+        for (String table : TABLES) {
+            if (!isStatsStale(db, table)) {
+                continue;
+            }
+
+            log.info("Analyze table %s for stale stats", () -> new Object[] { table });
+
+            // 限制 analyze 的扫描行数，以避免大表的分析时间过长。
+            // Note: 该 pragma 会返回设置后的值，只能通过查询接口执行
+            rawQuerySQLite(db, new SQLiteRawQueryParams<Void>() {{
+                this.clause = "pragma analysis_limit = 1000";
+                this.voidReader = (row) -> {};
+            }});
+            execSQLite(db, "analyze " + table);
+            analyzed = true;
+        }
+
+        execSQLite(db, "pragma optimize");
+
+        return analyzed;
+    }
+
+    /** 统计数据的首个值为分析时的表数据量，其与当前数据量的差距过大时，则视为统计数据已过期 */
+    private static boolean isStatsStale(SQLiteDatabase db, String table) {
+        if (!getAllTableNames(db).contains("sqlite_stat1")) {
+            return true;
+        }
+
+        List<String> stats = rawQuerySQLite(db, new SQLiteRawQueryParams<String>() {{
+            this.clause = "select stat from sqlite_stat1 where tbl = ? limit 1";
+            this.params = new String[] { table };
+
+            this.reader = (row) -> row.getString("stat");
+        }});
+
+        String stat = CollectionUtils.first(stats);
+        if (stat == null) {
+            return true;
+        }
+
+        long analyzedRows = Long.parseLong(stat.split(" ")[0]);
+        long currentRows = countRows(db, table);
+
+        long delta = Math.abs(currentRows - analyzedRows);
+        return delta > STATS_STALE_MIN_ROWS && delta > analyzedRows * STATS_STALE_RATIO;
+    }
+
+    /**
+     * 按时间衰减用户权重，并清理无用数据
+     * <p/>
+     * 每次维护仅累计未衰减的时长（记录在维护表中），在其超过一个{@link #USER_WEIGHT_HALF_LIFE_DAYS 半衰期}时，
+     * 才按累计时长对用户权重做指数衰减（四舍五入），
+     * 从而使长期未使用的输入习惯逐渐让位于新的输入习惯，
+     * 并删除应用权重和用户权重均为 0 的数据。
+     * 权重为整数，若按较短的维护间隔逐次衰减，则低权重数据的四舍五入结果将始终不变，
+     * 故而，需累计到衰减比例低于 1/2 时再更新，以确保低权重（如，仅使用过一次）的数据
+     * 仅在长期未使用（超过一个半衰期）后才会被清理。
+     * 首次执行时，仅记录当前时间，作为后续衰减的起点
+     * <p/>
+     * 各表按 {@link #BATCH_ROWS} 分批更新，每批均在独立的事务中执行，
+     * 并在同一事务中记录下一批的起始位置，在完成最后一批时再记录衰减时间，
+     * 故而，在中途{@link BooleanSupplier 取消}或进程退出后，可从中断处继续衰减，而不会重复衰减已处理的数据
+     * <p/>
+     * 注：字的转移总数（TOTAL）等统计数据与普通数据按相同比例衰减，故不影响转移概率的计算
+     *
+     * @param now
+     *         当前时间（毫秒）
+     * @param cancelled
+     *         在每批更新前检查是否需中断衰减
+     * @return 是否完成了衰减
+     */
+    public static boolean decayUserWeights(SQLiteDatabase db, long now, BooleanSupplier cancelled) {
+        initMaintenanceTable(db);
+
+        Long decayedAt = getMaintenanceValue(db, KEY_USER_WEIGHT_DECAYED_AT);
+        if (decayedAt == null) {
+            setMaintenanceValue(db, KEY_USER_WEIGHT_DECAYED_AT, now);
+            return false;
+        }
+
+        Long decayingTo = getMaintenanceValue(db, KEY_USER_WEIGHT_DECAYING_TO);
+        // 开始新一轮的衰减
+        if (decayingTo == null) {
+            if (decayedAt > now) {
+                setMaintenanceValue(db, KEY_USER_WEIGHT_DECAYED_AT, now);
+                return false;
+            } else if (now - decayedAt <= USER_WEIGHT_HALF_LIFE_DAYS * DAY_MS) {
+                return false;
+            }
+
+            decayingTo = now;
+            setMaintenanceValues(db,
+                                 new Object[] { KEY_USER_WEIGHT_DECAYING_TO, now },
+                                 new Object[] { KEY_USER_WEIGHT_DECAY_TABLE, 0 },
+                                 new Object[] { KEY_USER_WEIGHT_DECAY_ROWID, 0 });
+        }
+
+        double elapsedDays = (decayingTo - decayedAt) / (double) DAY_MS;
+        double factor = Math.pow(0.5, elapsedDays / USER_WEIGHT_HALF_LIFE_DAYS);
+
+        Long tableIndex = getMaintenanceValue(db, KEY_USER_WEIGHT_DECAY_TABLE);
+        Long rowId = getMaintenanceValue(db, KEY_USER_WEIGHT_DECAY_ROWID);
+        log.info("Decay user weights by factor %s after %s days from table %s and row %s",
+                 () -> new Object[] { factor, elapsedDays, tableIndex, rowId });
+
+        long decayedTo = decayingTo;
+        long start = rowId != null ? rowId : 0;
+        for (int i = tableIndex != null ? tableIndex.intValue() : 0; i < USER_WEIGHT_TABLES.length; i++) {
+            String[] table = USER_WEIGHT_TABLES[i];
+            String name = table[0];
+            String appColumn = table[1];
+            String userColumn = table[2];
+
+            int index = i;
+            long maxRowId = getMaxRowId(db, name);
+            // Note: 空表也需执行一次，以记录衰减进度
+            do {
+                if (cancelled.getAsBoolean()) {
+                    log.info("Decay user weights is cancelled");
+                    return false;
+                }
+
+                long end = start + BATCH_ROWS;
+                Object[] range = new Object[] { start, end };
+                boolean tableDone = end > maxRowId;
+                boolean allDone = tableDone && index == USER_WEIGHT_TABLES.length - 1;
+
+                withTransaction(db, () -> {
+                    execSQLite(db,
+                               "update " + name
+                               + " set " + userColumn + " = cast(" + userColumn + " * " + factor + " + 0.5 as integer)"
+                               + " where " + userColumn + " > 0 and rowid >= ? and rowid < ?",
+                               range);
+                    execSQLite(db,
+                               "delete from " + name
+                               + " where " + (appColumn != null ? appColumn + " = 0 and " : "") + userColumn + " = 0"
+                               + " and rowid >= ? and rowid < ?",
+                               range);
+
+                    if (allDone) {
+                        setMaintenanceValue(db, KEY_USER_WEIGHT_DECAYED_AT, decayedTo);
+                        removeMaintenanceValues(db,
+                                                KEY_USER_WEIGHT_DECAYING_TO,
+                                                KEY_USER_WEIGHT_DECAY_TABLE,
+                                                KEY_USER_WEIGHT_DECAY_ROWID);
+                    } else {
+                        setMaintenanceValues(db,
+                                             new Object[] { KEY_USER_WEIGHT_DECAY_TABLE, tableDone ? index + 1 : index },
+                                             new Object[] { KEY_USER_WEIGHT_DECAY_ROWID, tableDone ? 0 : end });
+                    }
+                });
+
+                start = end;
+            } while (start <= maxRowId);
+
+            start = 0;
+        }
+        return true;
+    }
+
+    /**
+     * 增量回收数据库的空闲页
+     * <p/>
+     * 仅在数据库已在{@link org.crazydan.studio.app.ime.kuaizi.dict.upgrade.Upgrader 版本升级}中
+     * 切换为 <code>incremental</code> 的自动回收模式时才做回收，
+     * 从而避免在输入法运行期间对整个用户库执行 <code>vacuum</code>。
+     * 注意，不能在事务中调用该函数
+     */
+    public static void vacuumIncrementally(SQLiteDatabase db) {
+        // https://www.sqlite.org/pragma.html#pragma_auto_vacuum
+        int incremental = 2;
+
+        if (getPragmaValue(db, "auto_vacuum") == incremental //
+            && getPragmaValue(db, "freelist_count") > 0) {
+            execSQLite(db, "pragma incremental_vacuum");
+        }
+    }
+
+    private static void initMaintenanceTable(SQLiteDatabase db) {
+        execSQLite(db,
+                   "create table"
+                   + " if not exists meta_maintenance ("
+                   // -- 维护项名称
+                   + "   name_ text not null,"
+                   // -- 维护项的值，如，最近一次的维护时间
+                   + "   value_ integer not null,"
+                   + "   primary key (name_)"
+                   + " )");
+    }
+
+    private static Long getMaintenanceValue(SQLiteDatabase db, String name) {
+        List<Long> values = rawQuerySQLite(db, new SQLiteRawQueryParams<Long>() {{
+            this.clause = "select value_ from meta_maintenance where name_ = ?";
+            this.params = new String[] { name };
+
+            this.reader = (row) -> row.getLong("value_");
+        }});
+        return CollectionUtils.first(values);
+    }
+
+    private static void setMaintenanceValue(SQLiteDatabase db, String name, long value) {
+        execSQLite(db,
+                   "insert or replace into meta_maintenance (name_, value_) values (?, ?)",
+                   new Object[] { name, value });
+    }
+
+    /** @param values 维护项的名称和值：<code>[[name, value], ...]</code> */
+    private static void setMaintenanceValues(SQLiteDatabase db, Object[]... values) {
+        execSQLite(db, "insert or replace into meta_maintenance (name_, value_) values (?, ?)", Arrays.asList(values));
+    }
+
+    private static void removeMaintenanceValues(SQLiteDatabase db, String... names) {
+        execSQLite(db,
+                   "delete from meta_maintenance where name_ in (" + createSQLiteArgHolders(Arrays.asList(names)) + ")",
+                   (Object[]) names);
+    }
+
+    private static long getPragmaValue(SQLiteDatabase db, String pragma) {
+        List<Long> values = rawQuerySQLite(db, new SQLiteRawQueryParams<Long>() {{
+            this.clause = "pragma " + pragma;
+            this.reader = (row) -> row.getLong(pragma);
+        }});
+
+        Long value = CollectionUtils.first(values);
+        return value != null ? value : 0;
+    }
+
+    private static long getMaxRowId(SQLiteDatabase db, String table) {
+        List<Long> values = rawQuerySQLite(db, new SQLiteRawQueryParams<Long>() {{
+            this.clause = "select ifnull(max(rowid), 0) as max_ from " + table;
+            this.reader = (row) -> row.getLong("max_");
+        }});
+
+        Long value = CollectionUtils.first(values);
+        return value != null ? value : 0;
+    }
+
+    private static long countRows(SQLiteDatabase db, String table) {
+        List<Long> counts = rawQuerySQLite(db, new SQLiteRawQueryParams<Long>() {{
+            this.clause = "select count(*) as count_ from " + table;
+            this.reader = (row) -> row.getLong("count_");
+        }});
+
+        Long count = CollectionUtils.first(counts);
+        return count != null ? count : 0;
+    }
+
+    private static Set<String> getAllTableNames(SQLiteDatabase db) {
+        return getSchemaNames(db, "table");
+    }
+
+    private static Set<String> getSchemaNames(SQLiteDatabase db, String type) {
+        return new HashSet<>(rawQuerySQLite(db, new SQLiteRawQueryParams<String>() {{
+            this.clause = "select name from sqlite_master where type = ?";
+            this.params = new String[] { type };
+
+            this.reader = (row) -> row.getString("name");
+        }}));
+    }
+}
@@ -19,7 +19,10 @@
 
 package org.crazydan.studio.app.ime.kuaizi.dict.db;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -30,6 +33,7 @@ import java.util.stream.Collectors;
 import android.database.sqlite.SQLiteDatabase;
 import org.crazydan.studio.app.ime.kuaizi.common.utils.CollectionUtils;
 import org.crazydan.studio.app.ime.kuaizi.core.input.word.PinyinWord;
+import org.crazydan.studio.app.ime.kuaizi.dict.PinyinCandidateFilterIndex;
 
 import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.SQLiteQueryParams;
 import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.SQLiteRawQueryParams;
@@ -43,12 +47,15 @@ import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.rawQuerySQ
  * @date 2024-10-29
  */
 public class PinyinDBHelper {
+    /** 模糊音别名的拼音字的权重惩罚：其使用权重将被除以该值，以使其排在同等权重的精确匹配的拼音字之后 */
+    public static final int FUZZY_ALIAS_WEIGHT_PENALTY = 4;
 
     /** 根据字及其拼音获取其{@link PinyinWord 拼音字对象} */
     public static PinyinWord getPinyinWord(SQLiteDatabase db, String word, String pinyin) {
         List<PinyinWord> wordList = queryPinyinWords(db,
                                                      "py_.word_ = ? and py_.spell_ = ?",
                                                      new String[] { word, pinyin },
+                                                     null,
                                                      null);
         return CollectionUtils.first(wordList);
     }
@@ -62,6 +69,7 @@ public class PinyinDBHelper {
                                                      pinyinWordIds.stream()
                                                                   .map(Objects::toString)
                                                                   .toArray(String[]::new),
+                                                     null,
                                                      null);
 
         return wordList.stream().collect(Collectors.toMap((w) -> w.id, Function.identity()));
@@ -73,7 +81,95 @@ public class PinyinDBHelper {
      * 返回结果已按拼音声调、字形权重排序
      */
     public static List<PinyinWord> getAllPinyinWordsByCharsId(SQLiteDatabase db, Integer pinyinCharsId) {
-        return queryPinyinWords(db, "py_.spell_chars_id_ = ?", new String[] { pinyinCharsId + "" }, null);
+        return getAllPinyinWordsByCharsId(db, pinyinCharsId, Set.of());
+    }
+
+    /**
+     * 根据拼音字母组合 id 及其模糊音别名 id 获取其对应的全部{@link PinyinWord 拼音字对象}
+     * <p/>
+     * 返回结果中精确匹配的拼音字在前，模糊音别名的拼音字在后，
+     * 二者再分别按拼音声调、字形权重排序
+     */
+    public static List<PinyinWord> getAllPinyinWordsByCharsId(
+            SQLiteDatabase db, Integer pinyinCharsId, Set<Integer> aliasCharsIds
+    ) {
+        if (aliasCharsIds.isEmpty()) {
+            return queryPinyinWords(db, "py_.spell_chars_id_ = ?", new String[] { pinyinCharsId + "" }, null, null);
+        }
+
+        Set<Integer> charsIds = withAliasCharsIds(pinyinCharsId, aliasCharsIds);
+        return queryPinyinWords(db,
+                                "py_.spell_chars_id_ in (" + createSQLiteArgHolders(charsIds) + ")",
+                                charsIds.stream().map(Objects::toString).toArray(String[]::new),
+                                "(case when py_.spell_chars_id_ = " + pinyinCharsId + " then 0 else 1 end)",
+                                null);
+    }
+
+    /**
+     * 根据拼音字母组合 id 及其模糊音别名 id 获取其对应的全部拼音字 id
+     * <p/>
+     * 结果的排序与 {@link #getAllPinyinWordsByCharsId(SQLiteDatabase, Integer, Set)} 的一致，
+     * 但仅查询拼音字 id，以便于按需（分页）构造{@link PinyinWord 拼音字对象}
+     */
+    public static List<Integer> getAllPinyinWordIdsByCharsId(
+            SQLiteDatabase db, Integer pinyinCharsId, Set<Integer> aliasCharsIds
+    ) {
+        Set<Integer> charsIds = withAliasCharsIds(pinyinCharsId, aliasCharsIds);
+
+        return rawQuerySQLite(db, new SQLiteRawQueryParams<Integer>() {{
+            this.clause = "select py_.id_"
+                          + " from pinyin_word py_"
+                          + " where py_.spell_chars_id_ in (" + createSQLiteArgHolders(charsIds) + ")"
+                          + " order by"
+                          + "   (case when py_.spell_chars_id_ = " + pinyinCharsId + " then 0 else 1 end),"
+                          + "   py_.used_weight_ desc, py_.glyph_weight_ desc";
+            this.params = charsIds.stream().map(Objects::toString).toArray(String[]::new);
+
+            this.reader = (row) -> row.getInt("id_");
+        }});
+    }
+
+    /**
+     * 根据拼音字母组合 id 及其模糊音别名 id 构建其全部拼音字的{@link PinyinCandidateFilterIndex 过滤索引}
+     * <p/>
+     * 索引中的拼音字顺序与 {@link #getAllPinyinWordIdsByCharsId} 的一致
+     */
+    public static PinyinCandidateFilterIndex getPinyinCandidateFilterIndex(
+            SQLiteDatabase db, Integer pinyinCharsId, Set<Integer> aliasCharsIds
+    ) {
+        Set<Integer> charsIds = withAliasCharsIds(pinyinCharsId, aliasCharsIds);
+        PinyinCandidateFilterIndex index = new PinyinCandidateFilterIndex();
+
+        // Note: 读音和部首对象的数量很少，故而，对其做复用，以避免为每个拼音字都创建一份
+        Map<Integer, PinyinWord.Spell> spells = new HashMap<>();
+        Map<String, PinyinWord.Radical> radicals = new HashMap<>();
+
+        rawQuerySQLite(db, new SQLiteRawQueryParams<Void>() {{
+            this.clause = "select"
+                          + "   py_.id_, py_.spell_, py_.spell_id_, py_.spell_chars_id_,"
+                          + "   py_.radical_, py_.radical_stroke_count_"
+                          + " from pinyin_word py_"
+                          + " where py_.spell_chars_id_ in (" + createSQLiteArgHolders(charsIds) + ")"
+                          + " order by"
+                          + "   (case when py_.spell_chars_id_ = " + pinyinCharsId + " then 0 else 1 end),"
+                          + "   py_.used_weight_ desc, py_.glyph_weight_ desc";
+            this.params = charsIds.stream().map(Objects::toString).toArray(String[]::new);
+
+            this.voidReader = (row) -> {
+                PinyinWord.Spell spell = spells.computeIfAbsent(row.getInt("spell_id_"),
+                                                                (id) -> new PinyinWord.Spell(row.getString("spell_"),
+                                                                                             id,
+                                                                                             row.getInt("spell_chars_id_")));
+                PinyinWord.Radical radical = radicals.computeIfAbsent(row.getString("radical_"),
+                                                                      (value) -> new PinyinWord.Radical(value,
+                                                                                                        row.getInt(
+                                                                                                                "radical_stroke_count_")));
+
+                index.add(row.getInt("id_"), spell, radical);
+            };
+        }});
+
+        return index;
     }
 
     /**
@@ -84,6 +180,21 @@ public class PinyinDBHelper {
     public static List<Integer> getTopBestPinyinWordIds(
             SQLiteDatabase db, Integer pinyinCharsId, int userPhraseBaseWeight, int top
     ) {
+        return getTopBestPinyinWordIds(db, pinyinCharsId, Set.of(), userPhraseBaseWeight, top);
+    }
+
+    /**
+     * 根据拼音字母组合 id 及其模糊音别名 id 获取其对应的前 <code>top</code> 个拼音字 id
+     * <p/>
+     * 模糊音别名的拼音字的使用权重将按 {@link #FUZZY_ALIAS_WEIGHT_PENALTY} 做降权
+     *
+     * @return 结果拼音字的权重均大于 0
+     */
+    public static List<Integer> getTopBestPinyinWordIds(
+            SQLiteDatabase db, Integer pinyinCharsId, Set<Integer> aliasCharsIds, int userPhraseBaseWeight, int top
+    ) {
+        Set<Integer> charsIds = withAliasCharsIds(pinyinCharsId, aliasCharsIds);
+
         return rawQuerySQLite(db, new SQLiteRawQueryParams<Integer>() {{
             this.clause = "select distinct"
                           + "   word_id_,"
@@ -94,13 +205,21 @@ public class PinyinDBHelper {
                           // https://sqlite.org/forum/info/97a66708939d518e
                           + "     (case when ifnull(weight_user_, 0) > 0 then ? else 0 end)"
                           // + "     iif(ifnull(weight_user_, 0) > 0, ?, 0)"
-                          + "   ) used_weight_"
+                          + "   ) / (case when spell_chars_id_ = ? then 1 else " + FUZZY_ALIAS_WEIGHT_PENALTY + " end)"
+                          + "   as used_weight_"
                           + " from phrase_word"
-                          + " where used_weight_ > 0 and spell_chars_id_ = ?"
+                          + " where used_weight_ > 0"
+                          + "   and spell_chars_id_ in (" + createSQLiteArgHolders(charsIds) + ")"
                           + " order by used_weight_ desc"
                           + " limit ?";
 
-            this.params = new String[] { userPhraseBaseWeight + "", pinyinCharsId + "", top + "" };
+            List<String> params = new ArrayList<>(charsIds.size() + 3);
+            params.add(userPhraseBaseWeight + "");
+            params.add(pinyinCharsId + "");
+            charsIds.forEach((id) -> params.add(id + ""));
+            params.add(top + "");
+
+            this.params = params.toArray(new String[0]);
 
             this.reader = (row) -> row.getInt("word_id_");
         }});
@@ -114,26 +233,49 @@ public class PinyinDBHelper {
     public static PinyinWord getFirstBestPinyinWord(
             SQLiteDatabase db, Integer pinyinCharsId, int userPhraseBaseWeight
     ) {
-        List<Integer> wordIds = getTopBestPinyinWordIds(db, pinyinCharsId, userPhraseBaseWeight, 1);
+        return getFirstBestPinyinWord(db, pinyinCharsId, Set.of(), userPhraseBaseWeight);
+    }
+
+    /**
+     * 根据拼音字母组合 id 及其模糊音别名 id 获取其第一个最佳拼音字 id
+     * <p/>
+     * 首先从词典库中选择使用权重最高的拼音字（模糊音别名的拼音字已降权），
+     * 若不存在，则从精确匹配的拼音的候选字列表中选择第一个
+     */
+    public static PinyinWord getFirstBestPinyinWord(
+            SQLiteDatabase db, Integer pinyinCharsId, Set<Integer> aliasCharsIds, int userPhraseBaseWeight
+    ) {
+        List<Integer> wordIds = getTopBestPinyinWordIds(db, pinyinCharsId, aliasCharsIds, userPhraseBaseWeight, 1);
         Integer wordId = CollectionUtils.first(wordIds);
 
         Collection<PinyinWord> words;
         if (wordId != null) {
             words = getPinyinWordsByWordId(db, Set.of(wordId)).values();
         } else {
-            words = queryPinyinWords(db, "py_.spell_chars_id_ = ?", new String[] { pinyinCharsId + "" }, 1);
+            words = queryPinyinWords(db, "py_.spell_chars_id_ = ?", new String[] { pinyinCharsId + "" }, null, 1);
         }
 
         return CollectionUtils.first(words);
     }
 
+    private static Set<Integer> withAliasCharsIds(Integer pinyinCharsId, Set<Integer> aliasCharsIds) {
+        Set<Integer> charsIds = new LinkedHashSet<>(aliasCharsIds.size() + 1);
+        charsIds.add(pinyinCharsId);
+        charsIds.addAll(aliasCharsIds);
+
+        return charsIds;
+    }
+
     /**
      * 查询拼音字表 pinyin_word 以获得{@link PinyinWord 拼音字对象}列表
      * <p/>
      * 注：拼音字对象已包含其繁/简体
+     *
+     * @param queryOrder
+     *         优先于默认排序的排序条件，可为 null
      */
     private static List<PinyinWord> queryPinyinWords(
-            SQLiteDatabase db, String queryWhere, String[] queryParams, Integer limit
+            SQLiteDatabase db, String queryWhere, String[] queryParams, String queryOrder, Integer limit
     ) {
         return rawQuerySQLite(db, new SQLiteRawQueryParams<PinyinWord>() {
             {
@@ -146,6 +288,7 @@ public class PinyinDBHelper {
                               + " from pinyin_word py_"
                               + (" where " + queryWhere)
                               + " order by"
+                              + (queryOrder != null ? " " + queryOrder + "," : "")
                               // 按拼音字的使用权重（used_weight_）、字形相似性（glyph_weight_）排序
                               + "   py_.used_weight_ desc, py_.glyph_weight_ desc"
                               + (limit != null ? " limit " + limit : "");
@@ -157,6 +300,27 @@ public class PinyinDBHelper {
         });
     }
 
+    /**
+     * 获取拼音字母组合的使用权重：<code>{'拼音字母组合 id': 权重}</code>
+     * <p/>
+     * 其权重为该拼音的全部拼音字的应用与用户权重之和，未被使用过的拼音字母组合不在结果中
+     */
+    public static Map<Integer, Long> getPinyinCharsWeights(SQLiteDatabase db) {
+        Map<Integer, Long> map = new HashMap<>(600);
+
+        rawQuerySQLite(db, new SQLiteRawQueryParams<Void>() {{
+            this.clause = "select"
+                          + "   spell_chars_id_,"
+                          + "   sum(ifnull(weight_app_, 0) + ifnull(weight_user_, 0)) as weight_"
+                          + " from phrase_word"
+                          + " group by spell_chars_id_";
+
+            this.voidReader = (row) -> map.put(row.getInt("spell_chars_id_"), row.getLong("weight_"));
+        }});
+
+        return map;
+    }
+
     /** 获取指定汉字的字 id */
     public static Integer getWordId(SQLiteDatabase db, String word) {
         List<Integer> wordIdList = querySQLite(db, new SQLiteQueryParams<Integer>() {{
@@ -0,0 +1,466 @@
+/*
+ * 筷字输入法 - 高效编辑需要又好又快的输入法
+ * Copyright (C) 2025 Crazydan Studio <https://studio.crazydan.org>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.
+ * If not, see <https://www.gnu.org/licenses/lgpl-3.0.en.html#license-text>.
+ */
+
+package org.crazydan.studio.app.ime.kuaizi.dict.db;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import android.database.sqlite.SQLiteDatabase;
+import org.crazydan.studio.app.ime.kuaizi.common.utils.CollectionUtils;
+import org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils;
+
+import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.SQLiteRawQueryParams;
+import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.SQLiteRawUpsertParams;
+import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.execSQLite;
+import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.rawQuerySQLite;
+import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.upsertSQLite;
+
+/**
+ * 用户数据的导出与导入
+ * <p/>
+ * 仅导出用户库中由用户产生的数据（字、字间转移和字间二阶转移的用户权重、表情和拉丁文的使用权重、收藏），
+ * 而不包含应用内置的字典数据，且导入时按累加方式合并，从而支持合并多个设备的用户数据。
+ * <p/>
+ * 导出数据为二进制格式，整数均采用 varint（有符号数先做 zigzag 转换）编码：
+ * <pre>
+ * 'KZUD' 格式版本 字典版本
+ * (数据段标识 数据量 数据...)*
+ * 结束标识
+ * </pre>
+ * 导出和导入均为流式处理，不会将全部数据加载到内存中，且导入在单个事务中完成，要么全部合并，要么不做任何变更
+ *
+ * @author <a href="mailto:flytreeleft@crazydan.org">flytreeleft</a>
+ * @date 2025-06-18
+ */
+public class UserDataBackupDBHelper {
+    private static final byte[] MAGIC = new byte[] { 'K', 'Z', 'U', 'D' };
+    /** 数据格式的版本 */
+    public static final int FORMAT_VERSION = 1;
+
+    /** 导入时，每批次合并的数据量，仅用于限制读入内存的数据量，全部批次均在同一事务中合并 */
+    private static final int IMPORT_BATCH_SIZE = 500;
+
+    private static final int SECTION_END = 0;
+    private static final int SECTION_PHRASE_WORD = 1;
+    private static final int SECTION_PHRASE_TRANS_PROB = 2;
+    private static final int SECTION_EMOJI = 3;
+    private static final int SECTION_LATIN = 4;
+    private static final int SECTION_FAVORITE = 5;
+    private static final int SECTION_PHRASE_TRIGRAM = 6;
+
+    /**
+     * 导出用户数据
+     *
+     * @param dictVersion
+     *         当前的字典版本，字和拼音的 id 仅在相同版本的字典中才保持一致
+     */
+    public static void exportUserData(SQLiteDatabase db, String dictVersion, OutputStream output) throws IOException {
+        output.write(MAGIC);
+        writeVarInt(output, FORMAT_VERSION);
+        writeString(output, dictVersion);
+
+        // Note: 在事务中导出，以确保各数据段的数据量与实际导出的数据一致。
+        // 采用非排他事务（BEGIN IMMEDIATE），在 WAL 模式下不会阻塞输入时的并发读取
+        db.beginTransactionNonExclusive();
+        try {
+            // <<<<<<<<<<<<<<<<<<<<<< 字的用户权重
+            exportSection(db, output, SECTION_PHRASE_WORD, "phrase_word where weight_user_ > 0", //
+                          "word_id_, spell_chars_id_, weight_user_", (row) -> {
+                        writeSignedVarInt(output, row.getInt("word_id_"));
+                        writeSignedVarInt(output, row.getInt("spell_chars_id_"));
+                        writeVarInt(output, row.getInt("weight_user_"));
+                    });
+            // >>>>>>>>>>>>>>>>>>>>>>
+
+            // <<<<<<<<<<<<<<<<<<<<<< 字间转移的用户权重
+            exportSection(db, output, SECTION_PHRASE_TRANS_PROB, "phrase_trans_prob where value_user_ > 0", //
+                          "word_id_, prev_word_id_, word_spell_chars_id_, prev_word_spell_chars_id_, value_user_",
+                          (row) -> {
+                              writeSignedVarInt(output, row.getInt("word_id_"));
+                              writeSignedVarInt(output, row.getInt("prev_word_id_"));
+                              writeSignedVarInt(output, row.getInt("word_spell_chars_id_"));
+                              writeSignedVarInt(output, row.getInt("prev_word_spell_chars_id_"));
+                              writeVarInt(output, row.getInt("value_user_"));
+                          });
+            exportSection(db, output, SECTION_PHRASE_TRIGRAM, "phrase_trigram where value_user_ > 0", //
+                          "word_id_, prev_word_id_, prev2_word_id_,"
+                          + " word_spell_chars_id_, prev_word_spell_chars_id_, prev2_word_spell_chars_id_,"
+                          + " value_user_", (row) -> {
+                        writeSignedVarInt(output, row.getInt("word_id_"));
+                        writeSignedVarInt(output, row.getInt("prev_word_id_"));
+                        writeSignedVarInt(output, row.getInt("prev2_word_id_"));
+                        writeSignedVarInt(output, row.getInt("word_spell_chars_id_"));
+                        writeSignedVarInt(output, row.getInt("prev_word_spell_chars_id_"));
+                        writeSignedVarInt(output, row.getInt("prev2_word_spell_chars_id_"));
+                        writeVarInt(output, row.getInt("value_user_"));
+                    });
+            // >>>>>>>>>>>>>>>>>>>>>>
+
+            // <<<<<<<<<<<<<<<<<<<<<< 表情和拉丁文的使用权重
+            exportSection(db, output, SECTION_EMOJI, "meta_emoji where weight_user_ > 0", //
+                          "value_, weight_user_", (row) -> {
+                        writeString(output, row.getString("value_"));
+                        writeVarInt(output, row.getInt("weight_user_"));
+                    });
+            exportSection(db, output, SECTION_LATIN, "meta_latin where weight_user_ > 0", //
+                          "value_, weight_user_", (row) -> {
+                        writeString(output, row.getString("value_"));
+                        writeVarInt(output, row.getInt("weight_user_"));
+                    });
+            // >>>>>>>>>>>>>>>>>>>>>>
+
+            // <<<<<<<<<<<<<<<<<<<<<< 收藏
+            exportSection(db, output, SECTION_FAVORITE, "meta_favorite", //
+                          "type_, text_, html_, shortcut_, created_at_, used_count_, used_at_", (row) -> {
+                        writeString(output, row.getString("type_"));
+                        writeString(output, row.getString("text_"));
+                        writeString(output, row.getString("html_"));
+                        writeString(output, row.getString("shortcut_"));
+                        writeVarLong(output, row.getLong("created_at_"));
+                        writeVarInt(output, row.getInt("used_count_"));
+                        writeVarLong(output, row.getLong("used_at_"));
+                    });
+            // >>>>>>>>>>>>>>>>>>>>>>
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            db.endTransaction();
+        }
+
+        writeVarInt(output, SECTION_END);
+        output.flush();
+    }
+
+    /**
+     * 导入用户数据：按累加方式合并到用户库中
+     *
+     * @param dictVersion
+     *         当前的字典版本，与导出数据的字典版本不同时，将抛出 {@link IllegalArgumentException} 异常
+     */
+    public static void importUserData(SQLiteDatabase db, String dictVersion, InputStream input) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        for (int i = 0; i < magic.length; i++) {
+            magic[i] = (byte) readByte(input);
+        }
+        if (!Arrays.equals(MAGIC, magic)) {
+            throw new IllegalArgumentException("Not a user data backup");
+        }
+
+        int formatVersion = readVarInt(input);
+        if (formatVersion > FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported user data format version: " + formatVersion);
+        }
+
+        String sourceDictVersion = readString(input);
+        if (!dictVersion.equals(sourceDictVersion)) {
+            throw new IllegalArgumentException("Unmatched dict version: expect "
+                                               + dictVersion
+                                               + ", but "
+                                               + sourceDictVersion);
+        }
+
+        // Note: 累加合并不是幂等的，因此，须在单个事务中完成全部合并，
+        // 以避免在中途失败（如，数据被截断）后重试时，对已合并的数据重复累加
+        db.beginTransaction();
+        try {
+            int section;
+            while ((section = readVarInt(input)) != SECTION_END) {
+                long count = readVarLong(input);
+
+                List<Object[]> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+                for (long i = 0; i < count; i++) {
+                    batch.add(readRecord(input, section));
+
+                    if (batch.size() >= IMPORT_BATCH_SIZE || i == count - 1) {
+                        mergeRecords(db, section, batch);
+                        batch.clear();
+                    }
+                }
+            }
+
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // =============================== Start: 数据段 ===================================
+
+    private interface RowWriter {
+        void write(DBUtils.SQLiteRow row) throws IOException;
+    }
+
+    private static void exportSection(
+            SQLiteDatabase db, OutputStream output, int section, String from, String columns, RowWriter writer
+    ) throws IOException {
+        List<Long> counts = rawQuerySQLite(db, new SQLiteRawQueryParams<Long>() {{
+            this.clause = "select count(*) as count_ from " + from;
+            this.reader = (row) -> row.getLong("count_");
+        }});
+
+        long count = CollectionUtils.first(counts);
+        if (count == 0) {
+            return;
+        }
+
+        writeVarInt(output, section);
+        writeVarLong(output, count);
+
+        rawQuerySQLite(db, new SQLiteRawQueryParams<Void>() {{
+            this.clause = "select " + columns + " from " + from;
+            this.voidReader = (row) -> {
+                try {
+                    writer.write(row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+        }});
+    }
+
+    /** 读取的数据即为合并时的更新参数 */
+    private static Object[] readRecord(InputStream input, int section) throws IOException {
+        switch (section) {
+            case SECTION_PHRASE_WORD: {
+                int wordId = readSignedVarInt(input);
+                int spellCharsId = readSignedVarInt(input);
+                int weight = readVarInt(input);
+
+                return new Object[] { weight, wordId, spellCharsId };
+            }
+            case SECTION_PHRASE_TRANS_PROB: {
+                int wordId = readSignedVarInt(input);
+                int prevWordId = readSignedVarInt(input);
+                int wordSpellCharsId = readSignedVarInt(input);
+                int prevWordSpellCharsId = readSignedVarInt(input);
+                int value = readVarInt(input);
+
+                return new Object[] { value, wordId, prevWordId, wordSpellCharsId, prevWordSpellCharsId };
+            }
+            case SECTION_PHRASE_TRIGRAM: {
+                int wordId = readSignedVarInt(input);
+                int prevWordId = readSignedVarInt(input);
+                int prev2WordId = readSignedVarInt(input);
+                int wordSpellCharsId = readSignedVarInt(input);
+                int prevWordSpellCharsId = readSignedVarInt(input);
+                int prev2WordSpellCharsId = readSignedVarInt(input);
+                int value = readVarInt(input);
+
+                return new Object[] {
+                        value, wordId, prevWordId, prev2WordId, //
+                        wordSpellCharsId, prevWordSpellCharsId, prev2WordSpellCharsId
+                };
+            }
+            case SECTION_EMOJI:
+            case SECTION_LATIN: {
+                String value = readString(input);
+                int weight = readVarInt(input);
+
+                return new Object[] { weight, value };
+            }
+            case SECTION_FAVORITE: {
+                String type = readString(input);
+                String text = readString(input);
+                String html = readString(input);
+                String shortcut = readString(input);
+                long createdAt = readVarLong(input);
+                int usedCount = readVarInt(input);
+                long usedAt = readVarLong(input);
+
+                return new Object[] { usedCount, usedAt, type, text, html, shortcut, createdAt };
+            }
+        }
+        throw new IllegalArgumentException("Unknown user data section: " + section);
+    }
+
+    private static void mergeRecords(SQLiteDatabase db, int section, List<Object[]> records) {
+        switch (section) {
+            case SECTION_PHRASE_WORD: {
+                upsertSQLite(db, new SQLiteRawUpsertParams() {{
+                    this.updateClause = "update phrase_word" //
+                                        + " set weight_user_ = weight_user_ + ?" //
+                                        + " where word_id_ = ?";
+                    this.insertClause = "insert into phrase_word ("
+                                        + "   weight_app_, weight_user_,"
+                                        + "   word_id_, spell_chars_id_"
+                                        + " ) values (0, ?, ?, ?)";
+
+                    this.insertParamsList = records;
+                    this.updateParamsGetter = (i) -> Arrays.copyOf(records.get(i), 2);
+                }});
+                break;
+            }
+            case SECTION_PHRASE_TRANS_PROB: {
+                upsertSQLite(db, new SQLiteRawUpsertParams() {{
+                    this.updateClause = "update phrase_trans_prob"
+                                        + " set value_user_ = value_user_ + ?"
+                                        + " where word_id_ = ? and prev_word_id_ = ?";
+                    this.insertClause = "insert into phrase_trans_prob ("
+                                        + "   value_app_, value_user_,"
+                                        + "   word_id_, prev_word_id_,"
+                                        + "   word_spell_chars_id_, prev_word_spell_chars_id_"
+                                        + " ) values (0, ?, ?, ?, ?, ?)";
+
+                    this.insertParamsList = records;
+                    this.updateParamsGetter = (i) -> Arrays.copyOf(records.get(i), 3);
+                }});
+                break;
+            }
+            case SECTION_PHRASE_TRIGRAM: {
+                upsertSQLite(db, new SQLiteRawUpsertParams() {{
+                    this.updateClause = "update phrase_trigram"
+                                        + " set value_user_ = value_user_ + ?"
+                                        + " where word_id_ = ? and prev_word_id_ = ? and prev2_word_id_ = ?";
+                    this.insertClause = "insert into phrase_trigram ("
+                                        + "   value_user_,"
+                                        + "   word_id_, prev_word_id_, prev2_word_id_,"
+                                        + "   word_spell_chars_id_, prev_word_spell_chars_id_,"
+                                        + "   prev2_word_spell_chars_id_"
+                                        + " ) values (?, ?, ?, ?, ?, ?, ?)";
+
+                    this.insertParamsList = records;
+                    this.updateParamsGetter = (i) -> Arrays.copyOf(records.get(i), 4);
+                }});
+                break;
+            }
+            case SECTION_EMOJI: {
+                // Note: 表情为内置数据，仅更新已存在的表情
+                execSQLite(db, "update meta_emoji set weight_user_ = weight_user_ + ? where value_ = ?", records);
+                break;
+            }
+            case SECTION_LATIN: {
+                upsertSQLite(db, new SQLiteRawUpsertParams() {{
+                    this.updateClause = "update meta_latin set weight_user_ = weight_user_ + ? where value_ = ?";
+                    this.insertClause = "insert into meta_latin(weight_user_, value_) values(?, ?)";
+
+                    this.insertParamsList = records;
+                    this.updateParamsList = records;
+                }});
+                break;
+            }
+            case SECTION_FAVORITE: {
+                // 相同类型和内容的收藏视为同一收藏，仅合并其使用情况
+                upsertSQLite(db, new SQLiteRawUpsertParams() {{
+                    this.updateClause = "update meta_favorite"
+                                        + " set used_count_ = used_count_ + ?, used_at_ = max(used_at_, ?)"
+                                        + " where type_ = ? and text_ = ?";
+                    this.insertClause = "insert into meta_favorite ("
+                                        + "   used_count_, used_at_,"
+                                        + "   type_, text_, html_, shortcut_, created_at_"
+                                        + " ) values (?, ?, ?, ?, ?, ?, ?)";
+
+                    this.insertParamsList = records;
+                    this.updateParamsGetter = (i) -> Arrays.copyOf(records.get(i), 4);
+                }});
+                break;
+            }
+        }
+    }
+
+    // =============================== End: 数据段 ===================================
+
+    // =============================== Start: 编解码 ===================================
+
+    private static void writeVarInt(OutputStream output, int value) throws IOException {
+        writeVarLong(output, value & 0xFFFFFFFFL);
+    }
+
+    private static void writeSignedVarInt(OutputStream output, int value) throws IOException {
+        // zigzag: 将绝对值较小的负数映射为较小的正数
+        writeVarInt(output, (value << 1) ^ (value >> 31));
+    }
+
+    private static void writeVarLong(OutputStream output, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            output.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        output.write((int) value);
+    }
+
+    /** 字符串以 <code>UTF-8 字节长度 + 1</code> 作为前缀，前缀为 0 时表示 null */
+    private static void writeString(OutputStream output, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(output, 0);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(output, bytes.length + 1);
+        output.write(bytes);
+    }
+
+    private static int readVarInt(InputStream input) throws IOException {
+        return (int) readVarLong(input);
+    }
+
+    private static int readSignedVarInt(InputStream input) throws IOException {
+        int value = readVarInt(input);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long readVarLong(InputStream input) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte(input);
+
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static String readString(InputStream input) throws IOException {
+        int length = readVarInt(input);
+        if (length == 0) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length - 1];
+        int offset = 0;
+        while (offset < bytes.length) {
+            int read = input.read(bytes, offset, bytes.length - offset);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            offset += read;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int readByte(InputStream input) throws IOException {
+        int b = input.read();
+        if (b < 0) {
+            throw new EOFException();
+        }
+        return b;
+    }
+
+    // =============================== End: 编解码 ===================================
+}
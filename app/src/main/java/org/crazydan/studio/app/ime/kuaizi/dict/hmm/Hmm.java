@@ -42,6 +42,13 @@ public class Hmm {
     public final Map<String, Integer> wordWeight = new HashMap<>();
     /** 汉字（状态）间转移概率，其结构为 <code>{'当前字': {'前序字': 出现次数}, ...}</code> */
     public final Map<String, Map<String, Integer>> transProb = new HashMap<>();
+    /**
+     * 汉字（状态）间的二阶转移概率，其结构为 <code>{'当前字': {'前前序字,前序字': 出现次数}, ...}</code>，
+     * 其中，<code>'前前序字,前序字'</code> 为 {@link #TOTAL} 时，代表当前字的二阶转移总数
+     * <p/>
+     * 仅在短语的字数大于 2 时才会有该数据
+     */
+    public final Map<String, Map<String, Integer>> trigramProb = new HashMap<>();
 
     /**
      * 计算含出现次数的短语中的汉字（状态）间转移概率
@@ -87,6 +94,7 @@ public class Hmm {
     ) {
         Map<String, Integer> phraseWordWeight = new HashMap<>();
         Map<String, Map<String, Integer>> phraseTransProb = new HashMap<>();
+        Map<String, Map<String, Integer>> phraseTrigramProb = new HashMap<>();
 
         int wordTotal = phraseWordList.size();
         for (int i = 0; i <= wordTotal; i++) {
@@ -103,6 +111,16 @@ public class Hmm {
                 }
             }
 
+            // 仅短语内字数大于 2 时，才计算二阶转移概率，且不含句首和句尾
+            if (i >= 2 && i < wordTotal) {
+                String prevs = phraseWordList.get(i - 2) + "," + phraseWordList.get(i - 1);
+
+                Map<String, Integer> prob = phraseTrigramProb.computeIfAbsent(curr, (k) -> new HashMap<>());
+                for (String key : new String[] { prevs, TOTAL }) {
+                    prob.compute(key, (k, v) -> (v == null ? 0 : v) + 1);
+                }
+            }
+
             if (i < wordTotal) {
                 phraseWordWeight.compute(curr, (k, v) -> (v == null ? 0 : v) + 1);
             }
@@ -117,6 +135,14 @@ public class Hmm {
             });
         });
 
+        phraseTrigramProb.forEach((curr, prob) -> {
+            Map<String, Integer> hmmProb = hmm.trigramProb.computeIfAbsent(curr, (k) -> new HashMap<>());
+
+            prob.forEach((prevs, val) -> {
+                hmmProb.compute(prevs, (k, v) -> (v == null ? 0 : v) + (val * count));
+            });
+        });
+
         phraseWordWeight.forEach((word, val) -> {
             hmm.wordWeight.compute(word, (k, v) -> (v == null ? 0 : v) + (val * count));
         });
@@ -44,6 +44,30 @@ public class Viterbi {
 
         /** 根据读音及其所在位置获取可选字列表的函数 */
         public BiFunction<Integer, Integer, Set<Integer>> wordsGetter;
+
+        /**
+         * 汉字（状态）间的二阶转移概率，其结构为 <code>{'当前字': {'前前序字和前序字的组合键': 出现次数}}</code>，
+         * 组合键由 {@link #trigramKey} 生成，且 {@link #wordTotal} 的组合键对应的为当前字的二阶转移总数
+         * <p/>
+         * 为 null 时，仅采用一阶转移概率
+         */
+        public Map<Integer, Map<Long, Integer>> trigramProb;
+        /** 二阶转移概率在与一阶转移概率插值时的占比 */
+        public double trigramLambda = 0.6;
+
+        /**
+         * 判断指定位置上的字是否为模糊音匹配的字的函数，其参数依次为字和字所在的位置
+         * <p/>
+         * 为 null 时，表示未启用模糊音
+         */
+        public BiFunction<Integer, Integer, Boolean> fuzzyWordChecker;
+        /** 模糊音匹配的字的概率惩罚，其为对数值，将直接累加到路径概率上 */
+        public double fuzzyPenalty = Math.log(0.25);
+    }
+
+    /** 生成 {@link Options#trigramProb} 中的 前前序字和前序字 的组合键 */
+    public static long trigramKey(int prev2Word, int prevWord) {
+        return ((long) prev2Word << 32) | (prevWord & 0xFFFFFFFFL);
     }
 
     /**
@@ -160,6 +184,8 @@ public class Viterbi {
             currentWords.forEach((currentWord) -> {
                 Object[] result = prevWords.stream().map((prevWord) -> {
                     double prob = 0;
+                    // 前序字在其最优路径上的前序字，用于计算二阶转移概率
+                    Integer prev2Word = null;
 
                     // 句首字的初始概率 = math.log(句首字出现次数 / 句子总数)
                     if (currentIndex == 0) {
@@ -173,15 +199,17 @@ public class Viterbi {
                         assert pair != null;
 
                         prob += (double) pair[0];
+                        if (prevIndex > 0) {
+                            prev2Word = (Integer) pair[1];
+                        }
                     }
 
-                    prob += calcViterbiProb(
-                            // 前序拼音字的出现次数
-                            getTransProbValue(transProb, currentWord, prevWord),
-                            // 当前拼音字的转移总数
-                            getTransProbValue(transProb, currentWord, options.wordTotal), //
-                            minProb //
-                    );
+                    prob += calcTransProb(transProb, currentWord, prevWord, prev2Word, options, minProb);
+
+                    // 模糊音匹配的字需降低其概率
+                    if (options.fuzzyWordChecker != null && options.fuzzyWordChecker.apply(currentWord, currentIndex)) {
+                        prob += options.fuzzyPenalty;
+                    }
 
                     // 加上末尾字的转移概率
                     if (currentIndex == lastIndex) {
@@ -205,6 +233,39 @@ public class Viterbi {
         return viterbi;
     }
 
+    /**
+     * 计算当前字的转移概率
+     * <p/>
+     * 在存在二阶转移数据时，采用二阶与一阶转移概率的线性插值，
+     * 否则，回退到仅使用一阶转移概率。
+     * 二阶转移的前前序字取自前序字的最优路径，因此，其计算量与一阶转移相同
+     */
+    private static double calcTransProb(
+            Map<Integer, Map<Integer, Integer>> transProb, //
+            Integer currentWord, Integer prevWord, Integer prev2Word, //
+            Options options, double minProb
+    ) {
+        // 前序拼音字的出现次数
+        int count = getTransProbValue(transProb, currentWord, prevWord);
+        // 当前拼音字的转移总数
+        int total = getTransProbValue(transProb, currentWord, options.wordTotal);
+
+        Map<Long, Integer> trigram = prev2Word != null && options.trigramProb != null
+                                     ? options.trigramProb.get(currentWord)
+                                     : null;
+        Integer trigramCount = trigram != null ? trigram.get(trigramKey(prev2Word, prevWord)) : null;
+        Integer trigramTotal = trigram != null ? trigram.get(trigramKey(options.wordTotal, options.wordTotal)) : null;
+
+        if (trigramCount == null || trigramTotal == null || trigramCount == 0 || trigramTotal == 0) {
+            return calcViterbiProb(count, total, minProb);
+        }
+
+        double lambda = options.trigramLambda;
+        double bigram = total == 0 ? 0 : count * 1.0 / total;
+
+        return Math.log(lambda * trigramCount / trigramTotal + (1 - lambda) * bigram);
+    }
+
     private static int getTransProbValue(
             Map<Integer, Map<Integer, Integer>> transProb, Integer currWord, Integer prevWord
     ) {
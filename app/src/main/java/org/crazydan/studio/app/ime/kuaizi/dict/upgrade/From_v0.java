@@ -29,6 +29,7 @@ import org.crazydan.studio.app.ime.kuaizi.dict.DictDBType;
 import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.execSQLite;
 import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.openSQLite;
 import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.vacuumSQLite;
+import static org.crazydan.studio.app.ime.kuaizi.dict.db.HmmDBHelper.PINYIN_CHARS_INITIALS_SQL;
 
 /**
  * 首次安装版本的初始化
@@ -37,6 +38,8 @@ import static org.crazydan.studio.app.ime.kuaizi.common.utils.DBUtils.vacuumSQLi
  * @date 2024-10-27
  */
 public class From_v0 extends Upgrader {
+    /** 简拼索引中每个声母组合所保留的最大数据量 */
+    public static final int PHRASE_INITIALS_TOP = 32;
 
     @Override
     public void upgrade(Context context, IMEditorDict dict) {
@@ -44,6 +47,7 @@ public class From_v0 extends Upgrader {
             try (SQLiteDatabase targetDB = openSQLite(dbFiles.dataTransfer, false)) {
                 doUpgrade(targetDB, dbFiles.appPhrase);
 
+                enableIncrementalVacuum(targetDB);
                 vacuumSQLite(targetDB);
             }
         });
@@ -53,10 +57,15 @@ public class From_v0 extends Upgrader {
     protected static void doUpgrade(SQLiteDatabase targetDB, File appPhraseDBFile) {
         initWordDictTables(targetDB);
         initPhraseDictTables(targetDB);
+        initPhraseTrigramTables(targetDB);
 
         initFavoriteTables(targetDB);
 
         mergePhraseDictData(targetDB, appPhraseDBFile);
+        // Note: 在数据合并完毕后再建立索引，以避免在批量插入时逐行维护索引
+        initPhraseCoveringIndexes(targetDB);
+        // Note: 简拼索引依赖词典数据，需在合并应用的词典数据之后构建
+        initPhraseInitialsTables(targetDB);
     }
 
     /**
@@ -156,6 +165,107 @@ public class From_v0 extends Upgrader {
         execSQLite(targetDB, clauses);
     }
 
+    /**
+     * 初始化与词典二阶（三元）转移相关的数据表
+     * <p/>
+     * 该表仅记录用户输入短语中的三元字序列，且仅保留高频数据，
+     * 其数据量由 {@link org.crazydan.studio.app.ime.kuaizi.dict.db.MaintenanceDBHelper} 控制
+     */
+    protected static void initPhraseTrigramTables(SQLiteDatabase targetDB) {
+        String[] clauses = new String[] {
+                "create table" //
+                + " if not exists phrase_trigram ("
+                //  -- 当前拼音字 id: 其为 pinyin_word 中的 id_
+                + "   word_id_ integer not null,"
+                + "   word_spell_chars_id_ integer not null,"
+                //  -- 前序拼音字 id: TOTAL 用 -2 代替
+                + "   prev_word_id_ integer not null,"
+                + "   prev_word_spell_chars_id_ integer not null,"
+                //  -- 前前序拼音字 id: TOTAL 用 -2 代替
+                + "   prev2_word_id_ integer not null,"
+                + "   prev2_word_spell_chars_id_ integer not null,"
+                //  -- 当 prev_word_id_ == -2 且 prev2_word_id_ == -2 时，其代表当前拼音字的二阶转移总数；
+                //  -- 其余情况代表 前前序字 + 前序字 + 当前字 的出现次数；
+                // -- 用户字典中字出现的次数
+                + "   value_user_ integer not null,"
+                //
+                + "   primary key (word_id_, prev_word_id_, prev2_word_id_)" //
+                + " )",
+                "create index"
+                + " if not exists idx_ph_tri_spell_chars"
+                + " on phrase_trigram ("
+                + "   prev2_word_spell_chars_id_, prev_word_spell_chars_id_, word_spell_chars_id_"
+                + " )",
+                };
+
+        execSQLite(targetDB, clauses);
+    }
+
+    /**
+     * 初始化简拼索引表，并根据词典中的字间转移数据构建简拼索引
+     * <p/>
+     * 以前序字与当前字的声母组合（如 <code>zh:g</code>）为索引键，
+     * 每个索引键仅保留转移次数最高的 {@link #PHRASE_INITIALS_TOP} 条数据，
+     * 从而确保单次查询的数据量固定，而与词典的数据规模无关
+     * <p/>
+     * 零声母的拼音以其首字母作为声母。用户此后输入的短语将在保存时再补充到索引中
+     */
+    protected static void initPhraseInitialsTables(SQLiteDatabase targetDB) {
+        String[] clauses = new String[] {
+                "create table" //
+                + " if not exists phrase_initials ("
+                + "   id_ integer not null primary key,"
+                // -- 前序字与当前字的声母组合，以英文冒号分隔
+                + "   initials_ text not null,"
+                //  -- 前序拼音字 id: 其为 pinyin_word 中的 id_
+                + "   prev_word_id_ integer not null,"
+                //  -- 当前拼音字 id: 其为 pinyin_word 中的 id_
+                + "   word_id_ integer not null,"
+                // -- 构建索引时的应用与用户转移次数之和
+                + "   weight_ integer not null"
+                + " )",
+                "delete from phrase_initials",
+                // Note: 按索引键和权重排序插入，以使得同一索引键的数据的 id_ 连续且按权重降序排列
+                "insert into phrase_initials ("
+                + "   initials_, prev_word_id_, word_id_, weight_"
+                + " )"
+                + " select"
+                + "   (" + String.format(PINYIN_CHARS_INITIALS_SQL, "prev_chars_") + " || ':' || "
+                + String.format(PINYIN_CHARS_INITIALS_SQL, "chars_") + ") as initials_,"
+                + "   trp_.prev_word_id_, trp_.word_id_,"
+                + "   (trp_.value_app_ + trp_.value_user_) as weight_"
+                + " from phrase_trans_prob trp_"
+                + "   inner join meta_pinyin_chars chars_ on chars_.id_ = trp_.word_spell_chars_id_"
+                + "   inner join meta_pinyin_chars prev_chars_ on prev_chars_.id_ = trp_.prev_word_spell_chars_id_"
+                + " where trp_.word_id_ >= 0 and trp_.prev_word_id_ >= 0"
+                + " order by initials_ asc, weight_ desc",
+                // 仅保留各索引键中最靠前的数据
+                "create temp table"
+                + " if not exists tmp_phrase_initials_start ("
+                + "   initials_ text not null primary key,"
+                + "   start_id_ integer not null"
+                + " )",
+                "insert into tmp_phrase_initials_start (initials_, start_id_)"
+                + " select initials_, min(id_) from phrase_initials group by initials_",
+                "delete from phrase_initials"
+                + " where id_ - ("
+                + "   select start_id_ from tmp_phrase_initials_start tmp_"
+                + "   where tmp_.initials_ = phrase_initials.initials_"
+                + " ) >= " + PHRASE_INITIALS_TOP,
+                "drop table tmp_phrase_initials_start",
+                //
+                "create index"
+                + " if not exists idx_ph_ini_initials"
+                + " on phrase_initials(initials_, weight_, prev_word_id_, word_id_)",
+                // 用于更新用户短语的简拼索引数据
+                "create index"
+                + " if not exists idx_ph_ini_word"
+                + " on phrase_initials(prev_word_id_, word_id_)",
+                };
+
+        execSQLite(targetDB, clauses);
+    }
+
     /** 初始化与收藏相关的数据表 */
     protected static void initFavoriteTables(SQLiteDatabase targetDB) {
         String[] clauses = new String[] {
@@ -234,12 +344,51 @@ public class From_v0 extends Upgrader {
                 + "   where id_ = phrase_trans_prob.prev_word_id_"
                 + " )"
                 + " where prev_word_spell_chars_id_ = -3",
-                //
-                "create index idx_ph_wrd_spell_chars on phrase_word(spell_chars_id_)",
-                "create index idx_ph_trp_spell_chars"
-                + " on phrase_trans_prob(word_spell_chars_id_, prev_word_spell_chars_id_);",
                 };
 
         execSQLite(targetDB, clauses);
     }
+
+    /**
+     * 创建词典数据的覆盖索引，并删除被其替代的前缀索引
+     * <p/>
+     * 查询所需的列均在覆盖索引中，从而无需再回表查询
+     */
+    protected static void initPhraseCoveringIndexes(SQLiteDatabase targetDB) {
+        String[] clauses = new String[] {
+                // 用于 PinyinDBHelper#getTopBestPinyinWordIds
+                "create index"
+                + " if not exists idx_ph_wrd_spell_chars_cvr"
+                + " on phrase_word (spell_chars_id_, word_id_, weight_app_, weight_user_)",
+                "drop index if exists idx_ph_wrd_spell_chars",
+                // 用于 HmmDBHelper#queryTransProb
+                "create index"
+                + " if not exists idx_ph_trp_spell_chars_cvr"
+                + " on phrase_trans_prob ("
+                + "   word_spell_chars_id_, prev_word_spell_chars_id_,"
+                + "   word_id_, prev_word_id_, value_app_, value_user_"
+                + " )",
+                "drop index if exists idx_ph_trp_spell_chars",
+                // 用于 HmmDBHelper#getTopNextPinyinWords
+                "create index"
+                + " if not exists idx_ph_trp_prev_word_spell_cvr"
+                + " on phrase_trans_prob ("
+                + "   prev_word_id_, word_id_, word_spell_chars_id_, value_app_, value_user_"
+                + " )",
+                "drop index if exists idx_ph_trp_prev_word_cvr",
+                };
+
+        execSQLite(targetDB, clauses);
+    }
+
+    /**
+     * 将数据库切换为 <code>incremental</code> 的自动回收模式，
+     * 以使得在输入法运行期间仅需增量回收空闲页
+     * <p/>
+     * 注意，该切换需在其后执行一次完整的 <code>vacuum</code> 才会生效
+     */
+    protected static void enableIncrementalVacuum(SQLiteDatabase targetDB) {
+        // https://www.sqlite.org/pragma.html#pragma_auto_vacuum
+        execSQLite(targetDB, "pragma auto_vacuum = incremental");
+    }
 }
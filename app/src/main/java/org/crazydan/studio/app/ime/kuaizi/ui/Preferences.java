@@ -19,6 +19,7 @@
 
 package org.crazydan.studio.app.ime.kuaizi.ui;
 
+import java.io.InputStream;
 import java.util.Locale;
 
 import android.app.Activity;
@@ -30,6 +31,8 @@ import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
 import android.util.DisplayMetrics;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.preference.Preference;
 import androidx.preference.PreferenceCategory;
 import androidx.preference.PreferenceFragmentCompat;
@@ -39,6 +42,8 @@ import androidx.preference.PreferenceScreen;
 import org.crazydan.studio.app.ime.kuaizi.BuildConfig;
 import org.crazydan.studio.app.ime.kuaizi.IMEditorDict;
 import org.crazydan.studio.app.ime.kuaizi.R;
+import org.crazydan.studio.app.ime.kuaizi.common.Async;
+import org.crazydan.studio.app.ime.kuaizi.common.log.Logger;
 import org.crazydan.studio.app.ime.kuaizi.common.utils.FileUtils;
 import org.crazydan.studio.app.ime.kuaizi.common.utils.PreferencesUtils;
 import org.crazydan.studio.app.ime.kuaizi.common.utils.SystemUtils;
@@ -55,11 +60,56 @@ import org.crazydan.studio.app.ime.kuaizi.ui.common.FollowSystemThemeActivity;
  * @date 2023-08-06
  */
 public class Preferences extends FollowSystemThemeActivity {
+    private static final Logger log = Logger.getLogger(Preferences.class);
+    /** 用户数据恢复线程：仅单线程执行，以确保多次恢复操作依次进行 */
+    private static final Async restoreAsync = new Async(1, 1);
 
     public static void backupUserData(Activity context) {
-        String filename = "Kuaizi_IME_User_Dict.db.bak";
+        String filename = "Kuaizi_IME_User_Data.bak";
 
-        FileUtils.saveToDownload(context, filename, (output) -> IMEditorDict.instance().saveUserDB(context, output));
+        FileUtils.saveToDownload(context,
+                                 filename,
+                                 (output) -> IMEditorDict.instance().exportUserData(context, output));
+    }
+
+    /**
+     * 从{@link #backupUserData 备份文件}中恢复用户数据：以累加方式合并到当前的用户数据中
+     * <p/>
+     * 导入过程涉及大量的数据库写操作，需在后台线程中执行，
+     * 在此期间，<code>progress</code> 将处于不可用状态，并显示恢复进度提示
+     */
+    public static void restoreUserData(Activity context, Uri uri, Preference progress) {
+        progress.setEnabled(false);
+        progress.setSummary(R.string.text_user_data_restoring);
+
+        restoreAsync.future(() -> {
+            try (InputStream input = context.getContentResolver().openInputStream(uri)) {
+                IMEditorDict.instance().importUserData(context, input);
+
+                return R.string.text_user_data_restore_done;
+            } catch (Exception e) {
+                log.error("Failed to restore user data from " + uri, e);
+
+                return R.string.text_user_data_restore_failed;
+            }
+        }).thenAccept((msgResId) -> context.runOnUiThread(() -> {
+            progress.setEnabled(true);
+            progress.setSummary(null);
+
+            // Note: 在恢复期间，界面可能已被关闭，此时无需再提示
+            if (context.isFinishing() || context.isDestroyed()) {
+                return;
+            }
+
+            DialogAlert.with(context)
+                       .setView(R.layout.guide_alert_view)
+                       .setCancelable(true)
+                       .setTitle(R.string.title_tips)
+                       .setMessage(msgResId)
+                       .setPositiveButton(R.string.btn_confirm, (dialog, which) -> {
+                       })
+                       .show();
+        }));
     }
 
     public static void openFeedbackUrl(Activity context) {
@@ -123,6 +173,14 @@ public class Preferences extends FollowSystemThemeActivity {
     }
 
     public static class SettingsFragment extends PreferenceFragmentCompat {
+        /** Note: 需在片段创建前注册 */
+        private final ActivityResultLauncher<String[]> restoreFileChooser
+                = registerForActivityResult(new ActivityResultContracts.OpenDocument(), (uri) -> {
+            Preference restore = findPreference("user_data_restore");
+            if (uri != null && restore != null) {
+                restoreUserData(getActivity(), uri, restore);
+            }
+        });
 
         @Override
         public void onCreatePreferences(Bundle savedInstanceState, String rootKey) {
@@ -156,6 +214,14 @@ public class Preferences extends FollowSystemThemeActivity {
                     return true;
                 });
             }
+
+            Preference restore = findPreference("user_data_restore");
+            if (restore != null) {
+                restore.setOnPreferenceClickListener(preference -> {
+                    this.restoreFileChooser.launch(new String[] { "application/octet-stream", "*/*" });
+                    return true;
+                });
+            }
         }
 
         /** 更新 Intent action 名字中的占位符 */
@@ -19,6 +19,7 @@
 
 package org.crazydan.studio.app.ime.kuaizi.ui.guide;
 
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
@@ -51,6 +52,7 @@ import org.crazydan.studio.app.ime.kuaizi.common.utils.FileUtils;
 import org.crazydan.studio.app.ime.kuaizi.common.utils.ThemeUtils;
 import org.crazydan.studio.app.ime.kuaizi.common.utils.ViewUtils;
 import org.crazydan.studio.app.ime.kuaizi.common.widget.EditorAction;
+import org.crazydan.studio.app.ime.kuaizi.common.widget.ViewGestureTrace;
 import org.crazydan.studio.app.ime.kuaizi.common.widget.recycler.RecyclerPageIndicatorView;
 import org.crazydan.studio.app.ime.kuaizi.conf.ConfigKey;
 import org.crazydan.studio.app.ime.kuaizi.core.Key;
@@ -1394,6 +1396,7 @@ public class ExerciseGuide extends ImeIntegratedActivity implements ExerciseMsgL
         }
 
         Logger.enableLogCache(true);
+        ViewGestureTrace.enableRecording(true);
 
         toast("<b>注意</b>：本地调试日志文件将在<span style=\"color:#ed4c67;\">当前窗口退出后</span>生成！");
     }
@@ -1406,6 +1409,9 @@ public class ExerciseGuide extends ImeIntegratedActivity implements ExerciseMsgL
         List<String> logs = Logger.getCachedLogs();
         Logger.enableLogCache(false);
 
+        ViewGestureTrace gestureTrace = ViewGestureTrace.getRecorded();
+        ViewGestureTrace.enableRecording(false);
+
         if (logs.isEmpty()) {
             return;
         }
@@ -1424,6 +1430,17 @@ public class ExerciseGuide extends ImeIntegratedActivity implements ExerciseMsgL
                 }
 
                 zip.closeEntry();
+
+                // 录制的手势可用于回放测试
+                if (!gestureTrace.isEmpty()) {
+                    zip.putNextEntry(new ZipEntry("gesture-" + date + ".trace"));
+
+                    StringWriter writer = new StringWriter();
+                    gestureTrace.write(writer);
+                    FileUtils.write(zip, writer.toString());
+
+                    zip.closeEntry();
+                }
             });
 
             runOnUiThread(() -> alert("已在【<span style=\"color:#ed4c67;\">下载</span>】目录"
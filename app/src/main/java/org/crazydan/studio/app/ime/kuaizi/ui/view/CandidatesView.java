@@ -19,9 +19,12 @@
 
 package org.crazydan.studio.app.ime.kuaizi.ui.view;
 
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import android.content.Context;
 import android.graphics.Color;
@@ -44,9 +47,11 @@ import org.crazydan.studio.app.ime.kuaizi.common.utils.ScreenUtils;
 import org.crazydan.studio.app.ime.kuaizi.common.utils.ThemeUtils;
 import org.crazydan.studio.app.ime.kuaizi.common.utils.ViewUtils;
 import org.crazydan.studio.app.ime.kuaizi.common.widget.EditorAction;
+import org.crazydan.studio.app.ime.kuaizi.common.widget.ViewUpdateScheduler;
 import org.crazydan.studio.app.ime.kuaizi.conf.ConfigKey;
 import org.crazydan.studio.app.ime.kuaizi.core.input.InputClip;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsg;
+import org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsgType;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.UserInputMsg;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.input.EditorEditMsgData;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.input.InputCharsInputPopupShowMsgData;
@@ -64,6 +69,16 @@ import static org.crazydan.studio.app.ime.kuaizi.core.msg.UserInputMsgType.Singl
  * @date 2025-03-19
  */
 public class CandidatesView extends BaseThemedView {
+    /** 不影响视图更新的消息类型 */
+    public static final Set<InputMsgType> IGNORED_MSG_TYPES = Collections.unmodifiableSet(EnumSet.of(
+            InputMsgType.InputAudio_Play_Doing,
+            InputMsgType.Keyboard_State_Change_Done,
+            InputMsgType.Keyboard_XPad_Simulation_Terminated,
+            InputMsgType.Keyboard_Exit_Done,
+            InputMsgType.Keyboard_Close_Done,
+            InputMsgType.Keyboard_Close_Doing
+    ));
+
     private PopupWindow popupWindow;
 
     private Map<PopupType, Popup> popups;
@@ -84,7 +99,10 @@ public class CandidatesView extends BaseThemedView {
 
     public void close() {
         ObjectUtils.invokeWhenNonNull(this.popups, (popups) -> {
-            popups.values().forEach((p) -> p.close(true));
+            popups.values().forEach((p) -> {
+                ViewUpdateScheduler.cancel(p);
+                p.close(true);
+            });
         });
 
         closePopupWindow();
@@ -149,21 +167,13 @@ public class CandidatesView extends BaseThemedView {
 
     @Override
     protected void handleMsg(InputMsg msg) {
-        // 不影响视图更新的消息，直接忽略
-        switch (msg.type) {
-            case InputAudio_Play_Doing:
-            case Keyboard_State_Change_Done:
-            case Keyboard_XPad_Simulation_Terminated:
-            case Keyboard_Exit_Done:
-            case Keyboard_Close_Done:
-            case Keyboard_Close_Doing: {
-                this.log.warn("Ignore message %s", () -> new Object[] { msg.type });
-                return;
-            }
+        if (IGNORED_MSG_TYPES.contains(msg.type)) {
+            this.log.warn("Ignore message %s", () -> new Object[] { msg.type });
+            return;
         }
 
         // Note: 快捷输入没有确定的隐藏时机，故而，需针对每个消息做一次处理，在数据为 null 时隐藏，有数据时显示
-        showInputQuickList(msg.inputQuickList);
+        showInputQuickList(msg.inputQuickList());
 
         switch (msg.type) {
             case InputChars_Input_Popup_Show_Doing: {
@@ -238,13 +248,16 @@ public class CandidatesView extends BaseThemedView {
         Popup popup = popup(PopupType.quick_list);
         InputQuickListView view = popup.view.findViewById(R.id.quick_list);
 
-        if (CollectionUtils.isEmpty(dataList)) {
-            // Note: 不置空列表，以确保退场动画效果能完整呈现
-            popup.close();
-        } else {
-            view.update(dataList);
-            popup.show();
-        }
+        // Note: 每个消息都会更新快捷输入，但仅需按同一帧内的最后一个消息做显隐和更新
+        ViewUpdateScheduler.schedule(popup, () -> {
+            if (CollectionUtils.isEmpty(dataList)) {
+                // Note: 不置空列表，以确保退场动画效果能完整呈现
+                popup.close();
+            } else {
+                view.update(dataList);
+                popup.show();
+            }
+        });
     }
 
     private void showInputKeyTip(String key, boolean hideDelayed) {
@@ -264,15 +277,19 @@ public class CandidatesView extends BaseThemedView {
 
     private void showTooltip(String tip, boolean hideDelayed) {
         Popup popup = popup(PopupType.tooltip);
-        if (CharUtils.isBlank(tip)) {
-            popup.close();
-            return;
-        }
 
-        TextView textView = popup.view.findViewById(R.id.tooltip);
-        textView.setText(tip);
+        // Note: 在同一帧内连续的显示和隐藏，仅需处理最后一次
+        ViewUpdateScheduler.schedule(popup, () -> {
+            if (CharUtils.isBlank(tip)) {
+                popup.close();
+                return;
+            }
 
-        popup.show(hideDelayed ? 800 : 0);
+            TextView textView = popup.view.findViewById(R.id.tooltip);
+            textView.setText(tip);
+
+            popup.show(hideDelayed ? 800 : 0);
+        });
     }
 
     private PopupWindow createPopupWindow() {
@@ -58,8 +58,9 @@ public class InputFavoriteListView extends RecyclerView<InputFavoriteListViewAda
         return new RecyclerViewLinearLayoutManager(context, true);
     }
 
+    /** 获取收藏数量：包含正在后台更新的收藏 */
     public int count() {
-        return getAdapter().getItemCount();
+        return getAdapter().getLatestItemCount();
     }
 
     public boolean isEmpty() {
@@ -19,12 +19,17 @@
 
 package org.crazydan.studio.app.ime.kuaizi.ui.view;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
 import android.content.Context;
 import android.util.AttributeSet;
 import androidx.annotation.Nullable;
 import org.crazydan.studio.app.ime.kuaizi.core.InputList;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsg;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsgListener;
+import org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsgType;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.input.ConfigUpdateMsgData;
 
 /**
@@ -34,6 +39,43 @@ import org.crazydan.studio.app.ime.kuaizi.core.msg.input.ConfigUpdateMsgData;
  * @date 2023-06-30
  */
 public class InputListView extends InputListViewBase implements InputMsgListener {
+    /** 不影响输入列表视图的消息类型 */
+    public static final Set<InputMsgType> IGNORED_MSG_TYPES = Collections.unmodifiableSet(EnumSet.of(
+            InputMsgType.IME_Switch_Doing,
+            InputMsgType.InputAudio_Play_Doing,
+            //
+            InputMsgType.Keyboard_Switch_Doing,
+            InputMsgType.Keyboard_Start_Doing,
+            InputMsgType.Keyboard_Close_Done,
+            InputMsgType.Keyboard_Exit_Done,
+            InputMsgType.Keyboard_HandMode_Switch_Doing,
+            InputMsgType.Keyboard_HandMode_Switch_Done,
+            InputMsgType.Keyboard_XPad_Simulation_Terminated,
+            //
+            InputMsgType.Editor_Edit_Doing,
+            InputMsgType.Editor_Cursor_Move_Doing,
+            InputMsgType.Editor_Range_Select_Doing,
+            //
+            InputMsgType.InputCompletion_Create_Done,
+            //
+            InputMsgType.Input_Choose_Doing,
+            InputMsgType.InputChars_Input_Popup_Show_Doing,
+            InputMsgType.InputChars_Input_Popup_Hide_Doing,
+            //
+            InputMsgType.InputFavorite_Query_Doing,
+            InputMsgType.InputFavorite_Query_Done,
+            InputMsgType.InputFavorite_Paste_Done,
+            InputMsgType.InputFavorite_Delete_Done,
+            InputMsgType.InputFavorite_Clear_All_Done,
+            InputMsgType.InputFavorite_Save_Done,
+            InputMsgType.InputFavorite_Text_Commit_Doing,
+            //
+            InputMsgType.InputClip_Text_Commit_Doing,
+            InputMsgType.InputClip_Discard_Done,
+            InputMsgType.InputClip_Apply_Done,
+            InputMsgType.InputClip_Create_Done,
+            InputMsgType.InputClip_CanBe_Favorite
+    ));
 
     public InputListView(Context context, @Nullable AttributeSet attrs) {
         super(context, attrs);
@@ -47,6 +89,13 @@ public class InputListView extends InputListViewBase implements InputMsgListener
                 .debug("Message Type: %s", () -> new Object[] { msg.type }) //
                 .debug("Message Data: %s", () -> new Object[] { msg.data() });
 
+        // Note: 不影响输入列表视图的消息，直接返回
+        if (IGNORED_MSG_TYPES.contains(msg.type)) {
+            this.log.warn("Ignore message %s", () -> new Object[] { msg.type }) //
+                    .endTreeLog();
+            return;
+        }
+
         switch (msg.type) {
             case Input_Choose_Done: {
                 super.onMsg(msg);
@@ -69,50 +118,11 @@ public class InputListView extends InputListViewBase implements InputMsgListener
                 }
                 break;
             }
-            // Note: 不影响输入列表视图的消息，直接返回
-            case IME_Switch_Doing:
-            case InputAudio_Play_Doing:
-                //
-            case Keyboard_Switch_Doing:
-            case Keyboard_Start_Doing:
-            case Keyboard_Close_Done:
-            case Keyboard_Exit_Done:
-            case Keyboard_HandMode_Switch_Doing:
-            case Keyboard_HandMode_Switch_Done:
-            case Keyboard_XPad_Simulation_Terminated:
-                //
-            case Editor_Edit_Doing:
-            case Editor_Cursor_Move_Doing:
-            case Editor_Range_Select_Doing:
-                //
-            case InputCompletion_Create_Done:
-                //
-            case Input_Choose_Doing:
-            case InputChars_Input_Popup_Show_Doing:
-            case InputChars_Input_Popup_Hide_Doing:
-                //
-            case InputFavorite_Query_Doing:
-            case InputFavorite_Query_Done:
-            case InputFavorite_Paste_Done:
-            case InputFavorite_Delete_Done:
-            case InputFavorite_Clear_All_Done:
-            case InputFavorite_Save_Done:
-            case InputFavorite_Text_Commit_Doing:
-                //
-            case InputClip_Text_Commit_Doing:
-            case InputClip_Discard_Done:
-            case InputClip_Apply_Done:
-            case InputClip_Create_Done:
-            case InputClip_CanBe_Favorite: {
-                this.log.warn("Ignore message %s", () -> new Object[] { msg.type }) //
-                        .endTreeLog();
-                return;
-            }
         }
 
         this.log.debug("Update view for message %s", () -> new Object[] { msg.type });
 
-        update(msg.inputFactory);
+        scheduleUpdate(msg.inputFactory(), false);
 
         this.log.endTreeLog();
     }
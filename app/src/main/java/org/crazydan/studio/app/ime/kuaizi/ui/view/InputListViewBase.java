@@ -33,6 +33,7 @@ import org.crazydan.studio.app.ime.kuaizi.common.log.Logger;
 import org.crazydan.studio.app.ime.kuaizi.common.utils.ScreenUtils;
 import org.crazydan.studio.app.ime.kuaizi.common.utils.ViewUtils;
 import org.crazydan.studio.app.ime.kuaizi.common.widget.ViewGestureDetector;
+import org.crazydan.studio.app.ime.kuaizi.common.widget.ViewUpdateScheduler;
 import org.crazydan.studio.app.ime.kuaizi.common.widget.recycler.RecyclerView;
 import org.crazydan.studio.app.ime.kuaizi.common.widget.recycler.RecyclerViewGestureDetector;
 import org.crazydan.studio.app.ime.kuaizi.common.widget.recycler.RecyclerViewLinearLayoutManager;
@@ -66,6 +67,8 @@ public abstract class InputListViewBase extends RecyclerView<InputListViewAdapte
     private int positionInParent = -1;
 
     private UserInputMsgListener listener;
+    /** 已调度的更新是否需锁定滚动条 */
+    private boolean lockScrollingOnScheduledUpdate;
 
     public InputListViewBase(Context context, @Nullable AttributeSet attrs) {
         super(context, attrs);
@@ -124,7 +127,7 @@ public abstract class InputListViewBase extends RecyclerView<InputListViewAdapte
                 this.log.debug("Update view for message %s with locking scrolling: %s",
                                () -> new Object[] { msg.type, needToLockScrolling });
 
-                update(msg.inputFactory, needToLockScrolling);
+                scheduleUpdate(msg.inputFactory(), needToLockScrolling);
                 break;
             }
         }
@@ -160,6 +163,36 @@ public abstract class InputListViewBase extends RecyclerView<InputListViewAdapte
         update(inputFactory, false);
     }
 
+    /**
+     * 在下一帧按指定的输入列表更新视图
+     * <p/>
+     * 同一帧内仅按最后一次调度的输入列表更新视图，但只要其中有一次需要锁定滚动条，
+     * 则该次更新便需锁定滚动条，否则，选中算术表达式的消息之后紧跟的其他消息将使其锁定被丢弃
+     */
+    protected void scheduleUpdate(InputFactory inputFactory, boolean needToLockScrolling) {
+        this.lockScrollingOnScheduledUpdate |= needToLockScrolling;
+
+        ViewUpdateScheduler.schedule(this, () -> {
+            boolean lockScrolling = this.lockScrollingOnScheduledUpdate;
+            this.lockScrollingOnScheduledUpdate = false;
+
+            update(inputFactory, lockScrolling);
+        });
+    }
+
+    /** 丢弃未执行的{@link #scheduleUpdate 已调度更新} */
+    public void cancelScheduledUpdate() {
+        ViewUpdateScheduler.cancel(this);
+        this.lockScrollingOnScheduledUpdate = false;
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        cancelScheduledUpdate();
+
+        super.onDetachedFromWindow();
+    }
+
     public void update(InputFactory inputFactory, boolean needToLockScrolling) {
         if (inputFactory == null) {
             return;
@@ -19,8 +19,10 @@
 
 package org.crazydan.studio.app.ime.kuaizi.ui.view;
 
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 import android.content.Context;
 import android.util.AttributeSet;
@@ -37,6 +39,8 @@ import org.crazydan.studio.app.ime.kuaizi.common.widget.EditorAction;
 import org.crazydan.studio.app.ime.kuaizi.conf.ConfigKey;
 import org.crazydan.studio.app.ime.kuaizi.core.Inputboard;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsg;
+import org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsgBus;
+import org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsgType;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.UserInputMsg;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.user.UserEditorActionSingleTapMsgData;
 
@@ -55,7 +59,20 @@ import static org.crazydan.studio.app.ime.kuaizi.core.msg.UserInputMsgType.Singl
  * @date 2025-01-06
  */
 public class InputboardView extends BaseMsgListenerView {
+    /** 不更改输入面板状态的消息类型 */
+    private static final Set<InputMsgType> IGNORED_MSG_TYPES = EnumSet.of(
+            InputMsgType.InputFavorite_Save_Done,
+            InputMsgType.InputClip_CanBe_Favorite,
+            InputMsgType.Editor_Cursor_Move_Doing,
+            InputMsgType.Editor_Range_Select_Doing,
+            InputMsgType.Editor_Edit_Doing,
+            InputMsgType.InputAudio_Play_Doing,
+            InputMsgType.InputChars_Input_Popup_Show_Doing,
+            InputMsgType.InputChars_Input_Popup_Hide_Doing
+    );
+
     private final InputListView inputListView;
+    private final InputMsgBus msgBus;
 
     private final BtnTools tools;
 
@@ -73,6 +90,12 @@ public class InputboardView extends BaseMsgListenerView {
         this.inputListView = findViewById(R.id.input_list);
         this.inputListView.setListener(this);
 
+        // Note: 面板状态仅由最新消息中的输入列表状态确定，
+        // 故而，合并同一轮次内的消息，仅做一次更新
+        this.msgBus = new InputMsgBus() //
+                .subscribeCoalesced(this::handleMsg, this::post, InputMsgBus.except(IGNORED_MSG_TYPES)) //
+                .subscribe(this.inputListView, InputMsgBus.except(InputListView.IGNORED_MSG_TYPES));
+
         this.tools.addGroup(BtnGroupType.inputbar, findViewById(R.id.inputbar));
         this.tools.addGroup(BtnGroupType.toolbar, findViewById(R.id.toolbar));
 
@@ -99,31 +122,20 @@ public class InputboardView extends BaseMsgListenerView {
         updateToolsByState(false);
     }
 
+    /** 丢弃输入列表视图中未执行的已调度更新 */
+    public void cancelScheduledUpdate() {
+        this.inputListView.cancelScheduledUpdate();
+    }
+
     // =============================== Start: 消息处理 ===================================
 
     /** 响应 {@link InputMsg} 消息：向下传递消息给内部视图 */
     @Override
     public void onMsg(InputMsg msg) {
-        handleMsg(msg);
-
-        this.inputListView.onMsg(msg);
+        this.msgBus.onMsg(msg);
     }
 
     private void handleMsg(InputMsg msg) {
-        switch (msg.type) {
-            // 忽略不更改输入面板状态的消息
-            case InputFavorite_Save_Done:
-            case InputClip_CanBe_Favorite:
-            case Editor_Cursor_Move_Doing:
-            case Editor_Range_Select_Doing:
-            case Editor_Edit_Doing:
-            case InputAudio_Play_Doing:
-            case InputChars_Input_Popup_Show_Doing:
-            case InputChars_Input_Popup_Hide_Doing: {
-                return;
-            }
-        }
-
         if (msg.inputList.frozen) {
             this.state = new State(State.Type.Input_Freeze_Doing);
         } else if (!msg.inputList.empty) {
@@ -19,7 +19,10 @@
 
 package org.crazydan.studio.app.ime.kuaizi.ui.view;
 
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.Objects;
+import java.util.Set;
 
 import android.content.Context;
 import android.graphics.Canvas;
@@ -31,6 +34,7 @@ import org.crazydan.studio.app.ime.kuaizi.IMEditorView;
 import org.crazydan.studio.app.ime.kuaizi.R;
 import org.crazydan.studio.app.ime.kuaizi.common.utils.ThemeUtils;
 import org.crazydan.studio.app.ime.kuaizi.common.widget.ViewGestureDetector;
+import org.crazydan.studio.app.ime.kuaizi.common.widget.ViewUpdateScheduler;
 import org.crazydan.studio.app.ime.kuaizi.common.widget.recycler.RecyclerViewGestureDetector;
 import org.crazydan.studio.app.ime.kuaizi.common.widget.recycler.RecyclerViewGestureTrailer;
 import org.crazydan.studio.app.ime.kuaizi.conf.Config;
@@ -43,6 +47,7 @@ import org.crazydan.studio.app.ime.kuaizi.core.key.TypedKey;
 import org.crazydan.studio.app.ime.kuaizi.core.key.XPadKey;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsg;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsgListener;
+import org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsgType;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.UserKeyMsg;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.UserKeyMsgListener;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.input.ConfigUpdateMsgData;
@@ -60,6 +65,43 @@ import org.crazydan.studio.app.ime.kuaizi.ui.view.key.KeyboardViewKeyAnimator;
  * @date 2023-06-30
  */
 public class KeyboardView extends KeyboardViewBase implements UserKeyMsgListener, InputMsgListener {
+    /** 不影响按键布局的消息类型 */
+    public static final Set<InputMsgType> IGNORED_MSG_TYPES = Collections.unmodifiableSet(EnumSet.of(
+            InputMsgType.IME_Switch_Doing,
+            InputMsgType.InputAudio_Play_Doing,
+            //
+            InputMsgType.Keyboard_Switch_Doing,
+            InputMsgType.Keyboard_Start_Doing,
+            InputMsgType.Keyboard_Close_Done,
+            InputMsgType.Keyboard_Exit_Done,
+            InputMsgType.Keyboard_HandMode_Switch_Doing,
+            InputMsgType.Keyboard_XPad_Simulation_Terminated,
+            //
+            InputMsgType.InputList_Clean_Done,
+            InputMsgType.InputList_Cleaned_Cancel_Done,
+            //
+            InputMsgType.InputCompletion_Create_Done,
+            InputMsgType.InputCompletion_Apply_Done,
+            //
+            InputMsgType.Input_Choose_Doing,
+            InputMsgType.InputChars_Input_Popup_Hide_Doing,
+            InputMsgType.InputChars_Input_Popup_Show_Doing,
+            //
+            InputMsgType.InputFavorite_Query_Doing,
+            InputMsgType.InputFavorite_Query_Done,
+            InputMsgType.InputFavorite_Paste_Done,
+            InputMsgType.InputFavorite_Delete_Done,
+            InputMsgType.InputFavorite_Clear_All_Done,
+            InputMsgType.InputFavorite_Save_Done,
+            InputMsgType.InputFavorite_Text_Commit_Doing,
+            //
+            InputMsgType.InputClip_Text_Commit_Doing,
+            InputMsgType.InputClip_Discard_Done,
+            InputMsgType.InputClip_Apply_Done,
+            InputMsgType.InputClip_Create_Done,
+            InputMsgType.InputClip_CanBe_Favorite
+    ));
+
     private final RecyclerViewGestureDetector<Key> gesture;
     private final RecyclerViewGestureTrailer gestureTrailer;
     private final KeyboardViewKeyAnimator animator;
@@ -147,6 +189,18 @@ public class KeyboardView extends KeyboardViewBase implements UserKeyMsgListener
         //updateKeys(new Key[][] {});
     }
 
+    /** 丢弃未执行的已调度更新 */
+    public void cancelScheduledUpdate() {
+        ViewUpdateScheduler.cancel(this);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        cancelScheduledUpdate();
+
+        super.onDetachedFromWindow();
+    }
+
     private void update(KeyFactory keyFactory) {
         if (keyFactory == null) {
             return;
@@ -203,6 +257,13 @@ public class KeyboardView extends KeyboardViewBase implements UserKeyMsgListener
                 .debug("Message Type: %s", () -> new Object[] { msg.type }) //
                 .debug("Message Data: %s", () -> new Object[] { msg.data() });
 
+        // Note: 不影响按键布局的消息，直接返回
+        if (IGNORED_MSG_TYPES.contains(msg.type)) {
+            this.log.warn("Ignore message %s", () -> new Object[] { msg.type }) //
+                    .endTreeLog();
+            return;
+        }
+
         switch (msg.type) {
             case Config_Update_Done: {
                 ConfigUpdateMsgData data = msg.data();
@@ -246,49 +307,12 @@ public class KeyboardView extends KeyboardViewBase implements UserKeyMsgListener
                 }
                 break;
             }
-            // Note: 不影响按键布局的消息，直接返回
-            case IME_Switch_Doing:
-            case InputAudio_Play_Doing:
-                //
-            case Keyboard_Switch_Doing:
-            case Keyboard_Start_Doing:
-            case Keyboard_Close_Done:
-            case Keyboard_Exit_Done:
-            case Keyboard_HandMode_Switch_Doing:
-            case Keyboard_XPad_Simulation_Terminated:
-                //
-            case InputList_Clean_Done:
-            case InputList_Cleaned_Cancel_Done:
-                //
-            case InputCompletion_Create_Done:
-            case InputCompletion_Apply_Done:
-                //
-            case Input_Choose_Doing:
-            case InputChars_Input_Popup_Hide_Doing:
-            case InputChars_Input_Popup_Show_Doing:
-                //
-            case InputFavorite_Query_Doing:
-            case InputFavorite_Query_Done:
-            case InputFavorite_Paste_Done:
-            case InputFavorite_Delete_Done:
-            case InputFavorite_Clear_All_Done:
-            case InputFavorite_Save_Done:
-            case InputFavorite_Text_Commit_Doing:
-                //
-            case InputClip_Text_Commit_Doing:
-            case InputClip_Discard_Done:
-            case InputClip_Apply_Done:
-            case InputClip_Create_Done:
-            case InputClip_CanBe_Favorite: {
-                this.log.warn("Ignore message %s", () -> new Object[] { msg.type }) //
-                        .endTreeLog();
-                return;
-            }
         }
 
         this.log.debug("Update view for message %s", () -> new Object[] { msg.type });
 
-        update(msg.keyFactory);
+        // Note: 滑屏输入等会在同一帧内产生多个消息，仅需按最后一个消息更新按键布局
+        ViewUpdateScheduler.schedule(this, () -> update(msg.keyFactory()));
 
         this.log.endTreeLog();
     }
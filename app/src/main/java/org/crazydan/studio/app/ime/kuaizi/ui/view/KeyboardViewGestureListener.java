@@ -22,8 +22,10 @@ package org.crazydan.studio.app.ime.kuaizi.ui.view;
 import android.graphics.PointF;
 import org.crazydan.studio.app.ime.kuaizi.common.Motion;
 import org.crazydan.studio.app.ime.kuaizi.common.widget.ViewGestureDetector;
+import org.crazydan.studio.app.ime.kuaizi.common.widget.ViewGestureTrace;
 import org.crazydan.studio.app.ime.kuaizi.core.Key;
 import org.crazydan.studio.app.ime.kuaizi.core.key.CtrlKey;
+import org.crazydan.studio.app.ime.kuaizi.core.key.TypedKey;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.UserKeyMsg;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.UserKeyMsgData;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.UserKeyMsgType;
@@ -37,7 +39,7 @@ import org.crazydan.studio.app.ime.kuaizi.ui.view.key.XPadKeyViewHolder;
 /**
  * {@link KeyboardView} 的手势监听器
  * <p/>
- * 根据收到的手势消息转换为 {@link UserKeyMsg} 并{@link #fire_UserKeyMsg 发送}
+ * 根据收到的手势消息转换为 {@link UserKeyMsg} 并发送
  *
  * @author <a href="mailto:flytreeleft@crazydan.org">flytreeleft</a>
  * @date 2023-07-13
@@ -54,66 +56,89 @@ public class KeyboardViewGestureListener implements ViewGestureDetector.Listener
     @Override
     public void onGesture(
             Key key, ViewGestureDetector.GestureType type, ViewGestureDetector.GestureData data
+    ) {
+        if (ViewGestureTrace.isRecording()) {
+            ViewGestureTrace.record(type, data, key != null ? key.hashCode() : null, describeKey(key));
+        }
+
+        UserKeyMsg msg = createUserKeyMsg(key, type, data);
+        if (msg != null) {
+            this.keyboardView.onMsg(msg);
+        }
+    }
+
+    /**
+     * 根据手势创建 {@link UserKeyMsg}
+     * <p/>
+     * 也用于在无界面的环境中回放{@link ViewGestureTrace 已录制的手势}
+     *
+     * @return 若不需要发送消息，则返回 null
+     */
+    public static UserKeyMsg createUserKeyMsg(
+            Key key, ViewGestureDetector.GestureType type, ViewGestureDetector.GestureData data
     ) {
         switch (type) {
             case PressStart: {
-                fire_UserKeyMsg_with_NonNullKey(UserKeyMsgType.Press_Key_Start, key, data);
-                break;
+                return createUserKeyMsg_with_NonNullKey(UserKeyMsgType.Press_Key_Start, key, data);
             }
             case PressEnd: {
-                fire_UserKeyMsg_with_NonNullKey(UserKeyMsgType.Press_Key_Stop, key, data);
-                break;
+                return createUserKeyMsg_with_NonNullKey(UserKeyMsgType.Press_Key_Stop, key, data);
             }
             case LongPressStart: {
-                fire_UserKeyMsg_with_NonNullKey(UserKeyMsgType.LongPress_Key_Start, key, data);
-                break;
+                return createUserKeyMsg_with_NonNullKey(UserKeyMsgType.LongPress_Key_Start, key, data);
             }
             case LongPressTick: {
-                fire_UserKeyMsg_with_NonNullKey(UserKeyMsgType.LongPress_Key_Tick, key, data);
-                break;
+                return createUserKeyMsg_with_NonNullKey(UserKeyMsgType.LongPress_Key_Tick, key, data);
             }
             case LongPressEnd: {
-                fire_UserKeyMsg(UserKeyMsgType.LongPress_Key_Stop, null, data);
-                break;
+                return createUserKeyMsg(UserKeyMsgType.LongPress_Key_Stop, null, data);
             }
             case SingleTap: {
-                fire_UserKeyMsg_with_NonNullKey(UserKeyMsgType.SingleTap_Key, key, data);
-                break;
+                return createUserKeyMsg_with_NonNullKey(UserKeyMsgType.SingleTap_Key, key, data);
             }
             case DoubleTap: {
-                fire_UserKeyMsg_with_NonNullKey(UserKeyMsgType.DoubleTap_Key, key, data);
-                break;
+                return createUserKeyMsg_with_NonNullKey(UserKeyMsgType.DoubleTap_Key, key, data);
             }
             case MovingStart: {
-                fire_UserKeyMsg_with_NonNullKey(UserKeyMsgType.FingerMoving_Start, key, data);
-                break;
+                return createUserKeyMsg_with_NonNullKey(UserKeyMsgType.FingerMoving_Start, key, data);
             }
             case Moving: {
-                fire_UserKeyMsg(UserKeyMsgType.FingerMoving, key, data);
-                break;
+                return createUserKeyMsg(UserKeyMsgType.FingerMoving, key, data);
             }
             case MovingEnd: {
-                fire_UserKeyMsg(UserKeyMsgType.FingerMoving_Stop, key, data);
-                break;
+                return createUserKeyMsg(UserKeyMsgType.FingerMoving_Stop, key, data);
             }
             case Flipping: {
-                fire_UserKeyMsg(UserKeyMsgType.FingerFlipping, key, data);
-                break;
+                return createUserKeyMsg(UserKeyMsgType.FingerFlipping, key, data);
             }
         }
+        return null;
     }
 
-    /** 仅在 {@link Key} 不为 null 时才发送 {@link UserKeyMsg} */
-    private void fire_UserKeyMsg_with_NonNullKey(
+    /** 获取 {@link Key} 的描述，用于在回放{@link ViewGestureTrace 已录制的手势}时定位按键 */
+    public static String describeKey(Key key) {
+        if (key == null) {
+            return null;
+        }
+
+        String desc = key.getClass().getSimpleName() + ":" + key.value;
+        if (key instanceof TypedKey) {
+            desc += ":" + ((TypedKey<?>) key).type;
+        }
+        return desc;
+    }
+
+    /** 仅在 {@link Key} 不为 null 时才创建 {@link UserKeyMsg} */
+    private static UserKeyMsg createUserKeyMsg_with_NonNullKey(
             UserKeyMsgType msgType, Key key, ViewGestureDetector.GestureData data
     ) {
-        if (key != null) {
-            fire_UserKeyMsg(msgType, key, data);
-        }
+        return key != null ? createUserKeyMsg(msgType, key, data) : null;
     }
 
-    /** 发送 {@link UserKeyMsg} 消息，且不限定 {@link Key} 是否为 null */
-    private void fire_UserKeyMsg(UserKeyMsgType msgType, Key key, ViewGestureDetector.GestureData data) {
+    /** 创建 {@link UserKeyMsg} 消息，且不限定 {@link Key} 是否为 null */
+    private static UserKeyMsg createUserKeyMsg(
+            UserKeyMsgType msgType, Key key, ViewGestureDetector.GestureData data
+    ) {
         UserKeyMsgData msgData = new UserKeyMsgData(key, data.at);
 
         switch (msgType) {
@@ -141,8 +166,7 @@ public class KeyboardViewGestureListener implements ViewGestureDetector.Listener
         }
 
         UserKeyMsgData finalMsgData = msgData;
-        UserKeyMsg msg = UserKeyMsg.build((b) -> b.type(msgType).data(finalMsgData));
-        this.keyboardView.onMsg(msg);
+        return UserKeyMsg.build((b) -> b.type(msgType).data(finalMsgData));
     }
 
     // ======================== End: 响应按键手势消息 =========================
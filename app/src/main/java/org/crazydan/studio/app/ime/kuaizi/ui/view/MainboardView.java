@@ -35,6 +35,8 @@ import org.crazydan.studio.app.ime.kuaizi.conf.Config;
 import org.crazydan.studio.app.ime.kuaizi.conf.ConfigKey;
 import org.crazydan.studio.app.ime.kuaizi.core.Keyboard;
 import org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsg;
+import org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsgBus;
+import org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsgType;
 import org.crazydan.studio.app.ime.kuaizi.ui.view.key.XPadKeyViewHolder;
 import org.crazydan.studio.app.ime.kuaizi.ui.view.xpad.XPadView;
 
@@ -52,6 +54,7 @@ public class MainboardView extends BaseMsgListenerView implements ViewClosable {
     private final TextView warningView;
     private final KeyboardView keyboardView;
     private final InputboardView inputboardView;
+    private final InputMsgBus msgBus;
 
     private boolean needToAddBottomSpacing;
 
@@ -67,6 +70,12 @@ public class MainboardView extends BaseMsgListenerView implements ViewClosable {
         this.inputboardView = findViewById(R.id.inputboard);
         this.inputboardView.setListener(this);
 
+        // Note: 涉及重建视图的情况，因此，需先处理当前视图的消息，再转发消息到子视图
+        this.msgBus = new InputMsgBus() //
+                .subscribe(this::handleMsg, InputMsgType.Keyboard_Start_Doing, InputMsgType.Keyboard_Start_Done) //
+                .subscribe(this.keyboardView, InputMsgBus.except(KeyboardView.IGNORED_MSG_TYPES)) //
+                .subscribeAll(this.inputboardView);
+
         // 监听系统导航高度的变化以添加底部空白，避免系统导航遮挡键盘
         setOnApplyWindowInsetsListener((v, insets) -> {
             int navBarHeight = insets.getStableInsetBottom();
@@ -103,6 +112,9 @@ public class MainboardView extends BaseMsgListenerView implements ViewClosable {
 
     @Override
     public void close() {
+        // Note: 丢弃未执行的视图更新，以避免在键盘关闭后仍按过期的消息更新视图
+        this.keyboardView.cancelScheduledUpdate();
+        this.inputboardView.cancelScheduledUpdate();
     }
 
     // =============================== Start: 消息处理 ===================================
@@ -110,20 +122,14 @@ public class MainboardView extends BaseMsgListenerView implements ViewClosable {
     /** 响应 {@link InputMsg} 消息：向下传递消息给内部视图 */
     @Override
     public void onMsg(InputMsg msg) {
+        this.msgBus.onMsg(msg);
+    }
+
+    private void handleMsg(InputMsg msg) {
         this.log.beginTreeLog("Handle %s", () -> new Object[] { msg.getClass() }) //
                 .debug("Message Type: %s", () -> new Object[] { msg.type }) //
                 .debug("Message Data: %s", () -> new Object[] { msg.data() });
 
-        handleMsg(msg);
-
-        this.log.endTreeLog();
-
-        // Note: 涉及重建视图的情况，因此，需在最后转发消息到子视图
-        this.keyboardView.onMsg(msg);
-        this.inputboardView.onMsg(msg);
-    }
-
-    private void handleMsg(InputMsg msg) {
         switch (msg.type) {
             case Keyboard_Start_Doing: {
                 toggleShowKeyboardWarning(true);
@@ -133,10 +139,9 @@ public class MainboardView extends BaseMsgListenerView implements ViewClosable {
                 toggleShowKeyboardWarning(false);
                 break;
             }
-            default: {
-                this.log.warn("Ignore message %s", () -> new Object[] { msg.type });
-            }
         }
+
+        this.log.endTreeLog();
     }
 
     // =============================== End: 消息处理 ===================================
@@ -43,15 +43,16 @@ public class InputFavoriteListViewAdapter extends RecyclerViewAdapter<InputFavor
     private final List<Integer> selected;
 
     public InputFavoriteListViewAdapter(ItemListener listener) {
-        super(ItemUpdatePolicy.differ);
+        super(ItemUpdatePolicy.differ_async);
 
         this.selected = new ArrayList<>();
         this.listener = listener;
     }
 
     public void updateItem(InputFavorite newItem) {
-        for (int i = 0; i < this.items.size(); i++) {
-            InputFavorite item = this.items.get(i);
+        List<InputFavorite> items = getLatestItems();
+        for (int i = 0; i < items.size(); i++) {
+            InputFavorite item = items.get(i);
 
             if (Objects.equals(item.id, newItem.id)) {
                 updateItem(i, newItem);
@@ -66,6 +67,11 @@ public class InputFavoriteListViewAdapter extends RecyclerViewAdapter<InputFavor
         return super.updateItems(newItems);
     }
 
+    @Override
+    protected boolean isSameItem(InputFavorite oldItem, InputFavorite newItem) {
+        return Objects.equals(oldItem.id, newItem.id);
+    }
+
     @Override
     public void clearItems() {
         this.selected.clear();
@@ -80,8 +86,9 @@ public class InputFavoriteListViewAdapter extends RecyclerViewAdapter<InputFavor
     @Override
     public void removeItems(List<Integer> ids) {
         List<Integer> positions = new ArrayList<>(ids.size());
-        for (int i = 0; i < this.items.size(); i++) {
-            InputFavorite item = this.items.get(i);
+        List<InputFavorite> items = getLatestItems();
+        for (int i = 0; i < items.size(); i++) {
+            InputFavorite item = items.get(i);
 
             if (ids.contains(item.id)) {
                 positions.add(i);
@@ -104,9 +111,10 @@ public class InputFavoriteListViewAdapter extends RecyclerViewAdapter<InputFavor
                 this.selected.remove(item.id);
             }
 
-            this.listener.onItemCheck(position, checked);
+            // Note: 数据项可能被移动且不重新绑定，故而，需取其当前位置
+            this.listener.onItemCheck(holder.getAdapterPosition(), checked);
         }, () -> {
-            this.listener.onItemPaste(position);
+            this.listener.onItemPaste(holder.getAdapterPosition());
         });
     }
 
@@ -19,6 +19,9 @@
 
 package org.crazydan.studio.app.ime.kuaizi.ui.view.input;
 
+import java.util.Arrays;
+import java.util.Objects;
+
 import android.view.View;
 import android.view.ViewGroup;
 import androidx.annotation.NonNull;
@@ -50,6 +53,28 @@ public class InputListViewAdapter extends RecyclerViewAdapter<InputViewData, Inp
         holder.bind(item);
     }
 
+    /**
+     * 以{@link InputViewData#inputId 输入标识}识别同一输入，从而在插入或删除输入时，其后的输入视图无需重新绑定，
+     * 而对输入的修改（如，更换候选字）则仅更新其视图
+     */
+    @Override
+    protected boolean isSameItem(InputViewData oldItem, InputViewData newItem) {
+        return oldItem.inputId == newItem.inputId;
+    }
+
+    @Override
+    protected boolean isSameItemContent(InputViewData oldItem, InputViewData newItem) {
+        // Note: 仅算术输入的视图与其位置相关
+        return (oldItem.type != InputViewData.Type.MathExpr || oldItem.position == newItem.position)
+               && oldItem.type == newItem.type
+               && Objects.equals(oldItem.text, newItem.text)
+               && Objects.equals(oldItem.spell, newItem.spell)
+               && oldItem.hasPending == newItem.hasPending
+               && oldItem.selected == newItem.selected
+               && Arrays.equals(oldItem.gapSpaces, newItem.gapSpaces)
+               && Objects.equals(oldItem.inputs, newItem.inputs);
+    }
+
     @Override
     public int getItemViewType(int position) {
         InputViewData item = getItem(position);
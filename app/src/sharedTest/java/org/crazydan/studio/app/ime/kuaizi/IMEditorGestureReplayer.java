@@ -0,0 +1,176 @@
+/*
+ * 筷字输入法 - 高效编辑需要又好又快的输入法
+ * Copyright (C) 2025 Crazydan Studio <https://studio.crazydan.org>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.
+ * If not, see <https://www.gnu.org/licenses/lgpl-3.0.en.html#license-text>.
+ */
+
+package org.crazydan.studio.app.ime.kuaizi;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.crazydan.studio.app.ime.kuaizi.common.widget.ViewGestureTrace;
+import org.crazydan.studio.app.ime.kuaizi.core.Key;
+import org.crazydan.studio.app.ime.kuaizi.core.KeyFactory;
+import org.crazydan.studio.app.ime.kuaizi.core.key.XPadKey;
+import org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsg;
+import org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsgListener;
+import org.crazydan.studio.app.ime.kuaizi.core.msg.InputMsgType;
+import org.crazydan.studio.app.ime.kuaizi.core.msg.UserKeyMsg;
+import org.crazydan.studio.app.ime.kuaizi.core.msg.input.InputListCommitMsgData;
+import org.crazydan.studio.app.ime.kuaizi.ui.view.KeyboardViewGestureListener;
+
+/**
+ * 在无界面的环境中，向 {@link IMEditor} 回放{@link ViewGestureTrace 录制的手势}
+ * <p/>
+ * 按键根据 {@link IMEditor} 最近发送的 {@link KeyFactory} 定位，即，与键盘视图所显示的按键一致，
+ * 并记录回放过程中所提交的文本，以供校验回放结果
+ * <p/>
+ * 注：JVM 单元测试和设备测试共用该回放器，前者校验键盘状态机的正确性，后者测量真实字典下的输入耗时
+ *
+ * @author <a href="mailto:flytreeleft@crazydan.org">flytreeleft</a>
+ * @date 2025-06-27
+ */
+public class IMEditorGestureReplayer implements InputMsgListener {
+    private final IMEditor editor;
+
+    private KeyFactory keyFactory;
+    private final StringBuilder committed = new StringBuilder();
+
+    /** 已回放的手势数 */
+    private int replayed;
+    /** 因目标按键不存在而未回放的手势数 */
+    private int missed;
+
+    public IMEditorGestureReplayer(IMEditor editor) {
+        this.editor = editor;
+        this.editor.setListener(this);
+    }
+
+    @Override
+    public void onMsg(InputMsg msg) {
+        if (msg.keyFactory() != null) {
+            this.keyFactory = msg.keyFactory();
+        }
+
+        if (msg.type == InputMsgType.InputList_Commit_Doing) {
+            InputListCommitMsgData data = msg.data();
+            this.committed.append(data.text);
+        }
+    }
+
+    /** 获取回放过程中所提交的文本 */
+    public String getCommitted() {
+        return this.committed.toString();
+    }
+
+    public int getReplayed() {
+        return this.replayed;
+    }
+
+    public int getMissed() {
+        return this.missed;
+    }
+
+    /**
+     * 回放手势
+     *
+     * @param costs
+     *         用于按序记录各个手势的处理耗时（纳秒），其长度需不小于手势数，可为 null
+     */
+    public void replay(ViewGestureTrace trace, long[] costs) {
+        for (ViewGestureTrace.Entry entry : trace.getEntries()) {
+            Key key = findKey(this.keyFactory, entry);
+            if (key == null && (entry.targetHash != null || entry.targetDesc != null)) {
+                // 目标按键不存在，视为回放偏离
+                this.missed += 1;
+                continue;
+            }
+
+            UserKeyMsg msg = KeyboardViewGestureListener.createUserKeyMsg(key, entry.type, entry.data);
+            if (msg == null) {
+                continue;
+            }
+
+            long start = System.nanoTime();
+            this.editor.onMsg(msg);
+            long cost = System.nanoTime() - start;
+
+            if (costs != null) {
+                costs[this.replayed] = cost;
+            }
+            this.replayed += 1;
+        }
+    }
+
+    /**
+     * 优先按 hash 精确定位按键，在 hash 不匹配时（如，配置不同）再按描述定位
+     * <p/>
+     * 手写的手势记录可仅提供按键描述，如 <code>CharKey:a:Alphabet</code>
+     */
+    public static Key findKey(KeyFactory keyFactory, ViewGestureTrace.Entry entry) {
+        if (keyFactory == null || (entry.targetHash == null && entry.targetDesc == null)) {
+            return null;
+        }
+
+        List<Key> keys = new ArrayList<>();
+        for (Key[] row : keyFactory.getKeys()) {
+            for (Key key : row) {
+                collectKeys(keys, key);
+            }
+        }
+
+        if (entry.targetHash != null) {
+            for (Key key : keys) {
+                if (key.hashCode() == entry.targetHash) {
+                    return key;
+                }
+            }
+        }
+        if (entry.targetDesc != null) {
+            for (Key key : keys) {
+                if (entry.targetDesc.equals(KeyboardViewGestureListener.describeKey(key))) {
+                    return key;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void collectKeys(List<Key> keys, Key key) {
+        if (key == null) {
+            return;
+        }
+        keys.add(key);
+
+        if (!(key instanceof XPadKey)) {
+            return;
+        }
+
+        XPadKey xPadKey = (XPadKey) key;
+        collectKeys(keys, xPadKey.zone_0_key);
+        for (Key k : xPadKey.zone_1_keys) {
+            collectKeys(keys, k);
+        }
+        for (Key[][] zone : xPadKey.zone_2_keys) {
+            for (Key[] row : zone) {
+                for (Key k : row) {
+                    collectKeys(keys, k);
+                }
+            }
+        }
+    }
+}
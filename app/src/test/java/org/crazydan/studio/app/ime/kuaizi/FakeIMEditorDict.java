@@ -0,0 +1,336 @@
+/*
+ * 筷字输入法 - 高效编辑需要又好又快的输入法
+ * Copyright (C) 2025 Crazydan Studio <https://studio.crazydan.org>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.
+ * If not, see <https://www.gnu.org/licenses/lgpl-3.0.en.html#license-text>.
+ */
+
+package org.crazydan.studio.app.ime.kuaizi;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import android.content.Context;
+import org.crazydan.studio.app.ime.kuaizi.core.input.CharInput;
+import org.crazydan.studio.app.ime.kuaizi.core.input.InputFavorite;
+import org.crazydan.studio.app.ime.kuaizi.core.input.InputWord;
+import org.crazydan.studio.app.ime.kuaizi.core.input.word.PinyinWord;
+import org.crazydan.studio.app.ime.kuaizi.dict.Emojis;
+import org.crazydan.studio.app.ime.kuaizi.dict.PinyinCandidateFilterIndex;
+import org.crazydan.studio.app.ime.kuaizi.dict.PinyinCharsTree;
+import org.crazydan.studio.app.ime.kuaizi.dict.PinyinDict;
+import org.crazydan.studio.app.ime.kuaizi.dict.UserInputData;
+import org.crazydan.studio.app.ime.kuaizi.dict.UserInputDataDict;
+import org.crazydan.studio.app.ime.kuaizi.dict.UserInputFavoriteDict;
+
+/**
+ * 基于内存数据的 {@link IMEditorDict}，用于在 JVM 中测试键盘的状态机
+ * <p/>
+ * 仅收录少量拼音字和短语，且不做联想，从而使测试结果不依赖字典数据；
+ * 用户数据的保存不做持久化，仅记录于 {@link #getSavedData()} 中以供校验
+ *
+ * @author <a href="mailto:flytreeleft@crazydan.org">flytreeleft</a>
+ * @date 2025-06-27
+ */
+public class FakeIMEditorDict extends IMEditorDict {
+    /** 收录的拼音字：<code>{'拼音字母组合': [[字, 读音, 部首, 部首笔画数], ...]}</code>，按权重降序排列 */
+    private static final String[][][] PINYIN_WORDS = new String[][][] {
+            { { "ni" }, { "你", "nǐ", "亻", "2" }, { "尼", "ní", "尸", "3" }, { "泥", "ní", "氵", "3" } },
+            { { "hao" }, { "好", "hǎo", "女", "3" }, { "号", "hào", "口", "3" } },
+            { { "ba" }, { "吧", "ba", "口", "3" }, { "巴", "bā", "己", "3" } },
+            { { "zhong" }, { "中", "zhōng", "丨", "1" } },
+            { { "guo" }, { "国", "guó", "囗", "3" } },
+    };
+    /** 收录的拼音短语：仅在输入的拼音与其完全一致时，才作为预测结果 */
+    private static final String[] PINYIN_PHRASES = new String[] { "泥巴" };
+
+    private boolean opened;
+
+    private final FakePinyinDict pinyinDict;
+    private final FakeUserInputDataDict userInputDataDict = new FakeUserInputDataDict();
+    private final FakeUserInputFavoriteDict userInputFavoriteDict = new FakeUserInputFavoriteDict();
+
+    public FakeIMEditorDict() {
+        Map<String, Integer> pinyinCharsAndIdMap = new HashMap<>();
+        List<PinyinWord> words = new ArrayList<>();
+
+        for (String[][] data : PINYIN_WORDS) {
+            String chars = data[0][0];
+            int charsId = pinyinCharsAndIdMap.size() + 1;
+            pinyinCharsAndIdMap.put(chars, charsId);
+
+            for (int i = 1; i < data.length; i++) {
+                String[] word = data[i];
+                int id = words.size() + 1;
+                // Note: 按出现顺序递减权重，以使其候选顺序与收录顺序一致
+                int weight = 100 - id;
+
+                words.add(PinyinWord.build((b) -> b.id(id)
+                                                    .value(word[0])
+                                                    .weight(weight)
+                                                    .spell(new PinyinWord.Spell(word[1], id, charsId))
+                                                    .radical(new PinyinWord.Radical(word[2],
+                                                                                    Integer.parseInt(word[3])))
+                                                    .glyphId(id)));
+            }
+        }
+
+        this.pinyinDict = new FakePinyinDict(PinyinCharsTree.create(pinyinCharsAndIdMap), words);
+    }
+
+    /** 获取已{@link UserInputDataDict#save 保存}的用户输入数据 */
+    public List<UserInputData> getSavedData() {
+        return this.userInputDataDict.saved;
+    }
+
+    @Override
+    public boolean isOpened() {
+        return this.opened;
+    }
+
+    @Override
+    public synchronized CompletableFuture<Void> open(Context context) {
+        this.opened = true;
+
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public synchronized void close() {
+        this.opened = false;
+    }
+
+    @Override
+    public PinyinDict usePinyinDict() {
+        return this.pinyinDict;
+    }
+
+    @Override
+    public UserInputDataDict useUserInputDataDict() {
+        return this.userInputDataDict;
+    }
+
+    @Override
+    public UserInputFavoriteDict useUserInputFavoriteDict() {
+        return this.userInputFavoriteDict;
+    }
+
+    @Override
+    public synchronized CompletableFuture<Void> maintain() {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public synchronized CompletableFuture<Void> prepare(Runnable task) {
+        task.run();
+
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private static class FakePinyinDict extends PinyinDict {
+        private final Map<Integer, PinyinWord> words = new LinkedHashMap<>();
+        private final List<String> phrases = List.of(PINYIN_PHRASES);
+
+        FakePinyinDict(PinyinCharsTree pinyinCharsTree, List<PinyinWord> words) {
+            super(null, null, pinyinCharsTree);
+
+            words.forEach((word) -> this.words.put(word.id, word));
+        }
+
+        @Override
+        public PinyinWord getWord(String word, String pinyin) {
+            return this.words.values()
+                             .stream()
+                             .filter((w) -> w.value.equals(word) && w.spell.value.equals(pinyin))
+                             .findFirst()
+                             .orElse(null);
+        }
+
+        @Override
+        public Map<Integer, InputWord> getCandidates(CharInput input) {
+            Map<Integer, InputWord> candidates = new LinkedHashMap<>();
+            getWords(input).forEach((word) -> candidates.put(word.id, word));
+
+            return candidates;
+        }
+
+        @Override
+        public List<Integer> getCandidateIds(CharInput input) {
+            return getWords(input).stream().map((word) -> word.id).collect(Collectors.toList());
+        }
+
+        @Override
+        public PinyinCandidateFilterIndex getCandidateFilterIndex(CharInput input) {
+            PinyinCandidateFilterIndex index = new PinyinCandidateFilterIndex();
+            getWords(input).forEach((word) -> index.add(word.id, word.spell, word.radical));
+
+            return index;
+        }
+
+        @Override
+        public Map<Integer, PinyinWord> getCandidatesByIds(Collection<Integer> wordIds) {
+            Map<Integer, PinyinWord> candidates = new HashMap<>();
+            wordIds.forEach((id) -> candidates.put(id, this.words.get(id)));
+
+            return candidates;
+        }
+
+        @Override
+        public PinyinWord getFirstBestCandidate(Integer pinyinCharsId) {
+            return getWords(pinyinCharsId).stream().findFirst().orElse(null);
+        }
+
+        @Override
+        public List<Integer> getTopBestCandidateIds(CharInput input, int top) {
+            return getCandidateIds(input).stream().limit(top).collect(Collectors.toList());
+        }
+
+        @Override
+        public List<String> segmentPinyinChars(String text) {
+            // Note: 各拼音的使用频率均相同
+            return getPinyinCharsTree().segmentChars(text, (charsId) -> 0.0);
+        }
+
+        @Override
+        public List<List<InputWord>> findTopBestMatchedPhrase(List<CharInput> inputs, CharInput currentInput, int top) {
+            for (String phrase : this.phrases) {
+                if (phrase.length() != inputs.size()) {
+                    continue;
+                }
+
+                List<InputWord> phraseWords = new ArrayList<>();
+                for (int i = 0; i < phrase.length(); i++) {
+                    String value = String.valueOf(phrase.charAt(i));
+                    getWords(inputs.get(i)).stream()
+                                           .filter((word) -> word.value.equals(value))
+                                           .findFirst()
+                                           .ifPresent(phraseWords::add);
+                }
+
+                if (phraseWords.size() == inputs.size()) {
+                    List<List<InputWord>> bestPhrases = new ArrayList<>();
+                    bestPhrases.add(phraseWords);
+
+                    return bestPhrases;
+                }
+            }
+            return List.of();
+        }
+
+        @Override
+        public List<List<PinyinWord>> findTopBestMatchedPhraseByInitials(List<String> initialsList, int top) {
+            return List.of();
+        }
+
+        @Override
+        public List<PinyinWord> findTopBestNextWords(PinyinWord prevWord, int top) {
+            return List.of();
+        }
+
+        @Override
+        public void prefetchNextWords(PinyinWord prevWord) {
+        }
+
+        @Override
+        public List<InputWord> findTopBestEmojisMatchedPhrase(List<PinyinWord> phraseWords, int top) {
+            return List.of();
+        }
+
+        private List<PinyinWord> getWords(CharInput input) {
+            return getWords(getPinyinCharsTree().getCharsId(input));
+        }
+
+        private List<PinyinWord> getWords(Integer pinyinCharsId) {
+            return this.words.values()
+                             .stream()
+                             .filter((word) -> word.spell.charsId.equals(pinyinCharsId))
+                             .collect(Collectors.toList());
+        }
+    }
+
+    private static class FakeUserInputDataDict extends UserInputDataDict {
+        private final List<UserInputData> saved = new ArrayList<>();
+
+        FakeUserInputDataDict() {
+            super(null, null);
+        }
+
+        @Override
+        public CompletableFuture<Void> save(UserInputData data) {
+            if (!data.isEmpty()) {
+                this.saved.add(data);
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Void> revokeSave(UserInputData data) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public Emojis getAllEmojis(int groupGeneralCount) {
+            return new Emojis(new LinkedHashMap<>());
+        }
+
+        @Override
+        public List<String> findTopBestMatchedLatins(String text, int top) {
+            return List.of();
+        }
+    }
+
+    private static class FakeUserInputFavoriteDict extends UserInputFavoriteDict {
+
+        FakeUserInputFavoriteDict() {
+            super(null, null);
+        }
+
+        @Override
+        public CompletableFuture<InputFavorite> save(InputFavorite favorite) {
+            return CompletableFuture.completedFuture(favorite);
+        }
+
+        @Override
+        public CompletableFuture<InputFavorite> updateUsage(InputFavorite favorite) {
+            return CompletableFuture.completedFuture(favorite);
+        }
+
+        @Override
+        public CompletableFuture<List<InputFavorite>> getAll() {
+            return CompletableFuture.completedFuture(List.of());
+        }
+
+        @Override
+        public CompletableFuture<Void> remove(List<Integer> ids) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Void> clearAll() {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> exist(String text) {
+            return CompletableFuture.completedFuture(false);
+        }
+    }
+}
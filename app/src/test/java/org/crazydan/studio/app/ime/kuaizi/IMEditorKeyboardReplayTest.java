@@ -0,0 +1,151 @@
+/*
+ * 筷字输入法 - 高效编辑需要又好又快的输入法
+ * Copyright (C) 2025 Crazydan Studio <https://studio.crazydan.org>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.
+ * If not, see <https://www.gnu.org/licenses/lgpl-3.0.en.html#license-text>.
+ */
+
+package org.crazydan.studio.app.ime.kuaizi;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+import android.content.ContextWrapper;
+import org.crazydan.studio.app.ime.kuaizi.common.widget.ViewGestureTrace;
+import org.crazydan.studio.app.ime.kuaizi.conf.Config;
+import org.crazydan.studio.app.ime.kuaizi.conf.ConfigKey;
+import org.crazydan.studio.app.ime.kuaizi.core.Keyboard;
+import org.crazydan.studio.app.ime.kuaizi.core.msg.UserInputMsg;
+import org.crazydan.studio.app.ime.kuaizi.core.msg.UserInputMsgType;
+import org.crazydan.studio.app.ime.kuaizi.core.msg.user.UserInputListInputMsgData;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * 在 JVM 中回放 {@link ViewGestureTrace 手势记录}，以校验 {@link IMEditor} 的键盘状态机
+ * <p/>
+ * 字典采用 {@link FakeIMEditorDict}，Android 接口则均返回默认值（见 <code>unitTests.returnDefaultValues</code>），
+ * 故而，仅用于校验按键到输入提交的处理逻辑，输入耗时需通过设备测试 <code>IMEditorGestureReplayTest</code> 测量。
+ * 手势记录放在 <code>resources/gesture-traces</code> 目录中，其按键仅需提供描述即可
+ *
+ * @author <a href="mailto:flytreeleft@crazydan.org">flytreeleft</a>
+ * @date 2025-06-27
+ */
+public class IMEditorKeyboardReplayTest {
+    private static final String TRACE_DIR = "/gesture-traces/";
+
+    private FakeIMEditorDict dict;
+    private IMEditor editor;
+    private IMEditorGestureReplayer replayer;
+
+    @Before
+    public void setUp() {
+        Config.Mutable config = new Config.Mutable();
+        for (ConfigKey key : ConfigKey.values()) {
+            config.set(key, key.parse(null));
+        }
+        // Note: 跟随系统的主题需读取系统配置，而剪贴板在测试环境中不可用
+        config.set(ConfigKey.theme, Keyboard.Theme.light);
+        config.set(ConfigKey.disable_input_clip_popup_tips, true);
+
+        this.dict = new FakeIMEditorDict();
+        this.editor = new IMEditor(config, this.dict);
+        this.replayer = new IMEditorGestureReplayer(this.editor);
+    }
+
+    @After
+    public void tearDown() {
+        this.editor.destroy();
+    }
+
+    @Test
+    public void test_replay_latin_direct_input() throws Exception {
+        replay(Keyboard.Type.Latin, "latin-direct-input.trace");
+
+        Assert.assertEquals("hi ", this.replayer.getCommitted());
+    }
+
+    @Test
+    public void test_replay_pinyin_slip_input() throws Exception {
+        replay(Keyboard.Type.Pinyin, "pinyin-slip-input.trace");
+
+        Assert.assertEquals("你好", this.replayer.getCommitted());
+        // 提交的拼音短语将被保存为用户数据
+        Assert.assertEquals(1, this.dict.getSavedData().size());
+    }
+
+    @Test
+    public void test_replay_pinyin_phrase_undo() throws Exception {
+        replay(Keyboard.Type.Pinyin, "pinyin-phrase-undo.trace");
+
+        // 短语预测对前一输入的候选字修改，不能影响撤销后恢复的输入
+        String text = this.editor.withKeyboardContext((context) -> {
+            return context.inputList.getText().toString();
+        });
+        Assert.assertEquals("你", text);
+    }
+
+    @Test
+    public void test_replay_math_expr_edit_undo() throws Exception {
+        replay(Keyboard.Type.Pinyin, "math-expr-input.trace");
+
+        // 选中算术输入（位于开头的 Gap 之后），以在其上继续编辑
+        UserInputListInputMsgData data = new UserInputListInputMsgData(-1, 1);
+        this.editor.onMsg(UserInputMsg.build((b) -> b.type(UserInputMsgType.SingleTap_Input).data(data)));
+
+        replayNext("math-expr-edit-undo.trace");
+
+        // 对算术输入的修改，不能影响撤销后恢复的输入
+        String text = this.editor.withKeyboardContext((context) -> {
+            return context.inputList.getText().toString();
+        });
+        Assert.assertEquals("1 + 2 你", text);
+    }
+
+    private void replay(Keyboard.Type keyboardType, String traceName) throws IOException {
+        ViewGestureTrace trace = readTrace(traceName);
+
+        this.editor.start(new ContextWrapper(null), keyboardType, true);
+        this.replayer.replay(trace, null);
+
+        Assert.assertEquals("Missed gestures in " + traceName, 0, this.replayer.getMissed());
+        Assert.assertEquals(trace.getEntries().size(), this.replayer.getReplayed());
+    }
+
+    /** 在当前状态上继续回放手势 */
+    private void replayNext(String traceName) throws IOException {
+        ViewGestureTrace trace = readTrace(traceName);
+        int replayed = this.replayer.getReplayed();
+
+        this.replayer.replay(trace, null);
+
+        Assert.assertEquals("Missed gestures in " + traceName, 0, this.replayer.getMissed());
+        Assert.assertEquals(trace.getEntries().size(), this.replayer.getReplayed() - replayed);
+    }
+
+    private ViewGestureTrace readTrace(String name) throws IOException {
+        InputStream input = getClass().getResourceAsStream(TRACE_DIR + name);
+        Assert.assertNotNull("No gesture trace " + name, input);
+
+        try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+            return ViewGestureTrace.read(reader);
+        }
+    }
+}
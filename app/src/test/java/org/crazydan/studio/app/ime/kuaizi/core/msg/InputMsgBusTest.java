@@ -0,0 +1,190 @@
+/*
+ * 筷字输入法 - 高效编辑需要又好又快的输入法
+ * Copyright (C) 2025 Crazydan Studio <https://studio.crazydan.org>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.
+ * If not, see <https://www.gnu.org/licenses/lgpl-3.0.en.html#license-text>.
+ */
+
+package org.crazydan.studio.app.ime.kuaizi.core.msg;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * {@link InputMsgBus} 的派发校验和派发耗时的基准测试
+ * <p/>
+ * 基准测试对比 逐层转发全部消息再由订阅者判断是否忽略 与 按类型派发 两种方式，
+ * 二者的订阅者及其忽略的消息类型均相同，且需处理的消息数也必须一致。
+ * 基准测试的耗时较长，故而，不在默认的单元测试中运行，需在对比派发性能时单独移除其 {@link Ignore} 后运行
+ *
+ * @author <a href="mailto:flytreeleft@crazydan.org">flytreeleft</a>
+ * @date 2025-06-27
+ */
+public class InputMsgBusTest {
+    /** 订阅者数量，与主面板中的子视图数量相当 */
+    private static final int SUBSCRIBER_COUNT = 4;
+    private static final int WARMUP_ROUNDS = 20_000;
+    private static final int BENCHMARK_ROUNDS = 200_000;
+
+    @Test
+    public void test_dispatch_by_type() {
+        List<String> received = new ArrayList<>();
+
+        InputMsgBus bus = new InputMsgBus() //
+                .subscribe((msg) -> received.add("a:" + msg.type), InputMsgType.Keyboard_Start_Done) //
+                .subscribe((msg) -> received.add("b:" + msg.type),
+                           InputMsgType.Keyboard_Start_Done,
+                           InputMsgType.InputList_Commit_Doing) //
+                .subscribeRest((msg) -> received.add("rest:" + msg.type));
+
+        bus.onMsg(msg(InputMsgType.Keyboard_Start_Done));
+        bus.onMsg(msg(InputMsgType.InputList_Commit_Doing));
+        bus.onMsg(msg(InputMsgType.Keyboard_Close_Doing));
+
+        // 同一类型的订阅者按订阅顺序接收消息，未被订阅的消息仅由 subscribeRest 的订阅者接收
+        Assert.assertEquals(List.of("a:Keyboard_Start_Done",
+                                    "b:Keyboard_Start_Done",
+                                    "b:InputList_Commit_Doing",
+                                    "rest:Keyboard_Close_Doing"), received);
+    }
+
+    @Test
+    public void test_dispatch_coalesced() {
+        List<Runnable> scheduled = new ArrayList<>();
+        List<InputMsgType> received = new ArrayList<>();
+
+        InputMsgBus bus = new InputMsgBus() //
+                .subscribeCoalesced((msg) -> received.add(msg.type),
+                                    scheduled::add,
+                                    InputMsgBus.except(EnumSet.of(InputMsgType.InputAudio_Play_Doing)));
+
+        bus.onMsg(msg(InputMsgType.InputChars_Input_Doing));
+        bus.onMsg(msg(InputMsgType.InputAudio_Play_Doing));
+        bus.onMsg(msg(InputMsgType.InputChars_Input_Done));
+
+        // 在调度执行前到达的消息仅调度一次，且仅处理最后一条
+        Assert.assertEquals(1, scheduled.size());
+        scheduled.remove(0).run();
+        Assert.assertEquals(List.of(InputMsgType.InputChars_Input_Done), received);
+
+        // 处理完毕后，新到达的消息需重新调度
+        bus.onMsg(msg(InputMsgType.InputList_Commit_Doing));
+        Assert.assertEquals(1, scheduled.size());
+        scheduled.remove(0).run();
+        Assert.assertEquals(List.of(InputMsgType.InputChars_Input_Done, InputMsgType.InputList_Commit_Doing),
+                            received);
+    }
+
+    @Test
+    @Ignore("基准测试，仅在对比派发性能时手动运行")
+    public void test_dispatch_cost() {
+        InputMsgType[] types = InputMsgType.values();
+        InputMsg[] msgs = new InputMsg[types.length];
+        for (int i = 0; i < types.length; i++) {
+            msgs[i] = msg(types[i]);
+        }
+
+        // 第 i 个订阅者仅处理序号可被 i + 1 整除的消息，即，订阅者关注的消息依次减少
+        List<Set<InputMsgType>> ignoredTypesList = new ArrayList<>();
+        for (int i = 0; i < SUBSCRIBER_COUNT; i++) {
+            Set<InputMsgType> ignoredTypes = EnumSet.noneOf(InputMsgType.class);
+            for (InputMsgType type : types) {
+                if (type.ordinal() % (i + 1) != 0) {
+                    ignoredTypes.add(type);
+                }
+            }
+            ignoredTypesList.add(ignoredTypes);
+        }
+
+        Counter forwardCounter = new Counter();
+        List<InputMsgListener> forwardSubscribers = new ArrayList<>();
+        for (Set<InputMsgType> ignoredTypes : ignoredTypesList) {
+            forwardSubscribers.add((msg) -> {
+                if (ignoredTypes.contains(msg.type)) {
+                    return;
+                }
+                forwardCounter.count(msg);
+            });
+        }
+        InputMsgListener forward = (msg) -> {
+            for (InputMsgListener subscriber : forwardSubscribers) {
+                subscriber.onMsg(msg);
+            }
+        };
+
+        Counter busCounter = new Counter();
+        InputMsgBus bus = new InputMsgBus();
+        for (Set<InputMsgType> ignoredTypes : ignoredTypesList) {
+            bus.subscribe(busCounter::count, InputMsgBus.except(ignoredTypes));
+        }
+
+        // 预热：避免 JIT 编译的开销影响统计
+        dispatch(forward, msgs, WARMUP_ROUNDS);
+        dispatch(bus, msgs, WARMUP_ROUNDS);
+        forwardCounter.reset();
+        busCounter.reset();
+
+        long forwardCost = dispatch(forward, msgs, BENCHMARK_ROUNDS);
+        long busCost = dispatch(bus, msgs, BENCHMARK_ROUNDS);
+
+        Assert.assertEquals(forwardCounter.handled, busCounter.handled);
+        Assert.assertEquals(forwardCounter.checksum, busCounter.checksum);
+
+        // 按类型派发的耗时不应超过逐层转发，并在断言信息中给出二者的耗时
+        long total = (long) BENCHMARK_ROUNDS * msgs.length;
+        String costs = String.format("Dispatch %d messages to %d subscribers: forward=%.1fns/msg, bus=%.1fns/msg",
+                                     total,
+                                     SUBSCRIBER_COUNT,
+                                     (double) forwardCost / total,
+                                     (double) busCost / total);
+        Assert.assertTrue(costs, busCost <= forwardCost);
+    }
+
+    private static long dispatch(InputMsgListener listener, InputMsg[] msgs, int rounds) {
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            for (InputMsg msg : msgs) {
+                listener.onMsg(msg);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static InputMsg msg(InputMsgType type) {
+        return InputMsg.build((b) -> b.type(type));
+    }
+
+    /** 记录订阅者所处理的消息，以确保两种派发方式的处理结果一致，并避免处理过程被优化掉 */
+    private static class Counter {
+        private long handled;
+        private long checksum;
+
+        void count(InputMsg msg) {
+            this.handled += 1;
+            this.checksum += msg.type.ordinal();
+        }
+
+        void reset() {
+            this.handled = 0;
+            this.checksum = 0;
+        }
+    }
+}